@@ -13,6 +13,9 @@ import java.util.concurrent.TimeUnit;
 @EnableCaching
 public class CacheConfig {
 
+    public static final String CONTRACT_BALANCES = "contractBalances";
+    public static final String CATALOG_DEDUCTION_PLANS = "catalogDeductionPlans";
+
     @Bean
     public CacheManager cacheManager() {
         CaffeineCacheManager cacheManager = new CaffeineCacheManager(
@@ -23,6 +26,20 @@ public class CacheConfig {
                 .expireAfterWrite(5, TimeUnit.MINUTES)
                 .recordStats()
         );
+        // Per-contract balances (ContractBalanceService): evicted on every invoice/payment/charge
+        // write; the TTL bounds how long out-of-band SQL (imports, restores, psql) can go unseen
+        cacheManager.registerCustomCache(CONTRACT_BALANCES, Caffeine.newBuilder()
+                .maximumSize(50_000)
+                .expireAfterWrite(10, TimeUnit.MINUTES)
+                .recordStats()
+                .build());
+        // Stock deduction plans per boarding house (CatalogDeductionPlanService): dropped as a
+        // whole on catalog, recipe and inventory-item writes, so they get a cache of their own
+        cacheManager.registerCustomCache(CATALOG_DEDUCTION_PLANS, Caffeine.newBuilder()
+                .maximumSize(1_000)
+                .expireAfterWrite(10, TimeUnit.MINUTES)
+                .recordStats()
+                .build());
         return cacheManager;
     }
 }
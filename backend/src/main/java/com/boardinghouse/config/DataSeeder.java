@@ -277,6 +277,8 @@ public class DataSeeder implements CommandLineRunner {
         p.setInvoice(invoice); p.setPaidAmount(new BigDecimal(amount));
         p.setMethod(method); p.setPaymentDate(date); p.setNote(note);
         paymentRepository.save(p);
+        invoice.setPaidAmount(invoice.getPaidAmount().add(p.getPaidAmount()));
+        invoiceRepository.save(invoice);
     }
 
     private void addCharge(Contract contract, Room room, LocalDate date,
@@ -0,0 +1,38 @@
+package com.boardinghouse.config;
+
+import com.boardinghouse.repository.InvoiceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Idempotent migration for invoices.paid_amount.
+ *
+ * The column is added by the Flyway migration V1_1 with default 0, so invoices
+ * created before it existed need their paid amount backfilled from payments. The
+ * partial index for the outstanding-debts report is db/migration V3.
+ *
+ * Safe to run on every startup — the backfill only touches rows that are out of sync.
+ */
+@Component
+@Order(3)
+public class InvoicePaidAmountMigration implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoicePaidAmountMigration.class);
+
+    private final InvoiceRepository invoiceRepository;
+
+    public InvoicePaidAmountMigration(InvoiceRepository invoiceRepository) {
+        this.invoiceRepository = invoiceRepository;
+    }
+
+    @Override
+    public void run(String... args) {
+        int synced = invoiceRepository.syncPaidAmounts();
+        if (synced > 0) {
+            log.info("Backfilled paid_amount on {} invoice(s)", synced);
+        }
+    }
+}
@@ -14,7 +14,7 @@ public class SchedulingConfig {
     public TaskScheduler taskScheduler() {
         ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
         scheduler.setPoolSize(2);
-        scheduler.setThreadNamePrefix("backup-scheduler-");
+        scheduler.setThreadNamePrefix("app-scheduler-");
         scheduler.setDaemon(true);
         scheduler.initialize();
         return scheduler;
@@ -11,8 +11,11 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -56,15 +59,59 @@ public class BackupController {
     // ─── Trigger Endpoint ────────────────────────────────────────────────────
 
     /**
-     * Trigger manual backup ngay lập tức.
+     * Đưa backup vào hàng đợi và trả về ngay (202); id trả về là job id cho /backup/jobs/{id}.
+     * mode: FULL (mặc định), DELTA (chỉ thay đổi từ bản backup trước), AUTO (theo cấu hình).
      * Chỉ ADMIN mới được phép.
      */
     @PreAuthorize("hasRole('ADMIN')")
     @PostMapping("/trigger")
-    public ResponseEntity<BackupHistoryDto> triggerBackup(Authentication authentication) {
+    public ResponseEntity<BackupHistoryDto> triggerBackup(
+            @RequestParam(defaultValue = BackupService.MODE_FULL) String mode,
+            Authentication authentication) {
         String username = authentication != null ? authentication.getName() : "unknown";
-        BackupHistoryDto result = backupService.triggerManualBackup(username);
-        return ResponseEntity.ok(result);
+        BackupHistoryDto result = backupService.triggerManualBackup(username, mode.toUpperCase());
+        return ResponseEntity.accepted().body(result);
+    }
+
+    /**
+     * Tiến độ backup job: bảng đang ghi, số dòng, số byte, ETA; kết quả khi đã xong.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<BackupService.BackupJobStatus> getJobStatus(@PathVariable Long id) {
+        return ResponseEntity.ok(backupService.getJobStatus(id));
+    }
+
+    // ─── Restore Endpoint ────────────────────────────────────────────────────
+
+    /**
+     * Restore từ file backup .zip: bản FULL trước, sau đó các bản DELTA theo thứ tự.
+     * Toàn bộ dữ liệu hiện tại bị thay thế. Chạy trong hàng đợi backup (không song song với
+     * backup khác); trả về ngay (202) với jobId cho /backup/restore-jobs/{id}.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/restore")
+    public ResponseEntity<BackupService.RestoreJobStatus> restore(@RequestParam("files") List<MultipartFile> files) throws IOException {
+        return ResponseEntity.accepted().body(backupService.restore(files));
+    }
+
+    /**
+     * Restore trực tiếp từ file backup đã lưu trong kho (kèm bản FULL gốc nếu là DELTA).
+     * Toàn bộ dữ liệu hiện tại bị thay thế. Trả về ngay (202) với jobId như /backup/restore.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/history/{id}/restore")
+    public ResponseEntity<BackupService.RestoreJobStatus> restoreFromHistory(@PathVariable Long id) {
+        return ResponseEntity.accepted().body(backupService.restoreFromHistory(id));
+    }
+
+    /**
+     * Trạng thái restore job: QUEUED, IN_PROGRESS, SUCCESS (kèm số dòng đã import) hoặc FAILED.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/restore-jobs/{id}")
+    public ResponseEntity<BackupService.RestoreJobStatus> getRestoreJobStatus(@PathVariable Long id) {
+        return ResponseEntity.ok(backupService.getRestoreJobStatus(id));
     }
 
     // ─── History Endpoints ───────────────────────────────────────────────────
@@ -137,11 +184,11 @@ public class BackupController {
         if (!cronSecret.equals(key)) {
             return ResponseEntity.status(403).body(Map.of("error", "Invalid key"));
         }
-        BackupHistoryDto result = backupService.triggerManualBackup("EXTERNAL_CRON");
-        return ResponseEntity.ok(Map.of(
+        BackupHistoryDto result = backupService.triggerManualBackup("EXTERNAL_CRON", BackupService.MODE_AUTO);
+        return ResponseEntity.accepted().body(Map.of(
                 "success", true,
-                "status", result.getStatus(),
-                "fileName", result.getFileName() != null ? result.getFileName() : ""
+                "jobId", result.getId(),
+                "status", result.getStatus()
         ));
     }
 }
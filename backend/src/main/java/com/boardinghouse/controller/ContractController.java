@@ -1,12 +1,14 @@
 package com.boardinghouse.controller;
 
 import com.boardinghouse.dto.ContractDto;
+import com.boardinghouse.service.ContractExpiryService;
 import com.boardinghouse.service.ContractService;
 import com.boardinghouse.service.HousekeepingService;
 import jakarta.validation.Valid;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
@@ -20,13 +22,16 @@ public class ContractController {
     private final ContractService service;
     private final com.boardinghouse.service.DetailService detailService;
     private final HousekeepingService housekeepingService;
+    private final ContractExpiryService expiryService;
 
     public ContractController(ContractService service,
                               com.boardinghouse.service.DetailService detailService,
-                              HousekeepingService housekeepingService) {
+                              HousekeepingService housekeepingService,
+                              ContractExpiryService expiryService) {
         this.service = service;
         this.detailService = detailService;
         this.housekeepingService = housekeepingService;
+        this.expiryService = expiryService;
     }
 
     @GetMapping
@@ -88,5 +93,23 @@ public class ContractController {
     public ResponseEntity<com.boardinghouse.dto.ContractDetailDto> getDetail(@PathVariable Long id) {
         return ResponseEntity.ok(detailService.getContractDetail(id));
     }
-}
 
+    /**
+     * Last run of the background expiry sweeper (time, trigger, rows touched).
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/expiry-sweep")
+    public ResponseEntity<ContractExpiryService.SweepResult> getExpirySweepStatus() {
+        ContractExpiryService.SweepResult result = expiryService.getLastResult();
+        return result != null ? ResponseEntity.ok(result) : ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Run the expiry sweeper now instead of waiting for the noon run.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/expiry-sweep")
+    public ResponseEntity<ContractExpiryService.SweepResult> runExpirySweep() {
+        return ResponseEntity.ok(expiryService.sweep("MANUAL"));
+    }
+}
@@ -3,13 +3,11 @@ package com.boardinghouse.controller;
 import com.boardinghouse.dto.DashboardDto;
 import com.boardinghouse.service.DashboardService;
 import com.boardinghouse.service.CalendarService;
-import com.boardinghouse.dto.CalendarDayDto;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
-import java.util.List;
 
 @RestController
 @RequestMapping("/dashboard")
@@ -36,10 +34,18 @@ public class DashboardController {
         return ResponseEntity.ok(service.getDayActivity(date, boardingHouseId));
     }
 
+    /**
+     * Per-day list with one event per guest per day by default (format=legacy);
+     * format=compact returns each stay once with its day-index range.
+     */
     @GetMapping("/calendar")
-    public ResponseEntity<List<CalendarDayDto>> getCalendar(
+    public ResponseEntity<?> getCalendar(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "legacy") String format) {
+        if ("compact".equalsIgnoreCase(format)) {
+            return ResponseEntity.ok(calendarService.getCalendarRange(startDate, endDate));
+        }
         return ResponseEntity.ok(calendarService.getCalendarData(startDate, endDate));
     }
 }
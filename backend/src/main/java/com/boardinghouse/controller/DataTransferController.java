@@ -1,15 +1,18 @@
 package com.boardinghouse.controller;
 
-import com.boardinghouse.dto.DataExportDto;
+import com.boardinghouse.service.BackupService;
 import com.boardinghouse.service.DataTransferService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Map;
+import java.io.IOException;
+import java.io.InputStream;
 
 @RestController
 @RequestMapping("/data-transfer")
@@ -17,42 +20,46 @@ import java.util.Map;
 public class DataTransferController {
 
     private final DataTransferService dataTransferService;
+    private final BackupService backupService;
+    private final ObjectMapper objectMapper;
 
-    public DataTransferController(DataTransferService dataTransferService) {
+    public DataTransferController(DataTransferService dataTransferService, BackupService backupService,
+                                  ObjectMapper objectMapper) {
         this.dataTransferService = dataTransferService;
+        this.backupService = backupService;
+        this.objectMapper = objectMapper;
     }
 
     /**
      * Export toàn bộ data thành JSON.
      * Chỉ ADMIN mới được phép.
+     * Streamed to the client table by table; nothing is buffered in memory.
      */
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/export")
-    public ResponseEntity<DataExportDto> exportData(Authentication authentication) {
+    public ResponseEntity<StreamingResponseBody> exportData(Authentication authentication) {
         String username = authentication != null ? authentication.getName() : "unknown";
-        DataExportDto data = dataTransferService.exportAll(username);
+        StreamingResponseBody body = out -> dataTransferService.exportAll(username, out, objectMapper);
 
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION,
                         "attachment; filename=\"boarding-house-backup-" +
                         java.time.LocalDate.now() + ".json\"")
                 .contentType(MediaType.APPLICATION_JSON)
-                .body(data);
+                .body(body);
     }
 
     /**
      * Import data từ file JSON đã export trước đó.
      * CẢNH BÁO: Xóa toàn bộ data hiện tại và thay bằng data mới.
      * Chỉ ADMIN mới được phép.
+     * The body is read as a stream (not bound to a DTO), so file size is not limited by heap.
+     * Chạy trong hàng đợi backup/restore (không chạy song song với backup hay restore khác);
+     * trả về ngay (202) với jobId cho /backup/restore-jobs/{id}.
      */
     @PreAuthorize("hasRole('ADMIN')")
     @PostMapping("/import")
-    public ResponseEntity<Map<String, Object>> importData(@RequestBody DataExportDto data) {
-        Map<String, Object> stats = dataTransferService.importAll(data);
-        return ResponseEntity.ok(Map.of(
-                "success", true,
-                "message", "Import thành công",
-                "imported", stats
-        ));
+    public ResponseEntity<BackupService.RestoreJobStatus> importData(InputStream body) throws IOException {
+        return ResponseEntity.accepted().body(backupService.importData(body));
     }
 }
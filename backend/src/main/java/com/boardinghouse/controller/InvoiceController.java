@@ -1,11 +1,16 @@
 package com.boardinghouse.controller;
 
 import com.boardinghouse.dto.InvoiceDto;
+import com.boardinghouse.service.BulkInvoiceService;
 import com.boardinghouse.service.InvoiceService;
+import com.boardinghouse.service.MeterReadingBatchService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -14,9 +19,14 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class InvoiceController {
     private final InvoiceService service;
+    private final BulkInvoiceService bulkInvoiceService;
+    private final MeterReadingBatchService meterReadingBatchService;
 
-    public InvoiceController(InvoiceService service) {
+    public InvoiceController(InvoiceService service, BulkInvoiceService bulkInvoiceService,
+                             MeterReadingBatchService meterReadingBatchService) {
         this.service = service;
+        this.bulkInvoiceService = bulkInvoiceService;
+        this.meterReadingBatchService = meterReadingBatchService;
     }
 
     @GetMapping
@@ -42,6 +52,28 @@ public class InvoiceController {
         return new ResponseEntity<>(service.generateInvoice(contractId, month, year), HttpStatus.CREATED);
     }
 
+    /** Month-end billing: one invoice per active contract of the boarding house; per-contract outcome in the result. */
+    @PostMapping("/generate-bulk")
+    public ResponseEntity<BulkInvoiceService.BulkInvoiceResult> generateBulk(@RequestBody Map<String, Object> request) {
+        Long boardingHouseId = Long.valueOf(request.get("boardingHouseId").toString());
+        Integer month = Integer.valueOf(request.get("month").toString());
+        Integer year = Integer.valueOf(request.get("year").toString());
+        return ResponseEntity.ok(bulkInvoiceService.generateForBoardingHouse(boardingHouseId, month, year));
+    }
+
+    /**
+     * Meter readings for many rooms (text/csv or a JSON array, streamed): one invoice per room
+     * with accepted readings, or only priced with preview=true. Rejected rows are listed in the result.
+     */
+    @PostMapping("/readings/batch")
+    public ResponseEntity<MeterReadingBatchService.ReadingBatchResult> ingestReadings(
+            @RequestParam Integer month, @RequestParam Integer year,
+            @RequestParam(defaultValue = "false") boolean preview,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            InputStream body) throws IOException {
+        return ResponseEntity.ok(meterReadingBatchService.ingest(body, contentType, month, year, preview));
+    }
+
     @PostMapping("/preview-with-readings")
     public ResponseEntity<InvoiceDto> previewInvoiceWithReadings(@RequestBody com.boardinghouse.dto.GenerateInvoiceWithReadingsRequest request) {
         return ResponseEntity.ok(service.previewInvoiceWithReadings(request));
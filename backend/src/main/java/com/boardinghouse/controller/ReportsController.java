@@ -6,8 +6,10 @@ import com.boardinghouse.dto.RevenueByMonthDto;
 import com.boardinghouse.dto.ServiceRevenueDto;
 import com.boardinghouse.dto.TenantDto;
 import com.boardinghouse.service.ReportsService;
+import com.boardinghouse.service.RevenueRollupService;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
@@ -18,9 +20,11 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class ReportsController {
     private final ReportsService service;
+    private final RevenueRollupService revenueRollupService;
 
-    public ReportsController(ReportsService service) {
+    public ReportsController(ReportsService service, RevenueRollupService revenueRollupService) {
         this.service = service;
+        this.revenueRollupService = revenueRollupService;
     }
 
     @GetMapping("/revenue-by-month")
@@ -49,8 +53,11 @@ public class ReportsController {
 
     @GetMapping("/outstanding-debts")
     public ResponseEntity<List<OutstandingDebtDto>> getOutstandingDebts(
-            @RequestParam(required = false) Long boardingHouseId) {
-        return ResponseEntity.ok(service.getOutstandingDebts(boardingHouseId));
+            @RequestParam(required = false) Long boardingHouseId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate afterDueDate,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(service.getOutstandingDebts(boardingHouseId, afterDueDate, afterId, limit));
     }
 
     @GetMapping("/service-revenue")
@@ -68,5 +75,23 @@ public class ReportsController {
             @RequestParam(required = false) Long boardingHouseId) {
         return ResponseEntity.ok(service.getRevenueByMonthDetail(year, month, boardingHouseId));
     }
-}
 
+    /**
+     * Last full rebuild of the monthly revenue rollup.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/revenue-rollup")
+    public ResponseEntity<RevenueRollupService.RebuildResult> getRevenueRollupStatus() {
+        RevenueRollupService.RebuildResult result = revenueRollupService.getLastRebuild();
+        return result != null ? ResponseEntity.ok(result) : ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Rebuild the monthly revenue rollup from the raw tables now.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/revenue-rollup/rebuild")
+    public ResponseEntity<RevenueRollupService.RebuildResult> rebuildRevenueRollup() {
+        return ResponseEntity.ok(revenueRollupService.rebuild("MANUAL"));
+    }
+}
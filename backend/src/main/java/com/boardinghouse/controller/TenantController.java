@@ -3,6 +3,10 @@ package com.boardinghouse.controller;
 import com.boardinghouse.dto.TenantDto;
 import com.boardinghouse.service.TenantService;
 import jakarta.validation.Valid;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -26,6 +30,14 @@ public class TenantController {
         return ResponseEntity.ok(service.getAll());
     }
 
+    /** Paged list with optional search by name or phone, e.g. /tenants/search?q=an&page=0&size=20&sort=fullName,asc */
+    @GetMapping("/search")
+    public ResponseEntity<Page<TenantDto>> search(
+            @RequestParam(required = false) String q,
+            @PageableDefault(size = 20, sort = "fullName", direction = Sort.Direction.ASC) Pageable pageable) {
+        return ResponseEntity.ok(service.search(q, pageable));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<TenantDto> getById(@PathVariable Long id) {
         return ResponseEntity.ok(service.getById(id));
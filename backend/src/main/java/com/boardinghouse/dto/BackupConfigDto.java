@@ -16,6 +16,8 @@ public class BackupConfigDto {
     private List<String> emailRecipients;
     private String cronExpression;
     private String scheduleDescription;
+    private Boolean incrementalEnabled;
+    private Integer fullBackupInterval;
     private LocalDateTime updatedAt;
     private String updatedBy;
 }
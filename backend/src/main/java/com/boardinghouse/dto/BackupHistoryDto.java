@@ -21,4 +21,12 @@ public class BackupHistoryDto {
     private Boolean emailSent;
     private String errorMessage;
     private String fileName;
+    private String storagePath;
+    private String sha256;
+    private String backupType;
+    private Long baseBackupId;
+    private Long uncompressedSizeBytes;
+    private Long rowCount;
+    private Double compressionRatio;
+    private Long durationMs;
 }
@@ -0,0 +1,101 @@
+package com.boardinghouse.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Compact calendar: every stay is sent once with the index range of the days it
+ * covers (0 = startDate). The client expands it per day: CHECKIN on checkInDate,
+ * CHECKOUT on checkOutDate, STAYING on the nights in between. Stays are ordered by
+ * checkout date, which is the order the per-day format lists events in.
+ */
+public class CalendarRangeDto {
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Integer dayCount;
+    private List<StayDto> stays;
+
+    public CalendarRangeDto() {}
+
+    public LocalDate getStartDate() { return startDate; }
+    public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+
+    public LocalDate getEndDate() { return endDate; }
+    public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
+
+    public Integer getDayCount() { return dayCount; }
+    public void setDayCount(Integer dayCount) { this.dayCount = dayCount; }
+
+    public List<StayDto> getStays() { return stays; }
+    public void setStays(List<StayDto> stays) { this.stays = stays; }
+
+    public static class StayDto {
+        private Integer startIndex; // first day in the window touched by the stay
+        private Integer endIndex;   // last day in the window touched by the stay (inclusive)
+        private Long contractId;
+        private Long tenantId;
+        private String tenantName;
+        private String tenantPhone;
+        private String roomCode;
+        private String boardingHouseName;
+        private LocalDate checkInDate;
+        private LocalDate checkOutDate;
+        private BigDecimal dailyRate;
+        private Integer totalDays;
+        private BigDecimal totalDebt;
+        private BigDecimal totalPaid;
+        private Integer unpaidInvoices;
+        private BigDecimal unpaidAmount;
+
+        public StayDto() {}
+
+        public Integer getStartIndex() { return startIndex; }
+        public void setStartIndex(Integer startIndex) { this.startIndex = startIndex; }
+
+        public Integer getEndIndex() { return endIndex; }
+        public void setEndIndex(Integer endIndex) { this.endIndex = endIndex; }
+
+        public Long getContractId() { return contractId; }
+        public void setContractId(Long contractId) { this.contractId = contractId; }
+
+        public Long getTenantId() { return tenantId; }
+        public void setTenantId(Long tenantId) { this.tenantId = tenantId; }
+
+        public String getTenantName() { return tenantName; }
+        public void setTenantName(String tenantName) { this.tenantName = tenantName; }
+
+        public String getTenantPhone() { return tenantPhone; }
+        public void setTenantPhone(String tenantPhone) { this.tenantPhone = tenantPhone; }
+
+        public String getRoomCode() { return roomCode; }
+        public void setRoomCode(String roomCode) { this.roomCode = roomCode; }
+
+        public String getBoardingHouseName() { return boardingHouseName; }
+        public void setBoardingHouseName(String boardingHouseName) { this.boardingHouseName = boardingHouseName; }
+
+        public LocalDate getCheckInDate() { return checkInDate; }
+        public void setCheckInDate(LocalDate checkInDate) { this.checkInDate = checkInDate; }
+
+        public LocalDate getCheckOutDate() { return checkOutDate; }
+        public void setCheckOutDate(LocalDate checkOutDate) { this.checkOutDate = checkOutDate; }
+
+        public BigDecimal getDailyRate() { return dailyRate; }
+        public void setDailyRate(BigDecimal dailyRate) { this.dailyRate = dailyRate; }
+
+        public Integer getTotalDays() { return totalDays; }
+        public void setTotalDays(Integer totalDays) { this.totalDays = totalDays; }
+
+        public BigDecimal getTotalDebt() { return totalDebt; }
+        public void setTotalDebt(BigDecimal totalDebt) { this.totalDebt = totalDebt; }
+
+        public BigDecimal getTotalPaid() { return totalPaid; }
+        public void setTotalPaid(BigDecimal totalPaid) { this.totalPaid = totalPaid; }
+
+        public Integer getUnpaidInvoices() { return unpaidInvoices; }
+        public void setUnpaidInvoices(Integer unpaidInvoices) { this.unpaidInvoices = unpaidInvoices; }
+
+        public BigDecimal getUnpaidAmount() { return unpaidAmount; }
+        public void setUnpaidAmount(BigDecimal unpaidAmount) { this.unpaidAmount = unpaidAmount; }
+    }
+}
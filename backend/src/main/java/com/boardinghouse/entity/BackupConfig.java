@@ -35,6 +35,19 @@ public class BackupConfig {
     @Column(length = 100)
     private String scheduleDescription = "Every day at 00:00";
 
+    /**
+     * Scheduled backups take DELTA archives (rows changed since the previous backup)
+     * between FULL ones. PostgreSQL only; elsewhere every backup is FULL.
+     */
+    @Column
+    private Boolean incrementalEnabled = false;
+
+    /**
+     * With incremental backups on: every N-th scheduled backup is FULL.
+     */
+    @Column
+    private Integer fullBackupInterval = 7;
+
     private LocalDateTime updatedAt = LocalDateTime.now();
 
     @Column(length = 100)
@@ -59,6 +72,12 @@ public class BackupConfig {
     public String getScheduleDescription() { return scheduleDescription; }
     public void setScheduleDescription(String scheduleDescription) { this.scheduleDescription = scheduleDescription; }
 
+    public Boolean getIncrementalEnabled() { return incrementalEnabled; }
+    public void setIncrementalEnabled(Boolean incrementalEnabled) { this.incrementalEnabled = incrementalEnabled; }
+
+    public Integer getFullBackupInterval() { return fullBackupInterval; }
+    public void setFullBackupInterval(Integer fullBackupInterval) { this.fullBackupInterval = fullBackupInterval; }
+
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
 
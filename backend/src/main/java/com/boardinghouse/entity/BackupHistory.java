@@ -16,7 +16,7 @@ public class BackupHistory {
     private Long id;
 
     @Column(nullable = false, length = 20)
-    private String status; // SUCCESS, FAILED, IN_PROGRESS
+    private String status; // QUEUED, IN_PROGRESS, SUCCESS, FAILED
 
     @Column(nullable = false, length = 20)
     private String triggerType; // SCHEDULED, MANUAL
@@ -42,12 +42,36 @@ public class BackupHistory {
     @Column(length = 255)
     private String fileName;
 
+    /** Archive location in the BackupStore; null once retention removed it. */
+    @Column(length = 255)
+    private String storagePath;
+
+    @Column(length = 64)
+    private String sha256;
+
+    @Column(length = 10)
+    private String backupType; // FULL, DELTA
+
+    private Long baseBackupId; // DELTA: the backup this one continues
+
+    /** PostgreSQL snapshot the archive was taken at; the base of the next DELTA. */
+    @Column(columnDefinition = "TEXT")
+    private String changeSnapshot;
+
+    private Long uncompressedSizeBytes;
+
+    private Long rowCount;
+
+    private Double compressionRatio; // uncompressed / archive size
+
+    private Long durationMs;
+
     public BackupHistory() {}
 
     public BackupHistory(String triggerType, String triggeredBy) {
         this.triggerType = triggerType;
         this.triggeredBy = triggeredBy;
-        this.status = "IN_PROGRESS";
+        this.status = "QUEUED";
         this.createdAt = LocalDateTime.now();
     }
 
@@ -85,4 +109,31 @@ public class BackupHistory {
 
     public String getFileName() { return fileName; }
     public void setFileName(String fileName) { this.fileName = fileName; }
+
+    public String getStoragePath() { return storagePath; }
+    public void setStoragePath(String storagePath) { this.storagePath = storagePath; }
+
+    public String getSha256() { return sha256; }
+    public void setSha256(String sha256) { this.sha256 = sha256; }
+
+    public String getBackupType() { return backupType; }
+    public void setBackupType(String backupType) { this.backupType = backupType; }
+
+    public Long getBaseBackupId() { return baseBackupId; }
+    public void setBaseBackupId(Long baseBackupId) { this.baseBackupId = baseBackupId; }
+
+    public String getChangeSnapshot() { return changeSnapshot; }
+    public void setChangeSnapshot(String changeSnapshot) { this.changeSnapshot = changeSnapshot; }
+
+    public Long getUncompressedSizeBytes() { return uncompressedSizeBytes; }
+    public void setUncompressedSizeBytes(Long uncompressedSizeBytes) { this.uncompressedSizeBytes = uncompressedSizeBytes; }
+
+    public Long getRowCount() { return rowCount; }
+    public void setRowCount(Long rowCount) { this.rowCount = rowCount; }
+
+    public Double getCompressionRatio() { return compressionRatio; }
+    public void setCompressionRatio(Double compressionRatio) { this.compressionRatio = compressionRatio; }
+
+    public Long getDurationMs() { return durationMs; }
+    public void setDurationMs(Long durationMs) { this.durationMs = durationMs; }
 }
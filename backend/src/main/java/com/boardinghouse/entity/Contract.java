@@ -1,6 +1,7 @@
 package com.boardinghouse.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -8,6 +9,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@NamedEntityGraph(name = "Contract.list", attributeNodes = {
+    @NamedAttributeNode(value = "room", subgraph = "room"),
+    @NamedAttributeNode("mainTenant")
+}, subgraphs = @NamedSubgraph(name = "room", attributeNodes = @NamedAttributeNode("boardingHouse")))
 @Table(name = "contracts")
 public class Contract {
     @Id
@@ -31,6 +36,7 @@ public class Contract {
         joinColumns = @JoinColumn(name = "contract_id"),
         inverseJoinColumns = @JoinColumn(name = "tenant_id")
     )
+    @BatchSize(size = 100)
     private List<Tenant> tenants = new ArrayList<>();
 
     @Column(nullable = false)
@@ -58,9 +64,11 @@ public class Contract {
     private Boolean roomReleased = false;
 
     @OneToMany(mappedBy = "contract", cascade = CascadeType.ALL)
+    @BatchSize(size = 100)
     private List<Invoice> invoices = new ArrayList<>();
 
     @OneToMany(mappedBy = "contract", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
     private List<GuestServiceCharge> guestServiceCharges = new ArrayList<>();
 
     public Contract() {}
@@ -6,6 +6,11 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
+@NamedEntityGraph(name = "GuestServiceCharge.list", attributeNodes = {
+    @NamedAttributeNode("contract"),
+    @NamedAttributeNode("room"),
+    @NamedAttributeNode("inventoryItem")
+})
 @Table(name = "guest_service_charges")
 public class GuestServiceCharge {
     @Id
@@ -5,6 +5,11 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
+@NamedEntityGraph(name = "HousekeepingTask.list", attributeNodes = {
+    @NamedAttributeNode(value = "room", subgraph = "room"),
+    @NamedAttributeNode("contract"),
+    @NamedAttributeNode("assignedTo")
+}, subgraphs = @NamedSubgraph(name = "room", attributeNodes = @NamedAttributeNode("boardingHouse")))
 @Table(name = "housekeeping_tasks")
 public class HousekeepingTask {
 
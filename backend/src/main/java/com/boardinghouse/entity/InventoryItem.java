@@ -30,7 +30,8 @@ public class InventoryItem {
     @Column(nullable = false)
     private BigDecimal salePrice;
 
-    @Column(nullable = false)
+    /** Changed only through InventoryItemRepository's stock queries, never by saving the entity. */
+    @Column(nullable = false, updatable = false)
     private BigDecimal quantityOnHand = BigDecimal.ZERO;
 
     @Column(nullable = false)
@@ -1,6 +1,7 @@
 package com.boardinghouse.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -8,6 +9,13 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@NamedEntityGraph(name = "Invoice.list", attributeNodes = {
+    @NamedAttributeNode(value = "contract", subgraph = "contract"),
+    @NamedAttributeNode(value = "room", subgraph = "room")
+}, subgraphs = {
+    @NamedSubgraph(name = "contract", attributeNodes = @NamedAttributeNode("mainTenant")),
+    @NamedSubgraph(name = "room", attributeNodes = @NamedAttributeNode("boardingHouse"))
+})
 @Table(name = "invoices")
 public class Invoice {
     @Id
@@ -34,6 +42,10 @@ public class Invoice {
     @Column(nullable = false)
     private BigDecimal totalAmount;
 
+    // SUM(payments.paid_amount), kept in sync by InvoiceService.updateInvoiceStatus
+    @Column(name = "paid_amount", nullable = false, columnDefinition = "numeric(38,2) default 0")
+    private BigDecimal paidAmount = BigDecimal.ZERO;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private PaymentStatus status = PaymentStatus.UNPAID;
@@ -44,9 +56,11 @@ public class Invoice {
     private LocalDate createdDate = LocalDate.now();
 
     @OneToMany(mappedBy = "invoice", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
     private List<InvoiceItem> items = new ArrayList<>();
 
     @OneToMany(mappedBy = "invoice", cascade = CascadeType.ALL)
+    @BatchSize(size = 100)
     private List<Payment> payments = new ArrayList<>();
 
     public Invoice() {}
@@ -72,6 +86,9 @@ public class Invoice {
     public BigDecimal getTotalAmount() { return totalAmount; }
     public void setTotalAmount(BigDecimal totalAmount) { this.totalAmount = totalAmount; }
 
+    public BigDecimal getPaidAmount() { return paidAmount; }
+    public void setPaidAmount(BigDecimal paidAmount) { this.paidAmount = paidAmount; }
+
     public PaymentStatus getStatus() { return status; }
     public void setStatus(PaymentStatus status) { this.status = status; }
 
@@ -6,6 +6,14 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
+@NamedEntityGraph(name = "Payment.list", attributeNodes = @NamedAttributeNode(value = "invoice", subgraph = "invoice"),
+    subgraphs = {
+        @NamedSubgraph(name = "invoice", attributeNodes = {
+            @NamedAttributeNode(value = "contract", subgraph = "contract"),
+            @NamedAttributeNode("room")
+        }),
+        @NamedSubgraph(name = "contract", attributeNodes = @NamedAttributeNode("mainTenant"))
+    })
 @Table(name = "payments")
 public class Payment {
     @Id
@@ -0,0 +1,81 @@
+package com.boardinghouse.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Pre-aggregated revenue per (boarding house, year, month).
+ * Derived data only — maintained by RevenueRollupService and rebuilt from
+ * contracts, guest charges, invoices and payments at any time.
+ */
+@Entity
+@Table(name = "revenue_monthly_rollup",
+    uniqueConstraints = @UniqueConstraint(name = "uk_revenue_rollup_house_period",
+            columnNames = {"boarding_house_id", "year", "month"}))
+public class RevenueMonthlyRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "boarding_house_id", nullable = false)
+    private BoardingHouse boardingHouse;
+
+    @Column(nullable = false)
+    private Integer year;
+
+    @Column(nullable = false)
+    private Integer month; // 1-12
+
+    @Column(nullable = false)
+    private BigDecimal earnedRoom = BigDecimal.ZERO;     // dailyRate × nights of stays overlapping the month
+
+    @Column(nullable = false)
+    private BigDecimal earnedService = BigDecimal.ZERO;  // guest charges dated in the month
+
+    @Column(nullable = false)
+    private BigDecimal collected = BigDecimal.ZERO;      // payments received in the month
+
+    @Column(nullable = false)
+    private Long invoiceCount = 0L;                      // invoices for this billing period
+
+    @Column(nullable = false)
+    private Long paidInvoiceCount = 0L;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    public RevenueMonthlyRollup() {}
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public BoardingHouse getBoardingHouse() { return boardingHouse; }
+    public void setBoardingHouse(BoardingHouse boardingHouse) { this.boardingHouse = boardingHouse; }
+
+    public Integer getYear() { return year; }
+    public void setYear(Integer year) { this.year = year; }
+
+    public Integer getMonth() { return month; }
+    public void setMonth(Integer month) { this.month = month; }
+
+    public BigDecimal getEarnedRoom() { return earnedRoom; }
+    public void setEarnedRoom(BigDecimal earnedRoom) { this.earnedRoom = earnedRoom; }
+
+    public BigDecimal getEarnedService() { return earnedService; }
+    public void setEarnedService(BigDecimal earnedService) { this.earnedService = earnedService; }
+
+    public BigDecimal getCollected() { return collected; }
+    public void setCollected(BigDecimal collected) { this.collected = collected; }
+
+    public Long getInvoiceCount() { return invoiceCount; }
+    public void setInvoiceCount(Long invoiceCount) { this.invoiceCount = invoiceCount; }
+
+    public Long getPaidInvoiceCount() { return paidInvoiceCount; }
+    public void setPaidInvoiceCount(Long paidInvoiceCount) { this.paidInvoiceCount = paidInvoiceCount; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -1,12 +1,14 @@
 package com.boardinghouse.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@NamedEntityGraph(name = "Room.list", attributeNodes = @NamedAttributeNode("boardingHouse"))
 @Table(name = "rooms")
 public class Room {
     @Id
@@ -32,6 +34,7 @@ public class Room {
     private RoomStatus status = RoomStatus.AVAILABLE;
 
     @OneToMany(mappedBy = "room", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
     private List<RoomService> services = new ArrayList<>();
 
     @OneToMany(mappedBy = "room", cascade = CascadeType.ALL)
@@ -41,6 +44,7 @@ public class Room {
     private List<Invoice> invoices = new ArrayList();
 
     @OneToMany(mappedBy = "room", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
     private List<RoomPhoto> photos = new ArrayList<>();
 
     public Room() {}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
+@NamedEntityGraph(name = "RoomPhoto.list", attributeNodes = @NamedAttributeNode("room"))
 @Table(name = "room_photos")
 public class RoomPhoto {
 
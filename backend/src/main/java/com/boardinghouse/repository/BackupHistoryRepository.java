@@ -9,6 +9,8 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -32,4 +34,15 @@ public interface BackupHistoryRepository extends JpaRepository<BackupHistory, Lo
     Optional<BackupHistory> findTopByStatusOrderByCreatedAtDesc(String status);
 
     long countByStatus(String status);
+
+    List<BackupHistory> findByStatusIn(Collection<String> statuses);
+
+    List<BackupHistory> findByStoragePathIsNotNullOrderByCreatedAtAsc();
+
+    /** Latest successful backup a DELTA can continue from. */
+    Optional<BackupHistory> findTopByStatusAndChangeSnapshotIsNotNullOrderByCreatedAtDesc(String status);
+
+    Optional<BackupHistory> findTopByStatusAndBackupTypeOrderByCreatedAtDesc(String status, String backupType);
+
+    long countByStatusAndBackupTypeAndCreatedAtAfter(String status, String backupType, LocalDateTime after);
 }
@@ -1,7 +1,11 @@
 package com.boardinghouse.repository;
 
 import com.boardinghouse.entity.BoardingHouse;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -9,5 +13,9 @@ import java.util.Optional;
 @Repository
 public interface BoardingHouseRepository extends JpaRepository<BoardingHouse, Long> {
     Optional<BoardingHouse> findFirstByOrderByIdAsc();
-}
 
+    // Serializes per-house rollup recomputation (row lock on the house)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM BoardingHouse b WHERE b.id = :id")
+    Optional<BoardingHouse> lockById(@Param("id") Long id);
+}
@@ -2,18 +2,27 @@ package com.boardinghouse.repository;
 
 import com.boardinghouse.entity.Contract;
 import com.boardinghouse.entity.ContractStatus;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ContractRepository extends JpaRepository<Contract, Long> {
     Optional<Contract> findByCode(String code);
+
+    // Contract list endpoint: room, house and main tenant in the same query (co-tenants are batch-fetched)
+    @EntityGraph("Contract.list")
+    @Query("SELECT c FROM Contract c")
+    List<Contract> findAllWithDetails();
+
     List<Contract> findByRoomId(Long roomId);
     List<Contract> findByMainTenantId(Long tenantId);
     List<Contract> findByStatus(ContractStatus status);
@@ -29,11 +38,101 @@ public interface ContractRepository extends JpaRepository<Contract, Long> {
     @Query("SELECT c FROM Contract c JOIN FETCH c.room r JOIN FETCH r.boardingHouse JOIN FETCH c.mainTenant WHERE c.status IN ('ACTIVE', 'EXPIRED', 'TERMINATED') AND (c.startDate BETWEEN :from AND :to OR c.endDate BETWEEN :from AND :to OR (c.startDate <= :from AND c.endDate >= :to)) ORDER BY c.endDate ASC")
     List<Contract> findContractsInRange(@org.springframework.data.repository.query.Param("from") java.time.LocalDate from, @org.springframework.data.repository.query.Param("to") java.time.LocalDate to);
 
+    // Dashboard snapshot: every non-DRAFT contract with room, house and main tenant in one query
+    @Query("SELECT c FROM Contract c JOIN FETCH c.room r JOIN FETCH r.boardingHouse JOIN FETCH c.mainTenant WHERE c.status <> 'DRAFT'")
+    List<Contract> findAllNonDraftWithDetails();
+
+    @Query("SELECT c FROM Contract c JOIN FETCH c.room r JOIN FETCH r.boardingHouse b JOIN FETCH c.mainTenant WHERE c.status <> 'DRAFT' AND b.id = :boardingHouseId")
+    List<Contract> findNonDraftWithDetailsByBoardingHouseId(@Param("boardingHouseId") Long boardingHouseId);
+
+    // Bulk billing: active contracts of a house with their room, in room order
+    @Query("SELECT c FROM Contract c JOIN FETCH c.room r WHERE c.status = 'ACTIVE' AND r.boardingHouse.id = :boardingHouseId ORDER BY r.code, c.id")
+    List<Contract> findActiveWithRoomByBoardingHouseId(@Param("boardingHouseId") Long boardingHouseId);
+
+    // Meter-reading batches: active contracts of rooms by code, newest first per room
+    @Query("SELECT c FROM Contract c JOIN FETCH c.room r JOIN FETCH r.boardingHouse JOIN FETCH c.mainTenant WHERE c.status = 'ACTIVE' AND r.code IN :roomCodes ORDER BY r.code, c.startDate DESC")
+    List<Contract> findActiveWithDetailsByRoomCodeIn(@Param("roomCodes") Collection<String> roomCodes);
+
+    @Query("SELECT c FROM Contract c JOIN FETCH c.room r JOIN FETCH r.boardingHouse JOIN FETCH c.mainTenant WHERE c.id IN :ids")
+    List<Contract> findWithDetailsByIdIn(@Param("ids") java.util.Collection<Long> ids);
+
+    // Occupancy index: [contractId, boardingHouseId, startDate, endDate] of non-DRAFT contracts
+    @Query("SELECT c.id, c.room.boardingHouse.id, c.startDate, c.endDate FROM Contract c WHERE c.status <> 'DRAFT'")
+    List<Object[]> findAllStays();
+
+    @Query("SELECT c.id, c.room.boardingHouse.id, c.startDate, c.endDate FROM Contract c WHERE c.status <> 'DRAFT' AND c.id = :id")
+    List<Object[]> findStayById(@Param("id") Long id);
+
+    @Query("SELECT c.id, c.room.boardingHouse.id, c.startDate, c.endDate FROM Contract c WHERE c.status <> 'DRAFT' AND c.room.id = :roomId")
+    List<Object[]> findStaysByRoomId(@Param("roomId") Long roomId);
+
+    // Revenue rollup: non-DRAFT stays of a boarding house overlapping [from, to]
+    @Query("SELECT c FROM Contract c WHERE c.status <> 'DRAFT' AND c.room.boardingHouse.id = :boardingHouseId " +
+           "AND c.startDate <= :to AND c.endDate >= :from")
+    List<Contract> findNonDraftByBoardingHouseIdOverlapping(@Param("boardingHouseId") Long boardingHouseId,
+                                                            @Param("from") LocalDate from,
+                                                            @Param("to") LocalDate to);
+
+    // Tenant list: [contractId, mainTenantId, status, startDate, endDate, dailyRate, roomCode, boardingHouseId]
+    // of every contract held by the given tenants (display contract + debt are derived from these rows)
+    @Query("SELECT c.id, c.mainTenant.id, c.status, c.startDate, c.endDate, c.dailyRate, r.code, r.boardingHouse.id " +
+           "FROM Contract c JOIN c.room r WHERE c.mainTenant.id IN :tenantIds ORDER BY c.id")
+    List<Object[]> findTenantListRowsByMainTenantIdIn(@Param("tenantIds") java.util.Collection<Long> tenantIds);
+
+    // Tenant detail: contracts the tenant is listed on as a co-tenant (contract_tenants.tenant_id)
+    @Query("SELECT c FROM Contract c JOIN c.tenants t JOIN FETCH c.room JOIN FETCH c.mainTenant WHERE t.id = :tenantId")
+    List<Contract> findWithDetailsByCoTenantId(@Param("tenantId") Long tenantId);
+
+    @Query("SELECT c FROM Contract c JOIN FETCH c.room JOIN FETCH c.mainTenant WHERE c.mainTenant.id = :tenantId")
+    List<Contract> findWithDetailsByMainTenantId(@Param("tenantId") Long tenantId);
+
+    // Tenant delete: drop the tenant from every contract_tenants row in one statement
+    @Modifying
+    @Query(value = "DELETE FROM contract_tenants WHERE tenant_id = :tenantId", nativeQuery = true)
+    int removeCoTenantFromAllContracts(@Param("tenantId") Long tenantId);
+
     // For tenant list: get active contract for a tenant
     @Query("SELECT c FROM Contract c JOIN FETCH c.room r JOIN FETCH r.boardingHouse WHERE c.mainTenant.id = :tenantId AND c.status = 'ACTIVE' ORDER BY c.startDate DESC")
     Optional<Contract> findActiveByMainTenantId(@Param("tenantId") Long tenantId);
 
     @Query("SELECT c FROM Contract c JOIN FETCH c.mainTenant WHERE c.room.id = :roomId AND c.status = 'ACTIVE' ORDER BY c.startDate DESC")
     Optional<Contract> findActiveByRoomId(@Param("roomId") Long roomId);
-}
 
+    /** [roomId, mainTenantName] of the active contracts in the given rooms, latest start first. */
+    @Query("SELECT c.room.id, c.mainTenant.fullName FROM Contract c WHERE c.room.id IN :roomIds AND c.status = 'ACTIVE' ORDER BY c.startDate DESC")
+    List<Object[]> findActiveTenantNamesByRoomIdIn(@Param("roomIds") Collection<Long> roomIds);
+
+    // ─── Expiry sweeper (set-based) ──────────────────────────────────────────
+
+    // Legacy null roomReleased: room already free → released
+    @Modifying
+    @Query("UPDATE Contract c SET c.roomReleased = true WHERE c.status = 'ACTIVE' AND c.roomReleased IS NULL " +
+           "AND c.room.id IN (SELECT r.id FROM Room r WHERE r.status = 'AVAILABLE')")
+    int backfillRoomReleasedForAvailableRooms();
+
+    // Legacy null roomReleased: latest ACTIVE contract of an occupied room is the current occupant
+    @Modifying
+    @Query("UPDATE Contract c SET c.roomReleased = false WHERE c.status = 'ACTIVE' AND c.roomReleased IS NULL " +
+           "AND NOT EXISTS (SELECT o.id FROM Contract o WHERE o.room.id = c.room.id AND o.status = 'ACTIVE' AND o.startDate > c.startDate)")
+    int backfillRoomReleasedForCurrentOccupants();
+
+    // Legacy null roomReleased: any other ACTIVE contract was superseded
+    @Modifying
+    @Query("UPDATE Contract c SET c.roomReleased = true WHERE c.status = 'ACTIVE' AND c.roomReleased IS NULL")
+    int backfillRoomReleasedForSuperseded();
+
+    @Modifying
+    @Query("UPDATE Contract c SET c.status = com.boardinghouse.entity.ContractStatus.EXPIRED, c.roomReleased = true WHERE c.status = 'ACTIVE' AND c.endDate <= :expireThrough")
+    int expireActiveEndingOnOrBefore(@Param("expireThrough") LocalDate expireThrough);
+
+    // Revenue by boarding house: [houseId, houseName, SUM(dailyRate × max(1, nights))] for non-DRAFT stays overlapping [from, to]
+    // (boardingHouseId null = every house)
+    @Query("SELECT b.id, b.name, SUM(c.dailyRate * CASE WHEN ((c.endDate - c.startDate) by day) > 1 " +
+           "THEN ((c.endDate - c.startDate) by day) ELSE 1 END) " +
+           "FROM Contract c JOIN c.room r JOIN r.boardingHouse b " +
+           "WHERE c.status <> 'DRAFT' AND c.dailyRate <> 0 AND c.startDate <= :to AND c.endDate >= :from " +
+           "AND (:boardingHouseId IS NULL OR b.id = :boardingHouseId) " +
+           "GROUP BY b.id, b.name")
+    List<Object[]> sumRoomCostGroupedByBoardingHouse(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                                     @Param("boardingHouseId") Long boardingHouseId);
+}
@@ -1,22 +1,54 @@
 package com.boardinghouse.repository;
 
 import com.boardinghouse.entity.GuestServiceCharge;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 public interface GuestServiceChargeRepository extends JpaRepository<GuestServiceCharge, Long> {
+    @EntityGraph("GuestServiceCharge.list")
     List<GuestServiceCharge> findByContractIdOrderByChargeDateDesc(Long contractId);
     List<GuestServiceCharge> findByRoomIdAndChargeDateBetween(Long roomId, LocalDate from, LocalDate to);
 
     @Query("SELECT COALESCE(SUM(g.amount), 0) FROM GuestServiceCharge g WHERE g.contract.id = :contractId")
     BigDecimal sumAmountByContractId(@Param("contractId") Long contractId);
 
+    // Ledger: [contractId, SUM(amount)] grouped per contract
+    @Query("SELECT g.contract.id, COALESCE(SUM(g.amount), 0) FROM GuestServiceCharge g WHERE g.contract.id IN :contractIds GROUP BY g.contract.id")
+    List<Object[]> sumAmountGroupedByContractIds(@Param("contractIds") Collection<Long> contractIds);
+
     List<GuestServiceCharge> findByContractIdAndChargeDateOrderByChargeDateDesc(Long contractId, LocalDate date);
 
     List<GuestServiceCharge> findByChargeDateBetween(LocalDate from, LocalDate to);
+
+    // Dashboard snapshot: charges in a period on non-DRAFT contracts
+    @Query("SELECT g FROM GuestServiceCharge g WHERE g.contract.status <> 'DRAFT' AND g.chargeDate BETWEEN :from AND :to")
+    List<GuestServiceCharge> findNonDraftByChargeDateBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT g FROM GuestServiceCharge g WHERE g.contract.status <> 'DRAFT' AND g.contract.room.boardingHouse.id = :boardingHouseId AND g.chargeDate BETWEEN :from AND :to")
+    List<GuestServiceCharge> findNonDraftByBoardingHouseIdAndChargeDateBetween(@Param("boardingHouseId") Long boardingHouseId,
+                                                                               @Param("from") LocalDate from,
+                                                                               @Param("to") LocalDate to);
+
+    // Revenue rollup: [year, month, SUM(amount)] for non-DRAFT contracts of a boarding house
+    @Query("SELECT YEAR(g.chargeDate), MONTH(g.chargeDate), SUM(g.amount) FROM GuestServiceCharge g " +
+           "WHERE g.contract.status <> 'DRAFT' AND g.contract.room.boardingHouse.id = :boardingHouseId " +
+           "AND g.chargeDate BETWEEN :from AND :to GROUP BY YEAR(g.chargeDate), MONTH(g.chargeDate)")
+    List<Object[]> sumAmountByMonth(@Param("boardingHouseId") Long boardingHouseId,
+                                    @Param("from") LocalDate from,
+                                    @Param("to") LocalDate to);
+
+    // Revenue by boarding house: [houseId, houseName, SUM(amount)] for non-DRAFT contracts, charge date in [from, to]
+    // (boardingHouseId null = every house)
+    @Query("SELECT b.id, b.name, SUM(g.amount) FROM GuestServiceCharge g JOIN g.contract c JOIN c.room r JOIN r.boardingHouse b " +
+           "WHERE c.status <> 'DRAFT' AND g.chargeDate BETWEEN :from AND :to " +
+           "AND (:boardingHouseId IS NULL OR b.id = :boardingHouseId) GROUP BY b.id, b.name")
+    List<Object[]> sumAmountGroupedByBoardingHouse(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                                   @Param("boardingHouseId") Long boardingHouseId);
 }
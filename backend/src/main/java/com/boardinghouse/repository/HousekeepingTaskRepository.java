@@ -1,6 +1,7 @@
 package com.boardinghouse.repository;
 
 import com.boardinghouse.entity.HousekeepingTask;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -13,20 +14,24 @@ import java.util.List;
 public interface HousekeepingTaskRepository extends JpaRepository<HousekeepingTask, Long> {
 
     /** All tasks for a boarding house (via room → boarding house) */
+    @EntityGraph("HousekeepingTask.list")
     @Query("SELECT t FROM HousekeepingTask t WHERE t.room.boardingHouse.id = :bhId ORDER BY t.scheduledDate ASC, t.priority DESC")
     List<HousekeepingTask> findByBoardingHouseId(@Param("bhId") Long bhId);
 
     /** Tasks for a specific date range */
+    @EntityGraph("HousekeepingTask.list")
     @Query("SELECT t FROM HousekeepingTask t WHERE t.room.boardingHouse.id = :bhId AND t.scheduledDate BETWEEN :from AND :to ORDER BY t.scheduledDate ASC")
     List<HousekeepingTask> findByBoardingHouseAndDateRange(@Param("bhId") Long bhId,
                                                           @Param("from") LocalDate from,
                                                           @Param("to") LocalDate to);
 
     /** Pending/In-progress tasks for a boarding house */
+    @EntityGraph("HousekeepingTask.list")
     @Query("SELECT t FROM HousekeepingTask t WHERE t.room.boardingHouse.id = :bhId AND t.status IN ('PENDING','IN_PROGRESS') ORDER BY t.scheduledDate ASC")
     List<HousekeepingTask> findActiveTasks(@Param("bhId") Long bhId);
 
     /** All tasks for a specific room */
+    @EntityGraph("HousekeepingTask.list")
     List<HousekeepingTask> findByRoomIdOrderByScheduledDateDesc(Long roomId);
 
     /** Check if a pending checkout-triggered task already exists for a contract */
@@ -2,8 +2,12 @@ package com.boardinghouse.repository;
 
 import com.boardinghouse.entity.InventoryItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 @Repository
@@ -17,4 +21,20 @@ public interface InventoryItemRepository extends JpaRepository<InventoryItem, Lo
     List<InventoryItem> findByBoardingHouseIsNullOrderByCategoryAscNameAsc();
 
     List<InventoryItem> findByBoardingHouseIsNullAndIsActiveTrueOrderByCategoryAscNameAsc();
+
+    // Stock changes are single UPDATE statements so concurrent sales cannot lose updates or oversell;
+    // quantityOnHand is not updatable through the entity. Native because Hibernate renders
+    // "quantityOnHand + :quantity" with an unresolved numeric($p,$s) cast.
+
+    @Modifying
+    @Query(value = "UPDATE inventory_items SET quantity_on_hand = quantity_on_hand + :quantity WHERE id = :id", nativeQuery = true)
+    int addStock(@Param("id") Long id, @Param("quantity") BigDecimal quantity);
+
+    /** Returns 0 when less than {@code quantity} is on hand; the stock is then left unchanged. */
+    @Modifying
+    @Query(value = "UPDATE inventory_items SET quantity_on_hand = quantity_on_hand - :quantity WHERE id = :id AND quantity_on_hand >= :quantity", nativeQuery = true)
+    int removeStock(@Param("id") Long id, @Param("quantity") BigDecimal quantity);
+
+    @Query("SELECT i.quantityOnHand FROM InventoryItem i WHERE i.id = :id")
+    BigDecimal findQuantityOnHand(@Param("id") Long id);
 }
@@ -2,20 +2,121 @@ package com.boardinghouse.repository;
 
 import com.boardinghouse.entity.Invoice;
 import com.boardinghouse.entity.PaymentStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
     Optional<Invoice> findByCode(String code);
+
+    // Invoice list endpoints: contract, main tenant, room and house in the same query
+    @EntityGraph("Invoice.list")
+    @Query("SELECT i FROM Invoice i")
+    List<Invoice> findAllWithDetails();
+
+    @EntityGraph("Invoice.list")
     List<Invoice> findByContractId(Long contractId);
+
+    List<Invoice> findByContractIdIn(Collection<Long> contractIds);
+
+    @Query("SELECT i FROM Invoice i JOIN FETCH i.contract JOIN FETCH i.room WHERE i.contract.id IN :contractIds ORDER BY i.id")
+    List<Invoice> findWithDetailsByContractIdIn(@Param("contractIds") Collection<Long> contractIds);
+
     List<Invoice> findByRoomId(Long roomId);
     List<Invoice> findByStatus(PaymentStatus status);
     List<Invoice> findByPeriodMonthAndPeriodYear(Integer month, Integer year);
     List<Invoice> findByContractIdAndPeriodMonthAndPeriodYear(Long contractId, Integer month, Integer year);
+
+    // Bulk billing: which of these contracts already have an invoice for the period
+    @Query("SELECT i.contract.id FROM Invoice i WHERE i.contract.id IN :contractIds AND i.periodMonth = :month AND i.periodYear = :year")
+    List<Long> findContractIdsInvoicedForPeriod(@Param("contractIds") Collection<Long> contractIds,
+                                                @Param("month") Integer month,
+                                                @Param("year") Integer year);
     boolean existsByCode(String code);
-}
 
+    // Balance snapshot: [contractId, SUM(totalAmount), unpaid invoice count, SUM(totalAmount) of unpaid invoices]
+    @Query("SELECT i.contract.id, COALESCE(SUM(i.totalAmount), 0), " +
+           "SUM(CASE WHEN i.status <> 'PAID' THEN 1 ELSE 0 END), " +
+           "COALESCE(SUM(CASE WHEN i.status <> 'PAID' THEN i.totalAmount ELSE 0 END), 0) " +
+           "FROM Invoice i WHERE i.contract.id IN :contractIds GROUP BY i.contract.id")
+    List<Object[]> summarizeGroupedByContractIds(@Param("contractIds") Collection<Long> contractIds);
+
+    // Revenue rollup: [periodYear, periodMonth, COUNT] per billing period (period key = year * 100 + month)
+    @Query("SELECT i.periodYear, i.periodMonth, COUNT(i) FROM Invoice i WHERE i.room.boardingHouse.id = :boardingHouseId " +
+           "AND (i.periodYear * 100 + i.periodMonth) BETWEEN :fromKey AND :toKey GROUP BY i.periodYear, i.periodMonth")
+    List<Object[]> countByPeriod(@Param("boardingHouseId") Long boardingHouseId,
+                                 @Param("fromKey") int fromKey,
+                                 @Param("toKey") int toKey);
+
+    // Same, restricted to invoices whose payments cover the total
+    @Query("SELECT i.periodYear, i.periodMonth, COUNT(i) FROM Invoice i WHERE i.room.boardingHouse.id = :boardingHouseId " +
+           "AND (i.periodYear * 100 + i.periodMonth) BETWEEN :fromKey AND :toKey " +
+           "AND i.totalAmount <= (SELECT COALESCE(SUM(p.paidAmount), 0) FROM Payment p WHERE p.invoice.id = i.id) " +
+           "GROUP BY i.periodYear, i.periodMonth")
+    List<Object[]> countPaidByPeriod(@Param("boardingHouseId") Long boardingHouseId,
+                                     @Param("fromKey") int fromKey,
+                                     @Param("toKey") int toKey);
+
+    // Revenue by boarding house: [houseId, COUNT] of non-DRAFT contract invoices with period key in range
+    // (boardingHouseId null = every house)
+    @Query("SELECT i.room.boardingHouse.id, COUNT(i) FROM Invoice i WHERE i.contract.status <> 'DRAFT' " +
+           "AND (i.periodYear * 100 + i.periodMonth) BETWEEN :fromKey AND :toKey " +
+           "AND (:boardingHouseId IS NULL OR i.room.boardingHouse.id = :boardingHouseId) GROUP BY i.room.boardingHouse.id")
+    List<Object[]> countGroupedByBoardingHouse(@Param("fromKey") int fromKey, @Param("toKey") int toKey,
+                                               @Param("boardingHouseId") Long boardingHouseId);
+
+    // Same, restricted to invoices whose payments cover the total
+    @Query("SELECT i.room.boardingHouse.id, COUNT(i) FROM Invoice i WHERE i.contract.status <> 'DRAFT' " +
+           "AND (i.periodYear * 100 + i.periodMonth) BETWEEN :fromKey AND :toKey " +
+           "AND (:boardingHouseId IS NULL OR i.room.boardingHouse.id = :boardingHouseId) " +
+           "AND i.totalAmount <= (SELECT COALESCE(SUM(p.paidAmount), 0) FROM Payment p WHERE p.invoice.id = i.id) " +
+           "GROUP BY i.room.boardingHouse.id")
+    List<Object[]> countPaidGroupedByBoardingHouse(@Param("fromKey") int fromKey, @Param("toKey") int toKey,
+                                                   @Param("boardingHouseId") Long boardingHouseId);
+
+    // Outstanding debts, keyset-paginated on (dueDate, id): oldest due date = most days overdue first.
+    // First page (no cursor yet):
+    @Query("SELECT i FROM Invoice i JOIN FETCH i.contract c JOIN FETCH c.mainTenant JOIN FETCH i.room " +
+           "WHERE i.totalAmount > i.paidAmount ORDER BY i.dueDate ASC, i.id ASC")
+    List<Invoice> findOutstanding(Pageable pageable);
+
+    @Query("SELECT i FROM Invoice i JOIN FETCH i.contract c JOIN FETCH c.mainTenant JOIN FETCH i.room r " +
+           "WHERE i.totalAmount > i.paidAmount AND r.boardingHouse.id = :boardingHouseId ORDER BY i.dueDate ASC, i.id ASC")
+    List<Invoice> findOutstandingByBoardingHouseId(@Param("boardingHouseId") Long boardingHouseId, Pageable pageable);
+
+    // Next pages, after the (dueDate, id) of the previous page's last row:
+    @Query("SELECT i FROM Invoice i JOIN FETCH i.contract c JOIN FETCH c.mainTenant JOIN FETCH i.room " +
+           "WHERE i.totalAmount > i.paidAmount " +
+           "AND (i.dueDate > :afterDueDate OR (i.dueDate = :afterDueDate AND i.id > :afterId)) " +
+           "ORDER BY i.dueDate ASC, i.id ASC")
+    List<Invoice> findOutstandingAfter(@Param("afterDueDate") LocalDate afterDueDate,
+                                       @Param("afterId") Long afterId,
+                                       Pageable pageable);
+
+    @Query("SELECT i FROM Invoice i JOIN FETCH i.contract c JOIN FETCH c.mainTenant JOIN FETCH i.room r " +
+           "WHERE i.totalAmount > i.paidAmount AND r.boardingHouse.id = :boardingHouseId " +
+           "AND (i.dueDate > :afterDueDate OR (i.dueDate = :afterDueDate AND i.id > :afterId)) " +
+           "ORDER BY i.dueDate ASC, i.id ASC")
+    List<Invoice> findOutstandingByBoardingHouseIdAfter(@Param("boardingHouseId") Long boardingHouseId,
+                                                        @Param("afterDueDate") LocalDate afterDueDate,
+                                                        @Param("afterId") Long afterId,
+                                                        Pageable pageable);
+
+    // Recomputes paid_amount for every invoice (legacy rows, JDBC imports)
+    @Transactional
+    @Modifying
+    @Query("UPDATE Invoice i SET i.paidAmount = (SELECT COALESCE(SUM(p.paidAmount), 0) FROM Payment p WHERE p.invoice = i) " +
+           "WHERE i.paidAmount <> (SELECT COALESCE(SUM(p2.paidAmount), 0) FROM Payment p2 WHERE p2.invoice = i)")
+    int syncPaidAmounts();
+}
@@ -1,13 +1,39 @@
 package com.boardinghouse.repository;
 
 import com.boardinghouse.entity.Payment;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
+    // Payment list endpoints: invoice, contract, main tenant and room in the same query
+    @EntityGraph("Payment.list")
+    @Query("SELECT p FROM Payment p")
+    List<Payment> findAllWithDetails();
+
+    @EntityGraph("Payment.list")
     List<Payment> findByInvoiceId(Long invoiceId);
-}
 
+    List<Payment> findByInvoiceIdIn(Collection<Long> invoiceIds);
+
+    // Balance snapshot: [contractId, SUM(paidAmount), SUM(paidAmount) on invoices not yet PAID]
+    @Query("SELECT i.contract.id, COALESCE(SUM(p.paidAmount), 0), " +
+           "COALESCE(SUM(CASE WHEN i.status <> 'PAID' THEN p.paidAmount ELSE 0 END), 0) " +
+           "FROM Payment p JOIN p.invoice i WHERE i.contract.id IN :contractIds GROUP BY i.contract.id")
+    List<Object[]> summarizePaidGroupedByContractIds(@Param("contractIds") Collection<Long> contractIds);
+
+    // Revenue rollup: [year, month, SUM(paidAmount)] of payments received for a boarding house's invoices
+    @Query("SELECT YEAR(p.paymentDate), MONTH(p.paymentDate), SUM(p.paidAmount) FROM Payment p " +
+           "WHERE p.invoice.room.boardingHouse.id = :boardingHouseId AND p.paymentDate >= :from AND p.paymentDate < :to " +
+           "GROUP BY YEAR(p.paymentDate), MONTH(p.paymentDate)")
+    List<Object[]> sumPaidByMonth(@Param("boardingHouseId") Long boardingHouseId,
+                                  @Param("from") LocalDateTime from,
+                                  @Param("to") LocalDateTime to);
+}
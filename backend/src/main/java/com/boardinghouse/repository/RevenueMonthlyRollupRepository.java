@@ -0,0 +1,24 @@
+package com.boardinghouse.repository;
+
+import com.boardinghouse.entity.RevenueMonthlyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface RevenueMonthlyRollupRepository extends JpaRepository<RevenueMonthlyRollup, Long> {
+    List<RevenueMonthlyRollup> findByYearOrderByMonthAsc(Integer year);
+    List<RevenueMonthlyRollup> findByBoardingHouseIdAndYearOrderByMonthAsc(Long boardingHouseId, Integer year);
+
+    // Period key = year * 100 + month
+    @Modifying
+    @Query("DELETE FROM RevenueMonthlyRollup r WHERE r.boardingHouse.id = :boardingHouseId " +
+           "AND (r.year * 100 + r.month) BETWEEN :fromKey AND :toKey")
+    int deleteByBoardingHouseIdAndPeriodBetween(@Param("boardingHouseId") Long boardingHouseId,
+                                                @Param("fromKey") int fromKey,
+                                                @Param("toKey") int toKey);
+}
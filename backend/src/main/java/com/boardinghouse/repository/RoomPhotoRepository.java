@@ -1,6 +1,7 @@
 package com.boardinghouse.repository;
 
 import com.boardinghouse.entity.RoomPhoto;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,9 +13,11 @@ import java.util.List;
 public interface RoomPhotoRepository extends JpaRepository<RoomPhoto, Long> {
 
     /** Photos for a specific room, ordered by sort order */
+    @EntityGraph("RoomPhoto.list")
     List<RoomPhoto> findByRoomIdOrderBySortOrderAscUploadedAtAsc(Long roomId);
 
     /** Photos for all rooms in a boarding house — filtered! */
+    @EntityGraph("RoomPhoto.list")
     @Query("SELECT p FROM RoomPhoto p WHERE p.room.boardingHouse.id = :bhId ORDER BY p.room.code ASC, p.sortOrder ASC")
     List<RoomPhoto> findByBoardingHouseId(@Param("bhId") Long bhId);
 
@@ -2,7 +2,10 @@ package com.boardinghouse.repository;
 
 import com.boardinghouse.entity.Room;
 import com.boardinghouse.entity.RoomStatus;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,8 +14,25 @@ import java.util.Optional;
 @Repository
 public interface RoomRepository extends JpaRepository<Room, Long> {
     Optional<Room> findByCode(String code);
+
+    // Room list endpoints: boarding house in the same query
+    @EntityGraph("Room.list")
+    @Query("SELECT r FROM Room r")
+    List<Room> findAllWithDetails();
+
+    @EntityGraph("Room.list")
     List<Room> findByBoardingHouseId(Long boardingHouseId);
+
     List<Room> findByStatus(RoomStatus status);
     boolean existsByCode(String code);
+
+    @Query("SELECT r.code FROM Room r WHERE r.code IN :codes")
+    List<String> findExistingCodes(@org.springframework.data.repository.query.Param("codes") java.util.Collection<String> codes);
+
+    // Expiry sweeper: an OCCUPIED room with no ACTIVE contract is free
+    @Modifying
+    @Query("UPDATE Room r SET r.status = com.boardinghouse.entity.RoomStatus.AVAILABLE WHERE r.status = 'OCCUPIED' " +
+           "AND NOT EXISTS (SELECT c.id FROM Contract c WHERE c.room.id = r.id AND c.status = 'ACTIVE')")
+    int releaseOccupiedRoomsWithoutActiveContract();
 }
 
@@ -2,13 +2,20 @@ package com.boardinghouse.repository;
 
 import com.boardinghouse.entity.RoomService;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface RoomServiceRepository extends JpaRepository<RoomService, Long> {
     List<RoomService> findByRoomId(Long roomId);
+
+    // Bulk billing: services of many rooms with their service type in one query
+    @Query("SELECT rs FROM RoomService rs JOIN FETCH rs.serviceType WHERE rs.room.id IN :roomIds ORDER BY rs.id")
+    List<RoomService> findWithServiceTypeByRoomIdIn(@Param("roomIds") Collection<Long> roomIds);
     void deleteByRoomId(Long roomId);
 }
 
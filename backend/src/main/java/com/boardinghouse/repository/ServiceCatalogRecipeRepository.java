@@ -2,12 +2,18 @@ package com.boardinghouse.repository;
 
 import com.boardinghouse.entity.ServiceCatalogRecipe;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ServiceCatalogRecipeRepository extends JpaRepository<ServiceCatalogRecipe, Long> {
     List<ServiceCatalogRecipe> findByCatalogId(Long catalogId);
+
+    @Query("SELECT r FROM ServiceCatalogRecipe r JOIN FETCH r.inventoryItem WHERE r.catalog.id IN :catalogIds ORDER BY r.id")
+    List<ServiceCatalogRecipe> findWithItemByCatalogIdIn(@Param("catalogIds") Collection<Long> catalogIds);
     void deleteByCatalogId(Long catalogId);
 }
@@ -2,6 +2,7 @@ package com.boardinghouse.repository;
 
 import com.boardinghouse.entity.ServiceCatalog;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -30,4 +31,15 @@ public interface ServiceCatalogRepository extends JpaRepository<ServiceCatalog,
     // Active items for a specific property only (no global fallback)
     @Query("SELECT s FROM ServiceCatalog s WHERE s.isActive = true AND s.boardingHouse.id = :boardingHouseId ORDER BY s.category ASC, s.sortOrder ASC")
     List<ServiceCatalog> findActiveByBoardingHouseOnly(@Param("boardingHouseId") Long boardingHouseId);
+
+    // All items of one property (or the global ones) with their linked inventory item, for deduction plans
+    @Query("SELECT s FROM ServiceCatalog s LEFT JOIN FETCH s.inventoryItem WHERE s.boardingHouse.id = :boardingHouseId")
+    List<ServiceCatalog> findWithItemByBoardingHouseId(@Param("boardingHouseId") Long boardingHouseId);
+
+    @Query("SELECT s FROM ServiceCatalog s LEFT JOIN FETCH s.inventoryItem WHERE s.boardingHouse IS NULL")
+    List<ServiceCatalog> findWithItemByBoardingHouseIsNull();
+
+    @Modifying
+    @Query("UPDATE ServiceCatalog s SET s.inventoryItem.id = :inventoryItemId WHERE s.id = :id AND s.inventoryItem IS NULL")
+    int linkInventoryItem(@Param("id") Long id, @Param("inventoryItemId") Long inventoryItemId);
 }
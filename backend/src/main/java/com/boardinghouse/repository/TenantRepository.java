@@ -2,7 +2,11 @@ package com.boardinghouse.repository;
 
 import com.boardinghouse.entity.Tenant;
 import com.boardinghouse.entity.TenantStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,5 +16,9 @@ import java.util.Optional;
 public interface TenantRepository extends JpaRepository<Tenant, Long> {
     Optional<Tenant> findByUserId(Long userId);
     List<Tenant> findByStatus(TenantStatus status);
+
+    // Tenant list search: pattern is a lower-cased '%term%' matched against name or phone
+    @Query("SELECT t FROM Tenant t WHERE LOWER(t.fullName) LIKE :pattern OR t.phone LIKE :pattern")
+    Page<Tenant> search(@Param("pattern") String pattern, Pageable pageable);
 }
 
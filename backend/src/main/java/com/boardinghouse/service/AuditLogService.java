@@ -28,6 +28,19 @@ public class AuditLogService {
 
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void log(String action, String module, String details) {
+        saveForCurrentUser(action, module, details);
+    }
+
+    /**
+     * Like log(), but the entry joins the caller's transaction: it commits or rolls back with the
+     * change it records, and needs no second connection while the caller holds row locks.
+     */
+    @Transactional
+    public void logInTransaction(String action, String module, String details) {
+        saveForCurrentUser(action, module, details);
+    }
+
+    private void saveForCurrentUser(String action, String module, String details) {
         try {
             Authentication auth = SecurityContextHolder.getContext().getAuthentication();
             if (auth == null || !auth.isAuthenticated() || "anonymousUser".equals(auth.getPrincipal())) return;
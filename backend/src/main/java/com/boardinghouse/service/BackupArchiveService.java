@@ -0,0 +1,385 @@
+package com.boardinghouse.service;
+
+import com.boardinghouse.exception.BadRequestException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Backup archives: a ZIP (deflate, the algorithm behind gzip) holding every export table
+ * as JSON-array chunks of at most CHUNK_ROWS rows, plus manifest.json listing the chunks
+ * with row counts and SHA-256. Rows have the same shape as in export format 2.0.
+ *
+ *   manifest.json
+ *   tables/users/0001.json
+ *   tables/invoices/0001.json, tables/invoices/0002.json, ...
+ *
+ * A DELTA archive holds only the rows written since its base backup (by the change log)
+ * and, per table, the ids deleted since then. Restore = one FULL + its DELTAs in order.
+ */
+@Service
+public class BackupArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(BackupArchiveService.class);
+
+    public static final String FULL = "FULL";
+    public static final String DELTA = "DELTA";
+
+    private static final String FORMAT = "boarding-house-backup";
+    private static final int FORMAT_VERSION = 1;
+    private static final String MANIFEST = "manifest.json";
+    private static final int CHUNK_ROWS = 5000;
+
+    private final DataTransferService dataTransferService;
+    private final BackupChangeLogService changeLog;
+    private final ObjectMapper objectMapper;
+
+    public BackupArchiveService(DataTransferService dataTransferService,
+                                BackupChangeLogService changeLog,
+                                ObjectMapper objectMapper) {
+        this.dataTransferService = dataTransferService;
+        this.changeLog = changeLog;
+        this.objectMapper = objectMapper;
+    }
+
+    public record Manifest(String format, int formatVersion, String exportVersion, String type,
+                           LocalDateTime createdAt, String exportedBy,
+                           String baseSnapshot, String snapshot,
+                           long rows, long uncompressedBytes, List<TableEntry> tables) {}
+
+    public record TableEntry(String name, long rows, List<Long> removedIds, List<ChunkEntry> chunks) {}
+
+    public record ChunkEntry(String entry, int rows, long bytes, String sha256) {}
+
+    /**
+     * Live progress of write(): updated by the backup thread only, read by the job status API.
+     */
+    public static final class Progress {
+        private volatile String type;
+        private volatile String table;
+        private volatile long rows;
+        private volatile long bytes;
+        private volatile long expectedRows = -1;
+
+        public String type() { return type; }
+        public String table() { return table; }
+        public long rows() { return rows; }
+        /** Archive bytes written so far (compressed). */
+        public long bytes() { return bytes; }
+        /** Rows the archive is expected to hold, or -1 if unknown. */
+        public long expectedRows() { return expectedRows; }
+
+        public void expectRows(long expectedRows) { this.expectedRows = expectedRows; }
+    }
+
+    // ─── Write ───────────────────────────────────────────────────────────────
+
+    /**
+     * Writes an archive to {@code target}: a DELTA against {@code baseSnapshot} when one is
+     * given and the change log can answer it, otherwise FULL. Runs in one repeatable-read
+     * transaction, so the snapshot in the manifest matches the exported rows exactly.
+     * For a DELTA the expected row count in {@code progress} is exact; for FULL it is
+     * whatever estimate the caller set.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public Manifest write(Path target, String baseSnapshot, String exportedBy, Progress progress) throws IOException {
+        String snapshot = changeLog.isAvailable() ? changeLog.currentSnapshot() : null;
+        Map<String, Set<Long>> changes = baseSnapshot != null && snapshot != null
+                ? changeLog.changesSince(baseSnapshot).orElse(null)
+                : null;
+        String type = changes != null ? DELTA : FULL;
+        progress.type = type;
+        if (changes != null) {
+            progress.expectRows(changes.values().stream().mapToLong(Set::size).sum());
+        }
+
+        ZipSink sink;
+        OutputStream file = new BufferedOutputStream(Files.newOutputStream(target));
+        try (ZipOutputStream zip = new ZipOutputStream(new FilterOutputStream(file) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                progress.bytes += len;
+            }
+        })) {
+            sink = new ZipSink(zip, progress);
+            dataTransferService.exportTables(sink, changes);
+
+            Manifest manifest = new Manifest(FORMAT, FORMAT_VERSION, "2.0", type, LocalDateTime.now(), exportedBy,
+                    DELTA.equals(type) ? baseSnapshot : null, snapshot,
+                    sink.totalRows, sink.uncompressedBytes, sink.tables);
+            zip.putNextEntry(new ZipEntry(MANIFEST));
+            objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET).writeValue(zip, manifest);
+            zip.closeEntry();
+            return manifest;
+        }
+    }
+
+    /** Export sink writing each table as numbered chunk entries and collecting the manifest data. */
+    private final class ZipSink implements DataTransferService.ExportSink {
+        final ZipOutputStream zip;
+        final Progress progress;
+        final List<TableEntry> tables = new ArrayList<>();
+        long totalRows;
+        long uncompressedBytes;
+
+        String table;
+        List<ChunkEntry> chunks;
+        long tableRows;
+        ZipEntry entry;
+        MessageDigest digest;
+        JsonGenerator gen;
+        int chunkRows;
+
+        ZipSink(ZipOutputStream zip, Progress progress) {
+            this.zip = zip;
+            this.progress = progress;
+        }
+
+        @Override
+        public void beginTable(String name) {
+            table = name;
+            progress.table = name;
+            chunks = new ArrayList<>();
+            tableRows = 0;
+        }
+
+        @Override
+        public void row(Object row) throws IOException {
+            if (gen == null) openChunk();
+            gen.writeObject(row);
+            chunkRows++;
+            tableRows++;
+            progress.rows++; // single writer
+            if (chunkRows == CHUNK_ROWS) closeChunk();
+        }
+
+        @Override
+        public void endTable(String name, Collection<Long> removedIds) throws IOException {
+            if (gen != null) closeChunk();
+            tables.add(new TableEntry(name, tableRows, List.copyOf(removedIds), chunks));
+            totalRows += tableRows;
+        }
+
+        @Override
+        public ObjectMapper spoolMapper() {
+            return objectMapper;
+        }
+
+        @Override
+        public int spoolChunkRows() {
+            return CHUNK_ROWS;
+        }
+
+        @Override
+        public void spooledTable(String name, List<DataTransferService.SpooledChunk> spooled,
+                                 Collection<Long> removedIds) throws IOException {
+            beginTable(name);
+            for (DataTransferService.SpooledChunk chunk : spooled) {
+                // Same bytes the serial path writes: spooled with the same mapper, one array per chunk
+                entry = new ZipEntry("tables/" + table + "/" + String.format("%04d", chunks.size() + 1) + ".json");
+                zip.putNextEntry(entry);
+                digest = sha256();
+                Files.copy(chunk.file(), new DigestOutputStream(zip, digest)); // not closed: the zip stays open
+                zip.closeEntry();
+                chunks.add(new ChunkEntry(entry.getName(), chunk.rows(), entry.getSize(), HexFormat.of().formatHex(digest.digest())));
+                uncompressedBytes += entry.getSize();
+                tableRows += chunk.rows();
+                progress.rows += chunk.rows(); // tables are handed over one at a time
+            }
+            endTable(name, removedIds);
+        }
+
+        private void openChunk() throws IOException {
+            entry = new ZipEntry("tables/" + table + "/" + String.format("%04d", chunks.size() + 1) + ".json");
+            zip.putNextEntry(entry);
+            digest = sha256();
+            gen = objectMapper.createGenerator(new DigestOutputStream(new FilterOutputStream(zip) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    flush(); // the zip stream stays open for the next entry
+                }
+            }, digest));
+            gen.writeStartArray();
+            chunkRows = 0;
+        }
+
+        private void closeChunk() throws IOException {
+            gen.writeEndArray();
+            gen.close();
+            zip.closeEntry();
+            chunks.add(new ChunkEntry(entry.getName(), chunkRows, entry.getSize(), HexFormat.of().formatHex(digest.digest())));
+            uncompressedBytes += entry.getSize();
+            gen = null;
+        }
+    }
+
+    // ─── Read / restore ──────────────────────────────────────────────────────
+
+    /**
+     * Restores a FULL archive followed by its DELTA archives, in order. The chain and every
+     * chunk checksum are verified before anything is deleted.
+     */
+    public DataTransferService.ImportResult restore(List<Path> files) throws IOException {
+        if (files.isEmpty()) throw new BadRequestException("Chưa chọn file backup");
+        List<Archive> archives = new ArrayList<>();
+        try {
+            for (Path file : files) archives.add(open(file));
+            verifyChain(archives);
+            for (Archive archive : archives) archive.verify();
+            log.info("Restoring backup chain: {}", archives.stream()
+                    .map(a -> a.manifest().type() + " " + a.manifest().createdAt())
+                    .collect(Collectors.joining(" -> ")));
+            return dataTransferService.restore(archives.get(0), archives.subList(1, archives.size()), objectMapper);
+        } finally {
+            for (Archive archive : archives) archive.close();
+        }
+    }
+
+    private static void verifyChain(List<Archive> archives) {
+        Manifest first = archives.get(0).manifest();
+        if (!FULL.equals(first.type())) {
+            throw new BadRequestException("File đầu tiên phải là bản backup FULL");
+        }
+        for (int i = 1; i < archives.size(); i++) {
+            Manifest previous = archives.get(i - 1).manifest();
+            Manifest delta = archives.get(i).manifest();
+            if (!DELTA.equals(delta.type()) || delta.baseSnapshot() == null
+                    || !delta.baseSnapshot().equals(previous.snapshot())) {
+                throw new BadRequestException("Bản backup " + (i + 1) + " không nối tiếp bản trước (cần DELTA của "
+                        + previous.createdAt() + ")");
+            }
+        }
+    }
+
+    public Archive open(Path file) throws IOException {
+        ZipFile zip;
+        try {
+            zip = new ZipFile(file.toFile());
+        } catch (IOException e) {
+            throw new BadRequestException("Không phải file backup hợp lệ: " + e.getMessage());
+        }
+        try {
+            ZipEntry entry = zip.getEntry(MANIFEST);
+            if (entry == null) throw new BadRequestException("File backup thiếu " + MANIFEST);
+            Manifest manifest;
+            try (InputStream in = zip.getInputStream(entry)) {
+                manifest = objectMapper.readValue(in, Manifest.class);
+            }
+            if (!FORMAT.equals(manifest.format()) || manifest.formatVersion() > FORMAT_VERSION) {
+                throw new BadRequestException("Định dạng backup không hỗ trợ: " + manifest.format() + " v" + manifest.formatVersion());
+            }
+            return new Archive(zip, manifest);
+        } catch (IOException | RuntimeException e) {
+            zip.close();
+            throw e;
+        }
+    }
+
+    /** An opened archive, readable chunk by chunk by DataTransferService.restore. */
+    public final class Archive implements DataTransferService.ArchiveSource, Closeable {
+        private final ZipFile zip;
+        private final Manifest manifest;
+        private final Map<String, TableEntry> tables;
+
+        private Archive(ZipFile zip, Manifest manifest) {
+            this.zip = zip;
+            this.manifest = manifest;
+            this.tables = manifest.tables().stream().collect(Collectors.toMap(TableEntry::name, Function.identity()));
+        }
+
+        public Manifest manifest() {
+            return manifest;
+        }
+
+        /** Checks every chunk listed in the manifest against its SHA-256. */
+        public void verify() throws IOException {
+            for (TableEntry table : manifest.tables()) {
+                for (ChunkEntry chunk : table.chunks()) {
+                    MessageDigest digest = sha256();
+                    try (InputStream in = new DigestInputStream(entryStream(chunk), digest)) {
+                        in.transferTo(OutputStream.nullOutputStream());
+                    }
+                    if (!HexFormat.of().formatHex(digest.digest()).equals(chunk.sha256())) {
+                        throw new BadRequestException("File backup bị hỏng: " + chunk.entry());
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void readChunks(String section, DataTransferService.ChunkReader reader) throws IOException {
+            TableEntry table = tables.get(section);
+            if (table == null) return;
+            for (ChunkEntry chunk : table.chunks()) {
+                try (InputStream in = entryStream(chunk); JsonParser p = objectMapper.createParser(in)) {
+                    if (p.nextToken() != JsonToken.START_ARRAY) {
+                        throw new BadRequestException("File backup bị hỏng: " + chunk.entry());
+                    }
+                    reader.read(p);
+                }
+            }
+        }
+
+        @Override
+        public Collection<Long> removedIds(String section) {
+            TableEntry table = tables.get(section);
+            return table != null && table.removedIds() != null ? table.removedIds() : List.of();
+        }
+
+        private InputStream entryStream(ChunkEntry chunk) throws IOException {
+            ZipEntry entry = zip.getEntry(chunk.entry());
+            if (entry == null) throw new BadRequestException("File backup thiếu " + chunk.entry());
+            return zip.getInputStream(entry);
+        }
+
+        @Override
+        public void close() throws IOException {
+            zip.close();
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.boardinghouse.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Reads the backup_change_log table (db/migration V4) that statement-level triggers (V6)
+ * fill on every write to an exported table. Positions are PostgreSQL transaction snapshots rather than
+ * log ids: a transaction still open while a backup runs may hold a lower log id than one
+ * that already committed, and a snapshot accounts for it exactly.
+ *
+ * PostgreSQL only; elsewhere isAvailable() is false and every backup is FULL.
+ */
+@Service
+public class BackupChangeLogService {
+
+    private static final Logger log = LoggerFactory.getLogger(BackupChangeLogService.class);
+
+    /** Section name of the marker written after a bulk import: "everything changed". */
+    private static final String RESYNC = "*";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean available;
+
+    public BackupChangeLogService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public boolean isAvailable() {
+        Boolean a = available;
+        if (a == null) {
+            try {
+                String product = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+                a = "PostgreSQL".equalsIgnoreCase(product) && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                        "SELECT to_regclass('backup_change_log') IS NOT NULL", Boolean.class));
+            } catch (Exception e) {
+                log.warn("Backup change log check failed: {}", e.getMessage());
+                a = false;
+            }
+            available = a;
+        }
+        return a;
+    }
+
+    /** Snapshot of the current transaction; call inside the backup's export transaction. */
+    public String currentSnapshot() {
+        return jdbcTemplate.queryForObject("SELECT txid_current_snapshot()::text", String.class);
+    }
+
+    /**
+     * Row ids per export section written by transactions not yet visible in {@code baseSnapshot}.
+     * Empty when the log holds a resync marker (bulk import since the base): take a FULL backup.
+     */
+    public Optional<Map<String, Set<Long>>> changesSince(String baseSnapshot) {
+        Map<String, Set<Long>> changes = new HashMap<>();
+        boolean[] resync = {false};
+        jdbcTemplate.query(
+                "SELECT DISTINCT section, row_id FROM backup_change_log " +
+                "WHERE NOT txid_visible_in_snapshot(txid, ?::txid_snapshot)",
+                rs -> {
+                    String section = rs.getString(1);
+                    if (RESYNC.equals(section)) resync[0] = true;
+                    else changes.computeIfAbsent(section, k -> new HashSet<>()).add(rs.getLong(2));
+                },
+                baseSnapshot);
+        return resync[0] ? Optional.empty() : Optional.of(changes);
+    }
+
+    /**
+     * Turns the change log triggers off until the current transaction ends; for the writes of
+     * a bulk import, which finishes with {@link #markResync()}.
+     */
+    public void suspendInTransaction() {
+        if (!isAvailable()) return;
+        jdbcTemplate.queryForObject("SELECT set_config('backup.change_log', 'off', true)", String.class);
+    }
+
+    /** After a bulk import: earlier entries are meaningless, the next backup must be FULL. */
+    public void markResync() {
+        if (!isAvailable()) return;
+        jdbcTemplate.update("DELETE FROM backup_change_log");
+        jdbcTemplate.update("INSERT INTO backup_change_log (section, row_id) VALUES (?, 0)", RESYNC);
+    }
+
+    /** Drops entries already contained in a FULL backup taken at {@code snapshot}. */
+    public int prune(String snapshot) {
+        return jdbcTemplate.update(
+                "DELETE FROM backup_change_log WHERE txid_visible_in_snapshot(txid, ?::txid_snapshot)", snapshot);
+    }
+}
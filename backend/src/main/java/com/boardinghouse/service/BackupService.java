@@ -2,19 +2,20 @@ package com.boardinghouse.service;
 
 import com.boardinghouse.dto.BackupConfigDto;
 import com.boardinghouse.dto.BackupHistoryDto;
-import com.boardinghouse.dto.DataExportDto;
 import com.boardinghouse.entity.BackupConfig;
 import com.boardinghouse.entity.BackupHistory;
+import com.boardinghouse.exception.BadRequestException;
+import com.boardinghouse.exception.ResourceNotFoundException;
 import com.boardinghouse.repository.BackupConfigRepository;
 import com.boardinghouse.repository.BackupHistoryRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.mail.internet.MimeMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.mail.javamail.JavaMailSender;
@@ -22,16 +23,34 @@ import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.support.CronTrigger;
 import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Service
@@ -39,34 +58,95 @@ public class BackupService {
 
     private static final Logger log = LoggerFactory.getLogger(BackupService.class);
 
+    /** Backup modes: AUTO follows the config (incremental on/off, full backup interval). */
+    public static final String MODE_FULL = "FULL";
+    public static final String MODE_DELTA = "DELTA";
+    public static final String MODE_AUTO = "AUTO";
+    private static final Set<String> MODES = Set.of(MODE_FULL, MODE_DELTA, MODE_AUTO);
+
+    /** Backups and restores waiting behind the running job; further requests are refused. */
+    private static final int MAX_QUEUED_JOBS = 3;
+
+    /** Finished restore jobs whose outcome stays queryable. */
+    private static final int MAX_FINISHED_RESTORES = 20;
+
+    private final BackupArchiveService backupArchiveService;
     private final DataTransferService dataTransferService;
+    private final ObjectMapper objectMapper;
+    private final BackupChangeLogService changeLog;
+    private final BackupStore backupStore;
     private final BackupHistoryRepository backupHistoryRepo;
     private final BackupConfigRepository backupConfigRepo;
     private final JavaMailSender mailSender;
     private final TaskScheduler taskScheduler;
-    private final ObjectMapper objectMapper;
 
     @Value("${backup.email.from:noreply@yourdomain.com}")
     private String emailFrom;
 
+    /** Larger archives are kept out of the email (most providers reject ~25 MB). */
+    @Value("${backup.email.max-attachment-mb:20}")
+    private long maxAttachmentMb;
+
+    @Value("${backup.store.retention.max-count:30}")
+    private int retentionMaxCount;
+
+    @Value("${backup.store.retention.max-age-days:30}")
+    private int retentionMaxAgeDays;
+
     private ScheduledFuture<?> scheduledTask;
 
-    public BackupService(DataTransferService dataTransferService,
+    /**
+     * Backups and restores run here, one at a time, off the request and scheduler threads,
+     * so a restore never wipes the tables a backup is exporting (or another restore is
+     * importing). A backup's job id is its BackupHistory id; live progress is kept only while
+     * queued/running. Restores have their own ids (see {@link #restoreJobs}).
+     */
+    private final ThreadPoolExecutor backupExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(MAX_QUEUED_JOBS), r -> {
+                Thread t = new Thread(r, "backup-worker");
+                t.setDaemon(true);
+                return t;
+            });
+    private final Map<Long, BackupJob> activeJobs = new ConcurrentHashMap<>();
+
+    /** Restore jobs by id, oldest first; finished ones beyond MAX_FINISHED_RESTORES are dropped. */
+    private final Map<Long, RestoreJob> restoreJobs = new LinkedHashMap<>();
+    private final AtomicLong restoreJobIds = new AtomicLong();
+
+    public BackupService(BackupArchiveService backupArchiveService,
+                         DataTransferService dataTransferService,
+                         ObjectMapper objectMapper,
+                         BackupChangeLogService changeLog,
+                         BackupStore backupStore,
                          BackupHistoryRepository backupHistoryRepo,
                          BackupConfigRepository backupConfigRepo,
                          JavaMailSender mailSender,
                          TaskScheduler taskScheduler) {
+        this.backupArchiveService = backupArchiveService;
         this.dataTransferService = dataTransferService;
+        this.objectMapper = objectMapper;
+        this.changeLog = changeLog;
+        this.backupStore = backupStore;
         this.backupHistoryRepo = backupHistoryRepo;
         this.backupConfigRepo = backupConfigRepo;
         this.mailSender = mailSender;
         this.taskScheduler = taskScheduler;
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
     }
 
     @PostConstruct
     public void init() {
+        // Jobs do not survive a restart
+        List<BackupHistory> interrupted = backupHistoryRepo.findByStatusIn(List.of("QUEUED", "IN_PROGRESS"));
+        for (BackupHistory history : interrupted) {
+            history.setStatus("FAILED");
+            history.setCompletedAt(LocalDateTime.now());
+            history.setErrorMessage("Backup bị gián đoạn do server khởi động lại");
+        }
+        if (!interrupted.isEmpty()) {
+            backupHistoryRepo.saveAll(interrupted);
+            log.warn("Marked {} interrupted backup job(s) as FAILED", interrupted.size());
+        }
+
         BackupConfig config = getOrCreateConfig();
         if (config.getEnabled()) {
             reschedule(config.getCronExpression());
@@ -97,6 +177,15 @@ public class BackupService {
                 ? String.join(",", dto.getEmailRecipients()) : "");
         config.setCronExpression(dto.getCronExpression());
         config.setScheduleDescription(dto.getScheduleDescription());
+        if (dto.getIncrementalEnabled() != null) {
+            config.setIncrementalEnabled(dto.getIncrementalEnabled());
+        }
+        if (dto.getFullBackupInterval() != null) {
+            if (dto.getFullBackupInterval() < 1) {
+                throw new BadRequestException("Chu kỳ backup FULL phải >= 1");
+            }
+            config.setFullBackupInterval(dto.getFullBackupInterval());
+        }
         config.setUpdatedAt(LocalDateTime.now());
         config.setUpdatedBy(updatedBy);
         config = backupConfigRepo.save(config);
@@ -133,7 +222,11 @@ public class BackupService {
             scheduledTask = taskScheduler.schedule(
                     () -> {
                         log.info("Scheduled backup triggered at {}", LocalDateTime.now());
-                        performBackup("SCHEDULED", "SYSTEM");
+                        try {
+                            submitBackup("SCHEDULED", "SYSTEM", MODE_AUTO);
+                        } catch (BadRequestException e) {
+                            log.warn("Scheduled backup skipped: {}", e.getMessage());
+                        }
                     },
                     trigger
             );
@@ -143,6 +236,11 @@ public class BackupService {
         }
     }
 
+    @PreDestroy
+    public void shutdown() {
+        backupExecutor.shutdownNow();
+    }
+
     private void cancelSchedule() {
         if (scheduledTask != null && !scheduledTask.isCancelled()) {
             scheduledTask.cancel(false);
@@ -152,39 +250,156 @@ public class BackupService {
 
     // ─── Manual Backup ───────────────────────────────────────────────────────
 
-    public BackupHistoryDto triggerManualBackup(String triggeredBy) {
-        log.info("Manual backup triggered by {}", triggeredBy);
-        BackupHistory history = performBackup("MANUAL", triggeredBy);
-        return toDto(history);
+    /**
+     * Queues a manual backup and returns at once; the returned record's id is the job id
+     * for {@link #getJobStatus}.
+     */
+    public BackupHistoryDto triggerManualBackup(String triggeredBy, String mode) {
+        if (!MODES.contains(mode)) {
+            throw new BadRequestException("Chế độ backup không hợp lệ: " + mode + " (FULL, DELTA, AUTO)");
+        }
+        log.info("Manual {} backup triggered by {}", mode, triggeredBy);
+        return toDto(submitBackup("MANUAL", triggeredBy, mode));
+    }
+
+    // ─── Backup Jobs ─────────────────────────────────────────────────────────
+
+    private static final class BackupJob {
+        final BackupArchiveService.Progress progress = new BackupArchiveService.Progress();
+        volatile String phase = "QUEUED"; // QUEUED, EXPORTING, STORING, EMAILING
+        volatile long startedAt;
+    }
+
+    public record BackupJobStatus(Long jobId, String status, String phase, String backupType,
+                                  String currentTable, long rowsWritten, long bytesWritten,
+                                  Long expectedRows, Integer percent,
+                                  Long elapsedSeconds, Long etaSeconds,
+                                  BackupHistoryDto result) {}
+
+    private BackupHistory submitBackup(String triggerType, String triggeredBy, String mode) {
+        BackupHistory history = backupHistoryRepo.save(new BackupHistory(triggerType, triggeredBy));
+        Long jobId = history.getId();
+        BackupJob job = new BackupJob();
+        activeJobs.put(jobId, job);
+        try {
+            backupExecutor.execute(() -> {
+                try {
+                    performBackup(jobId, mode, job);
+                } finally {
+                    activeJobs.remove(jobId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            activeJobs.remove(jobId);
+            history.setStatus("FAILED");
+            history.setCompletedAt(LocalDateTime.now());
+            history.setErrorMessage("Hàng đợi backup đã đầy");
+            backupHistoryRepo.save(history);
+            throw new BadRequestException("Đang có " + MAX_QUEUED_JOBS + " backup chờ chạy, vui lòng thử lại sau");
+        }
+        return history;
+    }
+
+    /**
+     * Progress of a backup job: live counters while it is queued or running, the final
+     * history record once it is done. ETA extrapolates the row rate against the expected
+     * row count (exact for DELTA, the last FULL's row count for FULL).
+     */
+    public BackupJobStatus getJobStatus(Long jobId) {
+        BackupHistory history = backupHistoryRepo.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Backup job not found: " + jobId));
+        BackupJob job = activeJobs.get(jobId);
+        // The history is saved as finished a moment before the job leaves activeJobs (retention runs in between)
+        boolean finished = "SUCCESS".equals(history.getStatus()) || "FAILED".equals(history.getStatus());
+        if (job == null || finished) {
+            return new BackupJobStatus(jobId, history.getStatus(), null, history.getBackupType(), null,
+                    history.getRowCount() != null ? history.getRowCount() : 0,
+                    history.getFileSizeBytes() != null ? history.getFileSizeBytes() : 0,
+                    history.getRowCount(), "SUCCESS".equals(history.getStatus()) ? 100 : null,
+                    history.getDurationMs() != null ? history.getDurationMs() / 1000 : null, null,
+                    toDto(history));
+        }
+
+        BackupArchiveService.Progress p = job.progress;
+        long rows = p.rows();
+        long expected = p.expectedRows();
+        Integer percent = null;
+        Long elapsed = null;
+        Long eta = null;
+        if (job.startedAt > 0) {
+            long elapsedMs = System.currentTimeMillis() - job.startedAt;
+            elapsed = elapsedMs / 1000;
+            if (expected > 0) {
+                percent = (int) Math.min(99, rows * 100 / expected);
+                if (rows > 0) eta = Math.max(0, elapsedMs * (expected - rows) / rows / 1000);
+            }
+        }
+        return new BackupJobStatus(jobId, history.getStatus(), job.phase, p.type(), p.table(),
+                rows, p.bytes(), expected >= 0 ? expected : null, percent, elapsed, eta, null);
     }
 
     // ─── Core Backup Logic ───────────────────────────────────────────────────
 
-    private BackupHistory performBackup(String triggerType, String triggeredBy) {
-        BackupHistory history = new BackupHistory(triggerType, triggeredBy);
+    private void performBackup(Long jobId, String mode, BackupJob job) {
+        BackupHistory history = backupHistoryRepo.findById(jobId).orElseThrow();
+        history.setStatus("IN_PROGRESS");
         history = backupHistoryRepo.save(history);
+        Path backupFile = null;
 
         try {
-            // 1. Export all data
-            DataExportDto exportData = dataTransferService.exportAll(triggeredBy);
-
-            // 2. Convert to JSON bytes
-            byte[] jsonBytes = objectMapper.writeValueAsBytes(exportData);
+            // 1. Stream the archive to a temp file (the database is never held in memory)
+            BackupConfig config = getOrCreateConfig();
+            BackupHistory base = deltaBase(mode, config);
+            backupHistoryRepo.findTopByStatusAndBackupTypeOrderByCreatedAtDesc("SUCCESS", BackupArchiveService.FULL)
+                    .map(BackupHistory::getRowCount)
+                    .ifPresent(job.progress::expectRows);
+            backupFile = Files.createTempFile("boarding-house-backup-", ".zip");
+            job.phase = "EXPORTING";
+            job.startedAt = System.currentTimeMillis();
+            BackupArchiveService.Manifest manifest = backupArchiveService.write(backupFile,
+                    base != null ? base.getChangeSnapshot() : null, history.getTriggeredBy(), job.progress);
+            long durationMs = System.currentTimeMillis() - job.startedAt;
+            boolean delta = BackupArchiveService.DELTA.equals(manifest.type());
 
             String fileName = "boarding-house-backup-" +
                     LocalDate.now().format(DateTimeFormatter.ISO_LOCAL_DATE) + "-" +
-                    LocalDateTime.now().format(DateTimeFormatter.ofPattern("HHmmss")) + ".json";
+                    LocalDateTime.now().format(DateTimeFormatter.ofPattern("HHmmss")) +
+                    (delta ? "-delta" : "") + ".zip";
 
-            history.setFileName(fileName);
-            history.setFileSizeBytes((long) jsonBytes.length);
+            // 2. Keep the archive in the backup store (restore reads it from there)
+            job.phase = "STORING";
+            BackupStore.StoredArtifact stored = backupStore.put(backupFile, fileName);
+            long fileSize = stored.sizeBytes();
 
-            // 3. Send email with attachment (use config from DB)
-            // Always send email for both manual and scheduled backups if recipients are configured
-            BackupConfig config = getOrCreateConfig();
+            history.setFileName(fileName);
+            history.setStoragePath(stored.location());
+            history.setSha256(stored.sha256());
+            history.setFileSizeBytes(fileSize);
+            history.setBackupType(manifest.type());
+            history.setBaseBackupId(delta ? base.getId() : null);
+            history.setChangeSnapshot(manifest.snapshot());
+            history.setUncompressedSizeBytes(manifest.uncompressedBytes());
+            history.setRowCount(manifest.rows());
+            history.setCompressionRatio(fileSize > 0
+                    ? Math.round(manifest.uncompressedBytes() * 100.0 / fileSize) / 100.0 : null);
+            history.setDurationMs(durationMs);
+
+            // 3. Optionally send a copy by email (recipients from config)
             String recipients = config.getEmailRecipients();
-            if (recipients != null && !recipients.isBlank()) {
+            if (recipients == null || recipients.isBlank()) {
+                log.warn("No email recipients configured, skipping email send");
+                history.setEmailSent(false);
+            } else if (fileSize > maxAttachmentMb * 1024 * 1024) {
+                log.warn("Backup archive is {} bytes, over the {} MB email limit; not emailed", fileSize, maxAttachmentMb);
+                history.setEmailSent(false);
+                history.setErrorMessage("Backup OK nhưng file vượt " + maxAttachmentMb + " MB nên không gửi email");
+            } else {
+                job.phase = "EMAILING";
                 try {
-                    sendBackupEmail(jsonBytes, fileName, recipients);
+                    backupStore.read(stored.location(), file -> {
+                        sendBackupEmail(file, fileSize, fileName, recipients, manifest);
+                        return null;
+                    });
                     history.setEmailSent(true);
                     history.setEmailSentTo(recipients);
                     log.info("Backup email sent successfully to: {}", recipients);
@@ -194,44 +409,308 @@ public class BackupService {
                     history.setEmailSent(false);
                     history.setErrorMessage("Backup OK nhưng gửi email thất bại: " + emailEx.getMessage());
                 }
-            } else {
-                log.warn("No email recipients configured, skipping email send");
-                history.setEmailSent(false);
             }
 
             history.setStatus("SUCCESS");
             history.setCompletedAt(LocalDateTime.now());
-            log.info("Backup completed successfully. File: {}, Size: {} bytes", fileName, jsonBytes.length);
+            log.info("{} backup completed. File: {}, {} rows, {} -> {} bytes (x{}) in {} ms",
+                    manifest.type(), fileName, manifest.rows(), manifest.uncompressedBytes(), fileSize,
+                    history.getCompressionRatio(), durationMs);
+
+            // 4. A FULL backup contains every logged change up to its snapshot
+            if (!delta && manifest.snapshot() != null) {
+                try {
+                    changeLog.prune(manifest.snapshot());
+                } catch (Exception e) {
+                    log.warn("Could not prune backup change log: {}", e.getMessage());
+                }
+            }
 
         } catch (Exception e) {
             log.error("Backup failed: {}", e.getMessage(), e);
             history.setStatus("FAILED");
             history.setCompletedAt(LocalDateTime.now());
             history.setErrorMessage(e.getMessage());
+        } finally {
+            deleteQuietly(backupFile);
         }
 
-        return backupHistoryRepo.save(history);
+        backupHistoryRepo.save(history);
+        if ("SUCCESS".equals(history.getStatus())) {
+            try {
+                applyRetention();
+            } catch (Exception e) {
+                log.warn("Backup retention failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Deletes stored archives beyond backup.store.retention (max-count archives, max-age-days).
+     * A FULL archive and the DELTAs built on it restore only together, so such a chain is
+     * removed as a whole, oldest chains first; the newest chain is always kept. The history
+     * rows stay, without a storage path.
+     */
+    private void applyRetention() {
+        Map<Long, List<BackupHistory>> chains = new LinkedHashMap<>(); // root id -> archives, oldest first
+        Map<Long, Long> rootOf = new HashMap<>();
+        for (BackupHistory h : backupHistoryRepo.findByStoragePathIsNotNullOrderByCreatedAtAsc()) {
+            Long root = BackupArchiveService.DELTA.equals(h.getBackupType())
+                    ? rootOf.getOrDefault(h.getBaseBackupId(), h.getId())
+                    : h.getId();
+            rootOf.put(h.getId(), root);
+            chains.computeIfAbsent(root, k -> new ArrayList<>()).add(h);
+        }
+
+        List<List<BackupHistory>> newestFirst = new ArrayList<>(chains.values());
+        Collections.reverse(newestFirst);
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionMaxAgeDays);
+        int kept = 0;
+        boolean expired = false;
+        for (int i = 0; i < newestFirst.size(); i++) {
+            List<BackupHistory> chain = newestFirst.get(i);
+            LocalDateTime newest = chain.get(chain.size() - 1).getCreatedAt();
+            if (i > 0 && (expired || kept + chain.size() > retentionMaxCount || newest.isBefore(cutoff))) {
+                expired = true;
+                for (BackupHistory h : chain) {
+                    try {
+                        backupStore.delete(h.getStoragePath());
+                        log.info("Retention: deleted backup #{} ({})", h.getId(), h.getStoragePath());
+                        h.setStoragePath(null);
+                    } catch (IOException e) {
+                        log.warn("Retention: could not delete {}: {}", h.getStoragePath(), e.getMessage());
+                    }
+                }
+                backupHistoryRepo.saveAll(chain);
+            } else {
+                kept += chain.size();
+            }
+        }
+    }
+
+    /**
+     * The backup a new one should be a DELTA of, or null for FULL. AUTO takes a DELTA only
+     * with incremental backups enabled and fewer than fullBackupInterval - 1 DELTAs since
+     * the last FULL. The archive itself still falls back to FULL if the change log cannot
+     * answer (non-PostgreSQL, or a data import since the base).
+     */
+    private BackupHistory deltaBase(String mode, BackupConfig config) {
+        if (MODE_FULL.equals(mode)) return null;
+        if (MODE_AUTO.equals(mode)) {
+            if (!Boolean.TRUE.equals(config.getIncrementalEnabled())) return null;
+            BackupHistory lastFull = backupHistoryRepo
+                    .findTopByStatusAndBackupTypeOrderByCreatedAtDesc("SUCCESS", BackupArchiveService.FULL)
+                    .orElse(null);
+            if (lastFull == null) return null;
+            int interval = config.getFullBackupInterval() != null ? config.getFullBackupInterval() : 7;
+            long deltas = backupHistoryRepo.countByStatusAndBackupTypeAndCreatedAtAfter(
+                    "SUCCESS", BackupArchiveService.DELTA, lastFull.getCreatedAt());
+            if (deltas + 1 >= interval) return null;
+        }
+        return backupHistoryRepo.findTopByStatusAndChangeSnapshotIsNotNullOrderByCreatedAtDesc("SUCCESS")
+                .orElse(null);
+    }
+
+    // ─── Restore ─────────────────────────────────────────────────────────────
+
+    private static final class RestoreJob {
+        final Long jobId;
+        final String source;
+        final LocalDateTime queuedAt = LocalDateTime.now();
+        volatile String status = "QUEUED"; // QUEUED, IN_PROGRESS, SUCCESS, FAILED
+        volatile LocalDateTime startedAt;
+        volatile LocalDateTime completedAt;
+        volatile DataTransferService.ImportResult result;
+        volatile String errorMessage;
+
+        RestoreJob(Long jobId, String source) {
+            this.jobId = jobId;
+            this.source = source;
+        }
+
+        RestoreJobStatus status() {
+            DataTransferService.ImportResult r = result;
+            return new RestoreJobStatus(jobId, status, source, queuedAt, startedAt, completedAt,
+                    r != null ? r.stats() : null, r != null ? r.tables() : null, errorMessage);
+        }
+    }
+
+    /** A restore job as /backup/restore-jobs/{id} reports it; imported/tables are set once it succeeded. */
+    public record RestoreJobStatus(Long jobId, String status, String source,
+                                   LocalDateTime queuedAt, LocalDateTime startedAt, LocalDateTime completedAt,
+                                   Map<String, Object> imported, List<DataTransferService.TableStats> tables,
+                                   String errorMessage) {}
+
+    @FunctionalInterface
+    private interface RestoreWork {
+        DataTransferService.ImportResult run() throws IOException;
+    }
+
+    /**
+     * Queues {@code work} on the backup executor and returns its job at once; {@code cleanup}
+     * runs when the job is over, or right away when the queue is full.
+     */
+    private RestoreJobStatus submitRestore(String source, RestoreWork work, Runnable cleanup) {
+        RestoreJob job = new RestoreJob(restoreJobIds.incrementAndGet(), source);
+        synchronized (restoreJobs) {
+            restoreJobs.put(job.jobId, job);
+        }
+        try {
+            backupExecutor.execute(() -> {
+                job.status = "IN_PROGRESS";
+                job.startedAt = LocalDateTime.now();
+                try {
+                    job.result = work.run();
+                    job.status = "SUCCESS";
+                    log.info("Restore job #{} ({}) completed", job.jobId, source);
+                } catch (Exception e) {
+                    log.error("Restore job #{} ({}) failed: {}", job.jobId, source, e.getMessage(), e);
+                    job.errorMessage = e.getMessage();
+                    job.status = "FAILED";
+                } finally {
+                    job.completedAt = LocalDateTime.now();
+                    cleanup.run();
+                    pruneRestoreJobs();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            synchronized (restoreJobs) {
+                restoreJobs.remove(job.jobId);
+            }
+            cleanup.run();
+            throw new BadRequestException("Đang có " + MAX_QUEUED_JOBS + " backup/restore chờ chạy, vui lòng thử lại sau");
+        }
+        return job.status();
+    }
+
+    private void pruneRestoreJobs() {
+        synchronized (restoreJobs) {
+            long finished = restoreJobs.values().stream().filter(j -> j.completedAt != null).count();
+            Iterator<RestoreJob> it = restoreJobs.values().iterator();
+            while (finished > MAX_FINISHED_RESTORES && it.hasNext()) {
+                if (it.next().completedAt != null) {
+                    it.remove();
+                    finished--;
+                }
+            }
+        }
+    }
+
+    public RestoreJobStatus getRestoreJobStatus(Long jobId) {
+        RestoreJob job;
+        synchronized (restoreJobs) {
+            job = restoreJobs.get(jobId);
+        }
+        if (job == null) throw new ResourceNotFoundException("Restore job not found: " + jobId);
+        return job.status();
+    }
+
+    /**
+     * Queues a restore of the stored archive of backup {@code id}: for a DELTA, its FULL base
+     * and every DELTA up to it, read in place from the backup store after checking their
+     * SHA-256. The chain is checked here, so a missing archive is reported at once.
+     */
+    public RestoreJobStatus restoreFromHistory(Long id) {
+        List<BackupHistory> chain = restoreChain(id);
+        return submitRestore("backup #" + id, () -> {
+            log.info("Restoring backup #{} from store ({} archive(s))", id, chain.size());
+            return restoreStored(chain, 0, new ArrayList<>());
+        }, () -> {});
+    }
+
+    private List<BackupHistory> restoreChain(Long id) {
+        List<BackupHistory> chain = new ArrayList<>();
+        Long next = id;
+        while (next != null) {
+            Long currentId = next;
+            BackupHistory h = backupHistoryRepo.findById(currentId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Backup not found: " + currentId));
+            if (!"SUCCESS".equals(h.getStatus()) || h.getStoragePath() == null) {
+                throw new BadRequestException("Bản backup #" + h.getId() + " không còn file trong kho");
+            }
+            chain.add(0, h);
+            next = BackupArchiveService.DELTA.equals(h.getBackupType()) ? h.getBaseBackupId() : null;
+        }
+        return chain;
+    }
+
+    private DataTransferService.ImportResult restoreStored(List<BackupHistory> chain, int index, List<Path> files)
+            throws IOException {
+        if (index == chain.size()) {
+            return backupArchiveService.restore(files);
+        }
+        BackupHistory h = chain.get(index);
+        return backupStore.read(h.getStoragePath(), file -> {
+            if (!backupStore.checksumMatches(file, h.getSha256())) {
+                throw new BadRequestException("File backup #" + h.getId() + " bị hỏng (sai checksum)");
+            }
+            files.add(file);
+            return restoreStored(chain, index + 1, files);
+        });
+    }
+
+    /**
+     * Queues a restore of a FULL backup archive followed by its DELTA archives, in upload order.
+     * Replaces all current data, like a data import. The uploads are copied to temp files
+     * before returning (the request's files go away with it); the job deletes them.
+     */
+    public RestoreJobStatus restore(List<MultipartFile> files) throws IOException {
+        if (files == null || files.isEmpty()) {
+            throw new BadRequestException("Chưa chọn file backup");
+        }
+        List<Path> paths = new ArrayList<>();
+        try {
+            for (MultipartFile file : files) {
+                Path path = Files.createTempFile("boarding-house-restore-", ".zip");
+                paths.add(path);
+                file.transferTo(path);
+            }
+        } catch (IOException | RuntimeException e) {
+            paths.forEach(this::deleteQuietly);
+            throw e;
+        }
+        return submitRestore("upload (" + paths.size() + " file(s))",
+                () -> backupArchiveService.restore(paths),
+                () -> paths.forEach(this::deleteQuietly));
+    }
+
+    /**
+     * Queues an import of a /data-transfer/export JSON file, which replaces all current data
+     * like a restore and so shares its queue. The body is copied to a temp file before
+     * returning; the job imports from it and deletes it.
+     */
+    public RestoreJobStatus importData(InputStream body) throws IOException {
+        Path path = Files.createTempFile("boarding-house-import-", ".json");
+        try {
+            Files.copy(body, path, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(path);
+            throw e;
+        }
+        return submitRestore("data import", () -> dataTransferService.importAll(path, objectMapper),
+                () -> deleteQuietly(path));
     }
 
     // ─── Email Sending ───────────────────────────────────────────────────────
 
-    private void sendBackupEmail(byte[] jsonBytes, String fileName, String recipients) throws Exception {
+    private void sendBackupEmail(Path backupFile, long fileSize, String fileName, String recipients,
+                                 BackupArchiveService.Manifest manifest) throws Exception {
         MimeMessage message = mailSender.createMimeMessage();
         MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
 
         helper.setFrom(emailFrom);
         helper.setTo(recipients.split(","));
         helper.setSubject("\uD83D\uDDC4\uFE0F Boarding House Backup - " + LocalDate.now());
-        helper.setText(buildEmailBody(fileName, jsonBytes.length), true);
+        helper.setText(buildEmailBody(fileName, fileSize, manifest), true);
 
-        // Attach the JSON backup file
-        helper.addAttachment(fileName, new ByteArrayResource(jsonBytes), "application/json");
+        // Attach the backup archive
+        helper.addAttachment(fileName, new FileSystemResource(backupFile), "application/zip");
 
         mailSender.send(message);
         log.info("Backup email sent to {}", recipients);
     }
 
-    private String buildEmailBody(String fileName, int fileSize) {
+    private String buildEmailBody(String fileName, long fileSize, BackupArchiveService.Manifest manifest) {
         String sizeFormatted = fileSize > 1024 * 1024
                 ? String.format("%.2f MB", fileSize / (1024.0 * 1024.0))
                 : String.format("%.2f KB", fileSize / 1024.0);
@@ -243,15 +722,27 @@ public class BackupService {
                 <p>Backup đã được tạo thành công.</p>
                 <table style="border-collapse: collapse; margin: 16px 0;">
                     <tr><td style="padding: 8px; font-weight: bold;">File:</td><td style="padding: 8px;">%s</td></tr>
+                    <tr><td style="padding: 8px; font-weight: bold;">Type:</td><td style="padding: 8px;">%s</td></tr>
                     <tr><td style="padding: 8px; font-weight: bold;">Size:</td><td style="padding: 8px;">%s</td></tr>
+                    <tr><td style="padding: 8px; font-weight: bold;">Rows:</td><td style="padding: 8px;">%d</td></tr>
                     <tr><td style="padding: 8px; font-weight: bold;">Time:</td><td style="padding: 8px;">%s</td></tr>
                 </table>
                 <p style="color: #6b7280; font-size: 12px;">
-                    File backup được đính kèm trong email này. Để restore, vào trang Data Transfer và import file JSON này.
+                    File backup (.zip) được đính kèm trong email này và được lưu trên server. Để restore từ
+                    file này, vào trang Backup và upload bản FULL, kèm theo các bản DELTA sau nó (theo thứ tự thời gian) nếu có.
                 </p>
             </body>
             </html>
-            """.formatted(fileName, sizeFormatted, LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss")));
+            """.formatted(fileName, manifest.type(), sizeFormatted, manifest.rows(), LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss")));
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) return;
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete temp backup file {}: {}", file, e.getMessage());
+        }
     }
 
     // ─── Query History ───────────────────────────────────────────────────────
@@ -291,7 +782,15 @@ public class BackupService {
                 entity.getEmailSentTo(),
                 entity.getEmailSent(),
                 entity.getErrorMessage(),
-                entity.getFileName()
+                entity.getFileName(),
+                entity.getStoragePath(),
+                entity.getSha256(),
+                entity.getBackupType(),
+                entity.getBaseBackupId(),
+                entity.getUncompressedSizeBytes(),
+                entity.getRowCount(),
+                entity.getCompressionRatio(),
+                entity.getDurationMs()
         );
     }
 
@@ -309,6 +808,8 @@ public class BackupService {
                 emails,
                 entity.getCronExpression(),
                 entity.getScheduleDescription(),
+                Boolean.TRUE.equals(entity.getIncrementalEnabled()),
+                entity.getFullBackupInterval() != null ? entity.getFullBackupInterval() : 7,
                 entity.getUpdatedAt(),
                 entity.getUpdatedBy()
         );
@@ -0,0 +1,58 @@
+package com.boardinghouse.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Where backup archives are kept. BackupHistory records the location and SHA-256 of each
+ * archive; restore reads them back by history id. Email is only an extra copy on top.
+ */
+public interface BackupStore {
+
+    record StoredArtifact(String location, String sha256, long sizeBytes) {}
+
+    @FunctionalInterface
+    interface ArtifactReader<T, E extends Exception> {
+        T read(Path file) throws E;
+    }
+
+    /** Takes over {@code archive} (it may be moved) and stores it under {@code fileName}. */
+    StoredArtifact put(Path archive, String fileName) throws IOException;
+
+    /** Runs {@code reader} with the stored artifact as a readable local file. */
+    <T, E extends Exception> T read(String location, ArtifactReader<T, E> reader) throws IOException, E;
+
+    boolean exists(String location);
+
+    void delete(String location) throws IOException;
+
+    /**
+     * Whether {@code file}, as handed to a reader, is the artifact recorded with {@code sha256}
+     * (null: nothing recorded, nothing to check). Stores that keep their own checksums may
+     * answer from those instead of hashing the file.
+     */
+    default boolean checksumMatches(Path file, String sha256) throws IOException {
+        return sha256 == null || sha256.equalsIgnoreCase(sha256(file));
+    }
+
+    /** Hex SHA-256 of a local file, the form StoredArtifact records. */
+    static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
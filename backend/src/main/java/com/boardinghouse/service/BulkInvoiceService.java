@@ -0,0 +1,283 @@
+package com.boardinghouse.service;
+
+import com.boardinghouse.dto.UtilityReadingDto;
+import com.boardinghouse.entity.Contract;
+import com.boardinghouse.entity.Invoice;
+import com.boardinghouse.entity.InvoiceItem;
+import com.boardinghouse.entity.RoomService;
+import com.boardinghouse.exception.BadRequestException;
+import com.boardinghouse.exception.ResourceNotFoundException;
+import com.boardinghouse.repository.BoardingHouseRepository;
+import com.boardinghouse.repository.ContractRepository;
+import com.boardinghouse.repository.InvoiceRepository;
+import com.boardinghouse.repository.RoomServiceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Month-end billing for a whole boarding house in one call. Active contracts are loaded once;
+ * then, per chunk of invoice.bulk.chunk-size contracts, the period's existing invoices and the
+ * rooms' services are prefetched with one query each, invoices are priced by
+ * InvoiceService.buildInvoice (same rules as a single invoice) and inserted with JDBC batches
+ * in one transaction. Up to invoice.bulk.parallelism chunks run at once.
+ *
+ * Contracts already billed for the period are SKIPPED; a contract whose invoice cannot be
+ * built or inserted is FAILED with the reason, without affecting the others.
+ *
+ * bill() is also the write path of MeterReadingBatchService, which passes meter readings per
+ * contract and can ask for priced drafts instead of inserts.
+ */
+@Service
+public class BulkInvoiceService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkInvoiceService.class);
+
+    public static final String CREATED = "CREATED";
+    public static final String SKIPPED = "SKIPPED";
+    public static final String FAILED = "FAILED";
+
+    private static final String INSERT_INVOICE =
+            "INSERT INTO invoices (code, contract_id, room_id, period_month, period_year, total_amount, paid_amount, status, due_date, created_date) " +
+            "VALUES (?,?,?,?,?,?,?,?,?,?)";
+    private static final String INSERT_ITEM =
+            "INSERT INTO invoice_items (invoice_id, description, type, quantity, unit_price, amount, old_index, new_index) VALUES (?,?,?,?,?,?,?,?)";
+
+    private final InvoiceService invoiceService;
+    private final ContractRepository contractRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final RoomServiceRepository roomServiceRepository;
+    private final BoardingHouseRepository boardingHouseRepository;
+    private final RevenueRollupService revenueRollupService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${invoice.bulk.chunk-size:50}")
+    private int chunkSize;
+
+    @Value("${invoice.bulk.parallelism:2}")
+    private int parallelism;
+
+    public BulkInvoiceService(InvoiceService invoiceService, ContractRepository contractRepository,
+                              InvoiceRepository invoiceRepository, RoomServiceRepository roomServiceRepository,
+                              BoardingHouseRepository boardingHouseRepository, RevenueRollupService revenueRollupService,
+                              ApplicationEventPublisher eventPublisher, JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager) {
+        this.invoiceService = invoiceService;
+        this.contractRepository = contractRepository;
+        this.invoiceRepository = invoiceRepository;
+        this.roomServiceRepository = roomServiceRepository;
+        this.boardingHouseRepository = boardingHouseRepository;
+        this.revenueRollupService = revenueRollupService;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /** Bills every active contract of the boarding house for month/year; returns one outcome per contract, in room order. */
+    public BulkInvoiceResult generateForBoardingHouse(Long boardingHouseId, Integer month, Integer year) {
+        if (month == null || year == null || month < 1 || month > 12) throw new BadRequestException("Invalid billing period");
+        if (!boardingHouseRepository.existsById(boardingHouseId)) {
+            throw new ResourceNotFoundException("Boarding house not found with id: " + boardingHouseId);
+        }
+        long start = System.currentTimeMillis();
+        List<Contract> contracts = contractRepository.findActiveWithRoomByBoardingHouseId(boardingHouseId);
+        List<ContractOutcome> results = Arrays.asList(bill(contracts, month, year, null, null));
+
+        long millis = System.currentTimeMillis() - start;
+        int created = count(results, CREATED);
+        BulkInvoiceResult result = new BulkInvoiceResult(boardingHouseId, month, year, contracts.size(),
+                created, count(results, SKIPPED), count(results, FAILED), totalAmount(results),
+                millis, millis > 0 ? created * 1000L / millis : created, results);
+        log.info("Bulk billing of boarding house {} for {}/{}: {} created, {} skipped, {} failed of {} contract(s) in {} ms ({} invoices/s)",
+                boardingHouseId, month, year, result.created(), result.skipped(), result.failed(), result.contracts(),
+                millis, result.invoicesPerSecond());
+        return result;
+    }
+
+    /**
+     * Prices and (unless {@code previews} is given) inserts one invoice per contract for the period,
+     * in chunks, up to invoice.bulk.parallelism chunks at once. {@code readings}: contract id ->
+     * service type id -> reading for metered services; null leaves metered services at 0.
+     * With {@code previews} (same size as contracts) nothing is written: the priced invoices are
+     * put there instead and their outcomes are CREATED without an id. Returns one outcome per
+     * contract, in the given order.
+     */
+    ContractOutcome[] bill(List<Contract> contracts, int month, int year,
+                           Map<Long, Map<Long, UtilityReadingDto>> readings, Invoice[] previews) {
+        // Each chunk fills its own slots, so the outcomes stay in the given order
+        ContractOutcome[] outcomes = new ContractOutcome[contracts.size()];
+        TaskGraph graph = new TaskGraph();
+        int size = Math.max(1, chunkSize);
+        for (int from = 0; from < contracts.size(); from += size) {
+            int offset = from;
+            List<Contract> chunk = contracts.subList(from, Math.min(from + size, contracts.size()));
+            graph.add("chunk-" + from, List.of(), () -> {
+                try {
+                    billChunk(chunk, month, year, readings, previews, outcomes, offset);
+                } catch (RuntimeException e) {
+                    log.warn("Billing chunk for {}/{} failed: {}", month, year, e.getMessage());
+                    for (int i = 0; i < chunk.size(); i++) {
+                        if (outcomes[offset + i] == null) outcomes[offset + i] = ContractOutcome.of(chunk.get(i), FAILED, null, e.getMessage());
+                    }
+                }
+            });
+        }
+        try {
+            graph.run(parallelism, "invoice-bulk");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // chunks do no I/O
+        }
+
+        if (previews == null) {
+            // One rollup refresh per touched house and one balance eviction for the whole run
+            Map<Long, List<Long>> billedByHouse = new HashMap<>();
+            for (ContractOutcome o : outcomes) {
+                if (CREATED.equals(o.status())) billedByHouse.computeIfAbsent(o.boardingHouseId(), k -> new ArrayList<>()).add(o.contractId());
+            }
+            if (!billedByHouse.isEmpty()) {
+                LocalDate period = LocalDate.of(year, month, 1);
+                billedByHouse.keySet().forEach(houseId -> revenueRollupService.touch(houseId, period, period));
+                eventPublisher.publishEvent(new ContractBalanceService.BalanceChanged(
+                        billedByHouse.values().stream().flatMap(List::stream).toList()));
+            }
+        }
+        return outcomes;
+    }
+
+    private void billChunk(List<Contract> chunk, int month, int year, Map<Long, Map<Long, UtilityReadingDto>> readings,
+                           Invoice[] previews, ContractOutcome[] outcomes, int offset) {
+        Set<Long> invoiced = new HashSet<>(invoiceRepository.findContractIdsInvoicedForPeriod(
+                chunk.stream().map(Contract::getId).toList(), month, year));
+        Map<Long, List<RoomService>> servicesByRoom = roomServiceRepository.findWithServiceTypeByRoomIdIn(
+                        chunk.stream().map(c -> c.getRoom().getId()).collect(Collectors.toSet()))
+                .stream().collect(Collectors.groupingBy(rs -> rs.getRoom().getId()));
+
+        List<Invoice> drafts = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            Contract c = chunk.get(i);
+            if (invoiced.contains(c.getId())) {
+                outcomes[offset + i] = ContractOutcome.of(c, SKIPPED, null, "Invoice already exists for this period");
+                continue;
+            }
+            try {
+                drafts.add(invoiceService.buildInvoice(c, month, year, servicesByRoom.getOrDefault(c.getRoom().getId(), List.of()),
+                        readings != null ? readings.getOrDefault(c.getId(), Map.of()) : null));
+                slots.add(offset + i);
+            } catch (RuntimeException e) {
+                outcomes[offset + i] = ContractOutcome.of(c, FAILED, null, e.getMessage());
+            }
+        }
+        if (drafts.isEmpty()) return;
+
+        if (previews != null) {
+            for (int i = 0; i < drafts.size(); i++) {
+                previews[slots.get(i)] = drafts.get(i);
+                outcomes[slots.get(i)] = ContractOutcome.of(drafts.get(i).getContract(), CREATED, drafts.get(i), null);
+            }
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(drafts));
+            for (int i = 0; i < drafts.size(); i++) {
+                outcomes[slots.get(i)] = ContractOutcome.of(drafts.get(i).getContract(), CREATED, drafts.get(i), null);
+            }
+        } catch (DataAccessException e) {
+            // One bad row (e.g. an invoice created meanwhile) fails the whole batch: retry one by one to pin it down
+            log.debug("Billing chunk failed, retrying invoice by invoice: {}", e.getMessage());
+            for (int i = 0; i < drafts.size(); i++) {
+                Invoice draft = drafts.get(i);
+                draft.setId(null);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insert(List.of(draft)));
+                    outcomes[slots.get(i)] = ContractOutcome.of(draft.getContract(), CREATED, draft, null);
+                } catch (DataAccessException ex) {
+                    outcomes[slots.get(i)] = ContractOutcome.of(draft.getContract(), FAILED, null,
+                            NestedExceptionUtils.getMostSpecificCause(ex).getMessage());
+                }
+            }
+        }
+    }
+
+    /** Inserts the invoices with one JDBC batch, takes their generated ids, then inserts all their items with another. */
+    private void insert(List<Invoice> invoices) {
+        List<Object[]> rows = invoices.stream().map(inv -> new Object[]{
+                inv.getCode(), inv.getContract().getId(), inv.getRoom().getId(), inv.getPeriodMonth(), inv.getPeriodYear(),
+                inv.getTotalAmount(), inv.getPaidAmount(), inv.getStatus().name(), inv.getDueDate(), inv.getCreatedDate()
+        }).toList();
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_INVOICE, new String[]{"id"}), new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                new ArgumentPreparedStatementSetter(rows.get(i)).setValues(ps);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        }, keys);
+        List<Map<String, Object>> ids = keys.getKeyList();
+        List<Object[]> items = new ArrayList<>();
+        for (int i = 0; i < invoices.size(); i++) {
+            Invoice inv = invoices.get(i);
+            inv.setId(((Number) ids.get(i).values().iterator().next()).longValue());
+            for (InvoiceItem it : inv.getItems()) {
+                items.add(new Object[]{inv.getId(), it.getDescription(), it.getType().name(), it.getQuantity(),
+                        it.getUnitPrice(), it.getAmount(), it.getOldIndex(), it.getNewIndex()});
+            }
+        }
+        if (!items.isEmpty()) jdbcTemplate.batchUpdate(INSERT_ITEM, items);
+    }
+
+    static int count(List<ContractOutcome> results, String status) {
+        return (int) results.stream().filter(o -> status.equals(o.status())).count();
+    }
+
+    static BigDecimal totalAmount(List<ContractOutcome> results) {
+        return results.stream().map(ContractOutcome::totalAmount).filter(Objects::nonNull).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    public record BulkInvoiceResult(Long boardingHouseId, int month, int year, int contracts,
+                                    int created, int skipped, int failed, BigDecimal totalAmount,
+                                    long millis, long invoicesPerSecond, List<ContractOutcome> results) {}
+
+    /** status: CREATED (invoiceCode/totalAmount set; invoiceId too unless previewed), SKIPPED or FAILED (message says why). */
+    public record ContractOutcome(Long contractId, String contractCode, Long boardingHouseId, String roomCode, String status,
+                                  Long invoiceId, String invoiceCode, BigDecimal totalAmount, String message) {
+        static ContractOutcome of(Contract c, String status, Invoice invoice, String message) {
+            return new ContractOutcome(c.getId(), c.getCode(), c.getRoom().getBoardingHouse().getId(), c.getRoom().getCode(), status,
+                    invoice != null ? invoice.getId() : null, invoice != null ? invoice.getCode() : null,
+                    invoice != null ? invoice.getTotalAmount() : null, message);
+        }
+    }
+}
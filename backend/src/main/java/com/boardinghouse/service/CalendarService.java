@@ -2,6 +2,7 @@ package com.boardinghouse.service;
 
 import com.boardinghouse.dto.CalendarEventDto;
 import com.boardinghouse.dto.CalendarDayDto;
+import com.boardinghouse.dto.CalendarRangeDto;
 import com.boardinghouse.entity.*;
 import com.boardinghouse.repository.*;
 import org.springframework.stereotype.Service;
@@ -15,19 +16,29 @@ import java.util.stream.Collectors;
 
 @Service
 public class CalendarService {
+    private static final int CHUNK_SIZE = 1000;
+    private static final Comparator<OccupancyIndexService.Stay> BY_END_DATE =
+            Comparator.comparing(OccupancyIndexService.Stay::endDate).thenComparing(OccupancyIndexService.Stay::contractId);
+
     private final ContractRepository contractRepository;
     private final InvoiceRepository invoiceRepository;
     private final PaymentRepository paymentRepository;
     private final GuestServiceChargeRepository guestChargeRepository;
+    private final OccupancyIndexService occupancyIndex;
+    private final ContractBalanceService balanceService;
 
     public CalendarService(ContractRepository contractRepository,
                            InvoiceRepository invoiceRepository,
                            PaymentRepository paymentRepository,
-                           GuestServiceChargeRepository guestChargeRepository) {
+                           GuestServiceChargeRepository guestChargeRepository,
+                           OccupancyIndexService occupancyIndex,
+                           ContractBalanceService balanceService) {
         this.contractRepository = contractRepository;
         this.invoiceRepository = invoiceRepository;
         this.paymentRepository = paymentRepository;
         this.guestChargeRepository = guestChargeRepository;
+        this.occupancyIndex = occupancyIndex;
+        this.balanceService = balanceService;
     }
 
     /**
@@ -37,22 +48,25 @@ public class CalendarService {
     public List<CalendarEventDto> getEvents(LocalDate from, LocalDate to) {
         List<CalendarEventDto> result = new ArrayList<>();
         List<Contract> contracts = contractRepository.findContractsInRange(from, to);
+        Billing billing = loadBilling(contracts);
+        LocalDate today = LocalDate.now();
 
         for (Contract c : contracts) {
+            BigDecimal totalDebt = totalDebt(c, billing);
+
             // CHECKIN events
             if (!c.getStartDate().isBefore(from) && !c.getStartDate().isAfter(to)) {
-                result.add(buildContractEvent(c, "CHECKIN", c.getStartDate()));
+                result.add(buildContractEvent(c, "CHECKIN", c.getStartDate(), totalDebt));
             }
             // CHECKOUT events
             if (!c.getEndDate().isBefore(from) && !c.getEndDate().isAfter(to)) {
-                result.add(buildContractEvent(c, "CHECKOUT", c.getEndDate()));
+                result.add(buildContractEvent(c, "CHECKOUT", c.getEndDate(), totalDebt));
             }
 
             // Invoice-related events
-            List<Invoice> invoices = invoiceRepository.findByContractId(c.getId());
-            for (Invoice inv : invoices) {
-                BigDecimal paid = paymentRepository.findByInvoiceId(inv.getId()).stream()
-                        .map(Payment::getPaidAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+            for (Invoice inv : billing.invoicesOf(c.getId())) {
+                List<Payment> payments = billing.paymentsOf(inv.getId());
+                BigDecimal paid = sumPaid(payments);
                 BigDecimal remaining = inv.getTotalAmount().subtract(paid);
 
                 // INVOICE_DUE - on due date, if not fully paid
@@ -66,7 +80,6 @@ public class CalendarService {
                 }
 
                 // OVERDUE - show on today if past due and unpaid
-                LocalDate today = LocalDate.now();
                 if (inv.getDueDate() != null && inv.getDueDate().isBefore(today)
                         && inv.getStatus() != PaymentStatus.PAID
                         && !today.isBefore(from) && !today.isAfter(to)) {
@@ -77,7 +90,7 @@ public class CalendarService {
                 }
 
                 // PAYMENT events - on actual payment dates
-                for (Payment p : paymentRepository.findByInvoiceId(inv.getId())) {
+                for (Payment p : payments) {
                     LocalDate payDate = p.getPaymentDate().toLocalDate();
                     if (!payDate.isBefore(from) && !payDate.isAfter(to)) {
                         CalendarEventDto ev = buildInvoiceEvent(c, inv, paid, remaining);
@@ -95,7 +108,7 @@ public class CalendarService {
         return result;
     }
 
-    private CalendarEventDto buildContractEvent(Contract c, String type, LocalDate date) {
+    private CalendarEventDto buildContractEvent(Contract c, String type, LocalDate date, BigDecimal totalDebt) {
         CalendarEventDto ev = new CalendarEventDto();
         ev.setType(type);
         ev.setDate(date);
@@ -107,14 +120,17 @@ public class CalendarService {
         ev.setBoardingHouseId(c.getRoom().getBoardingHouse().getId());
         ev.setCheckInDate(c.getStartDate());
         ev.setCheckOutDate(c.getEndDate());
-        BigDecimal daily = c.getDailyRate() != null ? c.getDailyRate() : BigDecimal.ZERO;
-        ev.setDailyRate(daily);
+        ev.setDailyRate(c.getDailyRate() != null ? c.getDailyRate() : BigDecimal.ZERO);
+        ev.setTotalDebt(totalDebt);
+        return ev;
+    }
 
-        // Calculate total debt for this contract
-        List<Invoice> invoices = invoiceRepository.findByContractId(c.getId());
+    /** Total debt for a contract, from prefetched invoices/payments/charges. */
+    private BigDecimal totalDebt(Contract c, Billing billing) {
+        List<Invoice> invoices = billing.invoicesOf(c.getId());
         BigDecimal totalPaid = invoices.stream()
-                .flatMap(inv -> paymentRepository.findByInvoiceId(inv.getId()).stream())
-                .map(Payment::getPaidAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+                .map(inv -> sumPaid(billing.paymentsOf(inv.getId())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
         BigDecimal totalDebt;
         if (!invoices.isEmpty()) {
             // Use invoiced amount as source of truth (SUM invoice already includes charges)
@@ -123,13 +139,66 @@ public class CalendarService {
             totalDebt = totalInvoiced.subtract(totalPaid);
         } else {
             // No invoice yet — estimate from room cost + charges
+            BigDecimal daily = c.getDailyRate() != null ? c.getDailyRate() : BigDecimal.ZERO;
             long nights = Math.max(1, ChronoUnit.DAYS.between(c.getStartDate(), c.getEndDate()));
             BigDecimal roomCost = daily.multiply(BigDecimal.valueOf(nights));
-            BigDecimal charges = guestChargeRepository.sumAmountByContractId(c.getId());
-            totalDebt = roomCost.add(charges).subtract(totalPaid);
+            totalDebt = roomCost.add(billing.chargesOf(c.getId())).subtract(totalPaid);
+        }
+        return totalDebt.max(BigDecimal.ZERO);
+    }
+
+    private static BigDecimal sumPaid(List<Payment> payments) {
+        return payments.stream().map(Payment::getPaidAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    /**
+     * Invoices, payments and guest-charge totals for a set of contracts, loaded with
+     * one IN query each (chunked) so building events never goes back to the database.
+     */
+    private Billing loadBilling(Collection<Contract> contracts) {
+        List<Long> contractIds = contracts.stream().map(Contract::getId).distinct().toList();
+        Map<Long, List<Invoice>> invoicesByContract = new HashMap<>();
+        Map<Long, List<Payment>> paymentsByInvoice = new HashMap<>();
+        Map<Long, BigDecimal> chargesByContract = new HashMap<>();
+
+        List<Long> invoiceIds = new ArrayList<>();
+        for (List<Long> chunk : chunks(contractIds)) {
+            for (Invoice inv : invoiceRepository.findByContractIdIn(chunk)) {
+                invoicesByContract.computeIfAbsent(inv.getContract().getId(), k -> new ArrayList<>()).add(inv);
+                invoiceIds.add(inv.getId());
+            }
+            for (Object[] row : guestChargeRepository.sumAmountGroupedByContractIds(chunk)) {
+                chargesByContract.put((Long) row[0], (BigDecimal) row[1]);
+            }
+        }
+        for (List<Long> chunk : chunks(invoiceIds)) {
+            for (Payment p : paymentRepository.findByInvoiceIdIn(chunk)) {
+                paymentsByInvoice.computeIfAbsent(p.getInvoice().getId(), k -> new ArrayList<>()).add(p);
+            }
+        }
+        return new Billing(invoicesByContract, paymentsByInvoice, chargesByContract);
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += CHUNK_SIZE) {
+            chunks.add(ids.subList(i, Math.min(i + CHUNK_SIZE, ids.size())));
+        }
+        return chunks;
+    }
+
+    private record Billing(Map<Long, List<Invoice>> invoicesByContract,
+                           Map<Long, List<Payment>> paymentsByInvoice,
+                           Map<Long, BigDecimal> chargesByContract) {
+        List<Invoice> invoicesOf(Long contractId) {
+            return invoicesByContract.getOrDefault(contractId, List.of());
+        }
+        List<Payment> paymentsOf(Long invoiceId) {
+            return paymentsByInvoice.getOrDefault(invoiceId, List.of());
+        }
+        BigDecimal chargesOf(Long contractId) {
+            return chargesByContract.getOrDefault(contractId, BigDecimal.ZERO);
         }
-        ev.setTotalDebt(totalDebt.max(BigDecimal.ZERO));
-        return ev;
     }
 
     private CalendarEventDto buildInvoiceEvent(Contract c, Invoice inv, BigDecimal paid, BigDecimal remaining) {
@@ -151,71 +220,108 @@ public class CalendarService {
         return ev;
     }
 
-    // Keep old method for backward compatibility (Dashboard uses it)
-    public List<CalendarDayDto> getCalendarData(LocalDate startDate, LocalDate endDate) {
-        List<Contract> allActive = contractRepository.findAllActiveOrderByEndDate();
-        Map<LocalDate, List<CalendarDayDto.CalendarEventDto>> dayMap = new LinkedHashMap<>();
+    /**
+     * Compact calendar: one entry per stay overlapping [startDate, endDate] with the
+     * day-index range it covers, instead of one copied event per night.
+     */
+    public CalendarRangeDto getCalendarRange(LocalDate startDate, LocalDate endDate) {
+        List<CalendarRangeDto.StayDto> stays = new ArrayList<>();
+        CalendarStays calendar = loadCalendarStays(startDate, endDate);
+        for (OccupancyIndexService.Stay stay : calendar.stays()) {
+            CalendarDayDto.CalendarEventDto base = calendar.baseByContract().get(stay.contractId());
+            if (base == null) continue;
+            LocalDate first = stay.startDate().isBefore(startDate) ? startDate : stay.startDate();
+            LocalDate last = stay.endDate().isAfter(endDate) ? endDate : stay.endDate();
+            stays.add(toStayDto(base, (int) ChronoUnit.DAYS.between(startDate, first),
+                    (int) ChronoUnit.DAYS.between(startDate, last)));
+        }
 
+        CalendarRangeDto dto = new CalendarRangeDto();
+        dto.setStartDate(startDate);
+        dto.setEndDate(endDate);
+        dto.setDayCount((int) ChronoUnit.DAYS.between(startDate, endDate) + 1);
+        dto.setStays(stays);
+        return dto;
+    }
+
+    /** Legacy per-day calendar: every day carries a full event for each guest checking in, out or staying. */
+    public List<CalendarDayDto> getCalendarData(LocalDate startDate, LocalDate endDate) {
+        CalendarStays calendar = loadCalendarStays(startDate, endDate);
+        // Each day asks the index who checks in, checks out or stays over (ordered by checkout date)
+        List<CalendarDayDto> days = new ArrayList<>();
         for (LocalDate d = startDate; !d.isAfter(endDate); d = d.plusDays(1)) {
-            dayMap.put(d, new ArrayList<>());
-        }
+            List<OccupancyIndexService.Stay> onDay = new ArrayList<>(occupancyIndex.onDay(null, d));
+            onDay.sort(BY_END_DATE);
 
-        Map<Long, BigDecimal[]> debtCache = new HashMap<>();
-
-        for (Contract c : allActive) {
-            if (c.getEndDate().isBefore(startDate) || c.getStartDate().isAfter(endDate)) continue;
-
-            BigDecimal[] debtInfo = debtCache.computeIfAbsent(c.getId(), id -> {
-                BigDecimal invoiceTotal = invoiceRepository.findByContractId(id).stream()
-                        .map(Invoice::getTotalAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
-                BigDecimal paid = invoiceRepository.findByContractId(id).stream()
-                        .flatMap(inv -> paymentRepository.findByInvoiceId(inv.getId()).stream())
-                        .map(Payment::getPaidAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
-                BigDecimal charges = guestChargeRepository.sumAmountByContractId(id);
-                long unpaidCount = invoiceRepository.findByContractId(id).stream()
-                        .filter(inv -> inv.getStatus() != PaymentStatus.PAID).count();
-                BigDecimal unpaidAmt = invoiceRepository.findByContractId(id).stream()
-                        .filter(inv -> inv.getStatus() != PaymentStatus.PAID)
-                        .map(inv -> inv.getTotalAmount().subtract(
-                                paymentRepository.findByInvoiceId(inv.getId()).stream()
-                                        .map(Payment::getPaidAmount).reduce(BigDecimal.ZERO, BigDecimal::add)))
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-                return new BigDecimal[]{invoiceTotal.add(charges).subtract(paid), paid, BigDecimal.valueOf(unpaidCount), unpaidAmt};
-            });
-
-            CalendarDayDto.CalendarEventDto base = buildDayEvent(c, debtInfo);
-
-            if (!c.getStartDate().isBefore(startDate) && !c.getStartDate().isAfter(endDate)) {
-                CalendarDayDto.CalendarEventDto ev = cloneDayEvent(base);
-                ev.setEventType("CHECKIN");
-                dayMap.get(c.getStartDate()).add(ev);
-            }
-            if (!c.getEndDate().isBefore(startDate) && !c.getEndDate().isAfter(endDate)) {
-                CalendarDayDto.CalendarEventDto ev = cloneDayEvent(base);
-                ev.setEventType("CHECKOUT");
-                dayMap.get(c.getEndDate()).add(ev);
+            List<CalendarDayDto.CalendarEventDto> events = new ArrayList<>();
+            for (OccupancyIndexService.Stay stay : onDay) {
+                CalendarDayDto.CalendarEventDto base = calendar.baseByContract().get(stay.contractId());
+                if (base == null) continue;
+                if (stay.checksInOn(d)) events.add(dayEvent(base, "CHECKIN"));
+                if (stay.checksOutOn(d)) events.add(dayEvent(base, "CHECKOUT"));
+                if (stay.staysOver(d)) events.add(dayEvent(base, "STAYING"));
             }
 
-            LocalDate stayStart = c.getStartDate().plusDays(1).isBefore(startDate) ? startDate : c.getStartDate().plusDays(1);
-            LocalDate stayEnd = c.getEndDate().minusDays(1).isAfter(endDate) ? endDate : c.getEndDate().minusDays(1);
-            for (LocalDate d = stayStart; !d.isAfter(stayEnd); d = d.plusDays(1)) {
-                if (dayMap.containsKey(d)) {
-                    CalendarDayDto.CalendarEventDto ev = cloneDayEvent(base);
-                    ev.setEventType("STAYING");
-                    dayMap.get(d).add(ev);
-                }
-            }
+            CalendarDayDto day = new CalendarDayDto();
+            day.setDate(d);
+            day.setEvents(events);
+            days.add(day);
         }
+        return days;
+    }
 
-        return dayMap.entrySet().stream().map(e -> {
-            CalendarDayDto day = new CalendarDayDto();
-            day.setDate(e.getKey());
-            day.setEvents(e.getValue());
-            return day;
-        }).collect(Collectors.toList());
+    /**
+     * Stays overlapping the range (from the occupancy index, ordered by checkout date)
+     * and one fully populated event per contract that both formats derive from.
+     * Money fields come from the shared per-contract balance snapshot.
+     */
+    private CalendarStays loadCalendarStays(LocalDate startDate, LocalDate endDate) {
+        List<OccupancyIndexService.Stay> stays = new ArrayList<>(occupancyIndex.overlapping(null, startDate, endDate));
+        stays.sort(BY_END_DATE);
+        List<Long> contractIds = stays.stream().map(OccupancyIndexService.Stay::contractId).toList();
+        List<Contract> contracts = contractIds.isEmpty() ? List.of() : contractRepository.findWithDetailsByIdIn(contractIds);
+        Map<Long, ContractBalanceService.Balance> balances =
+                balanceService.getAll(contracts.stream().map(Contract::getId).toList());
+
+        Map<Long, CalendarDayDto.CalendarEventDto> baseByContract = new HashMap<>();
+        for (Contract c : contracts) {
+            ContractBalanceService.Balance b = balances.get(c.getId());
+            baseByContract.put(c.getId(), buildDayEvent(c, b));
+        }
+        return new CalendarStays(stays, baseByContract);
+    }
+
+    private record CalendarStays(List<OccupancyIndexService.Stay> stays,
+                                 Map<Long, CalendarDayDto.CalendarEventDto> baseByContract) {}
+
+    private CalendarRangeDto.StayDto toStayDto(CalendarDayDto.CalendarEventDto src, int startIndex, int endIndex) {
+        CalendarRangeDto.StayDto stay = new CalendarRangeDto.StayDto();
+        stay.setStartIndex(startIndex);
+        stay.setEndIndex(endIndex);
+        stay.setContractId(src.getContractId());
+        stay.setTenantId(src.getTenantId());
+        stay.setTenantName(src.getTenantName());
+        stay.setTenantPhone(src.getTenantPhone());
+        stay.setRoomCode(src.getRoomCode());
+        stay.setBoardingHouseName(src.getBoardingHouseName());
+        stay.setCheckInDate(src.getCheckInDate());
+        stay.setCheckOutDate(src.getCheckOutDate());
+        stay.setDailyRate(src.getDailyRate());
+        stay.setTotalDays(src.getTotalDays());
+        stay.setTotalDebt(src.getTotalDebt());
+        stay.setTotalPaid(src.getTotalPaid());
+        stay.setUnpaidInvoices(src.getUnpaidInvoices());
+        stay.setUnpaidAmount(src.getUnpaidAmount());
+        return stay;
+    }
+
+    private CalendarDayDto.CalendarEventDto dayEvent(CalendarDayDto.CalendarEventDto base, String eventType) {
+        CalendarDayDto.CalendarEventDto ev = cloneDayEvent(base);
+        ev.setEventType(eventType);
+        return ev;
     }
 
-    private CalendarDayDto.CalendarEventDto buildDayEvent(Contract c, BigDecimal[] debtInfo) {
+    private CalendarDayDto.CalendarEventDto buildDayEvent(Contract c, ContractBalanceService.Balance balance) {
         CalendarDayDto.CalendarEventDto ev = new CalendarDayDto.CalendarEventDto();
         ev.setContractId(c.getId());
         ev.setTenantId(c.getMainTenant().getId());
@@ -228,10 +334,10 @@ public class CalendarService {
         BigDecimal dailyRate = c.getDailyRate() != null ? c.getDailyRate() : BigDecimal.ZERO;
         ev.setDailyRate(dailyRate);
         ev.setTotalDays((int) Math.max(1, ChronoUnit.DAYS.between(c.getStartDate(), c.getEndDate())));
-        ev.setTotalDebt(debtInfo[0]);
-        ev.setTotalPaid(debtInfo[1]);
-        ev.setUnpaidInvoices(debtInfo[2].intValue());
-        ev.setUnpaidAmount(debtInfo[3]);
+        ev.setTotalDebt(balance.invoiced().add(balance.charges()).subtract(balance.paid()));
+        ev.setTotalPaid(balance.paid());
+        ev.setUnpaidInvoices(balance.unpaidInvoices());
+        ev.setUnpaidAmount(balance.unpaidAmount());
         return ev;
     }
 
@@ -0,0 +1,155 @@
+package com.boardinghouse.service;
+
+import com.boardinghouse.config.CacheConfig;
+import com.boardinghouse.entity.InventoryItem;
+import com.boardinghouse.entity.ServiceCatalog;
+import com.boardinghouse.entity.ServiceCatalogRecipe;
+import com.boardinghouse.exception.ResourceNotFoundException;
+import com.boardinghouse.repository.InventoryItemRepository;
+import com.boardinghouse.repository.ServiceCatalogRecipeRepository;
+import com.boardinghouse.repository.ServiceCatalogRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * What selling one unit of a catalog item takes off stock, resolved once per boarding house
+ * and kept in the "catalogDeductionPlans" Caffeine cache (house id -> catalog id -> plan). Resolving
+ * a house costs three queries: its catalog items with their linked item, their recipes with
+ * ingredients, and its active inventory items for name matching. A guest charge then needs
+ * no catalog queries at all.
+ *
+ * Catalog, recipe and inventory-item writes call invalidate(); stock levels are not part of a
+ * plan, so inventory transactions leave it alone.
+ */
+@Service
+public class CatalogDeductionPlanService {
+
+    /** Cache key for catalog items without a boarding house. */
+    private static final long GLOBAL = 0L;
+
+    private final ServiceCatalogRepository catalogRepository;
+    private final ServiceCatalogRecipeRepository recipeRepository;
+    private final InventoryItemRepository inventoryItemRepository;
+    private final Cache<Object, Object> cache;
+
+    public CatalogDeductionPlanService(ServiceCatalogRepository catalogRepository,
+                                       ServiceCatalogRecipeRepository recipeRepository,
+                                       InventoryItemRepository inventoryItemRepository,
+                                       CacheManager cacheManager) {
+        this.catalogRepository = catalogRepository;
+        this.recipeRepository = recipeRepository;
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.cache = ((CaffeineCache) cacheManager.getCache(CacheConfig.CATALOG_DEDUCTION_PLANS)).getNativeCache();
+    }
+
+    /**
+     * Plan of a catalog item sold in {@code boardingHouseId}: looked up among that house's catalog,
+     * then the global one; an item of another house is resolved on its own without caching.
+     */
+    public Plan get(Long catalogId, Long boardingHouseId) {
+        Plan plan = boardingHouseId != null ? plans(boardingHouseId).get(catalogId) : null;
+        if (plan == null) plan = plans(GLOBAL).get(catalogId);
+        if (plan == null) {
+            ServiceCatalog catalog = catalogRepository.findById(catalogId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Catalog not found: " + catalogId));
+            Long houseId = catalog.getBoardingHouse() != null ? catalog.getBoardingHouse().getId() : null;
+            plan = resolve(List.of(catalog), houseId).get(catalogId);
+        }
+        return plan;
+    }
+
+    /** Links a name-matched item to the catalog item, as a later charge would find it anyway. */
+    public void link(Plan plan) {
+        catalogRepository.linkInventoryItem(plan.catalogId(), plan.item().itemId());
+        invalidate();
+    }
+
+    /** Drops every cached plan once the current transaction commits (immediately when there is none). */
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidateAll();
+                }
+            });
+        } else {
+            cache.invalidateAll();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, Plan> plans(long houseKey) {
+        return (Map<Long, Plan>) cache.get(houseKey, k -> houseKey == GLOBAL
+                ? resolve(catalogRepository.findWithItemByBoardingHouseIsNull(), null)
+                : resolve(catalogRepository.findWithItemByBoardingHouseId(houseKey), houseKey));
+    }
+
+    /** Same rules the charge path always applied: recipe first, then the linked item, then a name match. */
+    private Map<Long, Plan> resolve(List<ServiceCatalog> catalogs, Long houseId) {
+        Map<Long, List<Ingredient>> recipes = new HashMap<>();
+        if (!catalogs.isEmpty()) {
+            for (ServiceCatalogRecipe r : recipeRepository.findWithItemByCatalogIdIn(catalogs.stream().map(ServiceCatalog::getId).toList())) {
+                List<Ingredient> ingredients = recipes.computeIfAbsent(r.getCatalog().getId(), k -> new ArrayList<>());
+                if (sameHouse(houseId, r.getInventoryItem())) ingredients.add(Ingredient.of(r.getInventoryItem(), r.getQuantityPerUnit()));
+            }
+        }
+        List<InventoryItem> houseItems = null;
+
+        Map<Long, Plan> plans = new HashMap<>();
+        for (ServiceCatalog c : catalogs) {
+            Plan plan;
+            if (recipes.containsKey(c.getId())) {
+                // Ingredients of another house are skipped, never deducted
+                plan = new Plan(c.getId(), c.getName(), Kind.RECIPE, List.copyOf(recipes.get(c.getId())), null);
+            } else if (c.getInventoryItem() != null) {
+                plan = sameHouse(houseId, c.getInventoryItem())
+                        ? new Plan(c.getId(), c.getName(), Kind.ITEM, List.of(), Ingredient.of(c.getInventoryItem(), BigDecimal.ONE))
+                        : new Plan(c.getId(), c.getName(), Kind.NONE, List.of(), null);
+            } else {
+                if (houseItems == null) {
+                    houseItems = houseId != null
+                            ? inventoryItemRepository.findByBoardingHouseIdAndIsActiveTrueOrderByCategoryAscNameAsc(houseId)
+                            : List.of();
+                }
+                InventoryItem match = houseItems.stream().filter(i -> i.getName().equalsIgnoreCase(c.getName())).findFirst().orElse(null);
+                plan = match != null
+                        ? new Plan(c.getId(), c.getName(), Kind.NAME_MATCH, List.of(), Ingredient.of(match, BigDecimal.ONE))
+                        : new Plan(c.getId(), c.getName(), Kind.NONE, List.of(), null);
+            }
+            plans.put(c.getId(), plan);
+        }
+        return plans;
+    }
+
+    private static boolean sameHouse(Long houseId, InventoryItem item) {
+        Long itemHouseId = item.getBoardingHouse() != null ? item.getBoardingHouse().getId() : null;
+        return houseId == null || itemHouseId == null || Objects.equals(houseId, itemHouseId);
+    }
+
+    /**
+     * RECIPE: deduct {@code recipe} × quantity sold; ITEM: deduct {@code item} 1:1;
+     * NAME_MATCH: like ITEM, and the charge links {@code item} to the catalog item; NONE: no stock kept.
+     */
+    public enum Kind { RECIPE, ITEM, NAME_MATCH, NONE }
+
+    public record Plan(Long catalogId, String catalogName, Kind kind, List<Ingredient> recipe, Ingredient item) {}
+
+    /** {@code quantity} per unit sold; item fields are copied so cached plans hold no entities. */
+    public record Ingredient(Long itemId, String name, String unit, BigDecimal salePrice, BigDecimal quantity) {
+        static Ingredient of(InventoryItem item, BigDecimal quantity) {
+            return new Ingredient(item.getId(), item.getName(), item.getUnit(), item.getSalePrice(), quantity);
+        }
+    }
+}
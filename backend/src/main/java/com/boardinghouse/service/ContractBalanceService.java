@@ -0,0 +1,147 @@
+package com.boardinghouse.service;
+
+import com.boardinghouse.config.CacheConfig;
+import com.boardinghouse.repository.GuestServiceChargeRepository;
+import com.boardinghouse.repository.InvoiceRepository;
+import com.boardinghouse.repository.PaymentRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Request-independent per-contract balance snapshot (invoiced, paid, charges,
+ * unpaid invoices), kept in the "contractBalances" Caffeine cache. Misses are
+ * loaded in bulk with grouped aggregates, so a calendar, dashboard or tenant
+ * page costs three queries per chunk of uncached contracts and none when warm.
+ *
+ * Invoice, payment and guest-charge writes publish {@link BalanceChanged}; the
+ * affected entries are evicted once the transaction commits. Every eviction bumps
+ * a generation counter, and a load only stores what it read if no eviction ran
+ * meanwhile, so a load racing a commit cannot put the old balance back.
+ */
+@Service
+public class ContractBalanceService {
+    private static final int CHUNK_SIZE = 1000;
+
+    private final InvoiceRepository invoiceRepository;
+    private final PaymentRepository paymentRepository;
+    private final GuestServiceChargeRepository guestChargeRepository;
+    private final Cache<Object, Object> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    @SuppressWarnings("unchecked")
+    public ContractBalanceService(InvoiceRepository invoiceRepository,
+                                  PaymentRepository paymentRepository,
+                                  GuestServiceChargeRepository guestChargeRepository,
+                                  CacheManager cacheManager) {
+        this.invoiceRepository = invoiceRepository;
+        this.paymentRepository = paymentRepository;
+        this.guestChargeRepository = guestChargeRepository;
+        this.cache = ((CaffeineCache) cacheManager.getCache(CacheConfig.CONTRACT_BALANCES)).getNativeCache();
+    }
+
+    public Balance get(Long contractId) {
+        return getAll(List.of(contractId)).get(contractId);
+    }
+
+    /**
+     * Balance per contract id; every id passed in gets an entry (zeros when nothing is billed).
+     * Inside a read-write transaction the database is read directly, so uncommitted
+     * amounts never end up in the shared cache.
+     */
+    public Map<Long, Balance> getAll(Collection<Long> contractIds) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return loadFresh(contractIds);
+        }
+        Set<Long> ids = Set.copyOf(contractIds);
+        Map<Long, Balance> result = new HashMap<>();
+        cache.getAllPresent(ids).forEach((id, balance) -> result.put((Long) id, (Balance) balance));
+        if (result.size() == ids.size()) return result;
+
+        Set<Long> missing = new HashSet<>(ids);
+        missing.removeAll(result.keySet());
+        long loadedAt = generation.get();
+        Map<Object, Object> loaded = load(missing);
+        loaded.forEach((id, balance) -> result.put((Long) id, (Balance) balance));
+        if (generation.get() == loadedAt) {
+            cache.putAll(loaded);
+            // An eviction between the check and the put would be undone by it: drop what was put
+            if (generation.get() != loadedAt) cache.invalidateAll(loaded.keySet());
+        }
+        return result;
+    }
+
+    /** Reads balances straight from the database, bypassing the cache. */
+    public Map<Long, Balance> loadFresh(Collection<Long> contractIds) {
+        Map<Long, Balance> result = new HashMap<>();
+        load(Set.copyOf(contractIds)).forEach((id, balance) -> result.put((Long) id, (Balance) balance));
+        return result;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBalanceChanged(BalanceChanged event) {
+        generation.incrementAndGet();
+        if (event.contractIds() == null) cache.invalidateAll();
+        else cache.invalidateAll(event.contractIds());
+    }
+
+    private Map<Object, Object> load(Set<?> keys) {
+        List<Long> ids = keys.stream().map(Long.class::cast).toList();
+        Map<Long, Object[]> invoices = new HashMap<>();
+        Map<Long, Object[]> payments = new HashMap<>();
+        Map<Long, BigDecimal> charges = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size()));
+            invoiceRepository.summarizeGroupedByContractIds(chunk).forEach(r -> invoices.put((Long) r[0], r));
+            paymentRepository.summarizePaidGroupedByContractIds(chunk).forEach(r -> payments.put((Long) r[0], r));
+            guestChargeRepository.sumAmountGroupedByContractIds(chunk).forEach(r -> charges.put((Long) r[0], (BigDecimal) r[1]));
+        }
+
+        Map<Object, Object> result = new HashMap<>();
+        for (Long id : ids) {
+            Object[] inv = invoices.get(id);
+            Object[] pay = payments.get(id);
+            BigDecimal unpaidTotal = inv != null ? (BigDecimal) inv[3] : BigDecimal.ZERO;
+            BigDecimal paidOnUnpaid = pay != null ? (BigDecimal) pay[2] : BigDecimal.ZERO;
+            result.put(id, new Balance(
+                    inv != null ? (BigDecimal) inv[1] : BigDecimal.ZERO,
+                    pay != null ? (BigDecimal) pay[1] : BigDecimal.ZERO,
+                    charges.getOrDefault(id, BigDecimal.ZERO),
+                    inv != null ? ((Number) inv[2]).intValue() : 0,
+                    unpaidTotal.subtract(paidOnUnpaid)));
+        }
+        return result;
+    }
+
+    /**
+     * invoiced = SUM(invoice totals); paid = SUM(payments); charges = SUM(guest charges);
+     * unpaidAmount = total - paid over invoices whose status is not PAID.
+     */
+    public record Balance(BigDecimal invoiced, BigDecimal paid, BigDecimal charges,
+                          int unpaidInvoices, BigDecimal unpaidAmount) {}
+
+    /** Published after a write that changes a contract's balance; null contractIds = everything. */
+    public record BalanceChanged(Collection<Long> contractIds) {
+        public static BalanceChanged of(Long contractId) {
+            return new BalanceChanged(List.of(contractId));
+        }
+
+        public static BalanceChanged all() {
+            return new BalanceChanged(null);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.boardinghouse.service;
+
+import com.boardinghouse.repository.ContractRepository;
+import com.boardinghouse.repository.RoomRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.support.CronTrigger;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.TimeZone;
+
+/**
+ * Background contract expiry sweeper.
+ *
+ * Contracts whose endDate has passed (or is today, once it is past noon) are
+ * marked EXPIRED + roomReleased, and OCCUPIED rooms left without an ACTIVE
+ * contract are set back to AVAILABLE. Everything runs as set-based UPDATEs,
+ * so it is idempotent and read endpoints never have to write.
+ *
+ * Runs once when the application is ready and then every day at 12:00
+ * server-local time (the checkout cut-off).
+ */
+@Service
+public class ContractExpiryService {
+
+    private static final Logger log = LoggerFactory.getLogger(ContractExpiryService.class);
+
+    private static final LocalTime CHECKOUT_CUTOFF = LocalTime.NOON;
+    private static final String CRON = "0 0 12 * * *";
+
+    private final ContractRepository contractRepository;
+    private final RoomRepository roomRepository;
+    private final TaskScheduler taskScheduler;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile SweepResult lastResult;
+
+    public ContractExpiryService(ContractRepository contractRepository,
+                                 RoomRepository roomRepository,
+                                 TaskScheduler taskScheduler,
+                                 PlatformTransactionManager transactionManager) {
+        this.contractRepository = contractRepository;
+        this.roomRepository = roomRepository;
+        this.taskScheduler = taskScheduler;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        sweep("STARTUP");
+        taskScheduler.schedule(() -> sweep("SCHEDULED"), new CronTrigger(CRON, TimeZone.getDefault()));
+        log.info("Contract expiry sweeper scheduled with cron: {}", CRON);
+    }
+
+    /**
+     * Run one sweep now. Synchronized so the startup run, the noon run and a
+     * manual trigger never overlap.
+     */
+    public synchronized SweepResult sweep(String trigger) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        // Before noon only contracts that ended yesterday or earlier expire
+        LocalDate expireThrough = startedAt.toLocalTime().isBefore(CHECKOUT_CUTOFF)
+                ? startedAt.toLocalDate().minusDays(1)
+                : startedAt.toLocalDate();
+        try {
+            SweepResult result = transactionTemplate.execute(status -> {
+                int backfilled = contractRepository.backfillRoomReleasedForAvailableRooms()
+                        + contractRepository.backfillRoomReleasedForCurrentOccupants()
+                        + contractRepository.backfillRoomReleasedForSuperseded();
+                int expired = contractRepository.expireActiveEndingOnOrBefore(expireThrough);
+                int roomsReleased = roomRepository.releaseOccupiedRoomsWithoutActiveContract();
+                return new SweepResult(trigger, startedAt, LocalDateTime.now(),
+                        expired, roomsReleased, backfilled, null);
+            });
+            if (result.contractsExpired() > 0 || result.roomsReleased() > 0 || result.roomReleasedBackfilled() > 0) {
+                log.info("Contract expiry sweep ({}): {} contract(s) expired, {} room(s) released, {} legacy row(s) backfilled",
+                        trigger, result.contractsExpired(), result.roomsReleased(), result.roomReleasedBackfilled());
+            }
+            lastResult = result;
+        } catch (Exception e) {
+            log.error("Contract expiry sweep ({}) failed: {}", trigger, e.getMessage(), e);
+            lastResult = new SweepResult(trigger, startedAt, LocalDateTime.now(), 0, 0, 0, e.getMessage());
+        }
+        return lastResult;
+    }
+
+    /** Result of the most recent sweep, or null if none has run yet. */
+    public SweepResult getLastResult() {
+        return lastResult;
+    }
+
+    public record SweepResult(String trigger, LocalDateTime startedAt, LocalDateTime completedAt,
+                              int contractsExpired, int roomsReleased, int roomReleasedBackfilled,
+                              String errorMessage) {}
+}
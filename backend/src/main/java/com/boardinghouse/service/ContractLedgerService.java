@@ -0,0 +1,94 @@
+package com.boardinghouse.service;
+
+import com.boardinghouse.entity.Contract;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Contract-level money summary: roomCost + charges - paid = debt.
+ * Room cost comes from the contract itself; charges and paid come from the
+ * shared per-contract balance snapshot (ContractBalanceService), so callers
+ * never have to walk invoices/payments per contract.
+ */
+@Service
+public class ContractLedgerService {
+    private final ContractBalanceService balanceService;
+
+    public ContractLedgerService(ContractBalanceService balanceService) {
+        this.balanceService = balanceService;
+    }
+
+    public Ledger forContract(Contract contract) {
+        return forContracts(List.of(contract)).get(contract.getId());
+    }
+
+    /** Ledger per contract id; every contract passed in gets an entry. */
+    public Map<Long, Ledger> forContracts(Collection<Contract> contracts) {
+        return forTerms(contracts.stream().map(Terms::of).toList());
+    }
+
+    /** Same as forContracts, for callers that only loaded the contract's dates and rate. */
+    public Map<Long, Ledger> forTerms(Collection<Terms> terms) {
+        if (terms.isEmpty()) return Collections.emptyMap();
+
+        Map<Long, ContractBalanceService.Balance> balances =
+                balanceService.getAll(terms.stream().map(Terms::contractId).toList());
+        Map<Long, Ledger> result = new HashMap<>();
+        for (Terms t : terms) {
+            ContractBalanceService.Balance b = balances.get(t.contractId());
+            result.put(t.contractId(), new Ledger(t, b.charges(), b.paid()));
+        }
+        return result;
+    }
+
+    public static long nightsOf(Contract c) {
+        return nightsOf(c.getStartDate(), c.getEndDate());
+    }
+
+    public static long nightsOf(LocalDate startDate, LocalDate endDate) {
+        return Math.max(1, ChronoUnit.DAYS.between(startDate, endDate));
+    }
+
+    /** The contract fields the ledger depends on. */
+    public record Terms(Long contractId, LocalDate startDate, LocalDate endDate, BigDecimal dailyRate) {
+        public static Terms of(Contract c) {
+            return new Terms(c.getId(), c.getStartDate(), c.getEndDate(), c.getDailyRate());
+        }
+    }
+
+    public static class Ledger {
+        private final long nights;
+        private final BigDecimal dailyRate;
+        private final BigDecimal roomCost;
+        private final BigDecimal charges;
+        private final BigDecimal paid;
+
+        Ledger(Terms t, BigDecimal charges, BigDecimal paid) {
+            this.nights = nightsOf(t.startDate(), t.endDate());
+            this.dailyRate = t.dailyRate() != null ? t.dailyRate() : BigDecimal.ZERO;
+            this.roomCost = dailyRate.multiply(BigDecimal.valueOf(nights));
+            this.charges = charges;
+            this.paid = paid;
+        }
+
+        public long getNights() { return nights; }
+        public BigDecimal getDailyRate() { return dailyRate; }
+        public BigDecimal getRoomCost() { return roomCost; }
+        public BigDecimal getCharges() { return charges; }
+        public BigDecimal getPaid() { return paid; }
+
+        /** roomCost + charges */
+        public BigDecimal getTotalBill() { return roomCost.add(charges); }
+
+        /** roomCost + charges - paid (may be negative when overpaid) */
+        public BigDecimal getDebt() { return getTotalBill().subtract(paid); }
+    }
+}
@@ -7,6 +7,7 @@ import com.boardinghouse.exception.ResourceNotFoundException;
 import com.boardinghouse.repository.ContractRepository;
 import com.boardinghouse.repository.RoomRepository;
 import com.boardinghouse.repository.TenantRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,66 +19,19 @@ public class ContractService {
     private final ContractRepository repository;
     private final RoomRepository roomRepository;
     private final TenantRepository tenantRepository;
+    private final RevenueRollupService revenueRollupService;
+    private final OccupancyIndexService occupancyIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     public ContractService(ContractRepository repository, RoomRepository roomRepository,
-                          TenantRepository tenantRepository) {
+                          TenantRepository tenantRepository, RevenueRollupService revenueRollupService,
+                          OccupancyIndexService occupancyIndex, ApplicationEventPublisher eventPublisher) {
         this.repository = repository;
         this.roomRepository = roomRepository;
         this.tenantRepository = tenantRepository;
-    }
-
-    @Transactional
-    public void autoExpireContracts() {
-        java.time.LocalDate today = java.time.LocalDate.now();
-        java.time.LocalTime now = java.time.LocalTime.now();
-        java.time.LocalTime noon = java.time.LocalTime.of(12, 0);
-
-        List<Contract> activeContracts = repository.findByStatus(ContractStatus.ACTIVE);
-
-        // Backfill legacy null roomReleased: run once per contract until all are set
-        activeContracts.stream()
-                .filter(c -> c.getRoomReleased() == null)
-                .forEach(c -> {
-                    Room room = c.getRoom();
-                    if (room.getStatus() == RoomStatus.AVAILABLE) {
-                        c.setRoomReleased(true);
-                    } else {
-                        boolean isCurrentOccupant = repository.findByRoomId(room.getId()).stream()
-                                .filter(o -> o.getStatus() == ContractStatus.ACTIVE)
-                                .max(java.util.Comparator.comparing(Contract::getStartDate))
-                                .map(latest -> latest.getId().equals(c.getId()))
-                                .orElse(false);
-                        c.setRoomReleased(!isCurrentOccupant);
-                    }
-                    repository.save(c);
-                });
-
-        for (Contract c : activeContracts) {
-            if (c.getEndDate().isBefore(today)) {
-                c.setStatus(ContractStatus.EXPIRED);
-                c.setRoomReleased(true);
-                repository.save(c);
-                freeRoomIfNoOtherActive(c);
-            } else if (c.getEndDate().equals(today) && now.isAfter(noon)) {
-                c.setStatus(ContractStatus.EXPIRED);
-                c.setRoomReleased(true);
-                repository.save(c);
-                freeRoomIfNoOtherActive(c);
-            }
-        }
-    }
-
-    private void freeRoomIfNoOtherActive(Contract c) {
-        Room room = c.getRoom();
-        if (room.getStatus() == RoomStatus.AVAILABLE) return; // already free
-        boolean otherActive = repository.findByRoomId(room.getId()).stream()
-                .anyMatch(other -> other.getStatus() == ContractStatus.ACTIVE
-                        && !other.getId().equals(c.getId())
-                        && !other.getEndDate().isBefore(java.time.LocalDate.now()));
-        if (!otherActive) {
-            room.setStatus(RoomStatus.AVAILABLE);
-            roomRepository.save(room);
-        }
+        this.revenueRollupService = revenueRollupService;
+        this.occupancyIndex = occupancyIndex;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -94,6 +48,9 @@ public class ContractService {
             throw new BadRequestException("Contract cannot be checked out");
         }
 
+        revenueRollupService.touchContract(contract);
+        occupancyIndex.contractChanged(contract.getId());
+
         // Set end date to today if checking out early
         java.time.LocalDate today = java.time.LocalDate.now();
         if (contract.getEndDate().isAfter(today)) {
@@ -126,9 +83,9 @@ public class ContractService {
         return toDto(contract);
     }
 
+    @Transactional(readOnly = true)
     public List<ContractDto> getAll() {
-        autoExpireContracts();
-        return repository.findAll().stream()
+        return repository.findAllWithDetails().stream()
                 .map(this::toDto)
                 .collect(Collectors.toList());
     }
@@ -168,6 +125,8 @@ public class ContractService {
         }
 
         Contract saved = repository.save(contract);
+        revenueRollupService.touchContract(saved);
+        occupancyIndex.contractChanged(saved.getId());
 
         // Update room status
         if (saved.getStatus() == ContractStatus.ACTIVE) {
@@ -187,6 +146,10 @@ public class ContractService {
             throw new BadRequestException("Contract code already exists: " + dto.getCode());
         }
 
+        // Old house/stay months lose this contract's revenue, new ones gain it
+        revenueRollupService.touchContract(contract);
+        contract.getInvoices().forEach(revenueRollupService::touchInvoice);
+
         contract.setCode(dto.getCode());
         contract.setStartDate(dto.getStartDate());
         contract.setEndDate(dto.getEndDate());
@@ -224,6 +187,8 @@ public class ContractService {
         }
 
         Contract saved = repository.save(contract);
+        revenueRollupService.touchContract(saved);
+        occupancyIndex.contractChanged(saved.getId());
 
         // Update room status based on contract status
         Room room = saved.getRoom();
@@ -246,7 +211,10 @@ public class ContractService {
         if (newEndDate.isBefore(contract.getStartDate())) {
             throw new com.boardinghouse.exception.BadRequestException("Checkout date cannot be before check-in date");
         }
+        revenueRollupService.touchContract(contract);
         contract.setEndDate(newEndDate);
+        revenueRollupService.touchContract(contract);
+        occupancyIndex.contractChanged(contract.getId());
 
         // If new endDate is today or future → reactivate contract + set room occupied
         java.time.LocalDate today = java.time.LocalDate.now();
@@ -270,6 +238,8 @@ public class ContractService {
         Contract contract = repository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Contract not found with id: " + id));
 
+        revenueRollupService.touchContract(contract);
+        occupancyIndex.contractChanged(contract.getId());
         contract.setStatus(ContractStatus.TERMINATED);
         contract.setTerminationReason(reason);
         contract.setTerminationDate(terminationDate);
@@ -295,6 +265,11 @@ public class ContractService {
                 "Cannot delete contract with paid invoices. Delete payments first.");
         }
 
+        revenueRollupService.touchContract(contract);
+        occupancyIndex.contractChanged(contract.getId());
+        contract.getInvoices().forEach(revenueRollupService::touchInvoice);
+        eventPublisher.publishEvent(ContractBalanceService.BalanceChanged.of(contract.getId()));
+
         // Cascade will delete invoices + guest charges (CascadeType.ALL)
         Room room = contract.getRoom();
         room.setStatus(RoomStatus.AVAILABLE);
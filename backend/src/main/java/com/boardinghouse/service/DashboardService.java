@@ -7,32 +7,30 @@ import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 public class DashboardService {
     private final RoomRepository roomRepository;
-    private final InvoiceRepository invoiceRepository;
-    private final PaymentRepository paymentRepository;
     private final ContractRepository contractRepository;
     private final GuestServiceChargeRepository guestChargeRepository;
     private final InventoryItemRepository inventoryItemRepository;
-    private final ContractService contractService;
+    private final ContractLedgerService ledgerService;
+    private final OccupancyIndexService occupancyIndex;
 
-    public DashboardService(RoomRepository roomRepository, InvoiceRepository invoiceRepository,
-                            PaymentRepository paymentRepository, ContractRepository contractRepository,
+    public DashboardService(RoomRepository roomRepository, ContractRepository contractRepository,
                             GuestServiceChargeRepository guestChargeRepository,
                             InventoryItemRepository inventoryItemRepository,
-                            ContractService contractService) {
+                            ContractLedgerService ledgerService,
+                            OccupancyIndexService occupancyIndex) {
         this.roomRepository = roomRepository;
-        this.invoiceRepository = invoiceRepository;
-        this.paymentRepository = paymentRepository;
         this.contractRepository = contractRepository;
         this.guestChargeRepository = guestChargeRepository;
         this.inventoryItemRepository = inventoryItemRepository;
-        this.contractService = contractService;
+        this.ledgerService = ledgerService;
+        this.occupancyIndex = occupancyIndex;
     }
 
     public DashboardDto getDashboard() {
@@ -40,15 +38,12 @@ public class DashboardService {
     }
 
     public DashboardDto getDashboard(Long boardingHouseId) {
-        // Auto-expire contracts where endDate < today → free rooms
-        contractService.autoExpireContracts();
-
         DashboardDto dto = new DashboardDto();
 
         // Filter rooms by boarding house if specified
         List<com.boardinghouse.entity.Room> allRooms = boardingHouseId != null
                 ? roomRepository.findByBoardingHouseId(boardingHouseId)
-                : roomRepository.findAll();
+                : roomRepository.findAllWithDetails();
 
         dto.setTotalRooms((long) allRooms.size());
         dto.setOccupiedRooms(allRooms.stream().filter(r -> r.getStatus() == RoomStatus.OCCUPIED).count());
@@ -57,17 +52,18 @@ public class DashboardService {
 
         LocalDate today = LocalDate.now();
 
-        // Filter contracts by boarding house if specified
-        List<Contract> allContracts = contractRepository.findAll().stream()
-                .filter(c -> boardingHouseId == null || c.getRoom().getBoardingHouse().getId().equals(boardingHouseId))
-                .collect(Collectors.toList());
+        // Snapshot: load every non-DRAFT contract (with room, house, tenant) once and
+        // compute all ledgers in one pass; every section below works off this set
+        List<Contract> allContracts = loadContracts(boardingHouseId);
+        Map<Long, ContractLedgerService.Ledger> ledgers = ledgerService.forContracts(allContracts);
+        Map<Long, Contract> contractsById = allContracts.stream()
+                .collect(Collectors.toMap(Contract::getId, c -> c));
 
         // Outstanding debts: ALL non-DRAFT contracts with debt > 0
         // debt = roomCost + charges - paid (contract-level, same as guest detail modal)
         List<DashboardDto.GuestActivityDto> outstandingDebts = new java.util.ArrayList<>();
         for (Contract c : allContracts) {
-            if (c.getStatus() == ContractStatus.DRAFT) continue;
-            DashboardDto.GuestActivityDto g = toGuestActivity(c, "DEBT");
+            DashboardDto.GuestActivityDto g = toGuestActivity(c, "DEBT", ledgers.get(c.getId()));
             if (g.getTotalDebt().compareTo(BigDecimal.ZERO) > 0) {
                 outstandingDebts.add(g);
             }
@@ -99,13 +95,12 @@ public class DashboardService {
 
         // Room revenue = dailyRate x days for contracts active this month
         for (Contract c : allContracts) {
-            if (c.getStatus() == ContractStatus.DRAFT) continue;
             // Contract must overlap with this month
             if (c.getEndDate().isBefore(firstOfMonth) || c.getStartDate().isAfter(lastOfMonth)) continue;
-            BigDecimal rate = c.getDailyRate() != null ? c.getDailyRate() : BigDecimal.ZERO;
+            ContractLedgerService.Ledger ledger = ledgers.get(c.getId());
+            BigDecimal rate = ledger.getDailyRate();
             if (rate.compareTo(BigDecimal.ZERO) == 0) continue;
-            long days = Math.max(1, ChronoUnit.DAYS.between(c.getStartDate(), c.getEndDate()));
-            BigDecimal amount = rate.multiply(BigDecimal.valueOf(days));
+            BigDecimal amount = ledger.getRoomCost();
             roomRevenue = roomRevenue.add(amount);
 
             DashboardDto.RevenueDetailDto rd = new DashboardDto.RevenueDetailDto();
@@ -114,34 +109,33 @@ public class DashboardService {
             rd.setRoomCode(c.getRoom().getCode());
             rd.setTenantName(c.getMainTenant().getFullName());
             rd.setBoardingHouseName(c.getRoom().getBoardingHouse().getName());
-            rd.setDescription(days + " days x " + rate + "/day");
+            rd.setDescription(ledger.getNights() + " days x " + rate + "/day");
             rd.setCategory("RENT");
             rd.setAmount(amount);
             details.add(rd);
         }
 
-        // Service revenue from guest charges this month
-        for (Contract contract : allContracts) {
-            if (contract.getStatus() == ContractStatus.DRAFT) continue;
-            List<com.boardinghouse.entity.GuestServiceCharge> gCharges =
-                    guestChargeRepository.findByContractIdOrderByChargeDateDesc(contract.getId());
-            for (com.boardinghouse.entity.GuestServiceCharge gc : gCharges) {
-                if (gc.getChargeDate().isBefore(firstOfMonth) || gc.getChargeDate().isAfter(lastOfMonth)) continue;
-                serviceRevenue = serviceRevenue.add(gc.getAmount());
-
-                DashboardDto.RevenueDetailDto sd = new DashboardDto.RevenueDetailDto();
-                sd.setDate(gc.getChargeDate());
-                sd.setInvoiceCode(contract.getCode());
-                sd.setRoomCode(contract.getRoom().getCode());
-                sd.setTenantName(contract.getMainTenant().getFullName());
-                sd.setBoardingHouseName(contract.getRoom().getBoardingHouse().getName());
-                sd.setDescription(gc.getDescription());
-                sd.setCategory("SERVICE");
-                sd.setAmount(gc.getAmount());
-                sd.setQuantity(gc.getQuantity());
-                sd.setUnitPrice(gc.getUnitPrice());
-                details.add(sd);
-            }
+        // Service revenue from guest charges this month (one query, joined back to the snapshot)
+        List<GuestServiceCharge> monthCharges = boardingHouseId != null
+                ? guestChargeRepository.findNonDraftByBoardingHouseIdAndChargeDateBetween(boardingHouseId, firstOfMonth, lastOfMonth)
+                : guestChargeRepository.findNonDraftByChargeDateBetween(firstOfMonth, lastOfMonth);
+        for (GuestServiceCharge gc : monthCharges) {
+            Contract contract = contractsById.get(gc.getContract().getId());
+            if (contract == null) continue;
+            serviceRevenue = serviceRevenue.add(gc.getAmount());
+
+            DashboardDto.RevenueDetailDto sd = new DashboardDto.RevenueDetailDto();
+            sd.setDate(gc.getChargeDate());
+            sd.setInvoiceCode(contract.getCode());
+            sd.setRoomCode(contract.getRoom().getCode());
+            sd.setTenantName(contract.getMainTenant().getFullName());
+            sd.setBoardingHouseName(contract.getRoom().getBoardingHouse().getName());
+            sd.setDescription(gc.getDescription());
+            sd.setCategory("SERVICE");
+            sd.setAmount(gc.getAmount());
+            sd.setQuantity(gc.getQuantity());
+            sd.setUnitPrice(gc.getUnitPrice());
+            details.add(sd);
         }
 
         dto.setRoomRevenue(roomRevenue);
@@ -158,49 +152,63 @@ public class DashboardService {
                 .count();
         dto.setLowStockItems(lowStockCount);
 
-        dto.setYesterday(buildDayActivity(today.minusDays(1), boardingHouseId));
-        dto.setToday(buildDayActivity(today, boardingHouseId));
-        dto.setTomorrow(buildDayActivity(today.plusDays(1), boardingHouseId));
+        for (int offset = -1; offset <= 1; offset++) {
+            LocalDate day = today.plusDays(offset);
+            DashboardDto.DayActivityDto activity = buildDayActivity(day,
+                    occupancyIndex.onDay(boardingHouseId, day), contractsById, ledgers);
+            if (offset < 0) dto.setYesterday(activity);
+            else if (offset == 0) dto.setToday(activity);
+            else dto.setTomorrow(activity);
+        }
 
         return dto;
     }
 
     public DashboardDto.DayActivityDto getDayActivity(LocalDate date, Long boardingHouseId) {
-        return buildDayActivity(date, boardingHouseId);
+        List<OccupancyIndexService.Stay> stays = occupancyIndex.onDay(boardingHouseId, date);
+        List<Contract> onDay = stays.isEmpty() ? List.of()
+                : contractRepository.findWithDetailsByIdIn(stays.stream().map(OccupancyIndexService.Stay::contractId).toList());
+        Map<Long, Contract> byId = onDay.stream().collect(Collectors.toMap(Contract::getId, c -> c));
+        return buildDayActivity(date, stays, byId, ledgerService.forContracts(onDay));
     }
 
-    private DashboardDto.DayActivityDto buildDayActivity(LocalDate date) {
-        return buildDayActivity(date, null);
+    /**
+     * All contracts except DRAFT (so checked-out guests still appear), with room,
+     * boarding house and main tenant fetched in the same query.
+     */
+    private List<Contract> loadContracts(Long boardingHouseId) {
+        return boardingHouseId != null
+                ? contractRepository.findNonDraftWithDetailsByBoardingHouseId(boardingHouseId)
+                : contractRepository.findAllNonDraftWithDetails();
     }
 
-    private DashboardDto.DayActivityDto buildDayActivity(LocalDate date, Long boardingHouseId) {
-        // Use ALL contracts except DRAFT so checked-out guests still appear
-        List<Contract> all = contractRepository.findAll().stream()
-                .filter(c -> c.getStatus() != ContractStatus.DRAFT)
-                .filter(c -> boardingHouseId == null || c.getRoom().getBoardingHouse().getId().equals(boardingHouseId))
-                .collect(Collectors.toList());
+    /**
+     * Splits the stays touching a day (from the occupancy index) into check-ins,
+     * check-outs and guests staying over.
+     */
+    private DashboardDto.DayActivityDto buildDayActivity(LocalDate date, List<OccupancyIndexService.Stay> stays,
+                                                         Map<Long, Contract> contracts,
+                                                         Map<Long, ContractLedgerService.Ledger> ledgers) {
+        List<DashboardDto.GuestActivityDto> checkIns = new java.util.ArrayList<>();
+        List<DashboardDto.GuestActivityDto> checkOuts = new java.util.ArrayList<>();
+        List<DashboardDto.GuestActivityDto> staying = new java.util.ArrayList<>();
+        for (OccupancyIndexService.Stay stay : stays) {
+            Contract c = contracts.get(stay.contractId());
+            if (c == null) continue;
+            ContractLedgerService.Ledger ledger = ledgers.get(c.getId());
+            if (stay.checksInOn(date)) checkIns.add(toGuestActivity(c, "CHECKIN", ledger));
+            if (stay.checksOutOn(date)) checkOuts.add(toGuestActivity(c, "CHECKOUT", ledger));
+            if (stay.staysOver(date)) staying.add(toGuestActivity(c, "STAYING", ledger));
+        }
 
         DashboardDto.DayActivityDto day = new DashboardDto.DayActivityDto();
-
-        day.setCheckIns(all.stream()
-                .filter(c -> c.getStartDate().equals(date))
-                .map(c -> toGuestActivity(c, "CHECKIN"))
-                .collect(Collectors.toList()));
-
-        day.setCheckOuts(all.stream()
-                .filter(c -> c.getEndDate().equals(date))
-                .map(c -> toGuestActivity(c, "CHECKOUT"))
-                .collect(Collectors.toList()));
-
-        day.setStaying(all.stream()
-                .filter(c -> c.getStartDate().isBefore(date) && c.getEndDate().isAfter(date))
-                .map(c -> toGuestActivity(c, "STAYING"))
-                .collect(Collectors.toList()));
-
+        day.setCheckIns(checkIns);
+        day.setCheckOuts(checkOuts);
+        day.setStaying(staying);
         return day;
     }
 
-    private DashboardDto.GuestActivityDto toGuestActivity(Contract c, String type) {
+    private DashboardDto.GuestActivityDto toGuestActivity(Contract c, String type, ContractLedgerService.Ledger ledger) {
         DashboardDto.GuestActivityDto g = new DashboardDto.GuestActivityDto();
         g.setContractId(c.getId());
         g.setTenantId(c.getMainTenant().getId());
@@ -215,26 +223,15 @@ public class DashboardService {
         g.setContractStatus(c.getStatus().name());
         g.setRoomReleased(isRoomReleased(c));
 
-        // Daily rate & total days
-        BigDecimal dailyRate = c.getDailyRate() != null ? c.getDailyRate() : BigDecimal.ZERO;
-        g.setDailyRate(dailyRate);
-
-        long days = Math.max(1, ChronoUnit.DAYS.between(c.getStartDate(), c.getEndDate()));
-        g.setTotalDays((int) days);
-        g.setTotalRoomCost(dailyRate.multiply(BigDecimal.valueOf(days)));
-
-        // Charges
-        BigDecimal charges = guestChargeRepository.sumAmountByContractId(c.getId());
-        g.setTotalCharges(charges);
-
-        // Paid
-        BigDecimal paid = invoiceRepository.findByContractId(c.getId()).stream()
-                .flatMap(inv -> paymentRepository.findByInvoiceId(inv.getId()).stream())
-                .map(Payment::getPaidAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
-        g.setTotalPaid(paid);
+        // Daily rate, total days, charges and paid come from the shared contract ledger
+        g.setDailyRate(ledger.getDailyRate());
+        g.setTotalDays((int) ledger.getNights());
+        g.setTotalRoomCost(ledger.getRoomCost());
+        g.setTotalCharges(ledger.getCharges());
+        g.setTotalPaid(ledger.getPaid());
 
         // Debt = roomCost + guestCharges - paid (consistent with guest summary modal)
-        g.setTotalDebt(g.getTotalRoomCost().add(charges).subtract(paid));
+        g.setTotalDebt(ledger.getDebt());
 
         return g;
     }
@@ -3,18 +3,61 @@ package com.boardinghouse.service;
 import com.boardinghouse.dto.DataExportDto;
 import com.boardinghouse.entity.*;
 import com.boardinghouse.repository.*;
-import jakarta.transaction.Transactional;
+import com.boardinghouse.exception.BadRequestException;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceUnitUtil;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.AvailableHints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class DataTransferService {
 
+    private static final Logger log = LoggerFactory.getLogger(DataTransferService.class);
+
+    /** Cursor fetch size and persistence-context flush interval for the streaming export. */
+    private static final int EXPORT_FETCH_SIZE = 500;
+    /** Rows per JDBC batch (and per transaction) on import. */
+    private static final int IMPORT_BATCH_SIZE = 500;
+    /** What pg_export_snapshot() returns, e.g. 00000003-0000001B-1; checked before it goes into SQL. */
+    private static final Pattern SNAPSHOT_ID = Pattern.compile("[0-9A-F]+(-[0-9A-F]+)+");
+    private static final Pattern INSERT_COLUMNS = Pattern.compile("INSERT INTO (\\w+) \\(([^)]*)\\)");
+
     private final UserRepository userRepo;
     private final BoardingHouseRepository boardingHouseRepo;
     private final RoomRepository roomRepo;
@@ -32,7 +75,23 @@ public class DataTransferService {
     private final MonthlyExpenseRepository monthlyExpenseRepo;
     private final HousekeepingTaskRepository housekeepingTaskRepo;
     private final ServiceCatalogRecipeRepository serviceCatalogRecipeRepo;
+    private final RevenueRollupService revenueRollupService;
+    private final OccupancyIndexService occupancyIndex;
+    private final CatalogDeductionPlanService catalogPlans;
+    private final ApplicationEventPublisher eventPublisher;
     private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    /** Export workers: read-only, repeatable read, started with SET TRANSACTION SNAPSHOT. */
+    private final TransactionTemplate snapshotTemplate;
+    private final BackupChangeLogService changeLog;
+    private final List<ImportTable<?>> importTables;
+    /**
+     * Tables exported/imported at once, each on its own connection. Capped at the Hikari pool
+     * size minus two: one connection for the export's snapshot transaction, one for the rest of the app.
+     */
+    private final int parallelism;
+    private volatile Boolean sharedSnapshots;
 
     public DataTransferService(
             UserRepository userRepo,
@@ -52,7 +111,16 @@ public class DataTransferService {
             MonthlyExpenseRepository monthlyExpenseRepo,
             HousekeepingTaskRepository housekeepingTaskRepo,
             ServiceCatalogRecipeRepository serviceCatalogRecipeRepo,
-            JdbcTemplate jdbcTemplate) {
+            RevenueRollupService revenueRollupService,
+            OccupancyIndexService occupancyIndex,
+            CatalogDeductionPlanService catalogPlans,
+            ApplicationEventPublisher eventPublisher,
+            JdbcTemplate jdbcTemplate,
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            BackupChangeLogService changeLog,
+            @Value("${data-transfer.parallelism:3}") int parallelism,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int maximumPoolSize) {
         this.userRepo = userRepo;
         this.boardingHouseRepo = boardingHouseRepo;
         this.roomRepo = roomRepo;
@@ -70,310 +138,863 @@ public class DataTransferService {
         this.monthlyExpenseRepo = monthlyExpenseRepo;
         this.housekeepingTaskRepo = housekeepingTaskRepo;
         this.serviceCatalogRecipeRepo = serviceCatalogRecipeRepo;
+        this.revenueRollupService = revenueRollupService;
+        this.occupancyIndex = occupancyIndex;
+        this.catalogPlans = catalogPlans;
+        this.eventPublisher = eventPublisher;
         this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setReadOnly(true);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.changeLog = changeLog;
+        this.importTables = buildImportTables();
+        this.parallelism = Math.max(1, Math.min(parallelism, maximumPoolSize - 2));
+        if (this.parallelism < parallelism) {
+            log.warn("data-transfer.parallelism {} lowered to {} for a connection pool of {}",
+                    parallelism, this.parallelism, maximumPoolSize);
+        }
     }
 
     // ─── EXPORT ──────────────────────────────────────────────────────────────
 
+    /**
+     * Streams a full export (format 2.0) to {@code out}, table by table, in the same
+     * field order as {@link DataExportDto}. Rows are read through a forward-only cursor
+     * and written as soon as they are mapped; the persistence context is cleared every
+     * EXPORT_FETCH_SIZE rows, so heap use does not grow with the database.
+     *
+     * The caller's mapper decides the JSON details (dates, indentation), so the output
+     * is the same as serializing a DataExportDto with it. {@code out} is left open.
+     * Repeatable read: every table comes from the same snapshot, also when exported in parallel.
+     */
+    @org.springframework.transaction.annotation.Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public void exportAll(String exportedBy, OutputStream out, ObjectMapper mapper) throws IOException {
+        try (JsonGenerator gen = mapper.createGenerator(out)) {
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            gen.writeStartObject();
+            gen.writeStringField("exportVersion", "2.0");
+            gen.writeFieldName("exportedAt");
+            gen.writeObject(LocalDateTime.now());
+            gen.writeStringField("exportedBy", exportedBy);
+            exportTables(new ExportSink() {
+                @Override
+                public void beginTable(String name) throws IOException {
+                    gen.writeArrayFieldStart(name);
+                }
+
+                @Override
+                public void row(Object row) throws IOException {
+                    gen.writeObject(row);
+                }
+
+                @Override
+                public void endTable(String name, Collection<Long> removedIds) throws IOException {
+                    gen.writeEndArray();
+                    gen.flush();
+                }
+
+                @Override
+                public ObjectMapper spoolMapper() {
+                    return mapper;
+                }
+
+                @Override
+                public void spooledTable(String name, List<SpooledChunk> chunks, Collection<Long> removedIds) throws IOException {
+                    // Copied token by token, so the output is formatted exactly like a serial export
+                    gen.writeArrayFieldStart(name);
+                    for (SpooledChunk chunk : chunks) {
+                        try (JsonParser p = mapper.createParser(chunk.file().toFile())) {
+                            p.nextToken(); // START_ARRAY
+                            while (p.nextToken() == JsonToken.START_OBJECT) gen.copyCurrentStructure(p);
+                        }
+                    }
+                    gen.writeEndArray();
+                    gen.flush();
+                }
+            }, null);
+            gen.writeEndObject();
+        }
+    }
+
+    /**
+     * Receives an export table by table; rows are the DataExportDto.*Export classes.
+     * A sink that returns a spoolMapper() is handed whole tables that a parallel export has
+     * written to temp files instead (spooledTable); tables always arrive in file order, one at a time.
+     */
+    public interface ExportSink {
+        void beginTable(String name) throws IOException;
+
+        void row(Object row) throws IOException;
+
+        /** {@code removedIds}: for a partial export, requested ids that no longer exist (see exportTables). */
+        void endTable(String name, Collection<Long> removedIds) throws IOException;
+
+        /** Mapper spooled rows are written with; null: this sink only takes rows one by one (serial export). */
+        default ObjectMapper spoolMapper() {
+            return null;
+        }
+
+        /** Rows per spooled chunk file. */
+        default int spoolChunkRows() {
+            return Integer.MAX_VALUE;
+        }
+
+        /** A whole table; each chunk file holds one JSON array of {@code rows} rows. The files are deleted afterwards. */
+        void spooledTable(String name, List<SpooledChunk> chunks, Collection<Long> removedIds) throws IOException;
+    }
+
+    public record SpooledChunk(Path file, int rows) {}
+
+    @FunctionalInterface
+    private interface TableExport {
+        void write(ExportSink sink) throws IOException;
+    }
+
+    /**
+     * Streams every export table, in file order, to {@code sink}. With {@code onlyIds}
+     * (export section -> row ids) only those rows are exported and, per table, the
+     * requested ids that no longer exist are reported as removed; contractTenants is keyed
+     * by contract id and always reports its whole scope, since its rows are replaced per contract.
+     * Runs in the caller's transaction when there is one (backups use a repeatable-read snapshot).
+     *
+     * With parallelism > 1 on PostgreSQL, and a sink that takes spooled tables, tables are read
+     * at the same time by worker transactions that all import this transaction's snapshot
+     * (pg_export_snapshot), so the result is still one consistent point in time.
+     */
     @org.springframework.transaction.annotation.Transactional(readOnly = true)
-    public DataExportDto exportAll(String exportedBy) {
-        DataExportDto dto = new DataExportDto();
-        dto.setExportVersion("2.0");
-        dto.setExportedAt(LocalDateTime.now());
-        dto.setExportedBy(exportedBy);
-
-        dto.setUsers(exportUsers());
-        dto.setBoardingHouses(exportBoardingHouses());
-        dto.setRooms(exportRooms());
-        dto.setTenants(exportTenants());
-        dto.setServiceTypes(exportServiceTypes());
-        dto.setRoomServices(exportRoomServices());
-        dto.setServiceCatalog(exportServiceCatalog());
-        dto.setInventoryItems(exportInventoryItems());
-        dto.setInventoryTransactions(exportInventoryTransactions());
-        dto.setContracts(exportContracts());
-        dto.setContractTenants(exportContractTenants());
-        dto.setInvoices(exportInvoices());
-        dto.setInvoiceItems(exportInvoiceItems());
-        dto.setPayments(exportPayments());
-        dto.setGuestServiceCharges(exportGuestServiceCharges());
-        dto.setMonthlyExpenses(exportMonthlyExpenses());
-        dto.setHousekeepingTasks(exportHousekeepingTasks());
-        dto.setServiceCatalogRecipes(exportServiceCatalogRecipes());
-
-        return dto;
-    }
-
-    private List<DataExportDto.UserExport> exportUsers() {
-        return userRepo.findAll().stream().map(u -> {
-            Set<String> roles = u.getRoles().stream().map(Enum::name).collect(Collectors.toSet());
-            return new DataExportDto.UserExport(
-                    u.getId(), u.getUsername(), u.getPassword(),
-                    u.getFullName(), u.getPhone(), u.getEmail(),
-                    roles, u.getPermissions(), u.getActive(), u.getProfilePicture()
-            );
-        }).collect(Collectors.toList());
-    }
-
-    private List<DataExportDto.BoardingHouseExport> exportBoardingHouses() {
-        return boardingHouseRepo.findAll().stream().map(b ->
-                new DataExportDto.BoardingHouseExport(
-                        b.getId(), b.getName(), b.getAddress(),
-                        b.getDescription(), b.getNumberOfFloors(), b.getNotes()
-                )
-        ).collect(Collectors.toList());
-    }
-
-    private List<DataExportDto.RoomExport> exportRooms() {
-        return roomRepo.findAll().stream().map(r ->
-                new DataExportDto.RoomExport(
-                        r.getId(), r.getCode(),
-                        r.getBoardingHouse().getId(),
-                        r.getFloor(), r.getArea(), r.getMaxOccupants(),
-                        r.getBaseRent(), r.getStatus().name()
-                )
-        ).collect(Collectors.toList());
-    }
-
-    private List<DataExportDto.TenantExport> exportTenants() {
-        return tenantRepo.findAll().stream().map(t ->
-                new DataExportDto.TenantExport(
-                        t.getId(),
-                        t.getUser() != null ? t.getUser().getId() : null,
-                        t.getFullName(), t.getPhone(), t.getEmail(),
-                        t.getIdentityNumber(), t.getPassportNumber(),
-                        t.getDateOfBirth(),
-                        t.getPermanentAddress(), t.getStatus().name()
-                )
-        ).collect(Collectors.toList());
-    }
-
-    private List<DataExportDto.ServiceTypeExport> exportServiceTypes() {
-        return serviceTypeRepo.findAll().stream().map(s ->
-                new DataExportDto.ServiceTypeExport(
-                        s.getId(), s.getName(), s.getCategory().name(),
-                        s.getUnit(), s.getPricePerUnit(), s.getIsActive(),
-                        s.getBoardingHouse() != null ? s.getBoardingHouse().getId() : null
-                )
-        ).collect(Collectors.toList());
-    }
-
-    private List<DataExportDto.RoomServiceExport> exportRoomServices() {
-        return roomServiceRepo.findAll().stream().map(rs ->
-                new DataExportDto.RoomServiceExport(
-                        rs.getId(),
-                        rs.getRoom().getId(),
-                        rs.getServiceType().getId(),
-                        rs.getPricePerUnit(),
-                        rs.getFixedPrice()
-                )
-        ).collect(Collectors.toList());
-    }
-
-    private List<DataExportDto.ServiceCatalogExport> exportServiceCatalog() {
-        return serviceCatalogRepo.findAll().stream().map(sc ->
-                new DataExportDto.ServiceCatalogExport(
-                        sc.getId(), sc.getName(), sc.getCategory(),
-                        sc.getUnit(), sc.getDefaultPrice(), sc.getIcon(),
-                        sc.getInventoryItem() != null ? sc.getInventoryItem().getId() : null,
-                        sc.getIsActive(), sc.getSortOrder(),
-                        sc.getBoardingHouse() != null ? sc.getBoardingHouse().getId() : null
-                )
-        ).collect(Collectors.toList());
-    }
-
-    private List<DataExportDto.InventoryItemExport> exportInventoryItems() {
-        return inventoryItemRepo.findAll().stream().map(i ->
-                new DataExportDto.InventoryItemExport(
-                        i.getId(), i.getSku(), i.getName(), i.getCategory(),
-                        i.getUnit(), i.getPurchasePrice(), i.getSalePrice(),
-                        i.getQuantityOnHand(), i.getReorderLevel(),
-                        i.getIsActive(), i.getNote(), i.getCreatedDate(),
-                        i.getBoardingHouse() != null ? i.getBoardingHouse().getId() : null,
-                        i.getItemGroup()
-                )
-        ).collect(Collectors.toList());
-    }
-
-    private List<DataExportDto.InventoryTransactionExport> exportInventoryTransactions() {
-        return inventoryTransactionRepo.findAll().stream().map(t ->
-                new DataExportDto.InventoryTransactionExport(
-                        t.getId(), t.getItem().getId(), t.getType().name(),
-                        t.getQuantity(), t.getUnitPrice(), t.getAmount(),
-                        t.getReference(), t.getNote(), t.getCreatedDate(),
-                        t.getReversedByTransactionId()
-                )
-        ).collect(Collectors.toList());
-    }
-
-    private List<DataExportDto.ContractExport> exportContracts() {
-        return contractRepo.findAll().stream().map(c ->
-                new DataExportDto.ContractExport(
-                        c.getId(), c.getCode(),
-                        c.getRoom().getId(),
-                        c.getMainTenant().getId(),
-                        c.getStartDate(), c.getEndDate(),
-                        c.getDeposit(), c.getMonthlyRent(), c.getDailyRate(),
-                        c.getStatus().name(), c.getBillingCycle().name(),
-                        c.getTerminationReason(), c.getTerminationDate(),
-                        c.getRoomReleased()
-                )
-        ).collect(Collectors.toList());
-    }
-
-    private List<DataExportDto.ContractTenantExport> exportContractTenants() {
-        List<DataExportDto.ContractTenantExport> result = new ArrayList<>();
-        contractRepo.findAll().forEach(c ->
-                c.getTenants().forEach(t ->
-                        result.add(new DataExportDto.ContractTenantExport(c.getId(), t.getId()))
-                )
+    public void exportTables(ExportSink sink, Map<String, ? extends Collection<Long>> onlyIds) throws IOException {
+        Map<String, TableExport> tables = new LinkedHashMap<>();
+        tables.put("users", s -> writeEntities(s, "users", User.class, onlyIds, this::toUserExport));
+        tables.put("boardingHouses", s -> writeEntities(s, "boardingHouses", BoardingHouse.class, onlyIds, this::toBoardingHouseExport));
+        tables.put("rooms", s -> writeEntities(s, "rooms", Room.class, onlyIds, this::toRoomExport));
+        tables.put("tenants", s -> writeEntities(s, "tenants", Tenant.class, onlyIds, this::toTenantExport));
+        tables.put("serviceTypes", s -> writeEntities(s, "serviceTypes", ServiceType.class, onlyIds, this::toServiceTypeExport));
+        tables.put("roomServices", s -> writeEntities(s, "roomServices", com.boardinghouse.entity.RoomService.class, onlyIds, this::toRoomServiceExport));
+        tables.put("serviceCatalog", s -> writeEntities(s, "serviceCatalog", ServiceCatalog.class, onlyIds, this::toServiceCatalogExport));
+        tables.put("inventoryItems", s -> writeEntities(s, "inventoryItems", InventoryItem.class, onlyIds, this::toInventoryItemExport));
+        tables.put("inventoryTransactions", s -> writeEntities(s, "inventoryTransactions", InventoryTransaction.class, onlyIds, this::toInventoryTransactionExport));
+        tables.put("contracts", s -> writeEntities(s, "contracts", Contract.class, onlyIds, this::toContractExport));
+        tables.put("contractTenants", s -> writeContractTenants(s, onlyIds));
+        tables.put("invoices", s -> writeEntities(s, "invoices", Invoice.class, onlyIds, this::toInvoiceExport));
+        tables.put("invoiceItems", s -> writeEntities(s, "invoiceItems", InvoiceItem.class, onlyIds, this::toInvoiceItemExport));
+        tables.put("payments", s -> writeEntities(s, "payments", Payment.class, onlyIds, this::toPaymentExport));
+        tables.put("guestServiceCharges", s -> writeEntities(s, "guestServiceCharges", GuestServiceCharge.class, onlyIds, this::toGuestServiceChargeExport));
+        tables.put("monthlyExpenses", s -> writeEntities(s, "monthlyExpenses", MonthlyExpense.class, onlyIds, this::toMonthlyExpenseExport));
+        tables.put("housekeepingTasks", s -> writeEntities(s, "housekeepingTasks", HousekeepingTask.class, onlyIds, this::toHousekeepingTaskExport));
+        tables.put("serviceCatalogRecipes", s -> writeEntities(s, "serviceCatalogRecipes", ServiceCatalogRecipe.class, onlyIds, this::toServiceCatalogRecipeExport));
+
+        if (parallelism > 1 && sink.spoolMapper() != null && supportsSharedSnapshot()) {
+            exportParallel(sink, tables);
+        } else {
+            for (TableExport table : tables.values()) table.write(sink);
+        }
+    }
+
+    private void exportParallel(ExportSink sink, Map<String, TableExport> tables) throws IOException {
+        String snapshot = jdbcTemplate.queryForObject("SELECT pg_export_snapshot()", String.class);
+        if (snapshot == null || !SNAPSHOT_ID.matcher(snapshot).matches()) {
+            throw new IllegalStateException("Unexpected snapshot id: " + snapshot);
+        }
+        SpoolAppender appender = new SpoolAppender(sink, List.copyOf(tables.keySet()));
+        TaskGraph graph = new TaskGraph();
+        tables.forEach((name, table) -> graph.add(name, List.of(), () -> {
+            SpoolSink spool = new SpoolSink(sink.spoolMapper(), sink.spoolChunkRows());
+            boolean spooled = false;
+            try {
+                snapshotTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.execute("SET TRANSACTION SNAPSHOT '" + snapshot + "'");
+                    try {
+                        table.write(spool);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                spooled = true;
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                if (!spooled) spool.discard();
+            }
+            appender.completed(name, spool);
+        }));
+        try {
+            graph.run(parallelism, "export");
+        } finally {
+            appender.discard();
+        }
+    }
+
+    private boolean supportsSharedSnapshot() {
+        Boolean supported = sharedSnapshots;
+        if (supported == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+            supported = "PostgreSQL".equalsIgnoreCase(product);
+            sharedSnapshots = supported;
+        }
+        return supported;
+    }
+
+    /** Hands tables spooled by the export workers to the real sink in file order, as soon as each one's turn comes. */
+    private static final class SpoolAppender {
+        final ExportSink sink;
+        final List<String> order;
+        final Map<String, SpoolSink> completed = new HashMap<>();
+        int next;
+
+        SpoolAppender(ExportSink sink, List<String> order) {
+            this.sink = sink;
+            this.order = order;
+        }
+
+        synchronized void completed(String name, SpoolSink spool) throws IOException {
+            completed.put(name, spool);
+            while (next < order.size() && completed.containsKey(order.get(next))) {
+                String table = order.get(next++);
+                SpoolSink ready = completed.remove(table);
+                try {
+                    sink.spooledTable(table, ready.chunks, ready.removedIds);
+                } finally {
+                    ready.discard();
+                }
+            }
+        }
+
+        synchronized void discard() {
+            completed.values().forEach(SpoolSink::discard);
+            completed.clear();
+        }
+    }
+
+    /** Writes one table's rows to temp files of at most {@code chunkRows} rows, one JSON array each. */
+    private static final class SpoolSink implements ExportSink {
+        final ObjectMapper mapper;
+        final int chunkRows;
+        final List<SpooledChunk> chunks = new ArrayList<>();
+        Collection<Long> removedIds = List.of();
+        String table;
+        Path file;
+        JsonGenerator gen;
+        int rows;
+
+        SpoolSink(ObjectMapper mapper, int chunkRows) {
+            this.mapper = mapper;
+            this.chunkRows = chunkRows;
+        }
+
+        @Override
+        public void beginTable(String name) {
+            table = name;
+        }
+
+        @Override
+        public void row(Object row) throws IOException {
+            if (gen == null) {
+                file = Files.createTempFile("boarding-house-export-" + table + "-", ".json");
+                gen = mapper.createGenerator(file.toFile(), JsonEncoding.UTF8);
+                gen.writeStartArray();
+                rows = 0;
+            }
+            gen.writeObject(row);
+            if (++rows == chunkRows) closeChunk();
+        }
+
+        @Override
+        public void endTable(String name, Collection<Long> removedIds) throws IOException {
+            if (gen != null) closeChunk();
+            this.removedIds = List.copyOf(removedIds);
+        }
+
+        @Override
+        public void spooledTable(String name, List<SpooledChunk> spooled, Collection<Long> removedIds) throws IOException {
+            beginTable(name);
+            for (SpooledChunk chunk : spooled) {
+                // The caller deletes its files, so keep copies
+                Path copy = Files.createTempFile("boarding-house-export-" + table + "-", ".json");
+                Files.copy(chunk.file(), copy, StandardCopyOption.REPLACE_EXISTING);
+                chunks.add(new SpooledChunk(copy, chunk.rows()));
+            }
+            this.removedIds = List.copyOf(removedIds);
+        }
+
+        private void closeChunk() throws IOException {
+            gen.writeEndArray();
+            gen.close();
+            chunks.add(new SpooledChunk(file, rows));
+            gen = null;
+            file = null;
+        }
+
+        void discard() {
+            if (gen != null) {
+                try {
+                    gen.close();
+                } catch (IOException ignored) {
+                    // the file is deleted below anyway
+                }
+                deleteQuietly(file);
+            }
+            chunks.forEach(c -> deleteQuietly(c.file()));
+            chunks.clear();
+        }
+    }
+
+    private <E> void writeEntities(ExportSink sink, String field, Class<E> entity,
+                                   Map<String, ? extends Collection<Long>> onlyIds,
+                                   Function<E, ?> toExport) throws IOException {
+        String name = entityManager.getMetamodel().entity(entity).getName();
+        sink.beginTable(field);
+        if (onlyIds == null) {
+            writeRows(sink, entityManager.createQuery("SELECT e FROM " + name + " e ORDER BY e.id", entity), toExport, null);
+            sink.endTable(field, List.of());
+            return;
+        }
+        Collection<Long> requested = onlyIds.get(field);
+        Set<Long> missing = requested != null ? new TreeSet<>(requested) : new TreeSet<>();
+        for (List<Long> ids : partition(missing)) {
+            writeRows(sink, entityManager.createQuery("SELECT e FROM " + name + " e WHERE e.id IN :ids ORDER BY e.id", entity)
+                    .setParameter("ids", ids), toExport, missing);
+        }
+        sink.endTable(field, missing);
+    }
+
+    private void writeContractTenants(ExportSink sink, Map<String, ? extends Collection<Long>> onlyIds) throws IOException {
+        Function<Object[], ?> toExport = r -> new DataExportDto.ContractTenantExport((Long) r[0], (Long) r[1]);
+        String select = "SELECT c.id, t.id FROM Contract c JOIN c.tenants t";
+        sink.beginTable("contractTenants");
+        if (onlyIds == null) {
+            writeRows(sink, entityManager.createQuery(select + " ORDER BY c.id, t.id", Object[].class), toExport, null);
+            sink.endTable("contractTenants", List.of());
+            return;
+        }
+        Collection<Long> requested = onlyIds.get("contractTenants");
+        Set<Long> contractIds = requested != null ? new TreeSet<>(requested) : new TreeSet<>();
+        for (List<Long> ids : partition(contractIds)) {
+            writeRows(sink, entityManager.createQuery(select + " WHERE c.id IN :ids ORDER BY c.id, t.id", Object[].class)
+                    .setParameter("ids", ids), toExport, null);
+        }
+        sink.endTable("contractTenants", contractIds);
+    }
+
+    /** Writes every row of {@code query}; exported entity ids are removed from {@code missing} when given. */
+    private <E> void writeRows(ExportSink sink, TypedQuery<E> query, Function<E, ?> toExport,
+                               Set<Long> missing) throws IOException {
+        PersistenceUnitUtil util = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+        try (Stream<E> rows = query.setHint(AvailableHints.HINT_FETCH_SIZE, EXPORT_FETCH_SIZE).getResultStream()) {
+            int count = 0;
+            for (Iterator<E> it = rows.iterator(); it.hasNext(); ) {
+                E row = it.next();
+                if (missing != null) missing.remove((Long) util.getIdentifier(row));
+                sink.row(toExport.apply(row));
+                if (++count % EXPORT_FETCH_SIZE == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        entityManager.clear();
+    }
+
+    private static List<List<Long>> partition(Collection<Long> ids) {
+        List<Long> all = new ArrayList<>(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < all.size(); i += EXPORT_FETCH_SIZE) {
+            chunks.add(all.subList(i, Math.min(i + EXPORT_FETCH_SIZE, all.size())));
+        }
+        return chunks;
+    }
+
+    private DataExportDto.UserExport toUserExport(User u) {
+        Set<String> roles = u.getRoles().stream().map(Enum::name).collect(Collectors.toSet());
+        return new DataExportDto.UserExport(
+                u.getId(), u.getUsername(), u.getPassword(),
+                u.getFullName(), u.getPhone(), u.getEmail(),
+                roles, u.getPermissions(), u.getActive(), u.getProfilePicture()
+        );
+    }
+
+    private DataExportDto.BoardingHouseExport toBoardingHouseExport(BoardingHouse b) {
+        return new DataExportDto.BoardingHouseExport(
+                b.getId(), b.getName(), b.getAddress(),
+                b.getDescription(), b.getNumberOfFloors(), b.getNotes()
+        );
+    }
+
+    private DataExportDto.RoomExport toRoomExport(Room r) {
+        return new DataExportDto.RoomExport(
+                r.getId(), r.getCode(),
+                r.getBoardingHouse().getId(),
+                r.getFloor(), r.getArea(), r.getMaxOccupants(),
+                r.getBaseRent(), r.getStatus().name()
+        );
+    }
+
+    private DataExportDto.TenantExport toTenantExport(Tenant t) {
+        return new DataExportDto.TenantExport(
+                t.getId(),
+                t.getUser() != null ? t.getUser().getId() : null,
+                t.getFullName(), t.getPhone(), t.getEmail(),
+                t.getIdentityNumber(), t.getPassportNumber(),
+                t.getDateOfBirth(),
+                t.getPermanentAddress(), t.getStatus().name()
+        );
+    }
+
+    private DataExportDto.ServiceTypeExport toServiceTypeExport(ServiceType s) {
+        return new DataExportDto.ServiceTypeExport(
+                s.getId(), s.getName(), s.getCategory().name(),
+                s.getUnit(), s.getPricePerUnit(), s.getIsActive(),
+                s.getBoardingHouse() != null ? s.getBoardingHouse().getId() : null
+        );
+    }
+
+    private DataExportDto.RoomServiceExport toRoomServiceExport(com.boardinghouse.entity.RoomService rs) {
+        return new DataExportDto.RoomServiceExport(
+                rs.getId(),
+                rs.getRoom().getId(),
+                rs.getServiceType().getId(),
+                rs.getPricePerUnit(),
+                rs.getFixedPrice()
+        );
+    }
+
+    private DataExportDto.ServiceCatalogExport toServiceCatalogExport(ServiceCatalog sc) {
+        return new DataExportDto.ServiceCatalogExport(
+                sc.getId(), sc.getName(), sc.getCategory(),
+                sc.getUnit(), sc.getDefaultPrice(), sc.getIcon(),
+                sc.getInventoryItem() != null ? sc.getInventoryItem().getId() : null,
+                sc.getIsActive(), sc.getSortOrder(),
+                sc.getBoardingHouse() != null ? sc.getBoardingHouse().getId() : null
+        );
+    }
+
+    private DataExportDto.InventoryItemExport toInventoryItemExport(InventoryItem i) {
+        return new DataExportDto.InventoryItemExport(
+                i.getId(), i.getSku(), i.getName(), i.getCategory(),
+                i.getUnit(), i.getPurchasePrice(), i.getSalePrice(),
+                i.getQuantityOnHand(), i.getReorderLevel(),
+                i.getIsActive(), i.getNote(), i.getCreatedDate(),
+                i.getBoardingHouse() != null ? i.getBoardingHouse().getId() : null,
+                i.getItemGroup()
+        );
+    }
+
+    private DataExportDto.InventoryTransactionExport toInventoryTransactionExport(InventoryTransaction t) {
+        return new DataExportDto.InventoryTransactionExport(
+                t.getId(), t.getItem().getId(), t.getType().name(),
+                t.getQuantity(), t.getUnitPrice(), t.getAmount(),
+                t.getReference(), t.getNote(), t.getCreatedDate(),
+                t.getReversedByTransactionId()
+        );
+    }
+
+    private DataExportDto.ContractExport toContractExport(Contract c) {
+        return new DataExportDto.ContractExport(
+                c.getId(), c.getCode(),
+                c.getRoom().getId(),
+                c.getMainTenant().getId(),
+                c.getStartDate(), c.getEndDate(),
+                c.getDeposit(), c.getMonthlyRent(), c.getDailyRate(),
+                c.getStatus().name(), c.getBillingCycle().name(),
+                c.getTerminationReason(), c.getTerminationDate(),
+                c.getRoomReleased()
+        );
+    }
+
+    private DataExportDto.InvoiceExport toInvoiceExport(Invoice i) {
+        return new DataExportDto.InvoiceExport(
+                i.getId(), i.getCode(),
+                i.getContract().getId(),
+                i.getRoom().getId(),
+                i.getPeriodMonth(), i.getPeriodYear(),
+                i.getTotalAmount(), i.getStatus().name(),
+                i.getDueDate(), i.getCreatedDate()
+        );
+    }
+
+    private DataExportDto.InvoiceItemExport toInvoiceItemExport(InvoiceItem ii) {
+        return new DataExportDto.InvoiceItemExport(
+                ii.getId(), ii.getInvoice().getId(),
+                ii.getDescription(), ii.getType().name(),
+                ii.getQuantity(), ii.getUnitPrice(), ii.getAmount(),
+                ii.getOldIndex(), ii.getNewIndex()
+        );
+    }
+
+    private DataExportDto.PaymentExport toPaymentExport(Payment p) {
+        return new DataExportDto.PaymentExport(
+                p.getId(), p.getInvoice().getId(),
+                p.getPaidAmount(), p.getPaymentDate(),
+                p.getMethod().name(), p.getNote(), p.getTransactionCode()
+        );
+    }
+
+    private DataExportDto.GuestServiceChargeExport toGuestServiceChargeExport(GuestServiceCharge g) {
+        return new DataExportDto.GuestServiceChargeExport(
+                g.getId(),
+                g.getContract().getId(),
+                g.getRoom().getId(),
+                g.getChargeDate(),
+                g.getInventoryItem() != null ? g.getInventoryItem().getId() : null,
+                g.getDescription(),
+                g.getQuantity(), g.getUnitPrice(), g.getAmount(),
+                g.getNote(), g.getCreatedDate()
+        );
+    }
+
+    private DataExportDto.MonthlyExpenseExport toMonthlyExpenseExport(MonthlyExpense e) {
+        return new DataExportDto.MonthlyExpenseExport(
+                e.getId(),
+                e.getBoardingHouse().getId(),
+                e.getMonth(), e.getYear(),
+                e.getCategory(), e.getDescription(),
+                e.getAmount(), e.getNote(), e.getCreatedDate()
+        );
+    }
+
+    private DataExportDto.HousekeepingTaskExport toHousekeepingTaskExport(HousekeepingTask t) {
+        return new DataExportDto.HousekeepingTaskExport(
+                t.getId(),
+                t.getRoom().getId(),
+                t.getContract() != null ? t.getContract().getId() : null,
+                t.getAssignedTo() != null ? t.getAssignedTo().getId() : null,
+                t.getTitle(), t.getNotes(),
+                t.getStatus().name(), t.getPriority().name(),
+                t.getScheduledDate(),
+                t.getStartedAt(), t.getCompletedAt(), t.getCreatedAt(),
+                t.getAutoGenerated()
+        );
+    }
+
+    private DataExportDto.ServiceCatalogRecipeExport toServiceCatalogRecipeExport(ServiceCatalogRecipe r) {
+        return new DataExportDto.ServiceCatalogRecipeExport(
+                r.getId(),
+                r.getCatalog().getId(),
+                r.getInventoryItem().getId(),
+                r.getQuantityPerUnit()
         );
-        return result;
-    }
-
-    private List<DataExportDto.InvoiceExport> exportInvoices() {
-        return invoiceRepo.findAll().stream().map(i ->
-                new DataExportDto.InvoiceExport(
-                        i.getId(), i.getCode(),
-                        i.getContract().getId(),
-                        i.getRoom().getId(),
-                        i.getPeriodMonth(), i.getPeriodYear(),
-                        i.getTotalAmount(), i.getStatus().name(),
-                        i.getDueDate(), i.getCreatedDate()
-                )
-        ).collect(Collectors.toList());
-    }
-
-    private List<DataExportDto.InvoiceItemExport> exportInvoiceItems() {
-        return invoiceItemRepo.findAll().stream().map(ii ->
-                new DataExportDto.InvoiceItemExport(
-                        ii.getId(), ii.getInvoice().getId(),
-                        ii.getDescription(), ii.getType().name(),
-                        ii.getQuantity(), ii.getUnitPrice(), ii.getAmount(),
-                        ii.getOldIndex(), ii.getNewIndex()
-                )
-        ).collect(Collectors.toList());
-    }
-
-    private List<DataExportDto.PaymentExport> exportPayments() {
-        return paymentRepo.findAll().stream().map(p ->
-                new DataExportDto.PaymentExport(
-                        p.getId(), p.getInvoice().getId(),
-                        p.getPaidAmount(), p.getPaymentDate(),
-                        p.getMethod().name(), p.getNote(), p.getTransactionCode()
-                )
-        ).collect(Collectors.toList());
-    }
-
-    private List<DataExportDto.GuestServiceChargeExport> exportGuestServiceCharges() {
-        return guestServiceChargeRepo.findAll().stream().map(g ->
-                new DataExportDto.GuestServiceChargeExport(
-                        g.getId(),
-                        g.getContract().getId(),
-                        g.getRoom().getId(),
-                        g.getChargeDate(),
-                        g.getInventoryItem() != null ? g.getInventoryItem().getId() : null,
-                        g.getDescription(),
-                        g.getQuantity(), g.getUnitPrice(), g.getAmount(),
-                        g.getNote(), g.getCreatedDate()
-                )
-        ).collect(Collectors.toList());
-    }
-
-    private List<DataExportDto.MonthlyExpenseExport> exportMonthlyExpenses() {
-        return monthlyExpenseRepo.findAll().stream().map(e ->
-                new DataExportDto.MonthlyExpenseExport(
-                        e.getId(),
-                        e.getBoardingHouse().getId(),
-                        e.getMonth(), e.getYear(),
-                        e.getCategory(), e.getDescription(),
-                        e.getAmount(), e.getNote(), e.getCreatedDate()
-                )
-        ).collect(Collectors.toList());
-    }
-
-    private List<DataExportDto.HousekeepingTaskExport> exportHousekeepingTasks() {
-        return housekeepingTaskRepo.findAll().stream().map(t ->
-                new DataExportDto.HousekeepingTaskExport(
-                        t.getId(),
-                        t.getRoom().getId(),
-                        t.getContract() != null ? t.getContract().getId() : null,
-                        t.getAssignedTo() != null ? t.getAssignedTo().getId() : null,
-                        t.getTitle(), t.getNotes(),
-                        t.getStatus().name(), t.getPriority().name(),
-                        t.getScheduledDate(),
-                        t.getStartedAt(), t.getCompletedAt(), t.getCreatedAt(),
-                        t.getAutoGenerated()
-                )
-        ).collect(Collectors.toList());
-    }
-
-    private List<DataExportDto.ServiceCatalogRecipeExport> exportServiceCatalogRecipes() {
-        return serviceCatalogRecipeRepo.findAll().stream().map(r ->
-                new DataExportDto.ServiceCatalogRecipeExport(
-                        r.getId(),
-                        r.getCatalog().getId(),
-                        r.getInventoryItem().getId(),
-                        r.getQuantityPerUnit()
-                )
-        ).collect(Collectors.toList());
     }
 
     // ─── IMPORT ──────────────────────────────────────────────────────────────
 
-    public Map<String, Object> importAll(DataExportDto data) {
-        Map<String, Object> stats = new LinkedHashMap<>();
-        List<String> warnings = new ArrayList<>();
-        List<String> errors = new ArrayList<>();
+    /**
+     * Restores an export file (any version) read from {@code in}.
+     *
+     * The body is spooled to a temp file and every row is bound to its row type once before
+     * anything is deleted, so a truncated, malformed or mistyped file never wipes the database;
+     * that pass also notes where each section starts. Tables are then imported through the FK task graph (see importGraph),
+     * each parsed from its own offset one row at a time and inserted with JDBC batches of
+     * IMPORT_BATCH_SIZE, whatever order the sections have in the file. Sequences are reset
+     * once, at the end.
+     */
+    public ImportResult importAll(InputStream in, ObjectMapper mapper) throws IOException {
+        Path file = Files.createTempFile("boarding-house-import-", ".json");
+        try {
+            Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+            return importAll(file, mapper);
+        } finally {
+            deleteQuietly(file);
+        }
+    }
+
+    /** Restores an export file already on disk, as {@link #importAll(InputStream, ObjectMapper)}; the file is left in place. */
+    public ImportResult importAll(Path file, ObjectMapper mapper) throws IOException {
+        Map<String, List<Long>> sections = validateImportFile(file, mapper);
+        return importFile(file, sections, mapper);
+    }
+
+    /**
+     * Checks the whole file is one JSON object whose import sections bind row by row (ids
+     * included); returns the byte offset of each import section's array.
+     */
+    private Map<String, List<Long>> validateImportFile(Path file, ObjectMapper mapper) throws IOException {
+        Map<String, List<Long>> sections = new HashMap<>();
+        try (JsonParser p = mapper.createParser(file.toFile())) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new BadRequestException("File import không hợp lệ: không phải JSON object");
+            }
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                ImportTable<?> table = tableFor(p.currentName());
+                if (p.nextToken() == JsonToken.START_ARRAY && table != null) {
+                    sections.computeIfAbsent(table.field(), k -> new ArrayList<>())
+                            .add(p.currentTokenLocation().getByteOffset());
+                    bindRows(table, p, mapper);
+                } else {
+                    p.skipChildren();
+                }
+            }
+            if (p.nextToken() != null) {
+                throw new BadRequestException("File import không hợp lệ: dữ liệu thừa sau JSON object");
+            }
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("File import không hợp lệ: " + e.getOriginalMessage());
+        }
+        return sections;
+    }
+
+    /** Reads the array the parser is on as importTable will, rejecting the first row that does not bind. */
+    private static <T> void bindRows(ImportTable<T> table, JsonParser p, ObjectMapper mapper) throws IOException {
+        ObjectReader reader = mapper.readerFor(table.rowType());
+        String at = table.field() + "[";
+        int index = 0;
+        JsonToken token;
+        while ((token = p.nextToken()) == JsonToken.START_OBJECT) {
+            T row;
+            try {
+                row = reader.readValue(p);
+            } catch (JsonProcessingException e) {
+                throw new BadRequestException("File import không hợp lệ: " + at + index + "]: " + e.getOriginalMessage());
+            }
+            if (table.id() != null && table.id().apply(row) == null) {
+                throw new BadRequestException("File import không hợp lệ: " + at + index + "] thiếu id");
+            }
+            index++;
+        }
+        if (token != JsonToken.END_ARRAY) {
+            throw new BadRequestException("File import không hợp lệ: " + at + index + "] không phải object");
+        }
+    }
+
+    private ImportResult importFile(Path file, Map<String, List<Long>> sections, ObjectMapper mapper) throws IOException {
+        long start = System.currentTimeMillis();
+        ImportSession session = new ImportSession(mapper);
 
         // Xóa toàn bộ data cũ theo thứ tự phụ thuộc (FK)
         clearAllData();
-
-        // Import theo thứ tự phụ thuộc — mỗi bước có try-catch riêng
-        stats.put("users", safeImport("Users", () -> importUsers(data.getUsers()), errors));
-        stats.put("boardingHouses", safeImport("Boarding Houses", () -> importBoardingHouses(data.getBoardingHouses()), errors));
-        stats.put("rooms", safeImport("Rooms", () -> importRooms(data.getRooms()), errors));
-        stats.put("tenants", safeImport("Tenants", () -> importTenants(data.getTenants()), errors));
-        stats.put("serviceTypes", safeImport("Service Types", () -> importServiceTypes(data.getServiceTypes()), errors));
-        stats.put("roomServices", safeImport("Room Services", () -> importRoomServices(data.getRoomServices()), errors));
-        stats.put("inventoryItems", safeImport("Inventory Items", () -> importInventoryItems(data.getInventoryItems()), errors));
-        stats.put("inventoryTransactions", safeImport("Inventory Transactions", () -> importInventoryTransactions(data.getInventoryTransactions()), errors));
-        stats.put("serviceCatalog", safeImport("Service Catalog", () -> importServiceCatalog(data.getServiceCatalog()), errors));
-        stats.put("contracts", safeImport("Contracts", () -> importContracts(data.getContracts()), errors));
-        safeImport("Contract Tenants", () -> { importContractTenants(data.getContractTenants()); return 0; }, errors);
-        stats.put("invoices", safeImport("Invoices", () -> importInvoices(data.getInvoices()), errors));
-        stats.put("invoiceItems", safeImport("Invoice Items", () -> importInvoiceItems(data.getInvoiceItems()), errors));
-        stats.put("payments", safeImport("Payments", () -> importPayments(data.getPayments()), errors));
-        stats.put("guestServiceCharges", safeImport("Guest Charges", () -> importGuestServiceCharges(data.getGuestServiceCharges()), errors));
-        stats.put("monthlyExpenses", safeImport("Monthly Expenses", () -> importMonthlyExpenses(data.getMonthlyExpenses()), errors));
-        stats.put("housekeepingTasks", safeImport("Housekeeping Tasks", () -> importHousekeepingTasks(data.getHousekeepingTasks()), errors));
-        stats.put("serviceCatalogRecipes", safeImport("Catalog Recipes", () -> importServiceCatalogRecipes(data.getServiceCatalogRecipes()), errors));
+        try {
+            importGraph(table -> {
+                for (long offset : sections.getOrDefault(table.field(), List.of())) {
+                    try (InputStream in = Files.newInputStream(file)) {
+                        in.skipNBytes(offset);
+                        try (JsonParser p = mapper.createParser(in)) {
+                            p.nextToken(); // START_ARRAY, found there by validateImportFile
+                            session.importTable(table, p, false);
+                        }
+                    }
+                }
+            }).run(parallelism, "import");
+        } finally {
+            session.refreshDerivedState();
+        }
 
         // Check for missing sections in old export files
-        if (data.getMonthlyExpenses() == null) warnings.add("File không chứa Monthly Expenses (phiên bản cũ)");
-        if (data.getHousekeepingTasks() == null) warnings.add("File không chứa Housekeeping Tasks (phiên bản cũ)");
-        if (data.getServiceCatalogRecipes() == null) warnings.add("File không chứa Service Catalog Recipes (phiên bản cũ)");
+        if (!session.seen.contains("monthlyExpenses")) session.warnings.add("File không chứa Monthly Expenses (phiên bản cũ)");
+        if (!session.seen.contains("housekeepingTasks")) session.warnings.add("File không chứa Housekeeping Tasks (phiên bản cũ)");
+        if (!session.seen.contains("serviceCatalogRecipes")) session.warnings.add("File không chứa Service Catalog Recipes (phiên bản cũ)");
+
+        return session.finish(start);
+    }
+
+    /**
+     * One backup archive as restore sees it: row chunks per export section and the ids it removes.
+     * Different sections may be read from different threads at the same time.
+     */
+    public interface ArchiveSource {
+        /** Calls {@code reader} once per chunk of the section, with the parser on the chunk's START_ARRAY. */
+        void readChunks(String section, ChunkReader reader) throws IOException;
 
-        if (!warnings.isEmpty()) stats.put("warnings", warnings);
-        if (!errors.isEmpty()) stats.put("errors", errors);
+        /** Ids deleted since the previous archive (for contractTenants: contracts whose tenant list is replaced). */
+        Collection<Long> removedIds(String section);
+    }
 
-        return stats;
+    @FunctionalInterface
+    public interface ChunkReader {
+        void read(JsonParser parser) throws IOException;
     }
 
-    private int safeImport(String name, java.util.function.Supplier<Integer> importFn, List<String> errors) {
+    /**
+     * Replaces all data with a FULL archive, then replays DELTA archives in order: each
+     * delta upserts its rows in FK order and then deletes its removed rows in reverse order.
+     */
+    public ImportResult restore(ArchiveSource full, List<? extends ArchiveSource> deltas, ObjectMapper mapper) throws IOException {
+        long start = System.currentTimeMillis();
+        ImportSession session = new ImportSession(mapper);
+
+        clearAllData();
         try {
-            return importFn.get();
-        } catch (Exception e) {
-            String msg = name + ": " + (e.getMessage() != null ? e.getMessage().substring(0, Math.min(e.getMessage().length(), 150)) : "Unknown error");
-            errors.add(msg);
-            return 0;
+            importGraph(table -> full.readChunks(table.field(), p -> session.importTable(table, p, false)))
+                    .run(parallelism, "restore");
+            for (ArchiveSource delta : deltas) {
+                importGraph(table -> {
+                    if (table.id() == null) session.deleteRows(table, delta.removedIds(table.field()));
+                    delta.readChunks(table.field(), p -> session.importTable(table, p, true));
+                }).run(parallelism, "restore");
+                for (int i = importTables.size() - 1; i >= 0; i--) {
+                    ImportTable<?> table = importTables.get(i);
+                    if (table.id() != null) session.deleteRows(table, delta.removedIds(table.field()));
+                }
+            }
+        } finally {
+            session.refreshDerivedState();
+        }
+        return session.finish(start);
+    }
+
+    private ImportTable<?> tableFor(String field) {
+        return importTables.stream().filter(t -> t.field().equals(field)).findFirst().orElse(null);
+    }
+
+    @FunctionalInterface
+    private interface TableImport {
+        void run(ImportTable<?> table) throws IOException;
+    }
+
+    /**
+     * One task per import table, each depending on the tables its foreign keys point to
+     * (ImportTable.dependsOn): with parallelism > 1, independent tables (users, boarding
+     * houses, inventory, ...) load at the same time on their own connections.
+     */
+    private TaskGraph importGraph(TableImport work) {
+        TaskGraph graph = new TaskGraph();
+        for (ImportTable<?> table : importTables) {
+            graph.add(table.field(), table.dependsOn(), () -> work.run(table));
         }
+        return graph;
     }
 
-    @Transactional
+    /**
+     * State of one import: which sections were seen or failed, the largest id per table for
+     * the final sequence reset, and the numbers to report. Tables may be imported from
+     * several threads at once (importGraph), so everything here is thread-safe.
+     */
+    private final class ImportSession {
+        final ObjectMapper mapper;
+        final Set<String> seen = ConcurrentHashMap.newKeySet();
+        final Set<String> failed = ConcurrentHashMap.newKeySet();
+        final Map<String, Long> maxIds = new ConcurrentHashMap<>();
+        final Map<String, TableStats> tableStats = new ConcurrentHashMap<>();
+        final List<String> warnings = Collections.synchronizedList(new ArrayList<>());
+        final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+
+        ImportSession(ObjectMapper mapper) {
+            this.mapper = mapper;
+        }
+
+        /** Reads the array the parser is positioned on and writes it chunk by chunk (upsert for deltas). */
+        <T> void importTable(ImportTable<T> table, JsonParser p, boolean upsert) throws IOException {
+            seen.add(table.field());
+            long start = System.currentTimeMillis();
+            ObjectReader reader = mapper.readerFor(table.rowType());
+            List<T> chunk = new ArrayList<>(IMPORT_BATCH_SIZE);
+            int read = 0;
+            int inserted = 0;
+            while (p.nextToken() == JsonToken.START_OBJECT) {
+                T row = reader.readValue(p);
+                read++;
+                if (table.id() != null) maxIds.merge(table.sqlTable(), table.id().apply(row), Math::max);
+                if (failed.contains(table.field())) continue; // keep reading so the parser ends up after the array
+                chunk.add(row);
+                if (chunk.size() == IMPORT_BATCH_SIZE) {
+                    inserted += write(table, chunk, upsert);
+                    chunk.clear();
+                    log.debug("Import {}: {} row(s) read, {} written", table.field(), read, inserted);
+                }
+            }
+            if (!chunk.isEmpty() && !failed.contains(table.field())) {
+                inserted += write(table, chunk, upsert);
+            }
+            tableStats.merge(table.field(),
+                    TableStats.of(table.field(), read, inserted, System.currentTimeMillis() - start), TableStats::plus);
+        }
+
+        private <T> int write(ImportTable<T> table, List<T> rows, boolean upsert) {
+            try {
+                return table.writer().write(rows, upsert);
+            } catch (Exception e) {
+                failed.add(table.field());
+                errors.add(errorMessage(table.label(), e));
+                return 0;
+            }
+        }
+
+        void deleteRows(ImportTable<?> table, Collection<Long> ids) {
+            if (ids == null || ids.isEmpty() || failed.contains(table.field())) return;
+            try {
+                for (List<Long> chunk : partition(ids)) {
+                    inImportTransaction(() -> {
+                        for (String child : table.childTables()) deleteWhereIn(child, "user_id", chunk);
+                        deleteWhereIn(table.sqlTable(), table.keyColumn(), chunk);
+                    });
+                }
+            } catch (Exception e) {
+                failed.add(table.field());
+                errors.add(errorMessage(table.label(), e));
+            }
+        }
+
+        /**
+         * Imported rows bypass the services: resets the sequences and recomputes invoice paid
+         * amounts, the occupancy index, the catalog deduction plans, the contract balance snapshot
+         * and the revenue rollup. Called from a finally block, because the rows written before a
+         * failure are live data too; a step that fails becomes a warning instead of masking it.
+         */
+        void refreshDerivedState() {
+            step("Sequence reset", () -> resetSequences(maxIds));
+            step("Invoice paid amounts", invoiceRepo::syncPaidAmounts);
+            step("Caches", () -> {
+                occupancyIndex.invalidate();
+                catalogPlans.invalidate();
+                eventPublisher.publishEvent(ContractBalanceService.BalanceChanged.all());
+            });
+            step("Revenue rollup", () -> {
+                RevenueRollupService.RebuildResult rollup = revenueRollupService.rebuild("IMPORT");
+                if (rollup.errorMessage() != null) warnings.add("Revenue rollup: " + rollup.errorMessage());
+            });
+            // The change log describes the replaced data now; the next backup has to be FULL
+            step("Backup change log", changeLog::markResync);
+        }
+
+        private void step(String label, Runnable action) {
+            try {
+                action.run();
+            } catch (Exception e) {
+                log.warn("Import: {} failed", label, e);
+                warnings.add(errorMessage(label, e));
+            }
+        }
+
+        ImportResult finish(long start) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            List<TableStats> tables = new ArrayList<>();
+            int skipped = 0;
+            for (ImportTable<?> table : importTables) {
+                TableStats t = tableStats.get(table.field());
+                if (t != null) tables.add(t);
+                // Rows insertBatch dropped one by one (logged there); failed tables are in errors
+                if (t != null && t.inserted() < t.rows() && !failed.contains(table.field())) {
+                    skipped += t.rows() - t.inserted();
+                    warnings.add(table.label() + ": " + (t.rows() - t.inserted()) + " row(s) skipped (FK or data error), see log");
+                }
+                if (table.id() == null) continue;
+                stats.put(table.field(), t != null ? t.inserted() : 0);
+            }
+            if (skipped > 0) stats.put("skippedRows", skipped);
+            if (!warnings.isEmpty()) stats.put("warnings", List.copyOf(warnings));
+            if (!errors.isEmpty()) stats.put("errors", List.copyOf(errors));
+
+            for (TableStats t : tables) {
+                log.info("Imported {}: {}/{} row(s) in {} ms ({} rows/s)", t.table(), t.inserted(), t.rows(), t.millis(), t.rowsPerSecond());
+            }
+            log.info("Import finished in {} ms: {} table(s), {} error(s), parallelism {}",
+                    System.currentTimeMillis() - start, tables.size(), errors.size(), parallelism);
+            return new ImportResult(stats, tables);
+        }
+    }
+
+    private static String errorMessage(String label, Exception e) {
+        return label + ": " + (e.getMessage() != null ? e.getMessage().substring(0, Math.min(e.getMessage().length(), 150)) : "Unknown error");
+    }
+
+    /** Deletes every imported table in one transaction, so a failed delete leaves the data as it was. */
     public void clearAllData() {
+        inImportTransaction(this::deleteAllTables);
+        catalogPlans.invalidate();
+    }
+
+    private void deleteAllTables() {
         // Xóa theo thứ tự FK ngược lại
         jdbcTemplate.execute("DELETE FROM audit_logs");
+        jdbcTemplate.execute("DELETE FROM revenue_monthly_rollup");
         jdbcTemplate.execute("DELETE FROM housekeeping_tasks");
         jdbcTemplate.execute("DELETE FROM monthly_expenses");
         jdbcTemplate.execute("DELETE FROM service_catalog_recipes");
@@ -397,302 +1018,365 @@ public class DataTransferService {
         jdbcTemplate.execute("DELETE FROM users");
     }
 
-    private int importUsers(List<DataExportDto.UserExport> list) {
-        if (list == null) return 0;
-        for (DataExportDto.UserExport e : list) {
-            jdbcTemplate.update(
+    // ─── Import tables (in FK order) ─────────────────────────────────────────
+
+    /**
+     * One section of the export file: JSON field, row type, SQL table, the sections its
+     * foreign keys point to (dependsOn, all listed earlier) and batch writer.
+     * {@code childTables} are keyed by user_id (users only). {@code id} is null for
+     * contractTenants, whose rows have no id of their own: they are
+     * keyed by contract (keyColumn), left out of the sequence reset and the import stats,
+     * and replaced per contract when a delta is replayed.
+     */
+    private record ImportTable<T>(String field, String label, Class<T> rowType, Function<T, Long> id,
+                                  String sqlTable, String keyColumn, List<String> childTables,
+                                  List<String> dependsOn, ImportWriter<T> writer) {
+        ImportTable(String field, String label, Class<T> rowType, Function<T, Long> id, String sqlTable,
+                    List<String> dependsOn, ImportWriter<T> writer) {
+            this(field, label, rowType, id, sqlTable, "id", List.of(), dependsOn, writer);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ImportWriter<T> {
+        /** Inserts the rows (upsert: insert or update by id) and returns how many were written. */
+        int write(List<T> rows, boolean upsert);
+    }
+
+    public record TableStats(String table, int rows, int inserted, long millis, long rowsPerSecond) {
+        static TableStats of(String table, int rows, int inserted, long millis) {
+            return new TableStats(table, rows, inserted, millis, millis > 0 ? inserted * 1000L / millis : inserted);
+        }
+
+        TableStats plus(TableStats other) {
+            return of(table, rows + other.rows, inserted + other.inserted, millis + other.millis);
+        }
+    }
+
+    public record ImportResult(Map<String, Object> stats, List<TableStats> tables) {}
+
+    private List<ImportTable<?>> buildImportTables() {
+        return List.of(
+                new ImportTable<>("users", "Users", DataExportDto.UserExport.class,
+                        DataExportDto.UserExport::getId, "users", "id", List.of("user_roles", "user_permissions"), List.of(), this::insertUsers),
+                new ImportTable<>("boardingHouses", "Boarding Houses", DataExportDto.BoardingHouseExport.class,
+                        DataExportDto.BoardingHouseExport::getId, "boarding_houses", List.of(), this::insertBoardingHouses),
+                new ImportTable<>("rooms", "Rooms", DataExportDto.RoomExport.class,
+                        DataExportDto.RoomExport::getId, "rooms", List.of("boardingHouses"), this::insertRooms),
+                new ImportTable<>("tenants", "Tenants", DataExportDto.TenantExport.class,
+                        DataExportDto.TenantExport::getId, "tenants", List.of("users"), this::insertTenants),
+                new ImportTable<>("serviceTypes", "Service Types", DataExportDto.ServiceTypeExport.class,
+                        DataExportDto.ServiceTypeExport::getId, "service_types", List.of("boardingHouses"), this::insertServiceTypes),
+                new ImportTable<>("roomServices", "Room Services", DataExportDto.RoomServiceExport.class,
+                        DataExportDto.RoomServiceExport::getId, "room_services", List.of("rooms", "serviceTypes"), this::insertRoomServices),
+                new ImportTable<>("inventoryItems", "Inventory Items", DataExportDto.InventoryItemExport.class,
+                        DataExportDto.InventoryItemExport::getId, "inventory_items", List.of("boardingHouses"), this::insertInventoryItems),
+                new ImportTable<>("inventoryTransactions", "Inventory Transactions", DataExportDto.InventoryTransactionExport.class,
+                        DataExportDto.InventoryTransactionExport::getId, "inventory_transactions", List.of("inventoryItems"), this::insertInventoryTransactions),
+                new ImportTable<>("serviceCatalog", "Service Catalog", DataExportDto.ServiceCatalogExport.class,
+                        DataExportDto.ServiceCatalogExport::getId, "service_catalog", List.of("boardingHouses", "inventoryItems"), this::insertServiceCatalog),
+                new ImportTable<>("contracts", "Contracts", DataExportDto.ContractExport.class,
+                        DataExportDto.ContractExport::getId, "contracts", List.of("rooms", "tenants"), this::insertContracts),
+                new ImportTable<>("contractTenants", "Contract Tenants", DataExportDto.ContractTenantExport.class,
+                        null, "contract_tenants", "contract_id", List.of(), List.of("contracts", "tenants"), this::insertContractTenants),
+                new ImportTable<>("invoices", "Invoices", DataExportDto.InvoiceExport.class,
+                        DataExportDto.InvoiceExport::getId, "invoices", List.of("contracts", "rooms"), this::insertInvoices),
+                new ImportTable<>("invoiceItems", "Invoice Items", DataExportDto.InvoiceItemExport.class,
+                        DataExportDto.InvoiceItemExport::getId, "invoice_items", List.of("invoices"), this::insertInvoiceItems),
+                new ImportTable<>("payments", "Payments", DataExportDto.PaymentExport.class,
+                        DataExportDto.PaymentExport::getId, "payments", List.of("invoices"), this::insertPayments),
+                new ImportTable<>("guestServiceCharges", "Guest Charges", DataExportDto.GuestServiceChargeExport.class,
+                        DataExportDto.GuestServiceChargeExport::getId, "guest_service_charges", List.of("contracts", "rooms", "inventoryItems"), this::insertGuestServiceCharges),
+                new ImportTable<>("monthlyExpenses", "Monthly Expenses", DataExportDto.MonthlyExpenseExport.class,
+                        DataExportDto.MonthlyExpenseExport::getId, "monthly_expenses", List.of("boardingHouses"), this::insertMonthlyExpenses),
+                new ImportTable<>("housekeepingTasks", "Housekeeping Tasks", DataExportDto.HousekeepingTaskExport.class,
+                        DataExportDto.HousekeepingTaskExport::getId, "housekeeping_tasks", List.of("rooms", "contracts", "users"), this::insertHousekeepingTasks),
+                new ImportTable<>("serviceCatalogRecipes", "Catalog Recipes", DataExportDto.ServiceCatalogRecipeExport.class,
+                        DataExportDto.ServiceCatalogRecipeExport::getId, "service_catalog_recipes", List.of("serviceCatalog", "inventoryItems"), this::insertServiceCatalogRecipes)
+        );
+    }
+
+    private int insertUsers(List<DataExportDto.UserExport> rows, boolean upsert) {
+        int count = insertBatch(
                 "INSERT INTO users (id, username, password, full_name, phone, email, active, profile_picture) VALUES (?,?,?,?,?,?,?,?)",
-                e.getId(), e.getUsername(), e.getPassword(),
-                e.getFullName(), e.getPhone(), e.getEmail(),
-                e.getActive(), e.getProfilePicture()
-            );
-            if (e.getRoles() != null) {
-                for (String role : e.getRoles()) {
-                    jdbcTemplate.update("INSERT INTO user_roles (user_id, role) VALUES (?,?)", e.getId(), role);
-                }
-            }
-            if (e.getPermissions() != null) {
-                for (String perm : e.getPermissions()) {
-                    jdbcTemplate.update("INSERT INTO user_permissions (user_id, permission) VALUES (?,?)", e.getId(), perm);
-                }
-            }
+                rows, false, upsert, e -> new Object[]{
+                        e.getId(), e.getUsername(), e.getPassword(),
+                        e.getFullName(), e.getPhone(), e.getEmail(),
+                        e.getActive(), e.getProfilePicture()
+                });
+        if (upsert) {
+            // Replayed users bring their complete role and permission sets
+            List<Long> ids = rows.stream().map(DataExportDto.UserExport::getId).toList();
+            inImportTransaction(() -> {
+                deleteWhereIn("user_roles", "user_id", ids);
+                deleteWhereIn("user_permissions", "user_id", ids);
+            });
         }
-        resetSequence("users", list.stream().mapToLong(DataExportDto.UserExport::getId).max().orElse(0));
-        return list.size();
+        List<Object[]> roles = new ArrayList<>();
+        List<Object[]> permissions = new ArrayList<>();
+        for (DataExportDto.UserExport e : rows) {
+            if (e.getRoles() != null) e.getRoles().forEach(role -> roles.add(new Object[]{e.getId(), role}));
+            if (e.getPermissions() != null) e.getPermissions().forEach(perm -> permissions.add(new Object[]{e.getId(), perm}));
+        }
+        insertBatch("INSERT INTO user_roles (user_id, role) VALUES (?,?)", roles, false, false, r -> r);
+        insertBatch("INSERT INTO user_permissions (user_id, permission) VALUES (?,?)", permissions, false, false, r -> r);
+        return count;
     }
 
-    private int importBoardingHouses(List<DataExportDto.BoardingHouseExport> list) {
-        if (list == null) return 0;
-        for (DataExportDto.BoardingHouseExport e : list) {
-            jdbcTemplate.update(
+    private int insertBoardingHouses(List<DataExportDto.BoardingHouseExport> rows, boolean upsert) {
+        return insertBatch(
                 "INSERT INTO boarding_houses (id, name, address, description, number_of_floors, notes) VALUES (?,?,?,?,?,?)",
-                e.getId(), e.getName(), e.getAddress(),
-                e.getDescription(), e.getNumberOfFloors(), e.getNotes()
-            );
-        }
-        resetSequence("boarding_houses", list.stream().mapToLong(DataExportDto.BoardingHouseExport::getId).max().orElse(0));
-        return list.size();
+                rows, false, upsert, e -> new Object[]{
+                        e.getId(), e.getName(), e.getAddress(),
+                        e.getDescription(), e.getNumberOfFloors(), e.getNotes()
+                });
     }
 
-    private int importRooms(List<DataExportDto.RoomExport> list) {
-        if (list == null) return 0;
-        for (DataExportDto.RoomExport e : list) {
-            jdbcTemplate.update(
+    private int insertRooms(List<DataExportDto.RoomExport> rows, boolean upsert) {
+        return insertBatch(
                 "INSERT INTO rooms (id, code, boarding_house_id, floor, area, max_occupants, base_rent, status) VALUES (?,?,?,?,?,?,?,?)",
-                e.getId(), e.getCode(), e.getBoardingHouseId(),
-                e.getFloor(), e.getArea(), e.getMaxOccupants(),
-                e.getBaseRent(), e.getStatus()
-            );
-        }
-        resetSequence("rooms", list.stream().mapToLong(DataExportDto.RoomExport::getId).max().orElse(0));
-        return list.size();
+                rows, false, upsert, e -> new Object[]{
+                        e.getId(), e.getCode(), e.getBoardingHouseId(),
+                        e.getFloor(), e.getArea(), e.getMaxOccupants(),
+                        e.getBaseRent(), e.getStatus()
+                });
     }
 
-    private int importTenants(List<DataExportDto.TenantExport> list) {
-        if (list == null) return 0;
-        for (DataExportDto.TenantExport e : list) {
-            jdbcTemplate.update(
+    private int insertTenants(List<DataExportDto.TenantExport> rows, boolean upsert) {
+        return insertBatch(
                 "INSERT INTO tenants (id, user_id, full_name, phone, email, identity_number, passport_number, date_of_birth, permanent_address, status) VALUES (?,?,?,?,?,?,?,?,?,?)",
-                e.getId(), e.getUserId(), e.getFullName(), e.getPhone(), e.getEmail(),
-                e.getIdentityNumber(), e.getPassportNumber(), e.getDateOfBirth(),
-                e.getPermanentAddress(), e.getStatus()
-            );
-        }
-        resetSequence("tenants", list.stream().mapToLong(DataExportDto.TenantExport::getId).max().orElse(0));
-        return list.size();
+                rows, false, upsert, e -> new Object[]{
+                        e.getId(), e.getUserId(), e.getFullName(), e.getPhone(), e.getEmail(),
+                        e.getIdentityNumber(), e.getPassportNumber(), e.getDateOfBirth(),
+                        e.getPermanentAddress(), e.getStatus()
+                });
     }
 
-    private int importServiceTypes(List<DataExportDto.ServiceTypeExport> list) {
-        if (list == null) return 0;
-        for (DataExportDto.ServiceTypeExport e : list) {
-            jdbcTemplate.update(
+    private int insertServiceTypes(List<DataExportDto.ServiceTypeExport> rows, boolean upsert) {
+        return insertBatch(
                 "INSERT INTO service_types (id, name, category, unit, price_per_unit, is_active, boarding_house_id) VALUES (?,?,?,?,?,?,?)",
-                e.getId(), e.getName(), e.getCategory(),
-                e.getUnit(), e.getPricePerUnit(), e.getIsActive(),
-                e.getBoardingHouseId()
-            );
-        }
-        resetSequence("service_types", list.stream().mapToLong(DataExportDto.ServiceTypeExport::getId).max().orElse(0));
-        return list.size();
+                rows, false, upsert, e -> new Object[]{
+                        e.getId(), e.getName(), e.getCategory(),
+                        e.getUnit(), e.getPricePerUnit(), e.getIsActive(),
+                        e.getBoardingHouseId()
+                });
     }
 
-    private int importRoomServices(List<DataExportDto.RoomServiceExport> list) {
-        if (list == null) return 0;
-        for (DataExportDto.RoomServiceExport e : list) {
-            jdbcTemplate.update(
+    private int insertRoomServices(List<DataExportDto.RoomServiceExport> rows, boolean upsert) {
+        return insertBatch(
                 "INSERT INTO room_services (id, room_id, service_type_id, price_per_unit, fixed_price) VALUES (?,?,?,?,?)",
-                e.getId(), e.getRoomId(), e.getServiceTypeId(),
-                e.getPricePerUnit(), e.getFixedPrice()
-            );
-        }
-        resetSequence("room_services", list.stream().mapToLong(DataExportDto.RoomServiceExport::getId).max().orElse(0));
-        return list.size();
+                rows, false, upsert, e -> new Object[]{
+                        e.getId(), e.getRoomId(), e.getServiceTypeId(),
+                        e.getPricePerUnit(), e.getFixedPrice()
+                });
     }
 
-    private int importInventoryItems(List<DataExportDto.InventoryItemExport> list) {
-        if (list == null) return 0;
-        for (DataExportDto.InventoryItemExport e : list) {
-            jdbcTemplate.update(
+    private int insertInventoryItems(List<DataExportDto.InventoryItemExport> rows, boolean upsert) {
+        return insertBatch(
                 "INSERT INTO inventory_items (id, sku, name, category, unit, purchase_price, sale_price, quantity_on_hand, reorder_level, is_active, note, created_date, boarding_house_id, item_group) VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?,?)",
-                e.getId(), e.getSku(), e.getName(), e.getCategory(), e.getUnit(),
-                e.getPurchasePrice(), e.getSalePrice(), e.getQuantityOnHand(),
-                e.getReorderLevel(), e.getIsActive(), e.getNote(), e.getCreatedDate(),
-                e.getBoardingHouseId(), e.getItemGroup()
-            );
-        }
-        resetSequence("inventory_items", list.stream().mapToLong(DataExportDto.InventoryItemExport::getId).max().orElse(0));
-        return list.size();
+                rows, false, upsert, e -> new Object[]{
+                        e.getId(), e.getSku(), e.getName(), e.getCategory(), e.getUnit(),
+                        e.getPurchasePrice(), e.getSalePrice(), e.getQuantityOnHand(),
+                        e.getReorderLevel(), e.getIsActive(), e.getNote(), e.getCreatedDate(),
+                        e.getBoardingHouseId(), e.getItemGroup()
+                });
     }
 
-    private int importInventoryTransactions(List<DataExportDto.InventoryTransactionExport> list) {
-        if (list == null) return 0;
-        for (DataExportDto.InventoryTransactionExport e : list) {
-            jdbcTemplate.update(
+    private int insertInventoryTransactions(List<DataExportDto.InventoryTransactionExport> rows, boolean upsert) {
+        return insertBatch(
                 "INSERT INTO inventory_transactions (id, item_id, type, quantity, unit_price, amount, reference, note, created_date, reversed_by_transaction_id) VALUES (?,?,?,?,?,?,?,?,?,?)",
-                e.getId(), e.getItemId(), e.getType(),
-                e.getQuantity(), e.getUnitPrice(), e.getAmount(),
-                e.getReference(), e.getNote(), e.getCreatedDate(),
-                e.getReversedByTransactionId()
-            );
-        }
-        resetSequence("inventory_transactions", list.stream().mapToLong(DataExportDto.InventoryTransactionExport::getId).max().orElse(0));
-        return list.size();
+                rows, false, upsert, e -> new Object[]{
+                        e.getId(), e.getItemId(), e.getType(),
+                        e.getQuantity(), e.getUnitPrice(), e.getAmount(),
+                        e.getReference(), e.getNote(), e.getCreatedDate(),
+                        e.getReversedByTransactionId()
+                });
     }
 
-    private int importServiceCatalog(List<DataExportDto.ServiceCatalogExport> list) {
-        if (list == null) return 0;
-        for (DataExportDto.ServiceCatalogExport e : list) {
-            jdbcTemplate.update(
+    private int insertServiceCatalog(List<DataExportDto.ServiceCatalogExport> rows, boolean upsert) {
+        return insertBatch(
                 "INSERT INTO service_catalog (id, name, category, unit, default_price, icon, inventory_item_id, is_active, sort_order, boarding_house_id) VALUES (?,?,?,?,?,?,?,?,?,?)",
-                e.getId(), e.getName(), e.getCategory(), e.getUnit(),
-                e.getDefaultPrice(), e.getIcon(), e.getInventoryItemId(),
-                e.getIsActive(), e.getSortOrder(), e.getBoardingHouseId()
-            );
-        }
-        resetSequence("service_catalog", list.stream().mapToLong(DataExportDto.ServiceCatalogExport::getId).max().orElse(0));
-        return list.size();
+                rows, false, upsert, e -> new Object[]{
+                        e.getId(), e.getName(), e.getCategory(), e.getUnit(),
+                        e.getDefaultPrice(), e.getIcon(), e.getInventoryItemId(),
+                        e.getIsActive(), e.getSortOrder(), e.getBoardingHouseId()
+                });
     }
 
-    private int importContracts(List<DataExportDto.ContractExport> list) {
-        if (list == null) return 0;
-        int count = 0;
-        for (DataExportDto.ContractExport e : list) {
-            try {
-                jdbcTemplate.update(
-                    "INSERT INTO contracts (id, code, room_id, main_tenant_id, start_date, end_date, deposit, monthly_rent, daily_rate, status, billing_cycle, termination_reason, termination_date, room_released) VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?,?)",
-                    e.getId(), e.getCode(), e.getRoomId(), e.getMainTenantId(),
-                    e.getStartDate(), e.getEndDate(), e.getDeposit(),
-                    e.getMonthlyRent(), e.getDailyRate(),
-                    e.getStatus() != null ? e.getStatus() : "ACTIVE",
-                    e.getBillingCycle() != null ? e.getBillingCycle() : "MONTHLY",
-                    e.getTerminationReason(),
-                    e.getTerminationDate(),
-                    e.getRoomReleased() != null ? e.getRoomReleased() : false
-                );
-                count++;
-            } catch (Exception ex) { /* skip row with FK or data error */ }
-        }
-        resetSequence("contracts", list.stream().mapToLong(DataExportDto.ContractExport::getId).max().orElse(0));
-        return count;
+    private int insertContracts(List<DataExportDto.ContractExport> rows, boolean upsert) {
+        return insertBatch(
+                "INSERT INTO contracts (id, code, room_id, main_tenant_id, start_date, end_date, deposit, monthly_rent, daily_rate, status, billing_cycle, termination_reason, termination_date, room_released) VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?,?)",
+                rows, true, upsert, e -> new Object[]{
+                        e.getId(), e.getCode(), e.getRoomId(), e.getMainTenantId(),
+                        e.getStartDate(), e.getEndDate(), e.getDeposit(),
+                        e.getMonthlyRent(), e.getDailyRate(),
+                        e.getStatus() != null ? e.getStatus() : "ACTIVE",
+                        e.getBillingCycle() != null ? e.getBillingCycle() : "MONTHLY",
+                        e.getTerminationReason(),
+                        e.getTerminationDate(),
+                        e.getRoomReleased() != null ? e.getRoomReleased() : false
+                });
     }
 
-    private void importContractTenants(List<DataExportDto.ContractTenantExport> list) {
-        if (list == null) return;
-        for (DataExportDto.ContractTenantExport e : list) {
-            jdbcTemplate.update(
+    private int insertContractTenants(List<DataExportDto.ContractTenantExport> rows, boolean upsert) {
+        return insertBatch(
                 "INSERT INTO contract_tenants (contract_id, tenant_id) VALUES (?,?)",
-                e.getContractId(), e.getTenantId()
-            );
-        }
+                rows, false, false, e -> new Object[]{e.getContractId(), e.getTenantId()});
     }
 
-    private int importInvoices(List<DataExportDto.InvoiceExport> list) {
-        if (list == null) return 0;
-        int count = 0;
-        for (DataExportDto.InvoiceExport e : list) {
-            try {
-                jdbcTemplate.update(
-                    "INSERT INTO invoices (id, code, contract_id, room_id, period_month, period_year, total_amount, status, due_date, created_date) VALUES (?,?,?,?,?,?,?,?,?,?)",
-                    e.getId(), e.getCode(), e.getContractId(), e.getRoomId(),
-                    e.getPeriodMonth(), e.getPeriodYear(), e.getTotalAmount(),
-                    e.getStatus() != null ? e.getStatus() : "UNPAID",
-                    e.getDueDate(), e.getCreatedDate()
-                );
-                count++;
-            } catch (Exception ex) { /* skip row with FK error */ }
-        }
-        resetSequence("invoices", list.stream().mapToLong(DataExportDto.InvoiceExport::getId).max().orElse(0));
-        return count;
+    private int insertInvoices(List<DataExportDto.InvoiceExport> rows, boolean upsert) {
+        return insertBatch(
+                "INSERT INTO invoices (id, code, contract_id, room_id, period_month, period_year, total_amount, status, due_date, created_date) VALUES (?,?,?,?,?,?,?,?,?,?)",
+                rows, true, upsert, e -> new Object[]{
+                        e.getId(), e.getCode(), e.getContractId(), e.getRoomId(),
+                        e.getPeriodMonth(), e.getPeriodYear(), e.getTotalAmount(),
+                        e.getStatus() != null ? e.getStatus() : "UNPAID",
+                        e.getDueDate(), e.getCreatedDate()
+                });
     }
 
-    private int importInvoiceItems(List<DataExportDto.InvoiceItemExport> list) {
-        if (list == null) return 0;
-        for (DataExportDto.InvoiceItemExport e : list) {
-            jdbcTemplate.update(
+    private int insertInvoiceItems(List<DataExportDto.InvoiceItemExport> rows, boolean upsert) {
+        return insertBatch(
                 "INSERT INTO invoice_items (id, invoice_id, description, type, quantity, unit_price, amount, old_index, new_index) VALUES (?,?,?,?,?,?,?,?,?)",
-                e.getId(), e.getInvoiceId(), e.getDescription(), e.getType(),
-                e.getQuantity(), e.getUnitPrice(), e.getAmount(),
-                e.getOldIndex(), e.getNewIndex()
-            );
-        }
-        resetSequence("invoice_items", list.stream().mapToLong(DataExportDto.InvoiceItemExport::getId).max().orElse(0));
-        return list.size();
+                rows, false, upsert, e -> new Object[]{
+                        e.getId(), e.getInvoiceId(), e.getDescription(), e.getType(),
+                        e.getQuantity(), e.getUnitPrice(), e.getAmount(),
+                        e.getOldIndex(), e.getNewIndex()
+                });
     }
 
-    private int importPayments(List<DataExportDto.PaymentExport> list) {
-        if (list == null) return 0;
-        int count = 0;
-        for (DataExportDto.PaymentExport e : list) {
-            try {
-                jdbcTemplate.update(
-                    "INSERT INTO payments (id, invoice_id, paid_amount, payment_date, method, note, transaction_code) VALUES (?,?,?,?,?,?,?)",
-                    e.getId(), e.getInvoiceId(), e.getPaidAmount(),
-                    e.getPaymentDate(), e.getMethod(), e.getNote(), e.getTransactionCode()
-                );
-                count++;
-            } catch (Exception ex) { /* skip row with FK error */ }
-        }
-        resetSequence("payments", list.stream().mapToLong(DataExportDto.PaymentExport::getId).max().orElse(0));
-        return count;
+    private int insertPayments(List<DataExportDto.PaymentExport> rows, boolean upsert) {
+        return insertBatch(
+                "INSERT INTO payments (id, invoice_id, paid_amount, payment_date, method, note, transaction_code) VALUES (?,?,?,?,?,?,?)",
+                rows, true, upsert, e -> new Object[]{
+                        e.getId(), e.getInvoiceId(), e.getPaidAmount(),
+                        e.getPaymentDate(), e.getMethod(), e.getNote(), e.getTransactionCode()
+                });
     }
 
-    private int importGuestServiceCharges(List<DataExportDto.GuestServiceChargeExport> list) {
-        if (list == null) return 0;
-        int count = 0;
-        for (DataExportDto.GuestServiceChargeExport e : list) {
-            try {
-                jdbcTemplate.update(
-                    "INSERT INTO guest_service_charges (id, contract_id, room_id, charge_date, inventory_item_id, description, quantity, unit_price, amount, note, created_date) VALUES (?,?,?,?,?,?,?,?,?,?,?)",
-                    e.getId(), e.getContractId(), e.getRoomId(), e.getChargeDate(),
-                    e.getInventoryItemId(), e.getDescription(),
-                    e.getQuantity(), e.getUnitPrice(), e.getAmount(),
-                    e.getNote(), e.getCreatedDate()
-                );
-                count++;
-            } catch (Exception ex) { /* skip row with FK error */ }
-        }
-        resetSequence("guest_service_charges", list.stream().mapToLong(DataExportDto.GuestServiceChargeExport::getId).max().orElse(0));
-        return count;
+    private int insertGuestServiceCharges(List<DataExportDto.GuestServiceChargeExport> rows, boolean upsert) {
+        return insertBatch(
+                "INSERT INTO guest_service_charges (id, contract_id, room_id, charge_date, inventory_item_id, description, quantity, unit_price, amount, note, created_date) VALUES (?,?,?,?,?,?,?,?,?,?,?)",
+                rows, true, upsert, e -> new Object[]{
+                        e.getId(), e.getContractId(), e.getRoomId(), e.getChargeDate(),
+                        e.getInventoryItemId(), e.getDescription(),
+                        e.getQuantity(), e.getUnitPrice(), e.getAmount(),
+                        e.getNote(), e.getCreatedDate()
+                });
     }
 
-    private int importMonthlyExpenses(List<DataExportDto.MonthlyExpenseExport> list) {
-        if (list == null) return 0;
-        int count = 0;
-        for (DataExportDto.MonthlyExpenseExport e : list) {
-            try {
-                jdbcTemplate.update(
-                    "INSERT INTO monthly_expenses (id, boarding_house_id, month, year, category, description, amount, note, created_date) VALUES (?,?,?,?,?,?,?,?,?)",
-                    e.getId(), e.getBoardingHouseId(), e.getMonth(), e.getYear(),
-                    e.getCategory(), e.getDescription(), e.getAmount(),
-                    e.getNote(), e.getCreatedDate()
-                );
-                count++;
-            } catch (Exception ex) { /* skip row */ }
-        }
-        resetSequence("monthly_expenses", list.stream().mapToLong(DataExportDto.MonthlyExpenseExport::getId).max().orElse(0));
-        return count;
+    private int insertMonthlyExpenses(List<DataExportDto.MonthlyExpenseExport> rows, boolean upsert) {
+        return insertBatch(
+                "INSERT INTO monthly_expenses (id, boarding_house_id, month, year, category, description, amount, note, created_date) VALUES (?,?,?,?,?,?,?,?,?)",
+                rows, true, upsert, e -> new Object[]{
+                        e.getId(), e.getBoardingHouseId(), e.getMonth(), e.getYear(),
+                        e.getCategory(), e.getDescription(), e.getAmount(),
+                        e.getNote(), e.getCreatedDate()
+                });
     }
 
-    private int importHousekeepingTasks(List<DataExportDto.HousekeepingTaskExport> list) {
-        if (list == null) return 0;
-        for (DataExportDto.HousekeepingTaskExport e : list) {
-            jdbcTemplate.update(
+    private int insertHousekeepingTasks(List<DataExportDto.HousekeepingTaskExport> rows, boolean upsert) {
+        return insertBatch(
                 "INSERT INTO housekeeping_tasks (id, room_id, contract_id, assigned_to, title, notes, status, priority, scheduled_date, started_at, completed_at, created_at, auto_generated) VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?)",
-                e.getId(), e.getRoomId(), e.getContractId(), e.getAssignedToUserId(),
-                e.getTitle(), e.getNotes(), e.getStatus(), e.getPriority(),
-                e.getScheduledDate(), e.getStartedAt(), e.getCompletedAt(),
-                e.getCreatedAt(), e.getAutoGenerated()
-            );
+                rows, false, upsert, e -> new Object[]{
+                        e.getId(), e.getRoomId(), e.getContractId(), e.getAssignedToUserId(),
+                        e.getTitle(), e.getNotes(), e.getStatus(), e.getPriority(),
+                        e.getScheduledDate(), e.getStartedAt(), e.getCompletedAt(),
+                        e.getCreatedAt(), e.getAutoGenerated()
+                });
+    }
+
+    private int insertServiceCatalogRecipes(List<DataExportDto.ServiceCatalogRecipeExport> rows, boolean upsert) {
+        return insertBatch(
+                "INSERT INTO service_catalog_recipes (id, catalog_id, inventory_item_id, quantity_per_unit) VALUES (?,?,?,?)",
+                rows, true, upsert, e -> new Object[]{
+                        e.getId(), e.getCatalogId(), e.getInventoryItemId(), e.getQuantityPerUnit()
+                });
+    }
+
+    /**
+     * One JDBC batch per chunk, in its own transaction. With {@code skipBadRows} a failed
+     * batch is rolled back and retried row by row, so an FK or data error only drops that
+     * row (the behaviour of the old per-row import); otherwise the error fails the table.
+     * {@code upsert} turns the INSERT into INSERT ... ON CONFLICT (id) DO UPDATE (PostgreSQL).
+     */
+    private <T> int insertBatch(String insertSql, List<T> rows, boolean skipBadRows, boolean upsert,
+                                Function<T, Object[]> params) {
+        if (rows.isEmpty()) return 0;
+        String sql = upsert ? toUpsert(insertSql) : insertSql;
+        List<Object[]> args = rows.stream().map(params).toList();
+        try {
+            inImportTransaction(() -> jdbcTemplate.batchUpdate(sql, args));
+            return args.size();
+        } catch (DataAccessException e) {
+            if (!skipBadRows) throw e;
+            int count = 0;
+            for (Object[] row : args) {
+                try {
+                    inImportTransaction(() -> jdbcTemplate.update(sql, row));
+                    count++;
+                } catch (DataAccessException ex) {
+                    // Counted by ImportSession.finish as rows read but not inserted
+                    log.warn("Import: skipped {} row id {}: {}", tableOf(insertSql), row[0],
+                            ex.getMostSpecificCause().getMessage());
+                }
+            }
+            return count;
         }
-        resetSequence("housekeeping_tasks", list.stream().mapToLong(DataExportDto.HousekeepingTaskExport::getId).max().orElse(0));
-        return list.size();
     }
 
-    private int importServiceCatalogRecipes(List<DataExportDto.ServiceCatalogRecipeExport> list) {
-        if (list == null) return 0;
-        int count = 0;
-        for (DataExportDto.ServiceCatalogRecipeExport e : list) {
-            try {
-                jdbcTemplate.update(
-                    "INSERT INTO service_catalog_recipes (id, catalog_id, inventory_item_id, quantity_per_unit) VALUES (?,?,?,?)",
-                    e.getId(), e.getCatalogId(), e.getInventoryItemId(), e.getQuantityPerUnit()
-                );
-                count++;
-            } catch (Exception ex) { /* skip row */ }
-        }
-        resetSequence("service_catalog_recipes", list.stream().mapToLong(DataExportDto.ServiceCatalogRecipeExport::getId).max().orElse(0));
-        return count;
+    /** INSERT INTO t (id, a, b) VALUES (...) -> ... ON CONFLICT (id) DO UPDATE SET a = EXCLUDED.a, b = EXCLUDED.b */
+    private static String toUpsert(String insertSql) {
+        Matcher columns = INSERT_COLUMNS.matcher(insertSql);
+        if (!columns.find()) throw new IllegalArgumentException("Not an INSERT: " + insertSql);
+        String set = Arrays.stream(columns.group(2).split(","))
+                .map(String::strip)
+                .filter(c -> !c.equals("id"))
+                .map(c -> c + " = EXCLUDED." + c)
+                .collect(Collectors.joining(", "));
+        return insertSql + " ON CONFLICT (id) DO UPDATE SET " + set;
+    }
+
+    private static String tableOf(String insertSql) {
+        Matcher columns = INSERT_COLUMNS.matcher(insertSql);
+        return columns.find() ? columns.group(1) : insertSql;
+    }
+
+    /**
+     * Runs import writes in one transaction that the backup change log does not record: an
+     * import replaces every table and ends with markResync, which discards the log anyway.
+     */
+    private void inImportTransaction(Runnable work) {
+        transactionTemplate.executeWithoutResult(status -> {
+            changeLog.suspendInTransaction();
+            work.run();
+        });
+    }
+
+    private void deleteWhereIn(String table, String column, List<Long> ids) {
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        jdbcTemplate.update("DELETE FROM " + table + " WHERE " + column + " IN (" + placeholders + ")", ids.toArray());
     }
 
     /**
-     * Reset PostgreSQL sequence sau khi insert với ID cụ thể,
-     * để auto-increment tiếp tục đúng.
+     * Reset PostgreSQL sequences sau khi insert với ID cụ thể,
+     * để auto-increment tiếp tục đúng. One statement for every imported table.
      */
-    private void resetSequence(String tableName, long maxId) {
-        if (maxId > 0) {
-            jdbcTemplate.execute(
-                "SELECT setval(pg_get_serial_sequence('" + tableName + "', 'id'), " + maxId + ", true)"
-            );
+    private void resetSequences(Map<String, Long> maxIds) {
+        String setvals = maxIds.entrySet().stream()
+                .filter(e -> e.getValue() > 0)
+                .map(e -> "setval(pg_get_serial_sequence('" + e.getKey() + "', 'id'), " + e.getValue() + ", true)")
+                .collect(Collectors.joining(", "));
+        if (!setvals.isEmpty()) {
+            jdbcTemplate.execute("SELECT " + setvals);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete temp file {}: {}", file, e.getMessage());
         }
     }
 }
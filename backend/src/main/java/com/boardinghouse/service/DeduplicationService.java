@@ -11,9 +11,11 @@ import java.util.*;
 public class DeduplicationService {
 
     private final JdbcTemplate jdbc;
+    private final CatalogDeductionPlanService catalogPlans;
 
-    public DeduplicationService(JdbcTemplate jdbc) {
+    public DeduplicationService(JdbcTemplate jdbc, CatalogDeductionPlanService catalogPlans) {
         this.jdbc = jdbc;
+        this.catalogPlans = catalogPlans;
     }
 
     /**
@@ -38,6 +40,7 @@ public class DeduplicationService {
         Map<String, Object> stats = new LinkedHashMap<>();
         int catalogRemoved = deduplicateServiceCatalog();
         int inventoryRemoved = deduplicateInventoryItems();
+        if (catalogRemoved + inventoryRemoved > 0) catalogPlans.invalidate();
         stats.put("serviceCatalogRemoved", catalogRemoved);
         stats.put("inventoryItemsRemoved", inventoryRemoved);
         return stats;
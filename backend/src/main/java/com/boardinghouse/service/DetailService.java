@@ -9,7 +9,11 @@ import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -147,11 +151,11 @@ public class DetailService {
         dto.setPermanentAddress(tenant.getPermanentAddress());
         dto.setStatus(tenant.getStatus());
 
-        // Get contracts
-        List<Contract> contracts = contractRepository.findAll().stream()
-                .filter(c -> c.getTenants().stream().anyMatch(t -> t.getId().equals(id)) ||
-                            c.getMainTenant().getId().equals(id))
-                .collect(Collectors.toList());
+        // Contracts where the tenant is the main tenant or a co-tenant (both indexed lookups)
+        Map<Long, Contract> byId = new TreeMap<>();
+        contractRepository.findWithDetailsByMainTenantId(id).forEach(c -> byId.put(c.getId(), c));
+        contractRepository.findWithDetailsByCoTenantId(id).forEach(c -> byId.putIfAbsent(c.getId(), c));
+        List<Contract> contracts = new ArrayList<>(byId.values());
         dto.setContracts(contracts.stream().map(c -> {
             ContractDto contractDto = new ContractDto();
             contractDto.setId(c.getId());
@@ -170,11 +174,17 @@ public class DetailService {
             return contractDto;
         }).collect(Collectors.toList()));
 
-        // Get invoices from contracts
-        List<Invoice> allInvoices = invoiceRepository.findAll().stream()
-                .filter(inv -> contracts.stream().anyMatch(c -> c.getId().equals(inv.getContract().getId())))
-                .collect(Collectors.toList());
-        dto.setInvoices(allInvoices.stream().map(this::invoiceToDto).collect(Collectors.toList()));
+        // Invoices of those contracts (invoices.contract_id) with their payments in one query each
+        List<Invoice> allInvoices = byId.isEmpty() ? List.of() : invoiceRepository.findWithDetailsByContractIdIn(byId.keySet());
+        Map<Long, BigDecimal> paidByInvoice = new HashMap<>();
+        if (!allInvoices.isEmpty()) {
+            for (Payment p : paymentRepository.findByInvoiceIdIn(allInvoices.stream().map(Invoice::getId).toList())) {
+                paidByInvoice.merge(p.getInvoice().getId(), p.getPaidAmount(), BigDecimal::add);
+            }
+        }
+        dto.setInvoices(allInvoices.stream()
+                .map(inv -> invoiceToDto(inv, paidByInvoice.getOrDefault(inv.getId(), BigDecimal.ZERO)))
+                .collect(Collectors.toList()));
         dto.setTotalInvoices((long) allInvoices.size());
         dto.setUnpaidInvoices(allInvoices.stream()
                 .filter(inv -> inv.getStatus() != PaymentStatus.PAID)
@@ -197,6 +207,13 @@ public class DetailService {
     }
 
     private InvoiceDto invoiceToDto(Invoice invoice) {
+        BigDecimal paidAmount = paymentRepository.findByInvoiceId(invoice.getId()).stream()
+                .map(Payment::getPaidAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return invoiceToDto(invoice, paidAmount);
+    }
+
+    private InvoiceDto invoiceToDto(Invoice invoice, BigDecimal paidAmount) {
         InvoiceDto dto = new InvoiceDto();
         dto.setId(invoice.getId());
         dto.setCode(invoice.getCode());
@@ -210,10 +227,6 @@ public class DetailService {
         dto.setStatus(invoice.getStatus());
         dto.setDueDate(invoice.getDueDate());
         dto.setCreatedDate(invoice.getCreatedDate());
-
-        BigDecimal paidAmount = paymentRepository.findByInvoiceId(invoice.getId()).stream()
-                .map(Payment::getPaidAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
         dto.setPaidAmount(paidAmount);
         dto.setRemainingAmount(invoice.getTotalAmount().subtract(paidAmount));
         return dto;
@@ -6,53 +6,50 @@ import com.boardinghouse.dto.InventoryTransactionDto;
 import com.boardinghouse.entity.Contract;
 import com.boardinghouse.entity.GuestServiceCharge;
 import com.boardinghouse.entity.InventoryItem;
-import com.boardinghouse.entity.Payment;
-import com.boardinghouse.entity.ServiceCatalog;
-import com.boardinghouse.entity.ServiceCatalogRecipe;
 import com.boardinghouse.exception.ResourceNotFoundException;
 import com.boardinghouse.repository.ContractRepository;
 import com.boardinghouse.repository.GuestServiceChargeRepository;
 import com.boardinghouse.repository.InventoryItemRepository;
-import com.boardinghouse.repository.InvoiceRepository;
-import com.boardinghouse.repository.PaymentRepository;
-import com.boardinghouse.repository.ServiceCatalogRepository;
 import com.boardinghouse.service.InventoryService;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 @Service
 public class GuestServiceChargeService {
 
     private final GuestServiceChargeRepository repository;
     private final ContractRepository contractRepository;
-    private final InvoiceRepository invoiceRepository;
-    private final PaymentRepository paymentRepository;
+    private final ContractLedgerService ledgerService;
     private final InventoryService inventoryService;
     private final InventoryItemRepository inventoryItemRepository;
-    private final ServiceCatalogRepository serviceCatalogRepository;
+    private final CatalogDeductionPlanService catalogPlans;
+    private final RevenueRollupService revenueRollupService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public GuestServiceChargeService(GuestServiceChargeRepository repository,
                                      ContractRepository contractRepository,
-                                     InvoiceRepository invoiceRepository,
-                                     PaymentRepository paymentRepository,
+                                     ContractLedgerService ledgerService,
                                      InventoryService inventoryService,
                                      InventoryItemRepository inventoryItemRepository,
-                                     ServiceCatalogRepository serviceCatalogRepository) {
+                                     CatalogDeductionPlanService catalogPlans,
+                                     RevenueRollupService revenueRollupService,
+                                     ApplicationEventPublisher eventPublisher) {
         this.repository = repository;
         this.contractRepository = contractRepository;
-        this.invoiceRepository = invoiceRepository;
-        this.paymentRepository = paymentRepository;
+        this.ledgerService = ledgerService;
         this.inventoryService = inventoryService;
         this.inventoryItemRepository = inventoryItemRepository;
-        this.serviceCatalogRepository = serviceCatalogRepository;
+        this.catalogPlans = catalogPlans;
+        this.revenueRollupService = revenueRollupService;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<GuestServiceChargeDto> getByContract(Long contractId) {
@@ -67,76 +64,36 @@ public class GuestServiceChargeService {
 
         InventoryItem inventoryItem = null;
 
-        // Case 1: Catalog với recipe (Onion Ring, Coffee, Combo...)
+        // Case 1: Catalog với recipe (Onion Ring, Coffee, Combo...), resolved from the cached plan
         if (dto.getCatalogId() != null) {
-            ServiceCatalog catalog = serviceCatalogRepository.findById(dto.getCatalogId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Catalog not found: " + dto.getCatalogId()));
-
-            List<ServiceCatalogRecipe> recipes = catalog.getRecipes();
-            if (!recipes.isEmpty()) {
-                // Trừ kho theo định mức × số lượng bán
-                BigDecimal soldQty = dto.getQuantity();
-                Long catalogBhId = catalog.getBoardingHouse() != null ? catalog.getBoardingHouse().getId() : null;
-                for (ServiceCatalogRecipe recipe : recipes) {
-                    // Verify recipe ingredient belongs to same boarding house
-                    Long recipeBhId = recipe.getInventoryItem().getBoardingHouse() != null
-                            ? recipe.getInventoryItem().getBoardingHouse().getId() : null;
-                    if (catalogBhId != null && recipeBhId != null && !catalogBhId.equals(recipeBhId)) {
-                        continue; // Skip - wrong property
+            CatalogDeductionPlanService.Plan plan = catalogPlans.get(dto.getCatalogId(), contract.getRoom().getBoardingHouse().getId());
+            String catalogName = plan.catalogName();
+            switch (plan.kind()) {
+                case RECIPE -> {
+                    // Trừ kho theo định mức × số lượng bán, mọi nguyên liệu trong một lần
+                    BigDecimal soldQty = dto.getQuantity();
+                    List<InventoryService.StockMovement> movements = new ArrayList<>();
+                    for (CatalogDeductionPlanService.Ingredient i : plan.recipe()) {
+                        movements.add(new InventoryService.StockMovement(i.itemId(), i.name(), i.unit(),
+                                i.quantity().multiply(soldQty), i.salePrice()));
                     }
-                    BigDecimal deductQty = recipe.getQuantityPerUnit().multiply(soldQty);
-                    InventoryTransactionDto txDto = new InventoryTransactionDto();
-                    txDto.setItemId(recipe.getInventoryItem().getId());
-                    txDto.setType(com.boardinghouse.entity.InventoryTransactionType.SALE);
-                    txDto.setQuantity(deductQty);
-                    txDto.setUnitPrice(recipe.getInventoryItem().getSalePrice());
-                    txDto.setReference("Recipe: " + catalog.getName() + " x" + soldQty + " (contract " + dto.getContractId() + ")");
-                    txDto.setNote("Auto deduct from recipe");
-                    inventoryService.createTransaction(txDto);
+                    inventoryService.recordSale(catalogName + " x" + soldQty, movements,
+                            "Recipe: " + catalogName + " x" + soldQty + " (contract " + dto.getContractId() + ")",
+                            "Auto deduct from recipe");
                 }
-            } else if (catalog.getInventoryItem() != null) {
-                // Catalog link thẳng 1:1 với inventory item
-                inventoryItem = catalog.getInventoryItem();
-                // Verify inventory item belongs to same boarding house
-                Long catalogBhId = catalog.getBoardingHouse() != null ? catalog.getBoardingHouse().getId() : null;
-                Long invBhId = inventoryItem.getBoardingHouse() != null ? inventoryItem.getBoardingHouse().getId() : null;
-                if (catalogBhId != null && invBhId != null && !catalogBhId.equals(invBhId)) {
-                    // Mismatch! Don't deduct from wrong property's inventory
-                    inventoryItem = null;
-                } else {
-                    InventoryTransactionDto txDto = new InventoryTransactionDto();
-                    txDto.setItemId(inventoryItem.getId());
-                    txDto.setType(com.boardinghouse.entity.InventoryTransactionType.SALE);
-                    txDto.setQuantity(dto.getQuantity());
-                    txDto.setUnitPrice(dto.getUnitPrice() != null ? dto.getUnitPrice() : inventoryItem.getSalePrice());
-                    txDto.setReference("Catalog: " + catalog.getName() + " (contract " + dto.getContractId() + ")");
-                    txDto.setNote("Auto stock deduction");
-                    inventoryService.createTransaction(txDto);
+                case ITEM, NAME_MATCH -> {
+                    // Catalog link thẳng 1:1 với inventory item; a name match is linked for future use
+                    CatalogDeductionPlanService.Ingredient i = plan.item();
+                    boolean autoLinked = plan.kind() == CatalogDeductionPlanService.Kind.NAME_MATCH;
+                    if (autoLinked) catalogPlans.link(plan);
+                    inventoryItem = inventoryItemRepository.getReferenceById(i.itemId());
+                    inventoryService.recordSale(catalogName, List.of(new InventoryService.StockMovement(i.itemId(), i.name(), i.unit(),
+                                    dto.getQuantity(), dto.getUnitPrice() != null ? dto.getUnitPrice() : i.salePrice())),
+                            (autoLinked ? "Auto-linked: " : "Catalog: ") + catalogName + " (contract " + dto.getContractId() + ")",
+                            autoLinked ? "Auto-matched by name and linked" : "Auto stock deduction");
                 }
-            } else {
-                // No explicit link - try auto-match by name within same boarding house
-                Long bhId = catalog.getBoardingHouse() != null ? catalog.getBoardingHouse().getId() : null;
-                if (bhId != null) {
-                    List<InventoryItem> matches = inventoryItemRepository
-                            .findByBoardingHouseIdAndIsActiveTrueOrderByCategoryAscNameAsc(bhId)
-                            .stream()
-                            .filter(i -> i.getName().equalsIgnoreCase(catalog.getName()))
-                            .collect(Collectors.toList());
-                    if (!matches.isEmpty()) {
-                        inventoryItem = matches.get(0);
-                        // Auto-link for future use
-                        catalog.setInventoryItem(inventoryItem);
-                        serviceCatalogRepository.save(catalog);
-                        // Deduct stock
-                        InventoryTransactionDto txDto = new InventoryTransactionDto();
-                        txDto.setItemId(inventoryItem.getId());
-                        txDto.setType(com.boardinghouse.entity.InventoryTransactionType.SALE);
-                        txDto.setQuantity(dto.getQuantity());
-                        txDto.setUnitPrice(dto.getUnitPrice() != null ? dto.getUnitPrice() : inventoryItem.getSalePrice());
-                        txDto.setReference("Auto-linked: " + catalog.getName() + " (contract " + dto.getContractId() + ")");
-                        txDto.setNote("Auto-matched by name and linked");
-                        inventoryService.createTransaction(txDto);
-                    }
+                case NONE -> {
+                    // No stock kept for this catalog item (or its item belongs to another property)
                 }
             }
         }
@@ -173,7 +130,9 @@ public class GuestServiceChargeService {
         charge.setAmount(dto.getQuantity().multiply(dto.getUnitPrice()));
         charge.setNote(dto.getNote());
 
-        return toDto(repository.save(charge));
+        GuestServiceCharge saved = repository.save(charge);
+        touchRollup(saved);
+        return toDto(saved);
     }
 
     @Transactional
@@ -193,34 +152,31 @@ public class GuestServiceChargeService {
             inventoryService.createTransaction(returnDto);
         }
 
+        touchRollup(charge);
         repository.deleteById(id);
     }
 
+    private void touchRollup(GuestServiceCharge charge) {
+        revenueRollupService.touch(charge.getContract().getRoom().getBoardingHouse().getId(),
+                charge.getChargeDate(), charge.getChargeDate());
+        eventPublisher.publishEvent(ContractBalanceService.BalanceChanged.of(charge.getContract().getId()));
+    }
+
     public GuestChargesSummaryDto getSummary(Long contractId) {
         Contract contract = contractRepository.findById(contractId)
                 .orElseThrow(() -> new ResourceNotFoundException("Contract not found"));
 
         List<GuestServiceCharge> charges = repository.findByContractIdOrderByChargeDateDesc(contractId);
 
-        BigDecimal totalCharges = charges.stream()
-                .map(GuestServiceCharge::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // Tính tiền phòng từ dailyRate × số đêm (không phụ thuộc invoices)
-        long nights = Math.max(1, java.time.temporal.ChronoUnit.DAYS.between(
-                contract.getStartDate(), contract.getEndDate()));
-        BigDecimal dailyRate = contract.getDailyRate() != null ? contract.getDailyRate() : BigDecimal.ZERO;
-        BigDecimal totalRent = dailyRate.multiply(BigDecimal.valueOf(nights));
-
-        BigDecimal totalAmount = totalCharges.add(totalRent);
-
-        // Tổng đã thanh toán từ payments của invoices
-        BigDecimal totalPaid = invoiceRepository.findByContractId(contractId).stream()
-                .flatMap(inv -> paymentRepository.findByInvoiceId(inv.getId()).stream())
-                .map(Payment::getPaidAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal remaining = totalAmount.subtract(totalPaid);
+        // Tiền phòng (dailyRate × số đêm), dịch vụ và đã thanh toán lấy từ contract ledger
+        ContractLedgerService.Ledger ledger = ledgerService.forContract(contract);
+        long nights = ledger.getNights();
+        BigDecimal dailyRate = ledger.getDailyRate();
+        BigDecimal totalCharges = ledger.getCharges();
+        BigDecimal totalRent = ledger.getRoomCost();
+        BigDecimal totalAmount = ledger.getTotalBill();
+        BigDecimal totalPaid = ledger.getPaid();
+        BigDecimal remaining = ledger.getDebt();
 
         // Group charges by date
         Map<String, BigDecimal> byDate = charges.stream()
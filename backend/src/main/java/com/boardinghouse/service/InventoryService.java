@@ -12,11 +12,16 @@ import com.boardinghouse.repository.BoardingHouseRepository;
 import com.boardinghouse.repository.InventoryItemRepository;
 import com.boardinghouse.repository.InventoryTransactionRepository;
 import jakarta.persistence.EntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,19 +31,28 @@ public class InventoryService {
     private final BoardingHouseRepository boardingHouseRepository;
     private final AuditLogService auditLogService;
     private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final CatalogDeductionPlanService catalogPlans;
 
     public InventoryService(InventoryItemRepository itemRepository,
                             InventoryTransactionRepository transactionRepository,
                             BoardingHouseRepository boardingHouseRepository,
                             AuditLogService auditLogService,
-                            EntityManager entityManager) {
+                            EntityManager entityManager,
+                            JdbcTemplate jdbcTemplate,
+                            CatalogDeductionPlanService catalogPlans) {
         this.itemRepository = itemRepository;
         this.transactionRepository = transactionRepository;
         this.boardingHouseRepository = boardingHouseRepository;
         this.auditLogService = auditLogService;
         this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.catalogPlans = catalogPlans;
     }
 
+    /** {@code quantity} of an item leaving stock at {@code unitPrice}, e.g. one recipe ingredient. */
+    public record StockMovement(Long itemId, String itemName, String unit, BigDecimal quantity, BigDecimal unitPrice) {}
+
     public List<InventoryItemDto> getAll() {
         return itemRepository.findByIsActiveTrueOrderByCategoryAscNameAsc()
                 .stream().map(this::toDto).collect(Collectors.toList());
@@ -78,9 +92,13 @@ public class InventoryService {
 
     @Transactional
     public InventoryItemDto create(InventoryItemDto dto) {
+        BigDecimal stock = dto.getQuantityOnHand() != null ? dto.getQuantityOnHand() : BigDecimal.ZERO;
+        if (stock.signum() < 0) throw new BadRequestException("Initial stock must not be negative");
         InventoryItem item = new InventoryItem();
+        item.setQuantityOnHand(stock); // opening stock; afterwards only transactions change it
         InventoryItem saved = itemRepository.save(fromDto(item, dto));
-        auditLogService.log("CREATE", "INVENTORY", "Created item: " + saved.getName() + " (SKU: " + saved.getSku() + ")"
+        catalogPlans.invalidate(); // may be the name match of an unlinked catalog item
+        auditLogService.logInTransaction("CREATE", "INVENTORY", "Created item: " + saved.getName() + " (SKU: " + saved.getSku() + ")"
                 + (saved.getBoardingHouse() != null ? " for " + saved.getBoardingHouse().getName() : ""));
         return toDto(saved);
     }
@@ -89,8 +107,10 @@ public class InventoryService {
     public InventoryItemDto update(Long id, InventoryItemDto dto) {
         InventoryItem item = itemRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Inventory item not found: " + id));
+        // dto.quantityOnHand is ignored: stock only moves through transactions (ADJUSTMENT to correct a count)
         InventoryItem saved = itemRepository.save(fromDto(item, dto));
-        auditLogService.log("UPDATE", "INVENTORY", "Updated item: " + saved.getName());
+        catalogPlans.invalidate();
+        auditLogService.logInTransaction("UPDATE", "INVENTORY", "Updated item: " + saved.getName());
         return toDto(saved);
     }
 
@@ -100,7 +120,8 @@ public class InventoryService {
                 .orElseThrow(() -> new ResourceNotFoundException("Inventory item not found: " + id));
         item.setIsActive(false);
         itemRepository.save(item);
-        auditLogService.log("HIDE", "INVENTORY", "Hidden item: " + item.getName());
+        catalogPlans.invalidate();
+        auditLogService.logInTransaction("HIDE", "INVENTORY", "Hidden item: " + item.getName());
     }
 
     /** Get impact info: what will be affected if this item is permanently deleted */
@@ -150,8 +171,9 @@ public class InventoryService {
 
         // 5. Delete the item itself
         itemRepository.delete(item);
+        catalogPlans.invalidate();
 
-        auditLogService.log("PERMANENT_DELETE", "INVENTORY",
+        auditLogService.logInTransaction("PERMANENT_DELETE", "INVENTORY",
                 "Permanently deleted item: " + itemName + " (" + txs.size() + " transactions removed)");
     }
 
@@ -171,30 +193,31 @@ public class InventoryService {
         if (dto.getType() == null)
             throw new BadRequestException("Transaction type is required");
 
-        BigDecimal newQuantity = item.getQuantityOnHand();
+        // Checked and applied in one conditional UPDATE (the row stays locked until commit)
         switch (dto.getType()) {
             case PURCHASE:
             case RETURN:
-                newQuantity = newQuantity.add(quantity);
+                itemRepository.addStock(item.getId(), quantity);
                 break;
             case SALE:
-                if (newQuantity.compareTo(quantity) < 0)
-                    throw new BadRequestException("Insufficient stock. Available: " + newQuantity);
-                newQuantity = newQuantity.subtract(quantity);
+                if (itemRepository.removeStock(item.getId(), quantity) == 0)
+                    throw new BadRequestException("Insufficient stock. Available: " + itemRepository.findQuantityOnHand(item.getId()));
                 break;
             case ADJUSTMENT:
                 // quantity can be negative for write-offs/corrections
-                newQuantity = newQuantity.add(quantity);
-                if (newQuantity.compareTo(BigDecimal.ZERO) < 0)
-                    throw new BadRequestException("Adjustment would result in negative stock. Current: " + item.getQuantityOnHand());
+                if (quantity.signum() > 0) {
+                    itemRepository.addStock(item.getId(), quantity);
+                } else if (itemRepository.removeStock(item.getId(), quantity.negate()) == 0) {
+                    throw new BadRequestException("Adjustment would result in negative stock. Current: " + itemRepository.findQuantityOnHand(item.getId()));
+                }
                 break;
             default:
                 throw new BadRequestException("Unknown transaction type");
         }
 
-        item.setQuantityOnHand(newQuantity);
-        itemRepository.save(item);
-        auditLogService.log(dto.getType().name(), "INVENTORY",
+        // Same transaction as the stock change: a REQUIRES_NEW entry would wait for a second
+        // connection while the item row is locked, starving the pool under concurrent sales
+        auditLogService.logInTransaction(dto.getType().name(), "INVENTORY",
                 "Recorded " + dto.getType() + " for " + item.getName() + ": " + dto.getQuantity() + " " + item.getUnit());
 
         InventoryTransaction transaction = new InventoryTransaction();
@@ -209,6 +232,44 @@ public class InventoryService {
         return toDto(transactionRepository.save(transaction));
     }
 
+    /**
+     * Takes every item of one sale off stock together: one batched conditional UPDATE (in item id
+     * order, so concurrent sales sharing ingredients lock rows in the same order), one batched
+     * insert of SALE transactions and a single audit entry naming {@code sale}. If any item is
+     * short nothing is deducted and the caller's transaction is rolled back.
+     */
+    @Transactional
+    public void recordSale(String sale, List<StockMovement> movements, String reference, String note) {
+        Map<Long, StockMovement> byItem = new TreeMap<>();
+        for (StockMovement m : movements) {
+            if (m.quantity() == null || m.quantity().signum() <= 0)
+                throw new BadRequestException("Quantity must be greater than zero for SALE");
+            byItem.merge(m.itemId(), m, (a, b) -> new StockMovement(a.itemId(), a.itemName(), a.unit(), a.quantity().add(b.quantity()), a.unitPrice()));
+        }
+        if (byItem.isEmpty()) return;
+        List<StockMovement> items = new ArrayList<>(byItem.values());
+
+        int[] updated = jdbcTemplate.batchUpdate(
+                "UPDATE inventory_items SET quantity_on_hand = quantity_on_hand - ? WHERE id = ? AND quantity_on_hand >= ?",
+                items.stream().map(m -> new Object[]{m.quantity(), m.itemId(), m.quantity()}).toList());
+        List<String> shortItems = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            if (updated[i] == 0) {
+                StockMovement m = items.get(i);
+                shortItems.add(m.itemName() + " (available: " + itemRepository.findQuantityOnHand(m.itemId()) + ")");
+            }
+        }
+        if (!shortItems.isEmpty()) throw new BadRequestException("Insufficient stock: " + String.join(", ", shortItems));
+
+        LocalDate today = LocalDate.now();
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO inventory_transactions (item_id, type, quantity, unit_price, amount, reference, note, created_date) VALUES (?,?,?,?,?,?,?,?)",
+                items.stream().map(m -> new Object[]{m.itemId(), InventoryTransactionType.SALE.name(), m.quantity(),
+                        m.unitPrice(), m.unitPrice().multiply(m.quantity()), reference, note, today}).toList());
+        auditLogService.logInTransaction(InventoryTransactionType.SALE.name(), "INVENTORY", "Recorded SALE for " + sale + ": "
+                + items.stream().map(m -> m.quantity() + " " + m.unit() + " " + m.itemName()).collect(Collectors.joining(", ")));
+    }
+
     public List<InventoryTransactionDto> getTransactions(Long itemId) {
         return transactionRepository.findByItemIdOrderByCreatedDateDesc(itemId)
                 .stream().map(this::toDto).collect(Collectors.toList());
@@ -288,7 +349,6 @@ public class InventoryService {
         item.setItemGroup(dto.getItemGroup());
         item.setPurchasePrice(dto.getPurchasePrice());
         item.setSalePrice(dto.getSalePrice());
-        item.setQuantityOnHand(dto.getQuantityOnHand() != null ? dto.getQuantityOnHand() : BigDecimal.ZERO);
         item.setReorderLevel(dto.getReorderLevel() != null ? dto.getReorderLevel() : BigDecimal.ZERO);
         item.setIsActive(dto.getIsActive() != null ? dto.getIsActive() : true);
         item.setNote(dto.getNote());
@@ -6,6 +6,7 @@ import com.boardinghouse.entity.RoomService;
 import com.boardinghouse.exception.BadRequestException;
 import com.boardinghouse.exception.ResourceNotFoundException;
 import com.boardinghouse.repository.*;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
@@ -21,18 +22,23 @@ public class InvoiceService {
     private final PaymentRepository paymentRepository;
     private final RoomServiceRepository roomServiceRepository;
     private final ServiceTypeRepository serviceTypeRepository;
+    private final RevenueRollupService revenueRollupService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public InvoiceService(InvoiceRepository repository, ContractRepository contractRepository,
                          PaymentRepository paymentRepository, RoomServiceRepository roomServiceRepository,
-                         ServiceTypeRepository serviceTypeRepository) {
+                         ServiceTypeRepository serviceTypeRepository, RevenueRollupService revenueRollupService,
+                         ApplicationEventPublisher eventPublisher) {
         this.repository = repository;
         this.contractRepository = contractRepository;
         this.paymentRepository = paymentRepository;
         this.roomServiceRepository = roomServiceRepository;
         this.serviceTypeRepository = serviceTypeRepository;
+        this.revenueRollupService = revenueRollupService;
+        this.eventPublisher = eventPublisher;
     }
 
-    public List<InvoiceDto> getAll() { return repository.findAll().stream().map(this::toDto).collect(Collectors.toList()); }
+    public List<InvoiceDto> getAll() { return repository.findAllWithDetails().stream().map(this::toDto).collect(Collectors.toList()); }
     public InvoiceDto getById(Long id) { return toDto(repository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Invoice not found with id: " + id))); }
     public InvoiceDetailDto getDetailById(Long id) { return toDetailDto(repository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Invoice not found with id: " + id))); }
     public List<InvoiceDto> getByContract(Long contractId) { return repository.findByContractId(contractId).stream().map(this::toDto).collect(Collectors.toList()); }
@@ -52,11 +58,13 @@ public class InvoiceService {
         return amt;
     }
 
-    @Transactional
-    public InvoiceDto generateInvoice(Long contractId, Integer month, Integer year) {
-        Contract contract = contractRepository.findById(contractId).orElseThrow(() -> new ResourceNotFoundException("Contract not found"));
-        if (contract.getStatus() != ContractStatus.ACTIVE) throw new BadRequestException("Cannot generate invoice for non-active contract");
-        if (!repository.findByContractIdAndPeriodMonthAndPeriodYear(contractId, month, year).isEmpty()) throw new BadRequestException("Invoice already exists for this period");
+    /**
+     * Unsaved invoice for the period: rent plus one item per room service. FIXED services use the
+     * room's fixed price; metered ones are priced from {@code readings} (service type id -> reading),
+     * or left at 0 when readings is null. Shared by the single and the bulk billing paths.
+     */
+    Invoice buildInvoice(Contract contract, int month, int year, List<RoomService> services,
+                         java.util.Map<Long, UtilityReadingDto> readings) {
         Invoice inv = new Invoice();
         inv.setCode(generateInvoiceCode(contract.getCode(), month, year));
         inv.setContract(contract); inv.setRoom(contract.getRoom());
@@ -64,38 +72,15 @@ public class InvoiceService {
         inv.setDueDate(LocalDate.of(year, month, 1).plusMonths(1).minusDays(1));
         inv.setStatus(PaymentStatus.UNPAID);
         BigDecimal total = addRentItem(inv, contract);
-        for (RoomService rs : roomServiceRepository.findByRoomId(contract.getRoom().getId())) {
-            InvoiceItem si = new InvoiceItem(); si.setInvoice(inv); si.setDescription(rs.getServiceType().getName()); si.setType(InvoiceItemType.SERVICE);
-            if (rs.getServiceType().getCategory() == ServiceCategory.FIXED) {
-                BigDecimal p = rs.getFixedPrice() != null ? rs.getFixedPrice() : rs.getServiceType().getPricePerUnit();
-                si.setQuantity(BigDecimal.ONE); si.setUnitPrice(p); si.setAmount(p); total = total.add(p);
-            } else { si.setQuantity(BigDecimal.ZERO); si.setUnitPrice(rs.getPricePerUnit() != null ? rs.getPricePerUnit() : rs.getServiceType().getPricePerUnit()); si.setAmount(BigDecimal.ZERO); }
-            inv.getItems().add(si);
-        }
-        inv.setTotalAmount(total);
-        return toDto(repository.save(inv));
-    }
-
-    @Transactional
-    public InvoiceDto generateInvoiceWithReadings(GenerateInvoiceWithReadingsRequest req) {
-        Contract contract = contractRepository.findById(req.getContractId()).orElseThrow(() -> new ResourceNotFoundException("Contract not found"));
-        if (contract.getStatus() != ContractStatus.ACTIVE) throw new BadRequestException("Cannot generate invoice for non-active contract");
-        if (!repository.findByContractIdAndPeriodMonthAndPeriodYear(req.getContractId(), req.getMonth(), req.getYear()).isEmpty()) throw new BadRequestException("Invoice already exists for this period");
-        Invoice inv = new Invoice();
-        inv.setCode(generateInvoiceCode(contract.getCode(), req.getMonth(), req.getYear()));
-        inv.setContract(contract); inv.setRoom(contract.getRoom());
-        inv.setPeriodMonth(req.getMonth()); inv.setPeriodYear(req.getYear());
-        inv.setDueDate(LocalDate.of(req.getYear(), req.getMonth(), 1).plusMonths(1).minusDays(1));
-        inv.setStatus(PaymentStatus.UNPAID);
-        BigDecimal total = addRentItem(inv, contract);
-        java.util.Map<Long, UtilityReadingDto> rm = req.getReadings().stream().collect(Collectors.toMap(UtilityReadingDto::getServiceTypeId, r -> r));
-        for (RoomService rs : roomServiceRepository.findByRoomId(contract.getRoom().getId())) {
+        for (RoomService rs : services) {
             InvoiceItem si = new InvoiceItem(); si.setInvoice(inv); si.setDescription(rs.getServiceType().getName()); si.setType(InvoiceItemType.SERVICE);
             if (rs.getServiceType().getCategory() == ServiceCategory.FIXED) {
                 BigDecimal p = rs.getFixedPrice() != null ? rs.getFixedPrice() : rs.getServiceType().getPricePerUnit();
                 si.setQuantity(BigDecimal.ONE); si.setUnitPrice(p); si.setAmount(p); total = total.add(p);
+            } else if (readings == null) {
+                si.setQuantity(BigDecimal.ZERO); si.setUnitPrice(rs.getPricePerUnit() != null ? rs.getPricePerUnit() : rs.getServiceType().getPricePerUnit()); si.setAmount(BigDecimal.ZERO);
             } else {
-                UtilityReadingDto rd = rm.get(rs.getServiceType().getId());
+                UtilityReadingDto rd = readings.get(rs.getServiceType().getId());
                 if (rd != null && rd.getOldIndex() != null && rd.getNewIndex() != null) {
                     BigDecimal c = rd.getNewIndex().subtract(rd.getOldIndex());
                     if (c.compareTo(BigDecimal.ZERO) < 0) throw new BadRequestException("New index must be >= old index for " + rs.getServiceType().getName());
@@ -106,46 +91,50 @@ public class InvoiceService {
             inv.getItems().add(si);
         }
         inv.setTotalAmount(total);
-        return toDto(repository.save(inv));
+        return inv;
+    }
+
+    @Transactional
+    public InvoiceDto generateInvoice(Long contractId, Integer month, Integer year) {
+        Contract contract = contractRepository.findById(contractId).orElseThrow(() -> new ResourceNotFoundException("Contract not found"));
+        if (contract.getStatus() != ContractStatus.ACTIVE) throw new BadRequestException("Cannot generate invoice for non-active contract");
+        if (!repository.findByContractIdAndPeriodMonthAndPeriodYear(contractId, month, year).isEmpty()) throw new BadRequestException("Invoice already exists for this period");
+        Invoice inv = buildInvoice(contract, month, year, roomServiceRepository.findByRoomId(contract.getRoom().getId()), null);
+        Invoice saved = repository.save(inv);
+        revenueRollupService.touchInvoice(saved);
+        eventPublisher.publishEvent(ContractBalanceService.BalanceChanged.of(contract.getId()));
+        return toDto(saved);
+    }
+
+    @Transactional
+    public InvoiceDto generateInvoiceWithReadings(GenerateInvoiceWithReadingsRequest req) {
+        Contract contract = contractRepository.findById(req.getContractId()).orElseThrow(() -> new ResourceNotFoundException("Contract not found"));
+        if (contract.getStatus() != ContractStatus.ACTIVE) throw new BadRequestException("Cannot generate invoice for non-active contract");
+        if (!repository.findByContractIdAndPeriodMonthAndPeriodYear(req.getContractId(), req.getMonth(), req.getYear()).isEmpty()) throw new BadRequestException("Invoice already exists for this period");
+        java.util.Map<Long, UtilityReadingDto> rm = req.getReadings().stream().collect(Collectors.toMap(UtilityReadingDto::getServiceTypeId, r -> r));
+        Invoice inv = buildInvoice(contract, req.getMonth(), req.getYear(), roomServiceRepository.findByRoomId(contract.getRoom().getId()), rm);
+        Invoice saved = repository.save(inv);
+        revenueRollupService.touchInvoice(saved);
+        eventPublisher.publishEvent(ContractBalanceService.BalanceChanged.of(contract.getId()));
+        return toDto(saved);
     }
 
     public InvoiceDto previewInvoiceWithReadings(GenerateInvoiceWithReadingsRequest req) {
         Contract contract = contractRepository.findById(req.getContractId()).orElseThrow(() -> new ResourceNotFoundException("Contract not found"));
         if (contract.getStatus() != ContractStatus.ACTIVE) throw new BadRequestException("Cannot preview invoice for non-active contract");
         if (!repository.findByContractIdAndPeriodMonthAndPeriodYear(req.getContractId(), req.getMonth(), req.getYear()).isEmpty()) throw new BadRequestException("Invoice already exists for this period");
-        Invoice inv = new Invoice();
-        inv.setCode(generateInvoiceCode(contract.getCode(), req.getMonth(), req.getYear()));
-        inv.setContract(contract); inv.setRoom(contract.getRoom());
-        inv.setPeriodMonth(req.getMonth()); inv.setPeriodYear(req.getYear());
-        inv.setDueDate(LocalDate.of(req.getYear(), req.getMonth(), 1).plusMonths(1).minusDays(1));
-        inv.setStatus(PaymentStatus.UNPAID);
-        BigDecimal total = addRentItem(inv, contract);
         java.util.Map<Long, UtilityReadingDto> rm = req.getReadings().stream().collect(Collectors.toMap(UtilityReadingDto::getServiceTypeId, r -> r));
-        for (RoomService rs : roomServiceRepository.findByRoomId(contract.getRoom().getId())) {
-            InvoiceItem si = new InvoiceItem(); si.setInvoice(inv); si.setDescription(rs.getServiceType().getName()); si.setType(InvoiceItemType.SERVICE);
-            if (rs.getServiceType().getCategory() == ServiceCategory.FIXED) {
-                BigDecimal p = rs.getFixedPrice() != null ? rs.getFixedPrice() : rs.getServiceType().getPricePerUnit();
-                si.setQuantity(BigDecimal.ONE); si.setUnitPrice(p); si.setAmount(p); total = total.add(p);
-            } else {
-                UtilityReadingDto rd = rm.get(rs.getServiceType().getId());
-                if (rd != null && rd.getOldIndex() != null && rd.getNewIndex() != null) {
-                    BigDecimal c = rd.getNewIndex().subtract(rd.getOldIndex());
-                    if (c.compareTo(BigDecimal.ZERO) < 0) throw new BadRequestException("New index must be >= old index for " + rs.getServiceType().getName());
-                    BigDecimal up = rs.getPricePerUnit() != null ? rs.getPricePerUnit() : rs.getServiceType().getPricePerUnit();
-                    si.setOldIndex(rd.getOldIndex()); si.setNewIndex(rd.getNewIndex()); si.setQuantity(c); si.setUnitPrice(up); si.setAmount(c.multiply(up)); total = total.add(c.multiply(up));
-                } else throw new BadRequestException("Reading required for " + rs.getServiceType().getName());
-            }
-            inv.getItems().add(si);
-        }
-        inv.setTotalAmount(total);
+        Invoice inv = buildInvoice(contract, req.getMonth(), req.getYear(), roomServiceRepository.findByRoomId(contract.getRoom().getId()), rm);
         return toDto(inv);
     }
 
     @Transactional
     public void updateInvoiceStatus(Long invoiceId) {
         Invoice inv = repository.findById(invoiceId).orElseThrow(() -> new ResourceNotFoundException("Invoice not found"));
-        if (inv.getTotalAmount().compareTo(BigDecimal.ZERO) <= 0) { inv.setStatus(PaymentStatus.UNPAID); repository.save(inv); return; }
         BigDecimal paid = paymentRepository.findByInvoiceId(invoiceId).stream().map(Payment::getPaidAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+        inv.setPaidAmount(paid);
+        eventPublisher.publishEvent(ContractBalanceService.BalanceChanged.of(inv.getContract().getId()));
+        if (inv.getTotalAmount().compareTo(BigDecimal.ZERO) <= 0) { inv.setStatus(PaymentStatus.UNPAID); repository.save(inv); return; }
         if (paid.compareTo(BigDecimal.ZERO) == 0) inv.setStatus(PaymentStatus.UNPAID);
         else if (paid.compareTo(inv.getTotalAmount()) >= 0) inv.setStatus(PaymentStatus.PAID);
         else inv.setStatus(PaymentStatus.PARTIALLY_PAID);
@@ -160,12 +149,14 @@ public class InvoiceService {
         Invoice inv = repository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Invoice not found with id: " + id));
         java.util.List<Payment> payments = paymentRepository.findByInvoiceId(id);
         if (!payments.isEmpty()) throw new BadRequestException("Cannot delete invoice with " + payments.size() + " payment(s). Delete payments first.");
+        revenueRollupService.touchInvoice(inv);
+        eventPublisher.publishEvent(ContractBalanceService.BalanceChanged.of(inv.getContract().getId()));
         repository.delete(inv);
     }
 
     public int bulkDelete(java.util.List<Long> ids) { int d = 0; for (Long id : ids) { try { delete(id); d++; } catch (Exception e) {} } return d; }
 
-    private InvoiceDto toDto(Invoice inv) {
+    InvoiceDto toDto(Invoice inv) {
         InvoiceDto d = new InvoiceDto();
         d.setId(inv.getId()); d.setCode(inv.getCode());
         d.setContractId(inv.getContract().getId()); d.setContractCode(inv.getContract().getCode());
@@ -176,7 +167,8 @@ public class InvoiceService {
         d.setPeriodMonth(inv.getPeriodMonth()); d.setPeriodYear(inv.getPeriodYear());
         d.setTotalAmount(inv.getTotalAmount()); d.setStatus(inv.getStatus());
         d.setDueDate(inv.getDueDate()); d.setCreatedDate(inv.getCreatedDate());
-        BigDecimal pa = paymentRepository.findByInvoiceId(inv.getId()).stream().map(Payment::getPaidAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+        // paidAmount is kept in step with the payments; items is a @BatchSize collection loaded in batches
+        BigDecimal pa = inv.getPaidAmount() != null ? inv.getPaidAmount() : BigDecimal.ZERO;
         d.setPaidAmount(pa); d.setRemainingAmount(inv.getTotalAmount().subtract(pa));
         d.setItems(inv.getItems().stream().map(this::itemToDto).collect(Collectors.toList()));
         return d;
@@ -199,7 +191,8 @@ public class InvoiceService {
         d.setPeriodMonth(inv.getPeriodMonth()); d.setPeriodYear(inv.getPeriodYear());
         d.setTotalAmount(inv.getTotalAmount()); d.setStatus(inv.getStatus());
         d.setDueDate(inv.getDueDate()); d.setCreatedDate(inv.getCreatedDate());
-        BigDecimal pa = paymentRepository.findByInvoiceId(inv.getId()).stream().map(Payment::getPaidAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+        // payments and items are @BatchSize collections: a list of invoices loads them in batches
+        BigDecimal pa = inv.getPayments().stream().map(Payment::getPaidAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
         d.setPaidAmount(pa); d.setRemainingAmount(inv.getTotalAmount().subtract(pa));
         d.setItems(inv.getItems().stream().map(this::itemToDto).collect(Collectors.toList()));
         d.setPayments(paymentRepository.findByInvoiceId(inv.getId()).stream().map(p -> {
@@ -0,0 +1,86 @@
+package com.boardinghouse.service;
+
+import com.boardinghouse.exception.BadRequestException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+
+/**
+ * Backup archives on the local disk, laid out like uploads/:
+ * {backup.store.dir}/{yyyy}/{MM}/{fileName}. Locations are paths relative to the root.
+ */
+@Service
+public class LocalBackupStore implements BackupStore {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalBackupStore.class);
+
+    private final Path root;
+
+    public LocalBackupStore(@Value("${backup.store.dir:backups}") String dir) {
+        this.root = Paths.get(dir).toAbsolutePath().normalize();
+    }
+
+    @Override
+    public StoredArtifact put(Path archive, String fileName) throws IOException {
+        LocalDate today = LocalDate.now();
+        String dir = today.getYear() + "/" + String.format("%02d", today.getMonthValue()) + "/";
+        String location = dir + fileName;
+        Path target = resolve(location);
+        Files.createDirectories(target.getParent());
+        // Names only have second resolution: never overwrite an archive another history row points at
+        for (int n = 2; Files.exists(target); n++) {
+            location = dir + numbered(fileName, n);
+            target = resolve(location);
+        }
+
+        String sha256 = BackupStore.sha256(archive);
+        // Move in under a temp name first, so a half-written file never has the final name
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        Files.move(archive, partial, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        long size = Files.size(target);
+        log.info("Stored backup {} ({} bytes, sha256 {})", target, size, sha256);
+        return new StoredArtifact(location, sha256, size);
+    }
+
+    @Override
+    public <T, E extends Exception> T read(String location, ArtifactReader<T, E> reader) throws IOException, E {
+        Path file = resolve(location);
+        if (!Files.isRegularFile(file)) {
+            throw new BadRequestException("File backup không còn trong kho: " + location);
+        }
+        return reader.read(file);
+    }
+
+    @Override
+    public boolean exists(String location) {
+        return Files.isRegularFile(resolve(location));
+    }
+
+    @Override
+    public void delete(String location) throws IOException {
+        Files.deleteIfExists(resolve(location));
+    }
+
+    /** {@code name-2.zip} for {@code name.zip}. */
+    private static String numbered(String fileName, int n) {
+        int dot = fileName.lastIndexOf('.');
+        return dot < 0 ? fileName + "-" + n : fileName.substring(0, dot) + "-" + n + fileName.substring(dot);
+    }
+
+    private Path resolve(String location) {
+        Path file = root.resolve(location).normalize();
+        if (!file.startsWith(root)) {
+            throw new BadRequestException("Đường dẫn backup không hợp lệ: " + location);
+        }
+        return file;
+    }
+}
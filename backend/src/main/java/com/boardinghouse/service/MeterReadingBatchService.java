@@ -0,0 +1,328 @@
+package com.boardinghouse.service;
+
+import com.boardinghouse.dto.InvoiceDto;
+import com.boardinghouse.dto.UtilityReadingDto;
+import com.boardinghouse.entity.Contract;
+import com.boardinghouse.entity.Invoice;
+import com.boardinghouse.entity.RoomService;
+import com.boardinghouse.entity.ServiceCategory;
+import com.boardinghouse.exception.BadRequestException;
+import com.boardinghouse.repository.ContractRepository;
+import com.boardinghouse.repository.RoomRepository;
+import com.boardinghouse.repository.RoomServiceRepository;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Month-end meter readings for many rooms at once: a CSV or JSON stream of
+ * (room code, service type, old index, new index) rows.
+ *
+ * CSV (comma or semicolon separated, fields optionally quoted) needs a header row naming the
+ * columns roomCode, serviceType (name) or serviceTypeId, oldIndex and newIndex; JSON is an array of objects with the same fields. Rows are parsed as
+ * they arrive, then checked in one pass against the rooms' active contracts and metered room
+ * services (looked up in batches); rejected rows come back with the reason. The accepted
+ * readings are priced by BulkInvoiceService.bill, i.e. InvoiceService.buildInvoice like the
+ * single generate-with-readings call, and written one transaction per chunk of rooms, or
+ * only previewed.
+ */
+@Service
+public class MeterReadingBatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(MeterReadingBatchService.class);
+
+    /** Room codes per lookup query. */
+    private static final int LOOKUP_BATCH = 500;
+
+    /** Characters a CSV header line may take before the delimiter is picked. */
+    private static final int HEADER_READ_AHEAD = 64 * 1024;
+
+    private static final CsvMapper CSV_MAPPER = new CsvMapper();
+
+    private final BulkInvoiceService bulkInvoiceService;
+    private final InvoiceService invoiceService;
+    private final ContractRepository contractRepository;
+    private final RoomRepository roomRepository;
+    private final RoomServiceRepository roomServiceRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${invoice.readings.max-rows:5000}")
+    private int maxRows;
+
+    public MeterReadingBatchService(BulkInvoiceService bulkInvoiceService, InvoiceService invoiceService,
+                                    ContractRepository contractRepository, RoomRepository roomRepository,
+                                    RoomServiceRepository roomServiceRepository, ObjectMapper objectMapper) {
+        this.bulkInvoiceService = bulkInvoiceService;
+        this.invoiceService = invoiceService;
+        this.contractRepository = contractRepository;
+        this.roomRepository = roomRepository;
+        this.roomServiceRepository = roomServiceRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /** {@code contentType} containing "csv" selects CSV, anything else JSON. With {@code preview} nothing is saved. */
+    public ReadingBatchResult ingest(InputStream in, String contentType, Integer month, Integer year, boolean preview) throws IOException {
+        if (month == null || year == null || month < 1 || month > 12) throw new BadRequestException("Invalid billing period");
+        long start = System.currentTimeMillis();
+        List<RejectedRow> rejected = new ArrayList<>();
+        List<ReadingRow> rows = contentType != null && contentType.toLowerCase().contains("csv")
+                ? parseCsv(in, rejected) : parseJson(in, rejected);
+        int total = rows.size() + rejected.size();
+
+        // ─── Validate every row against prefetched rooms, contracts and services ───
+        Set<String> codes = rows.stream().map(ReadingRow::roomCode).filter(Objects::nonNull).collect(Collectors.toCollection(TreeSet::new));
+        Set<String> existingRooms = new HashSet<>();
+        Map<String, Contract> contractByRoom = new LinkedHashMap<>(); // room code order
+        Map<Long, List<RoomService>> servicesByRoom = new HashMap<>();
+        for (List<String> batch : partition(new ArrayList<>(codes))) {
+            existingRooms.addAll(roomRepository.findExistingCodes(batch));
+            List<Contract> contracts = contractRepository.findActiveWithDetailsByRoomCodeIn(batch);
+            contracts.forEach(c -> contractByRoom.putIfAbsent(c.getRoom().getCode(), c)); // newest contract of the room
+            if (contracts.isEmpty()) continue;
+            roomServiceRepository.findWithServiceTypeByRoomIdIn(contracts.stream().map(c -> c.getRoom().getId()).collect(Collectors.toSet()))
+                    .forEach(rs -> servicesByRoom.computeIfAbsent(rs.getRoom().getId(), k -> new ArrayList<>()).add(rs));
+        }
+
+        Map<Long, Map<Long, UtilityReadingDto>> readings = new HashMap<>();
+        for (ReadingRow row : rows) {
+            String reason = null;
+            Contract contract = contractByRoom.get(row.roomCode());
+            RoomService service = contract == null ? null : servicesByRoom.getOrDefault(contract.getRoom().getId(), List.of()).stream()
+                    .filter(rs -> row.serviceTypeId() != null ? rs.getServiceType().getId().equals(row.serviceTypeId())
+                            : rs.getServiceType().getName().equalsIgnoreCase(row.serviceType()))
+                    .findFirst().orElse(null);
+            if (!existingRooms.contains(row.roomCode())) reason = "Unknown room";
+            else if (contract == null) reason = "Room has no active contract";
+            else if (service == null) reason = "Room has no such service";
+            else if (service.getServiceType().getCategory() == ServiceCategory.FIXED) reason = "Service is not metered: " + service.getServiceType().getName();
+            else if (row.oldIndex().signum() < 0) reason = "Index must not be negative";
+            else if (row.newIndex().compareTo(row.oldIndex()) < 0) reason = "New index must be >= old index";
+            if (reason == null) {
+                UtilityReadingDto reading = new UtilityReadingDto();
+                reading.setServiceTypeId(service.getServiceType().getId());
+                reading.setOldIndex(row.oldIndex());
+                reading.setNewIndex(row.newIndex());
+                if (readings.computeIfAbsent(contract.getId(), k -> new HashMap<>()).putIfAbsent(reading.getServiceTypeId(), reading) != null) {
+                    reason = "Duplicate reading for this room and service";
+                }
+            }
+            if (reason != null) rejected.add(new RejectedRow(row.row(), row.roomCode(), row.serviceLabel(), reason));
+        }
+        rejected.sort((a, b) -> Integer.compare(a.row(), b.row()));
+
+        // ─── Price (and save) one invoice per room with accepted readings ───
+        List<Contract> contracts = contractByRoom.values().stream().filter(c -> readings.containsKey(c.getId())).toList();
+        Invoice[] drafts = preview ? new Invoice[contracts.size()] : null;
+        List<BulkInvoiceService.ContractOutcome> results = Arrays.asList(bulkInvoiceService.bill(contracts, month, year, readings, drafts));
+        List<InvoiceDto> previews = drafts == null ? null
+                : Arrays.stream(drafts).filter(Objects::nonNull).map(invoiceService::toDto).toList();
+
+        long millis = System.currentTimeMillis() - start;
+        ReadingBatchResult result = new ReadingBatchResult(month, year, preview, total, total - rejected.size(), rejected.size(),
+                contracts.size(), BulkInvoiceService.count(results, BulkInvoiceService.CREATED),
+                BulkInvoiceService.count(results, BulkInvoiceService.SKIPPED), BulkInvoiceService.count(results, BulkInvoiceService.FAILED),
+                BulkInvoiceService.totalAmount(results), millis, rejected, results, previews);
+        log.info("Meter readings for {}/{}{}: {} row(s), {} rejected; {} room(s): {} invoiced, {} skipped, {} failed in {} ms",
+                month, year, preview ? " (preview)" : "", result.rows(), result.rejectedRows(), result.rooms(),
+                result.created(), result.skipped(), result.failed(), millis);
+        return result;
+    }
+
+    // ─── Parsing ─────────────────────────────────────────────────────────────
+
+    /**
+     * RFC 4180 CSV (quoted fields may hold the delimiter, quotes and line breaks), comma or
+     * semicolon separated as the header line shows. Rows are numbered by the line they start on.
+     */
+    private List<ReadingRow> parseCsv(InputStream in, List<RejectedRow> rejected) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') reader.reset();
+        String firstLine = firstLine(reader);
+        if (firstLine == null) throw new BadRequestException("CSV file is empty");
+        char delimiter = !firstLine.contains(",") && firstLine.contains(";") ? ';' : ',';
+
+        List<ReadingRow> rows = new ArrayList<>();
+        Map<String, Integer> columns = null;
+        ObjectReader csv = CSV_MAPPER.readerFor(String[].class)
+                .with(CsvSchema.emptySchema().withColumnSeparator(delimiter))
+                .with(CsvParser.Feature.WRAP_AS_ARRAY)
+                .with(CsvParser.Feature.SKIP_EMPTY_LINES);
+        try (MappingIterator<String[]> it = csv.readValues(reader)) {
+            while (it.hasNextValue()) {
+                int lineNo = it.getParser().currentLocation().getLineNr(); // the row has started: its first line
+                String[] cells = it.nextValue();
+                if (Arrays.stream(cells).allMatch(String::isBlank)) continue;
+                if (columns == null) {
+                    columns = csvHeader(cells);
+                    continue;
+                }
+                checkRowCount(rows.size() + rejected.size());
+                String room = cell(cells, columns.get("roomcode"));
+                String serviceType = cell(cells, columns.get("servicetype"));
+                try {
+                    String serviceTypeId = cell(cells, columns.get("servicetypeid"));
+                    rows.add(row(lineNo, room, serviceTypeId != null ? Long.valueOf(serviceTypeId) : null, serviceType,
+                            decimal(cell(cells, columns.get("oldindex"))), decimal(cell(cells, columns.get("newindex")))));
+                } catch (IllegalArgumentException e) {
+                    rejected.add(new RejectedRow(lineNo, room, serviceType, e.getMessage()));
+                }
+            }
+        } catch (RuntimeJsonMappingException | JsonProcessingException e) {
+            throw new BadRequestException("Invalid CSV: " + e.getMessage());
+        }
+        if (columns == null) throw new BadRequestException("CSV file is empty");
+        return rows;
+    }
+
+    /** The first non-blank line, read ahead without consuming it (only used to pick the delimiter). */
+    private static String firstLine(BufferedReader reader) throws IOException {
+        reader.mark(HEADER_READ_AHEAD);
+        try {
+            String line;
+            int read = 0;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) return line;
+                read += line.length() + 1;
+                if (read > HEADER_READ_AHEAD / 2) break;
+            }
+            return null;
+        } finally {
+            reader.reset();
+        }
+    }
+
+    private static Map<String, Integer> csvHeader(String[] names) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            String name = names[i].trim().toLowerCase();
+            columns.putIfAbsent(switch (name) {
+                case "room", "roomcode" -> "roomcode";
+                case "service", "servicetype" -> "servicetype";
+                default -> name;
+            }, i);
+        }
+        if (!columns.containsKey("roomcode") || !columns.containsKey("oldindex") || !columns.containsKey("newindex")
+                || !(columns.containsKey("servicetype") || columns.containsKey("servicetypeid"))) {
+            throw new BadRequestException("CSV header must name roomCode, serviceType or serviceTypeId, oldIndex and newIndex");
+        }
+        return columns;
+    }
+
+    private List<ReadingRow> parseJson(InputStream in, List<RejectedRow> rejected) throws IOException {
+        List<ReadingRow> rows = new ArrayList<>();
+        try (JsonParser p = objectMapper.createParser(in)) {
+            if (p.nextToken() != JsonToken.START_ARRAY) throw new BadRequestException("JSON body must be an array of readings");
+            int index = 0;
+            while (p.nextToken() != JsonToken.END_ARRAY) {
+                index++;
+                checkRowCount(rows.size() + rejected.size());
+                JsonNode node = objectMapper.readTree(p);
+                String room = text(node, "roomCode");
+                String serviceType = text(node, "serviceType");
+                try {
+                    String serviceTypeId = text(node, "serviceTypeId");
+                    rows.add(row(index, room, serviceTypeId != null ? Long.valueOf(serviceTypeId) : null, serviceType,
+                            decimal(text(node, "oldIndex")), decimal(text(node, "newIndex"))));
+                } catch (IllegalArgumentException e) {
+                    rejected.add(new RejectedRow(index, room, serviceType, e.getMessage()));
+                }
+            }
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("Invalid JSON: " + e.getOriginalMessage());
+        }
+        return rows;
+    }
+
+    /** Checks the fields every row needs; IllegalArgumentException (reported as the rejection reason) otherwise. */
+    private static ReadingRow row(int row, String room, Long serviceTypeId, String serviceType, BigDecimal oldIndex, BigDecimal newIndex) {
+        if (room == null) throw new IllegalArgumentException("Room code is required");
+        if (serviceTypeId == null && serviceType == null) throw new IllegalArgumentException("Service type is required");
+        if (oldIndex == null || newIndex == null) throw new IllegalArgumentException("Old and new index are required");
+        return new ReadingRow(row, room, serviceTypeId, serviceType, oldIndex, newIndex);
+    }
+
+    private void checkRowCount(int rows) {
+        if (rows >= maxRows) throw new BadRequestException("Too many rows (max " + maxRows + ")");
+    }
+
+    private static String cell(String[] cells, Integer column) {
+        if (column == null || column >= cells.length) return null;
+        String value = cells[column].trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || value.isNull()) return null;
+        String text = value.asText().trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    private static BigDecimal decimal(String value) {
+        if (value == null) return null;
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number: " + value);
+        }
+    }
+
+    private static List<List<String>> partition(List<String> values) {
+        List<List<String>> batches = new ArrayList<>();
+        for (int i = 0; i < values.size(); i += LOOKUP_BATCH) {
+            batches.add(values.subList(i, Math.min(i + LOOKUP_BATCH, values.size())));
+        }
+        return batches;
+    }
+
+    private record ReadingRow(int row, String roomCode, Long serviceTypeId, String serviceType,
+                              BigDecimal oldIndex, BigDecimal newIndex) {
+        String serviceLabel() {
+            return serviceType != null ? serviceType : String.valueOf(serviceTypeId);
+        }
+    }
+
+    /** {@code row}: CSV line number or 1-based position in the JSON array. */
+    public record RejectedRow(int row, String roomCode, String serviceType, String reason) {}
+
+    /**
+     * rows = accepted + rejected; rooms = rooms with accepted readings, each with an outcome in
+     * {@code results} (a room missing one of its metered services fails with the reason).
+     * {@code previews} holds the priced invoices when previewing, null otherwise.
+     */
+    public record ReadingBatchResult(int month, int year, boolean preview, int rows, int acceptedRows, int rejectedRows,
+                                     int rooms, int created, int skipped, int failed, BigDecimal totalAmount, long millis,
+                                     List<RejectedRow> rejected, List<BulkInvoiceService.ContractOutcome> results,
+                                     List<InvoiceDto> previews) {}
+}
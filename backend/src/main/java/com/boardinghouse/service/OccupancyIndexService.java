@@ -0,0 +1,279 @@
+package com.boardinghouse.service;
+
+import com.boardinghouse.repository.ContractRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory index of contract stays (non-DRAFT contracts), one interval tree per
+ * boarding house. Answers "who checks in / checks out / is staying on day D" and
+ * "which stays overlap [from, to]" in O(log n + k) without loading contracts.
+ *
+ * Loaded lazily on first use. ContractService reports every contract write via
+ * contractChanged() and RoomService reports rooms moved to another boarding house
+ * via roomChanged(); once the transaction commits, only those contracts are
+ * re-read and moved in the trees (O(log n) each). Bulk writes (data import) call invalidate().
+ */
+@Service
+public class OccupancyIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(OccupancyIndexService.class);
+
+    private final ContractRepository contractRepository;
+
+    private final Object lock = new Object();
+    // Per-house trees, replaced (never mutated) on every change; null until first use / after invalidate()
+    private volatile Map<Long, IntervalTree> trees;
+    // Guarded by lock: the indexed stay of each contract, to find it in its tree on updates
+    private final Map<Long, Stay> stays = new HashMap<>();
+
+    public OccupancyIndexService(ContractRepository contractRepository) {
+        this.contractRepository = contractRepository;
+    }
+
+    // ─── Queries ─────────────────────────────────────────────────────────────
+
+    /** Stays overlapping [from, to] (both inclusive), ordered by start date. Null boardingHouseId = all houses. */
+    public List<Stay> overlapping(Long boardingHouseId, LocalDate from, LocalDate to) {
+        Map<Long, IntervalTree> t = current();
+        List<Stay> out = new ArrayList<>();
+        if (boardingHouseId != null) {
+            IntervalTree tree = t.get(boardingHouseId);
+            if (tree != null) tree.collect(from, to, out);
+        } else {
+            t.values().forEach(tree -> tree.collect(from, to, out));
+            out.sort(IntervalTree.BY_START);
+        }
+        return out;
+    }
+
+    /** Stays touching the given day: check-ins, check-outs and guests staying over. */
+    public List<Stay> onDay(Long boardingHouseId, LocalDate day) {
+        return overlapping(boardingHouseId, day, day);
+    }
+
+    // ─── Maintenance ─────────────────────────────────────────────────────────
+
+    /**
+     * Re-reads one contract into the index once the current transaction commits
+     * (immediately when there is none). Handles create, date/room/status changes and delete.
+     */
+    public void contractChanged(Long contractId) {
+        if (contractId == null) return;
+        afterCommit(() -> refresh(List.of(contractId), contractRepository.findStayById(contractId)));
+    }
+
+    /** Re-reads the stays of a room's contracts, e.g. after it moved to another boarding house. */
+    public void roomChanged(Long roomId) {
+        if (roomId == null) return;
+        afterCommit(() -> {
+            List<Object[]> rows = contractRepository.findStaysByRoomId(roomId);
+            refresh(rows.stream().map(r -> (Long) r[0]).toList(), rows);
+        });
+    }
+
+    /** Drops the index; the next query reloads it from the database. */
+    public void invalidate() {
+        synchronized (lock) {
+            trees = null;
+            stays.clear();
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private Map<Long, IntervalTree> current() {
+        Map<Long, IntervalTree> t = trees;
+        if (t != null) return t;
+        synchronized (lock) {
+            if (trees == null) {
+                List<Stay> all = toStays(contractRepository.findAllStays());
+                Map<Long, List<Stay>> byHouse = new HashMap<>();
+                stays.clear();
+                for (Stay s : all) {
+                    stays.put(s.contractId(), s);
+                    byHouse.computeIfAbsent(s.boardingHouseId(), k -> new ArrayList<>()).add(s);
+                }
+                Map<Long, IntervalTree> loaded = new HashMap<>();
+                byHouse.forEach((house, list) -> loaded.put(house, IntervalTree.of(list)));
+                trees = loaded;
+                log.info("Occupancy index loaded: {} stay(s)", all.size());
+            }
+            return trees;
+        }
+    }
+
+    /**
+     * Replaces the indexed stays of {@code contractIds} with {@code rows} (a contract without a row
+     * is removed). Only the trees of the houses involved are touched, by one delete and one insert each.
+     */
+    private void refresh(Collection<Long> contractIds, List<Object[]> rows) {
+        try {
+            synchronized (lock) {
+                Map<Long, IntervalTree> t = trees;
+                if (t == null) return; // not loaded yet, the first query reads fresh data
+                Map<Long, IntervalTree> next = new HashMap<>(t);
+                for (Long id : contractIds) {
+                    Stay previous = stays.remove(id);
+                    if (previous == null) continue;
+                    IntervalTree tree = next.get(previous.boardingHouseId()).without(previous);
+                    if (tree.isEmpty()) next.remove(previous.boardingHouseId()); else next.put(previous.boardingHouseId(), tree);
+                }
+                for (Stay s : toStays(rows)) {
+                    stays.put(s.contractId(), s);
+                    next.put(s.boardingHouseId(), next.getOrDefault(s.boardingHouseId(), IntervalTree.EMPTY).with(s));
+                }
+                trees = next;
+            }
+        } catch (Exception e) {
+            // Fall back to a full reload on the next query rather than serve a stale stay
+            log.warn("Occupancy index refresh failed for contract(s) {}: {}", contractIds, e.getMessage());
+            invalidate();
+        }
+    }
+
+    private static List<Stay> toStays(List<Object[]> rows) {
+        List<Stay> stays = new ArrayList<>(rows.size());
+        for (Object[] r : rows) {
+            stays.add(new Stay((Long) r[0], (Long) r[1], (LocalDate) r[2], (LocalDate) r[3]));
+        }
+        return stays;
+    }
+
+    // ─── Types ───────────────────────────────────────────────────────────────
+
+    public record Stay(Long contractId, Long boardingHouseId, LocalDate startDate, LocalDate endDate) {
+        public boolean checksInOn(LocalDate day) { return startDate.equals(day); }
+        public boolean checksOutOn(LocalDate day) { return endDate.equals(day); }
+        public boolean staysOver(LocalDate day) { return startDate.isBefore(day) && endDate.isAfter(day); }
+    }
+
+    /**
+     * Persistent augmented interval tree: a treap ordered by (start date, contract id), each node
+     * storing the max end date of its subtree. with()/without() copy only the path to the changed
+     * node (O(log n) expected), so readers keep using the tree they already hold.
+     * Priorities are a hash of the contract id, so the shape does not depend on insertion order.
+     */
+    static final class IntervalTree {
+        static final Comparator<Stay> BY_START = Comparator.comparing(Stay::startDate)
+                .thenComparing(Stay::contractId);
+        static final IntervalTree EMPTY = new IntervalTree(null);
+
+        private final Node root;
+
+        private IntervalTree(Node root) {
+            this.root = root;
+        }
+
+        static IntervalTree of(Collection<Stay> stays) {
+            IntervalTree tree = EMPTY;
+            for (Stay s : stays) tree = tree.with(s);
+            return tree;
+        }
+
+        boolean isEmpty() {
+            return root == null;
+        }
+
+        IntervalTree with(Stay stay) {
+            return new IntervalTree(insert(root, new Node(stay, null, null)));
+        }
+
+        IntervalTree without(Stay stay) {
+            return new IntervalTree(remove(root, stay));
+        }
+
+        void collect(LocalDate from, LocalDate to, List<Stay> out) {
+            collect(root, from, to, out);
+        }
+
+        private static void collect(Node n, LocalDate from, LocalDate to, List<Stay> out) {
+            if (n == null || n.maxEnd.isBefore(from)) return; // whole subtree ends before the range
+            collect(n.left, from, to, out);
+            if (n.stay.startDate().isAfter(to)) return;      // this and everything right start after it
+            if (!n.stay.endDate().isBefore(from)) out.add(n.stay);
+            collect(n.right, from, to, out);
+        }
+
+        private static Node insert(Node n, Node added) {
+            if (n == null) return added;
+            if (added.priority > n.priority) {
+                Node[] parts = split(n, added.stay);
+                return new Node(added.stay, parts[0], parts[1]);
+            }
+            return BY_START.compare(added.stay, n.stay) < 0
+                    ? new Node(n.stay, insert(n.left, added), n.right)
+                    : new Node(n.stay, n.left, insert(n.right, added));
+        }
+
+        private static Node remove(Node n, Stay stay) {
+            if (n == null) return null;
+            int cmp = BY_START.compare(stay, n.stay);
+            if (cmp == 0) return merge(n.left, n.right);
+            return cmp < 0
+                    ? new Node(n.stay, remove(n.left, stay), n.right)
+                    : new Node(n.stay, n.left, remove(n.right, stay));
+        }
+
+        /** [nodes before {@code key}, nodes from {@code key} on] */
+        private static Node[] split(Node n, Stay key) {
+            if (n == null) return new Node[2];
+            if (BY_START.compare(n.stay, key) < 0) {
+                Node[] parts = split(n.right, key);
+                return new Node[]{new Node(n.stay, n.left, parts[0]), parts[1]};
+            }
+            Node[] parts = split(n.left, key);
+            return new Node[]{parts[0], new Node(n.stay, parts[1], n.right)};
+        }
+
+        /** Joins two treaps where every stay of {@code a} sorts before every stay of {@code b}. */
+        private static Node merge(Node a, Node b) {
+            if (a == null) return b;
+            if (b == null) return a;
+            return a.priority > b.priority
+                    ? new Node(a.stay, a.left, merge(a.right, b))
+                    : new Node(b.stay, merge(a, b.left), b.right);
+        }
+
+        private static final class Node {
+            final Stay stay;
+            final int priority;
+            final Node left;
+            final Node right;
+            final LocalDate maxEnd;
+
+            Node(Stay stay, Node left, Node right) {
+                this.stay = stay;
+                this.priority = Long.hashCode(stay.contractId() * 0x9E3779B97F4A7C15L);
+                this.left = left;
+                this.right = right;
+                LocalDate max = stay.endDate();
+                if (left != null && left.maxEnd.isAfter(max)) max = left.maxEnd;
+                if (right != null && right.maxEnd.isAfter(max)) max = right.maxEnd;
+                this.maxEnd = max;
+            }
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.boardinghouse.entity.*;
 import com.boardinghouse.exception.BadRequestException;
 import com.boardinghouse.exception.ResourceNotFoundException;
 import com.boardinghouse.repository.*;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -12,7 +13,6 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -22,20 +22,25 @@ public class PaymentService {
     private final InvoiceRepository invoiceRepository;
     private final InvoiceService invoiceService;
     private final ContractRepository contractRepository;
-    private final GuestServiceChargeRepository guestChargeRepository;
+    private final ContractLedgerService ledgerService;
+    private final RevenueRollupService revenueRollupService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public PaymentService(PaymentRepository repository, InvoiceRepository invoiceRepository,
                          InvoiceService invoiceService, ContractRepository contractRepository,
-                         GuestServiceChargeRepository guestChargeRepository) {
+                         ContractLedgerService ledgerService, RevenueRollupService revenueRollupService,
+                         ApplicationEventPublisher eventPublisher) {
         this.repository = repository;
         this.invoiceRepository = invoiceRepository;
         this.invoiceService = invoiceService;
         this.contractRepository = contractRepository;
-        this.guestChargeRepository = guestChargeRepository;
+        this.ledgerService = ledgerService;
+        this.revenueRollupService = revenueRollupService;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<PaymentDto> getAll() {
-        return repository.findAll().stream()
+        return repository.findAllWithDetails().stream()
                 .map(this::toDto)
                 .collect(Collectors.toList());
     }
@@ -76,6 +81,8 @@ public class PaymentService {
 
         Payment saved = repository.save(payment);
         invoiceService.updateInvoiceStatus(invoice.getId());
+        revenueRollupService.touchPayment(saved);
+        eventPublisher.publishEvent(ContractBalanceService.BalanceChanged.of(invoice.getContract().getId()));
         return toDto(saved);
     }
 
@@ -88,20 +95,11 @@ public class PaymentService {
         Contract contract = contractRepository.findById(contractId)
                 .orElseThrow(() -> new ResourceNotFoundException("Contract not found"));
 
-        // Calculate total bill: dailyRate × nights + guest charges
-        long nights = Math.max(1, ChronoUnit.DAYS.between(contract.getStartDate(), contract.getEndDate()));
-        BigDecimal dailyRate = contract.getDailyRate() != null ? contract.getDailyRate() : BigDecimal.ZERO;
-        BigDecimal roomCost = dailyRate.multiply(BigDecimal.valueOf(nights));
-        BigDecimal charges = guestChargeRepository.sumAmountByContractId(contractId);
-        BigDecimal totalBill = roomCost.add(charges);
-
-        // Total already paid across all invoices of this contract
-        BigDecimal alreadyPaid = invoiceRepository.findByContractId(contractId).stream()
-                .flatMap(inv -> repository.findByInvoiceId(inv.getId()).stream())
-                .map(Payment::getPaidAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal remaining = totalBill.subtract(alreadyPaid);
+        // Total bill (dailyRate × nights + guest charges) and amount already paid
+        // across all invoices of this contract, from the shared contract ledger
+        ContractLedgerService.Ledger ledger = ledgerService.forContract(contract);
+        BigDecimal totalBill = ledger.getTotalBill();
+        BigDecimal remaining = ledger.getDebt();
 
         // Guard: if totalBill is 0 (no dailyRate set), don't create invoice
         if (totalBill.compareTo(BigDecimal.ZERO) <= 0) {
@@ -147,6 +145,8 @@ public class PaymentService {
 
         Payment saved = repository.save(payment);
         invoiceService.updateInvoiceStatus(invoice.getId());
+        revenueRollupService.touchPayment(saved);
+        eventPublisher.publishEvent(ContractBalanceService.BalanceChanged.of(invoice.getContract().getId()));
         return toDto(saved);
     }
 
@@ -155,6 +155,8 @@ public class PaymentService {
         Payment payment = repository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Payment not found with id: " + id));
         Long invoiceId = payment.getInvoice().getId();
+        revenueRollupService.touchPayment(payment);
+        eventPublisher.publishEvent(ContractBalanceService.BalanceChanged.of(payment.getInvoice().getContract().getId()));
         repository.deleteById(id);
         invoiceService.updateInvoiceStatus(invoiceId);
     }
@@ -8,12 +8,15 @@ import com.boardinghouse.dto.TenantDto;
 import com.boardinghouse.entity.ContractStatus;
 import com.boardinghouse.entity.Invoice;
 import com.boardinghouse.entity.PaymentStatus;
+import com.boardinghouse.entity.RevenueMonthlyRollup;
 import com.boardinghouse.entity.TenantStatus;
 import com.boardinghouse.repository.ContractRepository;
 import com.boardinghouse.repository.GuestServiceChargeRepository;
 import com.boardinghouse.repository.InvoiceRepository;
 import com.boardinghouse.repository.PaymentRepository;
 import com.boardinghouse.repository.TenantRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -31,158 +34,88 @@ public class ReportsService {
     private final ContractRepository contractRepository;
     private final TenantRepository tenantRepository;
     private final GuestServiceChargeRepository guestChargeRepository;
+    private final RevenueRollupService revenueRollupService;
 
     public ReportsService(InvoiceRepository invoiceRepository, PaymentRepository paymentRepository,
                          ContractRepository contractRepository, TenantRepository tenantRepository,
-                         GuestServiceChargeRepository guestChargeRepository) {
+                         GuestServiceChargeRepository guestChargeRepository,
+                         RevenueRollupService revenueRollupService) {
         this.invoiceRepository = invoiceRepository;
         this.paymentRepository = paymentRepository;
         this.contractRepository = contractRepository;
         this.tenantRepository = tenantRepository;
         this.guestChargeRepository = guestChargeRepository;
+        this.revenueRollupService = revenueRollupService;
     }
 
     public List<RevenueByMonthDto> getRevenueByMonth(Integer year) {
         return getRevenueByMonth(year, null);
     }
 
+    /**
+     * Reads the revenue_monthly_rollup table (≤ 12 rows per boarding house) instead of
+     * scanning contracts/payments/invoices; see RevenueRollupService for how it is kept current.
+     */
     public List<RevenueByMonthDto> getRevenueByMonth(Integer year, Long boardingHouseId) {
-            // ── Cash collected: payments actually received in each month ──────────
-            List<com.boardinghouse.entity.Payment> allPayments = paymentRepository.findAll().stream()
-                    .filter(p -> boardingHouseId == null || p.getInvoice().getRoom().getBoardingHouse().getId().equals(boardingHouseId))
-                    .collect(Collectors.toList());
-            Map<Integer, BigDecimal> collectedByMonth = allPayments.stream()
-                    .filter(p -> p.getPaymentDate().getYear() == year)
-                    .collect(Collectors.groupingBy(
-                            p -> p.getPaymentDate().getMonthValue(),
-                            Collectors.reducing(BigDecimal.ZERO, com.boardinghouse.entity.Payment::getPaidAmount, BigDecimal::add)));
-
-            // ── Earned revenue: room cost from contracts + service charges ──
-            Map<Integer, BigDecimal> earnedRoomByMonth = new java.util.TreeMap<>();
-            Map<Integer, BigDecimal> earnedServiceByMonth = new java.util.TreeMap<>();
-
-            List<com.boardinghouse.entity.Contract> allContracts = contractRepository.findAll().stream()
-                    .filter(c -> boardingHouseId == null || c.getRoom().getBoardingHouse().getId().equals(boardingHouseId))
-                    .collect(Collectors.toList());
-            for (com.boardinghouse.entity.Contract c : allContracts) {
-                if (c.getStatus() == com.boardinghouse.entity.ContractStatus.DRAFT) continue;
-                BigDecimal rate = c.getDailyRate() != null ? c.getDailyRate() : BigDecimal.ZERO;
-                if (rate.compareTo(BigDecimal.ZERO) == 0) continue;
-                long days = Math.max(1, ChronoUnit.DAYS.between(c.getStartDate(), c.getEndDate()));
-                BigDecimal roomCost = rate.multiply(BigDecimal.valueOf(days));
-                for (int m = 1; m <= 12; m++) {
-                    LocalDate mStart = LocalDate.of(year, m, 1);
-                    LocalDate mEnd = mStart.withDayOfMonth(mStart.lengthOfMonth());
-                    if (c.getEndDate().isBefore(mStart) || c.getStartDate().isAfter(mEnd)) continue;
-                    earnedRoomByMonth.merge(m, roomCost, BigDecimal::add);
-                }
-            }
-
-            for (com.boardinghouse.entity.Contract c : allContracts) {
-                if (c.getStatus() == com.boardinghouse.entity.ContractStatus.DRAFT) continue;
-                guestChargeRepository.findByContractIdOrderByChargeDateDesc(c.getId()).stream()
-                        .filter(gc -> gc.getChargeDate().getYear() == year)
-                        .forEach(gc -> earnedServiceByMonth.merge(
-                                gc.getChargeDate().getMonthValue(), gc.getAmount(), BigDecimal::add));
-            }
-
-            // ── Invoice counts ────────────────────────────────────────────────────
-            List<Invoice> relevantInvoices = invoiceRepository.findAll().stream()
-                    .filter(inv -> boardingHouseId == null || inv.getRoom().getBoardingHouse().getId().equals(boardingHouseId))
-                    .filter(inv -> inv.getPeriodYear().equals(year))
-                    .collect(Collectors.toList());
-            Map<Integer, Long> invoiceCountByMonth = relevantInvoices.stream()
-                    .collect(Collectors.groupingBy(Invoice::getPeriodMonth, Collectors.counting()));
-            Map<Integer, Long> paidInvoiceCountByMonth = relevantInvoices.stream()
-                    .filter(inv -> {
-                        BigDecimal paid = paymentRepository.findByInvoiceId(inv.getId()).stream()
-                                .map(com.boardinghouse.entity.Payment::getPaidAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
-                        return paid.compareTo(inv.getTotalAmount()) >= 0;
-                    })
-                    .collect(Collectors.groupingBy(Invoice::getPeriodMonth, Collectors.counting()));
-
-            // ── Merge all months ──────────────────────────────────────────────────
-            java.util.Set<Integer> months = new java.util.TreeSet<>();
-            months.addAll(collectedByMonth.keySet());
-            months.addAll(earnedRoomByMonth.keySet());
-            months.addAll(earnedServiceByMonth.keySet());
-            months.addAll(invoiceCountByMonth.keySet());
-
-            return months.stream().map(month -> {
-                BigDecimal collected = collectedByMonth.getOrDefault(month, BigDecimal.ZERO);
-                BigDecimal earnedRoom = earnedRoomByMonth.getOrDefault(month, BigDecimal.ZERO);
-                BigDecimal earnedSvc = earnedServiceByMonth.getOrDefault(month, BigDecimal.ZERO);
-                BigDecimal earned = earnedRoom.add(earnedSvc);
-                BigDecimal uncollected = earned.subtract(collected).max(BigDecimal.ZERO);
-
-                RevenueByMonthDto dto = new RevenueByMonthDto();
-                dto.setMonth(month);
-                dto.setYear(year);
-                dto.setTotalRevenue(collected);
-                dto.setEarnedRevenue(earned);
-                dto.setEarnedRoomRevenue(earnedRoom);
-                dto.setEarnedServiceRevenue(earnedSvc);
-                dto.setUncollectedRevenue(uncollected);
-                dto.setInvoiceCount(invoiceCountByMonth.getOrDefault(month, 0L));
-                dto.setPaidInvoiceCount(paidInvoiceCountByMonth.getOrDefault(month, 0L));
-                return dto;
-            }).collect(Collectors.toList());
+        Map<Integer, RevenueByMonthDto> byMonth = new java.util.TreeMap<>();
+        for (RevenueMonthlyRollup r : revenueRollupService.getYear(year, boardingHouseId)) {
+            RevenueByMonthDto dto = byMonth.computeIfAbsent(r.getMonth(), m -> {
+                RevenueByMonthDto d = new RevenueByMonthDto();
+                d.setMonth(m);
+                d.setYear(year);
+                d.setTotalRevenue(BigDecimal.ZERO);
+                d.setEarnedRoomRevenue(BigDecimal.ZERO);
+                d.setEarnedServiceRevenue(BigDecimal.ZERO);
+                d.setInvoiceCount(0L);
+                d.setPaidInvoiceCount(0L);
+                return d;
+            });
+            dto.setTotalRevenue(dto.getTotalRevenue().add(r.getCollected()));
+            dto.setEarnedRoomRevenue(dto.getEarnedRoomRevenue().add(r.getEarnedRoom()));
+            dto.setEarnedServiceRevenue(dto.getEarnedServiceRevenue().add(r.getEarnedService()));
+            dto.setInvoiceCount(dto.getInvoiceCount() + r.getInvoiceCount());
+            dto.setPaidInvoiceCount(dto.getPaidInvoiceCount() + r.getPaidInvoiceCount());
         }
 
+        for (RevenueByMonthDto dto : byMonth.values()) {
+            BigDecimal earned = dto.getEarnedRoomRevenue().add(dto.getEarnedServiceRevenue());
+            dto.setEarnedRevenue(earned);
+            dto.setUncollectedRevenue(earned.subtract(dto.getTotalRevenue()).max(BigDecimal.ZERO));
+        }
+        return new java.util.ArrayList<>(byMonth.values());
+    }
 
     public List<RevenueByBoardingHouseDto> getRevenueByBoardingHouse(LocalDate startDate, LocalDate endDate) {
         return getRevenueByBoardingHouse(startDate, endDate, null);
     }
 
+    /**
+     * Room + service revenue per boarding house over [startDate, endDate], from four grouped
+     * queries (one row per boarding house each) instead of walking contracts/invoices.
+     * The boarding house filter is part of each query's WHERE clause.
+     */
     public List<RevenueByBoardingHouseDto> getRevenueByBoardingHouse(LocalDate startDate, LocalDate endDate, Long boardingHouseId) {
-        // Room revenue: dailyRate x days for contracts overlapping the date range, grouped by boarding house
-        Map<Long, BigDecimal> roomByHouse = new java.util.HashMap<>();
         Map<Long, String> houseNames = new java.util.HashMap<>();
 
-        for (com.boardinghouse.entity.Contract c : contractRepository.findAll()) {
-            if (c.getStatus() == ContractStatus.DRAFT) continue;
-            if (boardingHouseId != null && !c.getRoom().getBoardingHouse().getId().equals(boardingHouseId)) continue;
-            if (c.getEndDate().isBefore(startDate) || c.getStartDate().isAfter(endDate)) continue;
-            BigDecimal rate = c.getDailyRate() != null ? c.getDailyRate() : BigDecimal.ZERO;
-            if (rate.compareTo(BigDecimal.ZERO) == 0) continue;
-            long days = Math.max(1, java.time.temporal.ChronoUnit.DAYS.between(c.getStartDate(), c.getEndDate()));
-            BigDecimal roomCost = rate.multiply(BigDecimal.valueOf(days));
-            Long houseId = c.getRoom().getBoardingHouse().getId();
-            roomByHouse.merge(houseId, roomCost, BigDecimal::add);
-            houseNames.put(houseId, c.getRoom().getBoardingHouse().getName());
+        // Room revenue: dailyRate x days for contracts overlapping the date range
+        Map<Long, BigDecimal> roomByHouse = new java.util.HashMap<>();
+        for (Object[] r : contractRepository.sumRoomCostGroupedByBoardingHouse(startDate, endDate, boardingHouseId)) {
+            roomByHouse.put((Long) r[0], (BigDecimal) r[2]);
+            houseNames.put((Long) r[0], (String) r[1]);
         }
 
         // Service charges in the date range
         Map<Long, BigDecimal> serviceByHouse = new java.util.HashMap<>();
-        contractRepository.findAll().stream()
-                .filter(c -> c.getStatus() != ContractStatus.DRAFT)
-                .forEach(c -> {
-                    Long houseId = c.getRoom().getBoardingHouse().getId();
-                    houseNames.put(houseId, c.getRoom().getBoardingHouse().getName());
-                    guestChargeRepository.findByContractIdOrderByChargeDateDesc(c.getId()).stream()
-                            .filter(gc -> !gc.getChargeDate().isBefore(startDate) && !gc.getChargeDate().isAfter(endDate))
-                            .forEach(gc -> serviceByHouse.merge(houseId, gc.getAmount(), BigDecimal::add));
-                });
-
-        // Invoice counts for reference
-        Map<Long, Long> invoiceCountByHouse = new java.util.HashMap<>();
-        Map<Long, Long> paidCountByHouse = new java.util.HashMap<>();
-        invoiceRepository.findAll().stream()
-                .filter(inv -> inv.getContract().getStatus() != ContractStatus.DRAFT)
-                .filter(inv -> {
-                    LocalDate ps = LocalDate.of(inv.getPeriodYear(), inv.getPeriodMonth(), 1);
-                    LocalDate pe = ps.withDayOfMonth(ps.lengthOfMonth());
-                    return !pe.isBefore(startDate) && !ps.isAfter(endDate);
-                })
-                .forEach(inv -> {
-                    Long houseId = inv.getRoom().getBoardingHouse().getId();
-                    invoiceCountByHouse.merge(houseId, 1L, Long::sum);
-                    BigDecimal paid = paymentRepository.findByInvoiceId(inv.getId()).stream()
-                            .map(p -> p.getPaidAmount()).reduce(BigDecimal.ZERO, BigDecimal::add);
-                    if (paid.compareTo(inv.getTotalAmount()) >= 0) {
-                        paidCountByHouse.merge(houseId, 1L, Long::sum);
-                    }
-                });
+        for (Object[] r : guestChargeRepository.sumAmountGroupedByBoardingHouse(startDate, endDate, boardingHouseId)) {
+            serviceByHouse.put((Long) r[0], (BigDecimal) r[2]);
+            houseNames.put((Long) r[0], (String) r[1]);
+        }
+
+        // Invoice counts for reference: billing periods (year * 100 + month) overlapping the range
+        int fromKey = startDate.getYear() * 100 + startDate.getMonthValue();
+        int toKey = endDate.getYear() * 100 + endDate.getMonthValue();
+        Map<Long, Long> invoiceCountByHouse = toCountMap(invoiceRepository.countGroupedByBoardingHouse(fromKey, toKey, boardingHouseId));
+        Map<Long, Long> paidCountByHouse = toCountMap(invoiceRepository.countPaidGroupedByBoardingHouse(fromKey, toKey, boardingHouseId));
 
         java.util.Set<Long> allHouseIds = new java.util.HashSet<>();
         allHouseIds.addAll(roomByHouse.keySet());
@@ -202,6 +135,12 @@ public class ReportsService {
           .collect(Collectors.toList());
     }
 
+    private static Map<Long, Long> toCountMap(List<Object[]> rows) {
+        Map<Long, Long> counts = new java.util.HashMap<>();
+        for (Object[] r : rows) counts.put((Long) r[0], ((Number) r[1]).longValue());
+        return counts;
+    }
+
     public List<TenantDto> getTenantsCurrentlyRenting() {
         return getTenantsCurrentlyRenting(null);
     }
@@ -271,44 +210,53 @@ public class ReportsService {
     }
 
     public List<OutstandingDebtDto> getOutstandingDebts(Long boardingHouseId) {
-        return invoiceRepository.findAll().stream()
-                .filter(inv -> boardingHouseId == null || inv.getRoom().getBoardingHouse().getId().equals(boardingHouseId))
-                .map(invoice -> {
-                    BigDecimal paidAmount = paymentRepository.findByInvoiceId(invoice.getId()).stream()
-                            .map(p -> p.getPaidAmount())
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-                    BigDecimal remainingAmount = invoice.getTotalAmount().subtract(paidAmount);
-                    return new Object[]{ invoice, paidAmount, remainingAmount };
-                })
-                .filter(arr -> ((BigDecimal) arr[2]).compareTo(BigDecimal.ZERO) > 0)
-                .map(arr -> {
-                    Invoice invoice = (Invoice) arr[0];
-                    BigDecimal paidAmount = (BigDecimal) arr[1];
-                    BigDecimal remainingAmount = (BigDecimal) arr[2];
-
-                    long daysOverdue = 0;
-                    if (invoice.getDueDate().isBefore(LocalDate.now())) {
-                        daysOverdue = ChronoUnit.DAYS.between(invoice.getDueDate(), LocalDate.now());
-                    }
-
-                    OutstandingDebtDto dto = new OutstandingDebtDto();
-                    dto.setInvoiceId(invoice.getId());
-                    dto.setInvoiceCode(invoice.getCode());
-                    dto.setContractId(invoice.getContract().getId());
-                    dto.setContractCode(invoice.getContract().getCode());
-                    dto.setRoomId(invoice.getRoom().getId());
-                    dto.setRoomCode(invoice.getRoom().getCode());
-                    dto.setTenantName(invoice.getContract().getMainTenant().getFullName());
-                    dto.setTotalAmount(invoice.getTotalAmount());
-                    dto.setPaidAmount(paidAmount);
-                    dto.setRemainingAmount(remainingAmount);
-                    dto.setStatus(invoice.getStatus());
-                    dto.setDueDate(invoice.getDueDate());
-                    dto.setDaysOverdue((int) daysOverdue);
-                    return dto;
-                })
-                .sorted((a, b) -> b.getDaysOverdue().compareTo(a.getDaysOverdue()))
-                .collect(Collectors.toList());
+        return getOutstandingDebts(boardingHouseId, null, null, null);
+    }
+
+    /**
+     * Invoices with total_amount > paid_amount, most days overdue first.
+     * Keyset-paginated: pass the dueDate/invoiceId of the last row of the previous
+     * page as afterDueDate/afterId; a null limit returns everything after the cursor.
+     * Without afterDueDate the first page is returned; afterDueDate alone starts at that date.
+     */
+    public List<OutstandingDebtDto> getOutstandingDebts(Long boardingHouseId, LocalDate afterDueDate,
+                                                        Long afterId, Integer limit) {
+        Pageable page = limit != null ? PageRequest.of(0, Math.max(1, limit)) : Pageable.unpaged();
+        List<Invoice> invoices;
+        if (afterDueDate == null) {
+            invoices = boardingHouseId != null
+                    ? invoiceRepository.findOutstandingByBoardingHouseId(boardingHouseId, page)
+                    : invoiceRepository.findOutstanding(page);
+        } else {
+            Long cursorId = afterId != null ? afterId : 0L; // identity ids start at 1
+            invoices = boardingHouseId != null
+                    ? invoiceRepository.findOutstandingByBoardingHouseIdAfter(boardingHouseId, afterDueDate, cursorId, page)
+                    : invoiceRepository.findOutstandingAfter(afterDueDate, cursorId, page);
+        }
+
+        LocalDate today = LocalDate.now();
+        return invoices.stream().map(invoice -> {
+            long daysOverdue = 0;
+            if (invoice.getDueDate().isBefore(today)) {
+                daysOverdue = ChronoUnit.DAYS.between(invoice.getDueDate(), today);
+            }
+
+            OutstandingDebtDto dto = new OutstandingDebtDto();
+            dto.setInvoiceId(invoice.getId());
+            dto.setInvoiceCode(invoice.getCode());
+            dto.setContractId(invoice.getContract().getId());
+            dto.setContractCode(invoice.getContract().getCode());
+            dto.setRoomId(invoice.getRoom().getId());
+            dto.setRoomCode(invoice.getRoom().getCode());
+            dto.setTenantName(invoice.getContract().getMainTenant().getFullName());
+            dto.setTotalAmount(invoice.getTotalAmount());
+            dto.setPaidAmount(invoice.getPaidAmount());
+            dto.setRemainingAmount(invoice.getTotalAmount().subtract(invoice.getPaidAmount()));
+            dto.setStatus(invoice.getStatus());
+            dto.setDueDate(invoice.getDueDate());
+            dto.setDaysOverdue((int) daysOverdue);
+            return dto;
+        }).collect(Collectors.toList());
     }
 
     public java.util.Map<String, Object> getRevenueByBoardingHouseDetail(Long boardingHouseId, LocalDate startDate, LocalDate endDate) {
@@ -317,7 +265,7 @@ public class ReportsService {
         BigDecimal totalRoom = BigDecimal.ZERO;
         String houseName = "Unknown";
 
-        for (com.boardinghouse.entity.Contract c : contractRepository.findAll()) {
+        for (com.boardinghouse.entity.Contract c : contractRepository.findAllWithDetails()) {
             if (c.getStatus() == ContractStatus.DRAFT) continue;
             if (!c.getRoom().getBoardingHouse().getId().equals(boardingHouseId)) continue;
             if (c.getEndDate().isBefore(startDate) || c.getStartDate().isAfter(endDate)) continue;
@@ -380,7 +328,7 @@ public class ReportsService {
         java.util.List<java.util.Map<String, Object>> contractRows = new java.util.ArrayList<>();
         BigDecimal totalRoom = BigDecimal.ZERO;
 
-        for (com.boardinghouse.entity.Contract c : contractRepository.findAll()) {
+        for (com.boardinghouse.entity.Contract c : contractRepository.findAllWithDetails()) {
             if (c.getStatus() == ContractStatus.DRAFT) continue;
             if (boardingHouseId != null && !c.getRoom().getBoardingHouse().getId().equals(boardingHouseId)) continue;
             if (c.getEndDate().isBefore(mStart) || c.getStartDate().isAfter(mEnd)) continue;
@@ -424,7 +372,7 @@ public class ReportsService {
         BigDecimal totalSvc = charges.stream().map(gc -> gc.getAmount()).reduce(BigDecimal.ZERO, BigDecimal::add);
 
         // Collected = payments in this month (filtered by boarding house)
-        BigDecimal totalCollected = paymentRepository.findAll().stream()
+        BigDecimal totalCollected = paymentRepository.findAllWithDetails().stream()
                 .filter(p -> p.getPaymentDate() != null)
                 .filter(p -> boardingHouseId == null || p.getInvoice().getRoom().getBoardingHouse().getId().equals(boardingHouseId))
                 .filter(p -> {
@@ -0,0 +1,271 @@
+package com.boardinghouse.service;
+
+import com.boardinghouse.entity.BoardingHouse;
+import com.boardinghouse.entity.Contract;
+import com.boardinghouse.entity.Invoice;
+import com.boardinghouse.entity.Payment;
+import com.boardinghouse.entity.RevenueMonthlyRollup;
+import com.boardinghouse.repository.BoardingHouseRepository;
+import com.boardinghouse.repository.ContractRepository;
+import com.boardinghouse.repository.GuestServiceChargeRepository;
+import com.boardinghouse.repository.InvoiceRepository;
+import com.boardinghouse.repository.PaymentRepository;
+import com.boardinghouse.repository.RevenueMonthlyRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.support.CronTrigger;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+/**
+ * Maintains the revenue_monthly_rollup table (one row per boarding house and month).
+ *
+ * Write paths call touch*() with the boarding house and months they affected;
+ * those cells are recomputed from the raw tables right after the surrounding
+ * transaction commits. A full rebuild runs at startup and nightly at 03:30 to
+ * reconcile anything a write path did not report (imports, room moves...).
+ */
+@Service
+public class RevenueRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(RevenueRollupService.class);
+
+    private static final LocalDate MIN_DATE = LocalDate.of(1970, 1, 1);
+    private static final LocalDate MAX_DATE = LocalDate.of(2999, 12, 31);
+    private static final String REBUILD_CRON = "0 30 3 * * *";
+
+    private final RevenueMonthlyRollupRepository rollupRepository;
+    private final BoardingHouseRepository boardingHouseRepository;
+    private final ContractRepository contractRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final PaymentRepository paymentRepository;
+    private final GuestServiceChargeRepository guestChargeRepository;
+    private final TaskScheduler taskScheduler;
+    private final TransactionTemplate newTransaction;
+
+    private volatile RebuildResult lastRebuild;
+
+    public RevenueRollupService(RevenueMonthlyRollupRepository rollupRepository,
+                                BoardingHouseRepository boardingHouseRepository,
+                                ContractRepository contractRepository,
+                                InvoiceRepository invoiceRepository,
+                                PaymentRepository paymentRepository,
+                                GuestServiceChargeRepository guestChargeRepository,
+                                TaskScheduler taskScheduler,
+                                PlatformTransactionManager transactionManager) {
+        this.rollupRepository = rollupRepository;
+        this.boardingHouseRepository = boardingHouseRepository;
+        this.contractRepository = contractRepository;
+        this.invoiceRepository = invoiceRepository;
+        this.paymentRepository = paymentRepository;
+        this.guestChargeRepository = guestChargeRepository;
+        this.taskScheduler = taskScheduler;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        rebuild("STARTUP");
+        taskScheduler.schedule(() -> rebuild("SCHEDULED"), new CronTrigger(REBUILD_CRON, TimeZone.getDefault()));
+        log.info("Revenue rollup rebuild scheduled with cron: {}", REBUILD_CRON);
+    }
+
+    // ─── Change tracking ─────────────────────────────────────────────────────
+
+    /** Stay months of the contract (room revenue) */
+    public void touchContract(Contract c) {
+        touch(c.getRoom().getBoardingHouse().getId(), c.getStartDate(), c.getEndDate());
+    }
+
+    /** Billing period of the invoice (invoice / paid counts) */
+    public void touchInvoice(Invoice inv) {
+        LocalDate period = LocalDate.of(inv.getPeriodYear(), inv.getPeriodMonth(), 1);
+        touch(inv.getRoom().getBoardingHouse().getId(), period, period);
+    }
+
+    /** Month the payment was received (collected) + its invoice's billing period (paid count) */
+    public void touchPayment(Payment p) {
+        Long houseId = p.getInvoice().getRoom().getBoardingHouse().getId();
+        LocalDate paidOn = p.getPaymentDate().toLocalDate();
+        touch(houseId, paidOn, paidOn);
+        touchInvoice(p.getInvoice());
+    }
+
+    /**
+     * Marks [from, to] of a boarding house as changed. Inside a transaction the
+     * months are recomputed once it commits (nothing happens on rollback);
+     * outside one they are recomputed immediately.
+     */
+    public void touch(Long boardingHouseId, LocalDate from, LocalDate to) {
+        if (boardingHouseId == null || from == null || to == null) return;
+        if (to.isBefore(from)) { LocalDate t = from; from = to; to = t; }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refreshQuietly(boardingHouseId, from, to);
+            return;
+        }
+        PendingRefresh pending = (PendingRefresh) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingRefresh();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.add(boardingHouseId, from, to);
+    }
+
+    private class PendingRefresh implements TransactionSynchronization {
+        private final Map<Long, LocalDate[]> ranges = new HashMap<>();
+
+        void add(Long houseId, LocalDate from, LocalDate to) {
+            ranges.merge(houseId, new LocalDate[]{from, to}, (a, b) -> new LocalDate[]{
+                    a[0].isBefore(b[0]) ? a[0] : b[0],
+                    a[1].isAfter(b[1]) ? a[1] : b[1]});
+        }
+
+        @Override
+        public void afterCommit() {
+            ranges.forEach((houseId, range) -> refreshQuietly(houseId, range[0], range[1]));
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(RevenueRollupService.this);
+        }
+    }
+
+    private void refreshQuietly(Long boardingHouseId, LocalDate from, LocalDate to) {
+        try {
+            newTransaction.executeWithoutResult(s -> recompute(boardingHouseId, from, to));
+        } catch (Exception e) {
+            // The nightly rebuild reconciles the rollup; never fail the business write
+            log.warn("Revenue rollup refresh failed for boarding house {} ({} → {}): {}",
+                    boardingHouseId, from, to, e.getMessage());
+        }
+    }
+
+    // ─── Recompute / rebuild ─────────────────────────────────────────────────
+
+    /**
+     * Recomputes every month in [from, to] for one boarding house from the raw
+     * tables and replaces the stored rows. Must run inside a transaction.
+     */
+    private int recompute(Long boardingHouseId, LocalDate from, LocalDate to) {
+        YearMonth fromYm = YearMonth.from(from);
+        YearMonth toYm = YearMonth.from(to);
+        LocalDate start = fromYm.atDay(1);
+        LocalDate end = toYm.atEndOfMonth();
+
+        BoardingHouse house = boardingHouseRepository.lockById(boardingHouseId).orElse(null);
+        rollupRepository.deleteByBoardingHouseIdAndPeriodBetween(boardingHouseId, key(fromYm), key(toYm));
+        if (house == null) return 0;
+
+        Map<YearMonth, RevenueMonthlyRollup> rows = new TreeMap<>();
+
+        // Earned room: full stay cost counted in every month the stay overlaps
+        for (Contract c : contractRepository.findNonDraftByBoardingHouseIdOverlapping(boardingHouseId, start, end)) {
+            BigDecimal rate = c.getDailyRate() != null ? c.getDailyRate() : BigDecimal.ZERO;
+            if (rate.compareTo(BigDecimal.ZERO) == 0) continue;
+            BigDecimal roomCost = rate.multiply(BigDecimal.valueOf(ContractLedgerService.nightsOf(c)));
+            YearMonth first = max(YearMonth.from(c.getStartDate()), fromYm);
+            YearMonth last = min(YearMonth.from(c.getEndDate()), toYm);
+            for (YearMonth ym = first; !ym.isAfter(last); ym = ym.plusMonths(1)) {
+                RevenueMonthlyRollup row = row(rows, house, ym);
+                row.setEarnedRoom(row.getEarnedRoom().add(roomCost));
+            }
+        }
+
+        for (Object[] r : guestChargeRepository.sumAmountByMonth(boardingHouseId, start, end)) {
+            row(rows, house, ym(r)).setEarnedService((BigDecimal) r[2]);
+        }
+        for (Object[] r : paymentRepository.sumPaidByMonth(boardingHouseId, start.atStartOfDay(), end.plusDays(1).atStartOfDay())) {
+            row(rows, house, ym(r)).setCollected((BigDecimal) r[2]);
+        }
+        for (Object[] r : invoiceRepository.countByPeriod(boardingHouseId, key(fromYm), key(toYm))) {
+            row(rows, house, ym(r)).setInvoiceCount(((Number) r[2]).longValue());
+        }
+        for (Object[] r : invoiceRepository.countPaidByPeriod(boardingHouseId, key(fromYm), key(toYm))) {
+            row(rows, house, ym(r)).setPaidInvoiceCount(((Number) r[2]).longValue());
+        }
+
+        rollupRepository.saveAll(rows.values());
+        return rows.size();
+    }
+
+    /**
+     * Rebuilds the whole rollup from the raw tables, one boarding house per transaction.
+     */
+    public synchronized RebuildResult rebuild(String trigger) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        int houses = 0;
+        int rowsWritten = 0;
+        String error = null;
+        for (BoardingHouse house : boardingHouseRepository.findAll()) {
+            try {
+                Integer written = newTransaction.execute(s -> recompute(house.getId(), MIN_DATE, MAX_DATE));
+                rowsWritten += written != null ? written : 0;
+                houses++;
+            } catch (Exception e) {
+                log.error("Revenue rollup rebuild failed for boarding house {}: {}", house.getId(), e.getMessage(), e);
+                error = e.getMessage();
+            }
+        }
+        lastRebuild = new RebuildResult(trigger, startedAt, LocalDateTime.now(), houses, rowsWritten, error);
+        log.info("Revenue rollup rebuild ({}): {} boarding house(s), {} row(s)", trigger, houses, rowsWritten);
+        return lastRebuild;
+    }
+
+    /** Result of the most recent full rebuild, or null if none has run yet. */
+    public RebuildResult getLastRebuild() {
+        return lastRebuild;
+    }
+
+    public List<RevenueMonthlyRollup> getYear(Integer year, Long boardingHouseId) {
+        return boardingHouseId != null
+                ? rollupRepository.findByBoardingHouseIdAndYearOrderByMonthAsc(boardingHouseId, year)
+                : rollupRepository.findByYearOrderByMonthAsc(year);
+    }
+
+    // ─── Helpers ─────────────────────────────────────────────────────────────
+
+    private static RevenueMonthlyRollup row(Map<YearMonth, RevenueMonthlyRollup> rows, BoardingHouse house, YearMonth ym) {
+        return rows.computeIfAbsent(ym, k -> {
+            RevenueMonthlyRollup r = new RevenueMonthlyRollup();
+            r.setBoardingHouse(house);
+            r.setYear(k.getYear());
+            r.setMonth(k.getMonthValue());
+            return r;
+        });
+    }
+
+    private static YearMonth ym(Object[] r) {
+        return YearMonth.of(((Number) r[0]).intValue(), ((Number) r[1]).intValue());
+    }
+
+    private static int key(YearMonth ym) {
+        return ym.getYear() * 100 + ym.getMonthValue();
+    }
+
+    private static YearMonth max(YearMonth a, YearMonth b) { return a.isAfter(b) ? a : b; }
+    private static YearMonth min(YearMonth a, YearMonth b) { return a.isBefore(b) ? a : b; }
+
+    public record RebuildResult(String trigger, LocalDateTime startedAt, LocalDateTime completedAt,
+                                int boardingHouses, int rowsWritten, String errorMessage) {}
+}
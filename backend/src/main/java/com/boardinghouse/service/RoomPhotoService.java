@@ -28,6 +28,10 @@ public class RoomPhotoService {
     @Value("${app.upload.dir:uploads}")
     private String uploadDir;
 
+    /** Photos keep the old servlet-wide 1 MB cap; the multipart limit itself is sized for backup restores. */
+    @Value("${app.upload.max-photo-mb:1}")
+    private long maxPhotoMb;
+
     @Value("${app.base-url:http://localhost:8080}")
     private String baseUrl;
 
@@ -59,6 +63,9 @@ public class RoomPhotoService {
         if (contentType == null || !contentType.startsWith("image/")) {
             throw new IllegalArgumentException("Only image files are allowed");
         }
+        if (file.getSize() > maxPhotoMb * 1024 * 1024) {
+            throw new IllegalArgumentException("Photo exceeds " + maxPhotoMb + " MB");
+        }
 
         // Save file under uploads/rooms/{roomId}/
         String ext = getExtension(file.getOriginalFilename());
@@ -12,7 +12,9 @@ import com.boardinghouse.repository.RoomRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,45 +23,26 @@ public class RoomService {
     private final BoardingHouseRepository boardingHouseRepository;
     private final ContractRepository contractRepository;
     private final AuditLogService auditLogService;
-    private final ContractService contractService;
+    private final OccupancyIndexService occupancyIndex;
 
     public RoomService(RoomRepository repository, BoardingHouseRepository boardingHouseRepository,
                        ContractRepository contractRepository, AuditLogService auditLogService,
-                       ContractService contractService) {
+                       OccupancyIndexService occupancyIndex) {
         this.repository = repository;
         this.boardingHouseRepository = boardingHouseRepository;
         this.contractRepository = contractRepository;
         this.auditLogService = auditLogService;
-        this.contractService = contractService;
+        this.occupancyIndex = occupancyIndex;
     }
 
+    @Transactional(readOnly = true)
     public List<RoomDto> getAll() {
-        contractService.autoExpireContracts();
-        syncRoomStatuses();
-        return repository.findAll().stream().map(this::toDto).collect(Collectors.toList());
+        return toDtos(repository.findAllWithDetails());
     }
 
+    @Transactional(readOnly = true)
     public List<RoomDto> getByBoardingHouse(Long boardingHouseId) {
-        contractService.autoExpireContracts();
-        syncRoomStatuses();
-        return repository.findByBoardingHouseId(boardingHouseId).stream().map(this::toDto).collect(Collectors.toList());
-    }
-
-    /**
-     * Safety net: if a room is OCCUPIED but has no ACTIVE contract, force it to AVAILABLE.
-     * This handles edge cases where checkout/expire didn't properly update room status.
-     */
-    @Transactional
-    public void syncRoomStatuses() {
-        List<Room> occupiedRooms = repository.findByStatus(RoomStatus.OCCUPIED);
-        for (Room room : occupiedRooms) {
-            boolean hasActiveContract = contractRepository.findByRoomId(room.getId()).stream()
-                    .anyMatch(c -> c.getStatus() == com.boardinghouse.entity.ContractStatus.ACTIVE);
-            if (!hasActiveContract) {
-                room.setStatus(RoomStatus.AVAILABLE);
-                repository.save(room);
-            }
-        }
+        return toDtos(repository.findByBoardingHouseId(boardingHouseId));
     }
 
     public RoomDto getById(Long id) {
@@ -98,6 +81,8 @@ public class RoomService {
             BoardingHouse house = boardingHouseRepository.findById(dto.getBoardingHouseId())
                     .orElseThrow(() -> new ResourceNotFoundException("Boarding house not found"));
             room.setBoardingHouse(house);
+            // The room's stays now belong to the other house's tree
+            occupancyIndex.roomChanged(room.getId());
         }
         room.setCode(dto.getCode());
         room.setFloor(dto.getFloor());
@@ -122,7 +107,33 @@ public class RoomService {
         repository.deleteById(id);
     }
 
+    /** List mapping: current tenants of all rooms come from one query instead of one per room. */
+    private List<RoomDto> toDtos(List<Room> rooms) {
+        Map<Long, String> tenantByRoom = new HashMap<>();
+        if (!rooms.isEmpty()) {
+            List<Long> roomIds = rooms.stream().map(Room::getId).toList();
+            for (Object[] row : contractRepository.findActiveTenantNamesByRoomIdIn(roomIds)) {
+                tenantByRoom.putIfAbsent((Long) row[0], (String) row[1]);
+            }
+        }
+        return rooms.stream().map(room -> {
+            RoomDto dto = toBaseDto(room);
+            dto.setCurrentTenantName(tenantByRoom.get(room.getId()));
+            return dto;
+        }).collect(Collectors.toList());
+    }
+
     private RoomDto toDto(Room room) {
+        RoomDto dto = toBaseDto(room);
+        try {
+            contractRepository.findActiveByRoomId(room.getId()).ifPresent(c ->
+                dto.setCurrentTenantName(c.getMainTenant().getFullName())
+            );
+        } catch (Exception ignored) {}
+        return dto;
+    }
+
+    private RoomDto toBaseDto(Room room) {
         RoomDto dto = new RoomDto();
         dto.setId(room.getId());
         dto.setCode(room.getCode());
@@ -133,11 +144,6 @@ public class RoomService {
         dto.setMaxOccupants(room.getMaxOccupants());
         dto.setBaseRent(room.getBaseRent());
         dto.setStatus(room.getStatus());
-        try {
-            contractRepository.findActiveByRoomId(room.getId()).ifPresent(c ->
-                dto.setCurrentTenantName(c.getMainTenant().getFullName())
-            );
-        } catch (Exception ignored) {}
         return dto;
     }
 }
@@ -22,13 +22,16 @@ public class ServiceCatalogService {
     private final ServiceCatalogRepository repository;
     private final InventoryItemRepository inventoryItemRepository;
     private final BoardingHouseRepository boardingHouseRepository;
+    private final CatalogDeductionPlanService catalogPlans;
 
     public ServiceCatalogService(ServiceCatalogRepository repository,
                                  InventoryItemRepository inventoryItemRepository,
-                                 BoardingHouseRepository boardingHouseRepository) {
+                                 BoardingHouseRepository boardingHouseRepository,
+                                 CatalogDeductionPlanService catalogPlans) {
         this.repository = repository;
         this.inventoryItemRepository = inventoryItemRepository;
         this.boardingHouseRepository = boardingHouseRepository;
+        this.catalogPlans = catalogPlans;
     }
 
     /** Active items for a specific boarding house only (not global) */
@@ -70,6 +73,7 @@ public class ServiceCatalogService {
     @Transactional
     public ServiceCatalogDto create(ServiceCatalogDto dto) {
         ServiceCatalog s = new ServiceCatalog();
+        catalogPlans.invalidate();
         return toDto(repository.save(fromDto(s, dto)));
     }
 
@@ -77,6 +81,7 @@ public class ServiceCatalogService {
     public ServiceCatalogDto update(Long id, ServiceCatalogDto dto) {
         ServiceCatalog s = repository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Service not found: " + id));
+        catalogPlans.invalidate();
         return toDto(repository.save(fromDto(s, dto)));
     }
 
@@ -84,6 +89,7 @@ public class ServiceCatalogService {
     public void delete(Long id) {
         ServiceCatalog s = repository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Service not found: " + id));
+        catalogPlans.invalidate();
         try {
             repository.delete(s);
             repository.flush();
@@ -109,6 +115,7 @@ public class ServiceCatalogService {
                 : inventoryItemRepository.findByIsActiveTrueOrderByCategoryAscNameAsc();
 
         int linked = 0;
+        catalogPlans.invalidate();
         for (ServiceCatalog sc : catalogs) {
             if (sc.getInventoryItem() != null) continue; // already linked
             if (!sc.getRecipes().isEmpty()) continue; // has recipe, skip
@@ -0,0 +1,92 @@
+package com.boardinghouse.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Named tasks with dependencies, run on a fixed number of threads: a task starts once every
+ * task it depends on has finished. Dependencies must be added first, so the graph is acyclic
+ * and insertion order is a valid serial order (used as is with parallelism 1).
+ *
+ * The first failure stops tasks that have not started yet and is rethrown by run().
+ */
+final class TaskGraph {
+
+    @FunctionalInterface
+    interface Task {
+        void run() throws IOException;
+    }
+
+    private record Node(String name, List<String> dependsOn, Task task) {}
+
+    private final Map<String, Node> nodes = new LinkedHashMap<>();
+
+    TaskGraph add(String name, Collection<String> dependsOn, Task task) {
+        for (String dependency : dependsOn) {
+            if (!nodes.containsKey(dependency)) {
+                throw new IllegalArgumentException(name + " depends on " + dependency + ", which is not added yet");
+            }
+        }
+        if (nodes.putIfAbsent(name, new Node(name, List.copyOf(dependsOn), task)) != null) {
+            throw new IllegalArgumentException("Duplicate task " + name);
+        }
+        return this;
+    }
+
+    void run(int parallelism, String threadName) throws IOException {
+        if (parallelism <= 1 || nodes.size() <= 1) {
+            for (Node node : nodes.values()) node.task().run();
+            return;
+        }
+
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, threadName + "-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Map<String, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+        try {
+            for (Node node : nodes.values()) {
+                CompletableFuture<?>[] dependencies = node.dependsOn().stream()
+                        .map(futures::get).toArray(CompletableFuture[]::new);
+                futures.put(node.name(), CompletableFuture.allOf(dependencies).thenRunAsync(() -> {
+                    if (failure.get() != null) throw new CancellationException();
+                    try {
+                        node.task().run();
+                    } catch (IOException e) {
+                        failure.compareAndSet(null, e);
+                        throw new UncheckedIOException(e);
+                    } catch (RuntimeException | Error e) {
+                        failure.compareAndSet(null, e);
+                        throw e;
+                    }
+                }, pool));
+            }
+            try {
+                CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new)).join();
+            } catch (CompletionException | CancellationException e) {
+                // rethrown below from the first failure
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Throwable first = failure.get();
+        if (first instanceof IOException io) throw io;
+        if (first instanceof RuntimeException re) throw re;
+        if (first instanceof Error error) throw error;
+    }
+}
@@ -3,44 +3,70 @@ package com.boardinghouse.service;
 import com.boardinghouse.dto.TenantDto;
 import com.boardinghouse.entity.*;
 import com.boardinghouse.entity.ContractStatus;
+import com.boardinghouse.exception.BadRequestException;
 import com.boardinghouse.exception.ResourceNotFoundException;
 import com.boardinghouse.repository.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.TreeSet;
 
 @Service
 public class TenantService {
+    private static final int CHUNK_SIZE = 1000;
+    /** Tenant columns the paged list may sort on; anything else is a 400, not a query error. */
+    private static final Set<String> SORTABLE = Set.of("id", "fullName", "phone", "email", "status", "dateOfBirth");
+
     private final TenantRepository repository;
     private final UserRepository userRepository;
     private final ContractRepository contractRepository;
-    private final InvoiceRepository invoiceRepository;
-    private final PaymentRepository paymentRepository;
-    private final GuestServiceChargeRepository guestChargeRepository;
+    private final ContractLedgerService ledgerService;
     private final AuditLogService auditLogService;
 
     public TenantService(TenantRepository repository, UserRepository userRepository,
-                         ContractRepository contractRepository, InvoiceRepository invoiceRepository,
-                         PaymentRepository paymentRepository, GuestServiceChargeRepository guestChargeRepository,
+                         ContractRepository contractRepository, ContractLedgerService ledgerService,
                          AuditLogService auditLogService) {
         this.repository = repository;
         this.userRepository = userRepository;
         this.contractRepository = contractRepository;
-        this.invoiceRepository = invoiceRepository;
-        this.paymentRepository = paymentRepository;
-        this.guestChargeRepository = guestChargeRepository;
+        this.ledgerService = ledgerService;
         this.auditLogService = auditLogService;
     }
 
     @Transactional(readOnly = true)
     public List<TenantDto> getAll() {
-        return repository.findAll().stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+        return toDtos(repository.findAll());
+    }
+
+    /**
+     * Server-side paged tenant list. query matches name (case-insensitive) or phone;
+     * sorting is limited to the {@link #SORTABLE} Tenant properties.
+     */
+    @Transactional(readOnly = true)
+    public Page<TenantDto> search(String query, Pageable pageable) {
+        for (Sort.Order order : pageable.getSort()) {
+            if (!SORTABLE.contains(order.getProperty())) {
+                throw new BadRequestException("Cannot sort tenants by '" + order.getProperty()
+                        + "'; allowed: " + String.join(", ", new TreeSet<>(SORTABLE)));
+            }
+        }
+        Page<Tenant> page = (query == null || query.isBlank())
+                ? repository.findAll(pageable)
+                : repository.search("%" + query.trim().toLowerCase() + "%", pageable);
+        return new PageImpl<>(toDtos(page.getContent()), pageable, page.getTotalElements());
     }
 
     @Transactional(readOnly = true)
@@ -114,19 +140,46 @@ public class TenantService {
         }
 
         // Remove tenant from all contract_tenants join table entries
-        List<Contract> memberContracts = contractRepository.findAll().stream()
-                .filter(c -> c.getTenants().stream().anyMatch(t -> t.getId().equals(id)))
-                .collect(Collectors.toList());
-        for (Contract c : memberContracts) {
-            c.getTenants().removeIf(t -> t.getId().equals(id));
-            contractRepository.save(c);
-        }
+        contractRepository.removeCoTenantFromAllContracts(id);
 
         auditLogService.log("DELETE", "TENANT", "Deleted tenant: " + tenant.getFullName());
         repository.deleteById(id);
     }
 
     private TenantDto toDto(Tenant tenant) {
+        return toDtos(List.of(tenant)).get(0);
+    }
+
+    /**
+     * Builds DTOs for a batch of tenants: their contracts come back as one projection
+     * per chunk and debts from the shared contract ledger, so the cost does not grow
+     * with the number of tenants, contracts or invoices.
+     */
+    private List<TenantDto> toDtos(List<Tenant> tenants) {
+        List<Long> tenantIds = tenants.stream().map(Tenant::getId).toList();
+        Map<Long, List<ContractRow>> contractsByTenant = new HashMap<>();
+        for (int from = 0; from < tenantIds.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = tenantIds.subList(from, Math.min(from + CHUNK_SIZE, tenantIds.size()));
+            for (Object[] r : contractRepository.findTenantListRowsByMainTenantIdIn(chunk)) {
+                ContractRow row = new ContractRow((Long) r[0], (ContractStatus) r[2], (LocalDate) r[3], (LocalDate) r[4],
+                        (BigDecimal) r[5], (String) r[6], (Long) r[7]);
+                contractsByTenant.computeIfAbsent((Long) r[1], k -> new ArrayList<>()).add(row);
+            }
+        }
+        Map<Long, ContractLedgerService.Ledger> ledgers = ledgerService.forTerms(contractsByTenant.values().stream()
+                .flatMap(List::stream)
+                .map(c -> new ContractLedgerService.Terms(c.id(), c.startDate(), c.endDate(), c.dailyRate()))
+                .toList());
+
+        List<TenantDto> result = new ArrayList<>(tenants.size());
+        for (Tenant tenant : tenants) {
+            result.add(toDto(tenant, contractsByTenant.getOrDefault(tenant.getId(), List.of()), ledgers));
+        }
+        return result;
+    }
+
+    private TenantDto toDto(Tenant tenant, List<ContractRow> allContracts,
+                            Map<Long, ContractLedgerService.Ledger> ledgers) {
         TenantDto dto = new TenantDto();
         dto.setId(tenant.getId());
         dto.setUserId(tenant.getUser() != null ? tenant.getUser().getId() : null);
@@ -139,51 +192,40 @@ public class TenantService {
         dto.setPermanentAddress(tenant.getPermanentAddress());
         dto.setStatus(tenant.getStatus());
 
-        try {
-            // Find most recent contract: prefer ACTIVE, fallback to most recent any status
-            List<Contract> allContracts = contractRepository.findByMainTenantId(tenant.getId());
-            Optional<Contract> displayContract = allContracts.stream()
-                    .filter(c -> c.getStatus() == ContractStatus.ACTIVE)
-                    .max(java.util.Comparator.comparing(Contract::getStartDate));
-            if (displayContract.isEmpty()) {
-                displayContract = allContracts.stream()
-                        .max(java.util.Comparator.comparing(Contract::getEndDate));
-            }
-            displayContract.ifPresent(c -> {
-                dto.setActiveContractId(c.getId());
-                dto.setActiveRoomCode(c.getRoom().getCode());
-                dto.setActiveBoardingHouseId(c.getRoom().getBoardingHouse().getId());
-                dto.setCheckInDate(c.getStartDate());
-                dto.setCheckOutDate(c.getEndDate());
-            });
-
-            // Calculate debt from ALL contracts (not just active)
-            BigDecimal totalDebt = BigDecimal.ZERO;
-            BigDecimal totalCharges = BigDecimal.ZERO;
-            for (Contract c : allContracts) {
-                BigDecimal charges = guestChargeRepository.sumAmountByContractId(c.getId());
-                totalCharges = totalCharges.add(charges);
-
-            long nights = Math.max(1, java.time.temporal.ChronoUnit.DAYS.between(c.getStartDate(), c.getEndDate()));
-                BigDecimal dailyRate = c.getDailyRate() != null ? c.getDailyRate() : BigDecimal.ZERO;
-                BigDecimal roomCost = dailyRate.multiply(BigDecimal.valueOf(nights));
-
-                BigDecimal paid = invoiceRepository.findByContractId(c.getId()).stream()
-                        .flatMap(inv -> paymentRepository.findByInvoiceId(inv.getId()).stream())
-                        .map(Payment::getPaidAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                BigDecimal debt = roomCost.add(charges).subtract(paid);
-                if (debt.compareTo(BigDecimal.ZERO) > 0) {
-                    totalDebt = totalDebt.add(debt);
-                }
+        // Find most recent contract: prefer ACTIVE, fallback to most recent any status
+        Optional<ContractRow> displayContract = allContracts.stream()
+                .filter(c -> c.status() == ContractStatus.ACTIVE)
+                .max(Comparator.comparing(ContractRow::startDate));
+        if (displayContract.isEmpty()) {
+            displayContract = allContracts.stream()
+                    .max(Comparator.comparing(ContractRow::endDate));
+        }
+        displayContract.ifPresent(c -> {
+            dto.setActiveContractId(c.id());
+            dto.setActiveRoomCode(c.roomCode());
+            dto.setActiveBoardingHouseId(c.boardingHouseId());
+            dto.setCheckInDate(c.startDate());
+            dto.setCheckOutDate(c.endDate());
+        });
+
+        // Calculate debt from ALL contracts (not just active)
+        BigDecimal totalDebt = BigDecimal.ZERO;
+        BigDecimal totalCharges = BigDecimal.ZERO;
+        for (ContractRow c : allContracts) {
+            ContractLedgerService.Ledger ledger = ledgers.get(c.id());
+            totalCharges = totalCharges.add(ledger.getCharges());
+            BigDecimal debt = ledger.getDebt();
+            if (debt.compareTo(BigDecimal.ZERO) > 0) {
+                totalDebt = totalDebt.add(debt);
             }
-            dto.setTotalCharges(totalCharges);
-            dto.setTotalDebt(allContracts.isEmpty() ? null : totalDebt);
-        } catch (Exception e) {
-            System.err.println("Error loading contract info for tenant " + tenant.getId() + ": " + e.getMessage());
         }
-
+        dto.setTotalCharges(totalCharges);
+        dto.setTotalDebt(allContracts.isEmpty() ? null : totalDebt);
         return dto;
     }
+
+    /** Contract columns the tenant list needs (see ContractRepository.findTenantListRowsByMainTenantIdIn). */
+    private record ContractRow(Long id, ContractStatus status, LocalDate startDate, LocalDate endDate,
+                               BigDecimal dailyRate, String roomCode, Long boardingHouseId) {}
 }
 
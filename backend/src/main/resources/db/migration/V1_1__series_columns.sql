@@ -0,0 +1,42 @@
+-- Columns, tables and indexes added after the baseline schema (V1). Databases created by
+-- ddl-auto: update on later builds may already have any of them, hence IF NOT EXISTS.
+-- Runs before V3, whose outstanding-invoice index needs invoices.paid_amount.
+
+-- Invoices: amount paid so far (backfilled from payments by InvoicePaidAmountMigration)
+ALTER TABLE invoices ADD COLUMN IF NOT EXISTS paid_amount numeric(38,2) DEFAULT 0 NOT NULL;
+
+-- Backups: incremental schedule, archive metadata and the store location/checksum
+ALTER TABLE backup_config ADD COLUMN IF NOT EXISTS full_backup_interval integer;
+ALTER TABLE backup_config ADD COLUMN IF NOT EXISTS incremental_enabled boolean;
+
+ALTER TABLE backup_history ADD COLUMN IF NOT EXISTS backup_type varchar(10);
+ALTER TABLE backup_history ADD COLUMN IF NOT EXISTS base_backup_id bigint;
+ALTER TABLE backup_history ADD COLUMN IF NOT EXISTS change_snapshot TEXT;
+ALTER TABLE backup_history ADD COLUMN IF NOT EXISTS row_count bigint;
+ALTER TABLE backup_history ADD COLUMN IF NOT EXISTS uncompressed_size_bytes bigint;
+ALTER TABLE backup_history ADD COLUMN IF NOT EXISTS compression_ratio float(53);
+ALTER TABLE backup_history ADD COLUMN IF NOT EXISTS duration_ms bigint;
+ALTER TABLE backup_history ADD COLUMN IF NOT EXISTS storage_path varchar(255);
+ALTER TABLE backup_history ADD COLUMN IF NOT EXISTS sha256 varchar(64);
+
+-- Revenue-by-month report: one row per boarding house and period (RevenueRollupService)
+CREATE TABLE IF NOT EXISTS revenue_monthly_rollup (
+    collected numeric(38,2) not null,
+    earned_room numeric(38,2) not null,
+    earned_service numeric(38,2) not null,
+    month integer not null,
+    year integer not null,
+    boarding_house_id bigint not null,
+    id bigserial not null,
+    invoice_count bigint not null,
+    paid_invoice_count bigint not null,
+    updated_at timestamp(6) not null,
+    primary key (id),
+    constraint uk_revenue_rollup_house_period unique (boarding_house_id, year, month),
+    constraint FKk19o202kgdvxrxkqr4ubsryfj foreign key (boarding_house_id) references boarding_houses
+);
+
+CREATE INDEX IF NOT EXISTS idx_revenue_rollup_year ON revenue_monthly_rollup (year, month);
+
+-- Outstanding debts, keyset-paginated on (due_date, id)
+CREATE INDEX IF NOT EXISTS idx_invoices_due_date ON invoices (due_date, id);
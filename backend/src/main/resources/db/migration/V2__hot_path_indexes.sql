@@ -0,0 +1,20 @@
+-- Indexes for the hot read paths (dashboard, calendar, reports, tenant list/detail,
+-- ledger aggregates, inventory). IF NOT EXISTS: databases created by ddl-auto: update may
+-- already have some of them, from when they were declared on the entities.
+
+-- Contracts: status filters, room lookups, tenant lookups, date-range overlap
+CREATE INDEX IF NOT EXISTS idx_contracts_status ON contracts (status);
+CREATE INDEX IF NOT EXISTS idx_contracts_room_id ON contracts (room_id);
+CREATE INDEX IF NOT EXISTS idx_contracts_main_tenant_id ON contracts (main_tenant_id);
+CREATE INDEX IF NOT EXISTS idx_contracts_dates ON contracts (start_date, end_date);
+CREATE INDEX IF NOT EXISTS idx_contract_tenants_tenant_id ON contract_tenants (tenant_id);
+
+-- Invoices / payments: per-contract ledgers, per-invoice payment sums
+CREATE INDEX IF NOT EXISTS idx_invoices_contract_id ON invoices (contract_id);
+CREATE INDEX IF NOT EXISTS idx_payments_invoice_id ON payments (invoice_id);
+
+-- Guest charges: per-contract sums and charge-date ranges
+CREATE INDEX IF NOT EXISTS idx_guest_charges_contract_date ON guest_service_charges (contract_id, charge_date);
+
+-- Inventory: stock history per item
+CREATE INDEX IF NOT EXISTS idx_inventory_transactions_item_id ON inventory_transactions (item_id);
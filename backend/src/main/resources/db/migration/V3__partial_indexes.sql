@@ -0,0 +1,8 @@
+-- Partial indexes: only the rows the hot queries actually look at.
+
+-- Active contracts: expiry sweep (status = 'ACTIVE' AND end_date <= ?) and current room occupant
+CREATE INDEX IF NOT EXISTS idx_contracts_active_end_date ON contracts (end_date) WHERE status = 'ACTIVE';
+CREATE INDEX IF NOT EXISTS idx_contracts_active_room_id ON contracts (room_id) WHERE status = 'ACTIVE';
+
+-- Unpaid invoices: outstanding-debts report, keyset-paginated on (due_date, id)
+CREATE INDEX IF NOT EXISTS idx_invoices_outstanding ON invoices (due_date, id) WHERE total_amount > paid_amount;
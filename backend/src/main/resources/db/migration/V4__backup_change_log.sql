@@ -0,0 +1,110 @@
+-- Row-level change log for incremental (DELTA) backups.
+-- Every write to an exported table records the export section, the row id within that
+-- section and the writing transaction. A delta backup exports the rows whose transaction
+-- was not yet visible in the previous backup's snapshot (see BackupChangeLogService).
+
+CREATE TABLE IF NOT EXISTS backup_change_log (
+    id BIGSERIAL PRIMARY KEY,
+    section VARCHAR(40) NOT NULL,
+    row_id BIGINT NOT NULL,
+    txid BIGINT NOT NULL DEFAULT txid_current()
+);
+
+-- TG_ARGV[0]: export section, TG_ARGV[1]: column holding the section's row id.
+-- Child tables (user_roles, contract_tenants, ...) log their parent's id.
+CREATE OR REPLACE FUNCTION backup_log_change() RETURNS trigger AS $$
+DECLARE
+    old_id TEXT;
+    new_id TEXT;
+BEGIN
+    IF TG_OP <> 'INSERT' THEN old_id := to_jsonb(OLD) ->> TG_ARGV[1]; END IF;
+    IF TG_OP <> 'DELETE' THEN new_id := to_jsonb(NEW) ->> TG_ARGV[1]; END IF;
+    IF new_id IS NOT NULL THEN
+        INSERT INTO backup_change_log (section, row_id) VALUES (TG_ARGV[0], new_id::BIGINT);
+    END IF;
+    IF old_id IS NOT NULL AND old_id IS DISTINCT FROM new_id THEN
+        INSERT INTO backup_change_log (section, row_id) VALUES (TG_ARGV[0], old_id::BIGINT);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS backup_change_log ON users;
+CREATE TRIGGER backup_change_log AFTER INSERT OR UPDATE OR DELETE ON users
+    FOR EACH ROW EXECUTE FUNCTION backup_log_change('users', 'id');
+
+DROP TRIGGER IF EXISTS backup_change_log ON user_roles;
+CREATE TRIGGER backup_change_log AFTER INSERT OR UPDATE OR DELETE ON user_roles
+    FOR EACH ROW EXECUTE FUNCTION backup_log_change('users', 'user_id');
+
+DROP TRIGGER IF EXISTS backup_change_log ON user_permissions;
+CREATE TRIGGER backup_change_log AFTER INSERT OR UPDATE OR DELETE ON user_permissions
+    FOR EACH ROW EXECUTE FUNCTION backup_log_change('users', 'user_id');
+
+DROP TRIGGER IF EXISTS backup_change_log ON boarding_houses;
+CREATE TRIGGER backup_change_log AFTER INSERT OR UPDATE OR DELETE ON boarding_houses
+    FOR EACH ROW EXECUTE FUNCTION backup_log_change('boardingHouses', 'id');
+
+DROP TRIGGER IF EXISTS backup_change_log ON rooms;
+CREATE TRIGGER backup_change_log AFTER INSERT OR UPDATE OR DELETE ON rooms
+    FOR EACH ROW EXECUTE FUNCTION backup_log_change('rooms', 'id');
+
+DROP TRIGGER IF EXISTS backup_change_log ON tenants;
+CREATE TRIGGER backup_change_log AFTER INSERT OR UPDATE OR DELETE ON tenants
+    FOR EACH ROW EXECUTE FUNCTION backup_log_change('tenants', 'id');
+
+DROP TRIGGER IF EXISTS backup_change_log ON service_types;
+CREATE TRIGGER backup_change_log AFTER INSERT OR UPDATE OR DELETE ON service_types
+    FOR EACH ROW EXECUTE FUNCTION backup_log_change('serviceTypes', 'id');
+
+DROP TRIGGER IF EXISTS backup_change_log ON room_services;
+CREATE TRIGGER backup_change_log AFTER INSERT OR UPDATE OR DELETE ON room_services
+    FOR EACH ROW EXECUTE FUNCTION backup_log_change('roomServices', 'id');
+
+DROP TRIGGER IF EXISTS backup_change_log ON inventory_items;
+CREATE TRIGGER backup_change_log AFTER INSERT OR UPDATE OR DELETE ON inventory_items
+    FOR EACH ROW EXECUTE FUNCTION backup_log_change('inventoryItems', 'id');
+
+DROP TRIGGER IF EXISTS backup_change_log ON inventory_transactions;
+CREATE TRIGGER backup_change_log AFTER INSERT OR UPDATE OR DELETE ON inventory_transactions
+    FOR EACH ROW EXECUTE FUNCTION backup_log_change('inventoryTransactions', 'id');
+
+DROP TRIGGER IF EXISTS backup_change_log ON service_catalog;
+CREATE TRIGGER backup_change_log AFTER INSERT OR UPDATE OR DELETE ON service_catalog
+    FOR EACH ROW EXECUTE FUNCTION backup_log_change('serviceCatalog', 'id');
+
+DROP TRIGGER IF EXISTS backup_change_log ON contracts;
+CREATE TRIGGER backup_change_log AFTER INSERT OR UPDATE OR DELETE ON contracts
+    FOR EACH ROW EXECUTE FUNCTION backup_log_change('contracts', 'id');
+
+DROP TRIGGER IF EXISTS backup_change_log ON contract_tenants;
+CREATE TRIGGER backup_change_log AFTER INSERT OR UPDATE OR DELETE ON contract_tenants
+    FOR EACH ROW EXECUTE FUNCTION backup_log_change('contractTenants', 'contract_id');
+
+DROP TRIGGER IF EXISTS backup_change_log ON invoices;
+CREATE TRIGGER backup_change_log AFTER INSERT OR UPDATE OR DELETE ON invoices
+    FOR EACH ROW EXECUTE FUNCTION backup_log_change('invoices', 'id');
+
+DROP TRIGGER IF EXISTS backup_change_log ON invoice_items;
+CREATE TRIGGER backup_change_log AFTER INSERT OR UPDATE OR DELETE ON invoice_items
+    FOR EACH ROW EXECUTE FUNCTION backup_log_change('invoiceItems', 'id');
+
+DROP TRIGGER IF EXISTS backup_change_log ON payments;
+CREATE TRIGGER backup_change_log AFTER INSERT OR UPDATE OR DELETE ON payments
+    FOR EACH ROW EXECUTE FUNCTION backup_log_change('payments', 'id');
+
+DROP TRIGGER IF EXISTS backup_change_log ON guest_service_charges;
+CREATE TRIGGER backup_change_log AFTER INSERT OR UPDATE OR DELETE ON guest_service_charges
+    FOR EACH ROW EXECUTE FUNCTION backup_log_change('guestServiceCharges', 'id');
+
+DROP TRIGGER IF EXISTS backup_change_log ON monthly_expenses;
+CREATE TRIGGER backup_change_log AFTER INSERT OR UPDATE OR DELETE ON monthly_expenses
+    FOR EACH ROW EXECUTE FUNCTION backup_log_change('monthlyExpenses', 'id');
+
+DROP TRIGGER IF EXISTS backup_change_log ON housekeeping_tasks;
+CREATE TRIGGER backup_change_log AFTER INSERT OR UPDATE OR DELETE ON housekeeping_tasks
+    FOR EACH ROW EXECUTE FUNCTION backup_log_change('housekeepingTasks', 'id');
+
+DROP TRIGGER IF EXISTS backup_change_log ON service_catalog_recipes;
+CREATE TRIGGER backup_change_log AFTER INSERT OR UPDATE OR DELETE ON service_catalog_recipes
+    FOR EACH ROW EXECUTE FUNCTION backup_log_change('serviceCatalogRecipes', 'id');
@@ -0,0 +1,3 @@
+-- V2-V4 used to be applied by a custom runner that recorded them in schema_migrations;
+-- they are idempotent and Flyway re-applies them once, so its table is no longer needed.
+DROP TABLE IF EXISTS schema_migrations;
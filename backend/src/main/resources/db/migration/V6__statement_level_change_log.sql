@@ -0,0 +1,73 @@
+-- The change log triggers of V4 fired once per row, so a statement touching N rows ran N
+-- trigger calls and N log inserts. They are replaced by statement-level triggers that read
+-- the statement's transition tables and log each distinct row id once, in one INSERT.
+-- Transition tables need one trigger per event: backup_change_log_insert/_update/_delete.
+--
+-- A full import or restore replaces every table and then resets the log (markResync), so
+-- its transactions set backup.change_log = 'off' (set_config(..., true)) and are not logged.
+
+-- TG_ARGV[0]: export section, TG_ARGV[1]: column holding the section's row id.
+-- Child tables (user_roles, contract_tenants, ...) log their parent's id.
+CREATE OR REPLACE FUNCTION backup_log_change() RETURNS trigger AS $$
+DECLARE
+    ids TEXT;
+BEGIN
+    IF current_setting('backup.change_log', true) = 'off' THEN
+        RETURN NULL;
+    END IF;
+    ids := CASE TG_OP
+        WHEN 'INSERT' THEN format('SELECT %I FROM new_rows', TG_ARGV[1])
+        WHEN 'DELETE' THEN format('SELECT %I FROM old_rows', TG_ARGV[1])
+        ELSE format('SELECT %I FROM new_rows UNION SELECT %I FROM old_rows', TG_ARGV[1], TG_ARGV[1])
+    END;
+    EXECUTE format('INSERT INTO backup_change_log (section, row_id) '
+                || 'SELECT DISTINCT %L, id FROM (%s) AS changed(id) WHERE id IS NOT NULL', TG_ARGV[0], ids);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DO $$
+DECLARE
+    t RECORD;
+BEGIN
+    FOR t IN SELECT * FROM (VALUES
+            ('users', 'users', 'id'),
+            ('user_roles', 'users', 'user_id'),
+            ('user_permissions', 'users', 'user_id'),
+            ('boarding_houses', 'boardingHouses', 'id'),
+            ('rooms', 'rooms', 'id'),
+            ('tenants', 'tenants', 'id'),
+            ('service_types', 'serviceTypes', 'id'),
+            ('room_services', 'roomServices', 'id'),
+            ('inventory_items', 'inventoryItems', 'id'),
+            ('inventory_transactions', 'inventoryTransactions', 'id'),
+            ('service_catalog', 'serviceCatalog', 'id'),
+            ('contracts', 'contracts', 'id'),
+            ('contract_tenants', 'contractTenants', 'contract_id'),
+            ('invoices', 'invoices', 'id'),
+            ('invoice_items', 'invoiceItems', 'id'),
+            ('payments', 'payments', 'id'),
+            ('guest_service_charges', 'guestServiceCharges', 'id'),
+            ('monthly_expenses', 'monthlyExpenses', 'id'),
+            ('housekeeping_tasks', 'housekeepingTasks', 'id'),
+            ('service_catalog_recipes', 'serviceCatalogRecipes', 'id')
+        ) AS logged(table_name, section, id_column)
+    LOOP
+        EXECUTE format('DROP TRIGGER IF EXISTS backup_change_log ON %I', t.table_name);
+        EXECUTE format('DROP TRIGGER IF EXISTS backup_change_log_insert ON %I', t.table_name);
+        EXECUTE format('DROP TRIGGER IF EXISTS backup_change_log_update ON %I', t.table_name);
+        EXECUTE format('DROP TRIGGER IF EXISTS backup_change_log_delete ON %I', t.table_name);
+        EXECUTE format('CREATE TRIGGER backup_change_log_insert AFTER INSERT ON %I '
+                    || 'REFERENCING NEW TABLE AS new_rows '
+                    || 'FOR EACH STATEMENT EXECUTE FUNCTION backup_log_change(%L, %L)',
+                t.table_name, t.section, t.id_column);
+        EXECUTE format('CREATE TRIGGER backup_change_log_update AFTER UPDATE ON %I '
+                    || 'REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows '
+                    || 'FOR EACH STATEMENT EXECUTE FUNCTION backup_log_change(%L, %L)',
+                t.table_name, t.section, t.id_column);
+        EXECUTE format('CREATE TRIGGER backup_change_log_delete AFTER DELETE ON %I '
+                    || 'REFERENCING OLD TABLE AS old_rows '
+                    || 'FOR EACH STATEMENT EXECUTE FUNCTION backup_log_change(%L, %L)',
+                t.table_name, t.section, t.id_column);
+    END LOOP;
+END $$;
@@ -0,0 +1,93 @@
+package com.boardinghouse;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A database created by the pre-Flyway application is baselined at V1 and migrated up to the
+ * same schema a fresh database gets (the one Hibernate validated when this context started):
+ * same columns, keys, indexes and triggers. Runs in a scratch schema, dropped afterwards.
+ */
+class FlywayUpgradeTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void preFlywayDatabaseMigratesToCurrentSchema() throws Exception {
+        String schema = "pre_flyway_" + System.nanoTime();
+        try {
+            try (Connection c = dataSource.getConnection()) {
+                c.setAutoCommit(false);
+                try (Statement st = c.createStatement()) {
+                    st.execute("CREATE SCHEMA " + schema);
+                    st.execute("SET LOCAL search_path TO " + schema);
+                }
+                ScriptUtils.executeSqlScript(c, new ClassPathResource("db/pre-flyway-schema.sql"));
+                try (Statement st = c.createStatement()) {
+                    // Existing rows must survive the new NOT NULL columns
+                    st.execute("INSERT INTO boarding_houses (id, name, address) VALUES (1, 'House', 'Street')");
+                    st.execute("INSERT INTO rooms (id, code, boarding_house_id, base_rent, status) VALUES (1, 'R1', 1, 3000000, 'OCCUPIED')");
+                    st.execute("INSERT INTO tenants (id, full_name, status) VALUES (1, 'Tenant', 'ACTIVE')");
+                    st.execute("INSERT INTO contracts (id, code, room_id, main_tenant_id, start_date, end_date, billing_cycle, status) "
+                            + "VALUES (1, 'C1', 1, 1, '2024-01-01', '2024-12-31', 'MONTHLY', 'ACTIVE')");
+                    st.execute("INSERT INTO invoices (id, code, contract_id, room_id, period_month, period_year, total_amount, due_date, status) "
+                            + "VALUES (1, 'INV1', 1, 1, 1, 2024, 3000000, '2024-01-10', 'UNPAID')");
+                }
+                c.commit();
+            }
+
+            Flyway.configure().dataSource(dataSource).schemas(schema)
+                    .baselineOnMigrate(true).baselineVersion("1")
+                    .load().migrate();
+
+            assertThat(columns(schema)).isEqualTo(columns("public"));
+            assertThat(constraints(schema)).isEqualTo(constraints("public"));
+            assertThat(indexes(schema)).isEqualTo(indexes("public"));
+            assertThat(triggers(schema)).isEqualTo(triggers("public"));
+            assertThat(jdbcTemplate.queryForObject("SELECT paid_amount FROM " + schema + ".invoices WHERE id = 1", Integer.class))
+                    .isZero();
+        } finally {
+            jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + schema + " CASCADE");
+        }
+    }
+
+    private List<String> columns(String schema) {
+        return jdbcTemplate.queryForList("SELECT table_name || '.' || column_name || ' ' || data_type || ' '"
+                + " || coalesce(character_maximum_length, numeric_precision, 0) || ',' || coalesce(numeric_scale, 0)"
+                + " || ' ' || is_nullable FROM information_schema.columns"
+                + " WHERE table_schema = ? AND table_name <> 'flyway_schema_history' ORDER BY 1", String.class, schema);
+    }
+
+    /** Keys, unique and foreign keys by name (CHECK constraints include generated NOT NULL names). */
+    private List<String> constraints(String schema) {
+        return jdbcTemplate.queryForList("SELECT table_name || ' ' || constraint_name || ' ' || constraint_type"
+                + " FROM information_schema.table_constraints WHERE constraint_schema = ? AND constraint_type <> 'CHECK'"
+                + " AND table_name <> 'flyway_schema_history' ORDER BY 1", String.class, schema);
+    }
+
+    private List<String> indexes(String schema) {
+        return jdbcTemplate.queryForList("SELECT replace(indexdef, ' ' || schemaname || '.', ' ') FROM pg_indexes"
+                + " WHERE schemaname = ? AND tablename <> 'flyway_schema_history' ORDER BY indexname", String.class, schema);
+    }
+
+    private List<String> triggers(String schema) {
+        return jdbcTemplate.queryForList("SELECT event_object_table || ' ' || trigger_name || ' ' || action_timing"
+                + " || ' ' || event_manipulation || ' ' || action_orientation FROM information_schema.triggers"
+                + " WHERE trigger_schema = ? ORDER BY 1", String.class, schema);
+    }
+}
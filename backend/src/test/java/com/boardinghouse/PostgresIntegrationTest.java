@@ -0,0 +1,61 @@
+package com.boardinghouse;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Boots the application against PostgreSQL: a Testcontainers instance, or the database named
+ * by TEST_DATABASE_URL (with TEST_DATABASE_USERNAME / TEST_DATABASE_PASSWORD) when set.
+ * Tests are skipped when neither is available.
+ *
+ * Every subclass shares one application context and one database (Flyway-migrated, seeded by
+ * DataSeeder), so tests create the rows they change (see {@link TestData}) and never assume
+ * an empty table. Backup archives go to target/test-backups.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "backup.store.dir=target/test-backups"
+})
+@AutoConfigureMockMvc
+@Import(TestData.class)
+public abstract class PostgresIntegrationTest {
+
+    private static final String DATABASE_URL = System.getenv("TEST_DATABASE_URL");
+
+    private static PostgreSQLContainer<?> container;
+
+    @BeforeAll
+    static void requireDatabase() {
+        Assumptions.assumeTrue(DATABASE_URL != null || DockerClientFactory.instance().isDockerAvailable(),
+                "PostgreSQL tests need Docker or TEST_DATABASE_URL");
+    }
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        if (DATABASE_URL != null) {
+            registry.add("spring.datasource.url", () -> DATABASE_URL);
+            registry.add("spring.datasource.username", () -> System.getenv().getOrDefault("TEST_DATABASE_USERNAME", "postgres"));
+            registry.add("spring.datasource.password", () -> System.getenv().getOrDefault("TEST_DATABASE_PASSWORD", ""));
+        } else {
+            PostgreSQLContainer<?> postgres = container();
+            registry.add("spring.datasource.url", postgres::getJdbcUrl);
+            registry.add("spring.datasource.username", postgres::getUsername);
+            registry.add("spring.datasource.password", postgres::getPassword);
+        }
+    }
+
+    private static synchronized PostgreSQLContainer<?> container() {
+        if (container == null) {
+            container = new PostgreSQLContainer<>("postgres:16-alpine");
+            container.start();
+        }
+        return container;
+    }
+}
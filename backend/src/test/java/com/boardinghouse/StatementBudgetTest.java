@@ -0,0 +1,175 @@
+package com.boardinghouse;
+
+import com.boardinghouse.entity.BoardingHouse;
+import com.boardinghouse.entity.Contract;
+import com.boardinghouse.entity.HousekeepingTask;
+import com.boardinghouse.entity.Invoice;
+import com.boardinghouse.entity.Room;
+import com.boardinghouse.entity.RoomPhoto;
+import com.boardinghouse.repository.HousekeepingTaskRepository;
+import com.boardinghouse.repository.RoomPhotoRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL statements per request on the read-heavy endpoints, counted with Hibernate statistics
+ * on cold caches. Each endpoint has a fixed budget and must not issue more statements once a
+ * boarding house has more contracts: a lazy load per row (N+1) fails the build here.
+ */
+@WithMockUser(roles = "ADMIN")
+class StatementBudgetTest extends PostgresIntegrationTest {
+
+    private static final long DASHBOARD_BUDGET = 10;
+    private static final long CALENDAR_EVENTS_BUDGET = 5;
+    private static final long HOUSEKEEPING_BUDGET = 1;
+    private static final long ROOM_PHOTOS_BUDGET = 1;
+    private static final long GUEST_CHARGES_BUDGET = 1;
+    /** hibernate.default_batch_fetch_size and the @BatchSize on list collections. */
+    private static final long BATCH_SIZE = 100;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestData data;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private HousekeepingTaskRepository housekeepingTaskRepository;
+
+    @Autowired
+    private RoomPhotoRepository roomPhotoRepository;
+
+    @Test
+    void dashboardStaysWithinBudget() throws Exception {
+        BoardingHouse house = data.house();
+        addStays(house, 2);
+        long few = statements("/dashboard?boardingHouseId=" + house.getId());
+        addStays(house, 10);
+        long many = statements("/dashboard?boardingHouseId=" + house.getId());
+
+        assertThat(many).isEqualTo(few).isLessThanOrEqualTo(DASHBOARD_BUDGET);
+        assertThat(statements("/dashboard")).isLessThanOrEqualTo(DASHBOARD_BUDGET);
+    }
+
+    @Test
+    void calendarEventsStayWithinBudget() throws Exception {
+        // A month no seeded contract reaches, so the events are exactly the stays added here
+        LocalDate month = LocalDate.of(2031, 1, 1);
+        String url = "/calendar/events?from=" + month + "&to=" + month.plusMonths(1).minusDays(1);
+        BoardingHouse house = data.house();
+        addStays(house, month.plusDays(10), 2);
+        long few = statements(url);
+        addStays(house, month.plusDays(10), 10);
+        long many = statements(url);
+
+        assertThat(many).isEqualTo(few).isLessThanOrEqualTo(CALENDAR_EVENTS_BUDGET);
+    }
+
+    /** Lists scoped to one boarding house or contract load in one query, however long they get. */
+    @Test
+    void scopedListsStayWithinBudget() throws Exception {
+        BoardingHouse house = data.house();
+        String housekeeping = "/housekeeping?boardingHouseId=" + house.getId();
+        String photos = "/room-photos?boardingHouseId=" + house.getId();
+        Contract contract = data.contract(data.room(house), LocalDate.now(), LocalDate.now().plusDays(3), "300000");
+        String charges = "/guest-charges/contract/" + contract.getId();
+
+        addStays(house, 2);
+        addCharges(contract, 2);
+        long fewTasks = statements(housekeeping);
+        long fewPhotos = statements(photos);
+        long fewCharges = statements(charges);
+        addStays(house, 10);
+        addCharges(contract, 10);
+
+        assertThat(statements(housekeeping)).isEqualTo(fewTasks).isLessThanOrEqualTo(HOUSEKEEPING_BUDGET);
+        assertThat(statements(photos)).isEqualTo(fewPhotos).isLessThanOrEqualTo(ROOM_PHOTOS_BUDGET);
+        assertThat(statements(charges)).isEqualTo(fewCharges).isLessThanOrEqualTo(GUEST_CHARGES_BUDGET);
+    }
+
+    /**
+     * Full lists return every row in the database, so their lazy collections load in
+     * {@link #BATCH_SIZE}-row batches: a fixed number of statements plus one per batch.
+     */
+    @Test
+    void listEndpointsStayWithinBudget() throws Exception {
+        addStays(data.house(), 12);
+        assertWithinListBudget("/invoices", "invoices", 1);   // items batches
+        assertWithinListBudget("/payments", "payments", 1);
+        assertWithinListBudget("/contracts", "contracts", 1); // co-tenant batches
+        assertWithinListBudget("/rooms", "rooms", 2);         // current tenant names
+        assertWithinListBudget("/tenants", "tenants", 6);     // contract projection and ledger aggregates
+    }
+
+    private void assertWithinListBudget(String url, String table, long fixed) throws Exception {
+        long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+        long batches = (rows + BATCH_SIZE - 1) / BATCH_SIZE;
+        assertThat(statements(url)).as(url).isLessThanOrEqualTo(fixed + batches);
+    }
+
+    private void addStays(BoardingHouse house, int count) {
+        addStays(house, LocalDate.now(), count);
+    }
+
+    /**
+     * Stays around {@code day}, each with an invoice, a payment, a guest charge, a cleaning
+     * task and a room photo.
+     */
+    private void addStays(BoardingHouse house, LocalDate day, int count) {
+        for (int i = 0; i < count; i++) {
+            Room room = data.room(house);
+            Contract c = data.contract(room, day.minusDays(1 + i % 3), day.plusDays(1 + i % 3), "300000");
+            Invoice invoice = data.invoice(c, day, "900000");
+            data.payment(invoice, day, "400000");
+            data.charge(c, day, "50000");
+            cleaningTask(c, day.plusDays(1 + i % 3));
+            photo(room);
+        }
+    }
+
+    private void addCharges(Contract contract, int count) {
+        for (int i = 0; i < count; i++) data.charge(contract, LocalDate.now(), "20000");
+    }
+
+    private void cleaningTask(Contract contract, LocalDate day) {
+        HousekeepingTask task = new HousekeepingTask();
+        task.setRoom(contract.getRoom());
+        task.setContract(contract);
+        task.setTitle("Dọn phòng " + contract.getRoom().getCode());
+        task.setScheduledDate(day);
+        housekeepingTaskRepository.save(task);
+    }
+
+    private void photo(Room room) {
+        RoomPhoto photo = new RoomPhoto();
+        photo.setRoom(room);
+        photo.setFilePath("rooms/" + room.getId() + "/" + TestData.code("photo") + ".jpg");
+        roomPhotoRepository.save(photo);
+    }
+
+    private long statements(String url) throws Exception {
+        data.refreshCaches();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+}
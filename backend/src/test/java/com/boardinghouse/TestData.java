@@ -0,0 +1,134 @@
+package com.boardinghouse;
+
+import com.boardinghouse.entity.*;
+import com.boardinghouse.repository.*;
+import com.boardinghouse.service.OccupancyIndexService;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.cache.CacheManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rows for integration tests, written straight through the repositories. Codes carry a
+ * per-run prefix, so tests can run repeatedly against the same database. Writes made here
+ * skip the services' cache bookkeeping: call {@link #refreshCaches()} before reading.
+ */
+@TestComponent
+public class TestData {
+
+    private static final String RUN = Long.toString(System.currentTimeMillis(), 36).toUpperCase();
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private final BoardingHouseRepository boardingHouseRepository;
+    private final RoomRepository roomRepository;
+    private final TenantRepository tenantRepository;
+    private final ContractRepository contractRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final PaymentRepository paymentRepository;
+    private final GuestServiceChargeRepository guestChargeRepository;
+    private final OccupancyIndexService occupancyIndex;
+    private final CacheManager cacheManager;
+
+    public TestData(BoardingHouseRepository boardingHouseRepository, RoomRepository roomRepository,
+                    TenantRepository tenantRepository, ContractRepository contractRepository,
+                    InvoiceRepository invoiceRepository, PaymentRepository paymentRepository,
+                    GuestServiceChargeRepository guestChargeRepository,
+                    OccupancyIndexService occupancyIndex, CacheManager cacheManager) {
+        this.boardingHouseRepository = boardingHouseRepository;
+        this.roomRepository = roomRepository;
+        this.tenantRepository = tenantRepository;
+        this.contractRepository = contractRepository;
+        this.invoiceRepository = invoiceRepository;
+        this.paymentRepository = paymentRepository;
+        this.guestChargeRepository = guestChargeRepository;
+        this.occupancyIndex = occupancyIndex;
+        this.cacheManager = cacheManager;
+    }
+
+    public static String code(String prefix) {
+        return prefix + "-" + RUN + "-" + SEQUENCE.incrementAndGet();
+    }
+
+    public BoardingHouse house() {
+        BoardingHouse h = new BoardingHouse();
+        h.setName(code("House"));
+        h.setAddress("Test street");
+        return boardingHouseRepository.save(h);
+    }
+
+    public Room room(BoardingHouse house) {
+        Room r = new Room();
+        r.setCode(code("R"));
+        r.setBoardingHouse(house);
+        r.setBaseRent(new BigDecimal("3000000"));
+        return roomRepository.save(r);
+    }
+
+    public Tenant tenant() {
+        Tenant t = new Tenant();
+        t.setFullName(code("Tenant"));
+        return tenantRepository.save(t);
+    }
+
+    /** ACTIVE contract at {@code dailyRate} per night. */
+    public Contract contract(Room room, LocalDate start, LocalDate end, String dailyRate) {
+        Tenant tenant = tenant();
+        Contract c = new Contract();
+        c.setCode(code("C"));
+        c.setRoom(room);
+        c.setMainTenant(tenant);
+        c.getTenants().add(tenant);
+        c.setStartDate(start);
+        c.setEndDate(end);
+        c.setDailyRate(new BigDecimal(dailyRate));
+        c.setMonthlyRent(BigDecimal.ZERO);
+        c.setStatus(ContractStatus.ACTIVE);
+        return contractRepository.save(c);
+    }
+
+    public Invoice invoice(Contract contract, LocalDate dueDate, String total) {
+        Invoice i = new Invoice();
+        i.setCode(code("INV"));
+        i.setContract(contract);
+        i.setRoom(contract.getRoom());
+        i.setPeriodMonth(dueDate.getMonthValue());
+        i.setPeriodYear(dueDate.getYear());
+        i.setTotalAmount(new BigDecimal(total));
+        i.setDueDate(dueDate);
+        return invoiceRepository.save(i);
+    }
+
+    /** Payment on {@code date}; keeps the invoice's paid amount and status in step. */
+    public Payment payment(Invoice invoice, LocalDate date, String amount) {
+        Payment p = new Payment();
+        p.setInvoice(invoice);
+        p.setPaidAmount(new BigDecimal(amount));
+        p.setPaymentDate(date.atTime(10, 0));
+        p.setMethod(PaymentMethod.CASH);
+        invoice.setPaidAmount(invoice.getPaidAmount().add(p.getPaidAmount()));
+        invoice.setStatus(invoice.getPaidAmount().compareTo(invoice.getTotalAmount()) >= 0
+                ? PaymentStatus.PAID : PaymentStatus.PARTIALLY_PAID);
+        invoiceRepository.save(invoice);
+        return paymentRepository.save(p);
+    }
+
+    public GuestServiceCharge charge(Contract contract, LocalDate date, String amount) {
+        GuestServiceCharge g = new GuestServiceCharge();
+        g.setContract(contract);
+        g.setRoom(contract.getRoom());
+        g.setChargeDate(date);
+        g.setDescription(code("Charge"));
+        g.setQuantity(BigDecimal.ONE);
+        g.setUnitPrice(new BigDecimal(amount));
+        g.setAmount(new BigDecimal(amount));
+        return guestChargeRepository.save(g);
+    }
+
+    /** Drops what the services cache about contracts, balances and houses. */
+    public void refreshCaches() {
+        occupancyIndex.invalidate();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+}
@@ -0,0 +1,101 @@
+package com.boardinghouse.controller;
+
+import com.boardinghouse.PostgresIntegrationTest;
+import com.boardinghouse.service.DataTransferService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/** Restores and data imports are jobs on the backup queue: accepted at once, and never run alongside a backup. */
+@WithMockUser(roles = "ADMIN")
+class BackupRestoreJobTest extends PostgresIntegrationTest {
+
+    private static final long TIMEOUT_MS = 120_000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DataTransferService dataTransferService;
+
+    @Test
+    void restoreQueuedBehindBackupStartsAfterIt() throws Exception {
+        long firstBackup = submit("/backup/trigger?mode=FULL").get("id").asLong();
+        await("/backup/jobs/" + firstBackup);
+
+        // The restore is accepted while the second backup is still queued or running
+        long backup = submit("/backup/trigger?mode=FULL").get("id").asLong();
+        JsonNode accepted = submit("/backup/history/" + firstBackup + "/restore");
+        assertThat(accepted.get("status").asText()).isIn("QUEUED", "IN_PROGRESS");
+
+        JsonNode backupDone = await("/backup/jobs/" + backup);
+        JsonNode restoreDone = await("/backup/restore-jobs/" + accepted.get("jobId").asLong());
+        assertThat(restoreDone.get("status").asText()).as(restoreDone.toString()).isEqualTo("SUCCESS");
+        assertThat(restoreDone.get("imported").isObject()).isTrue();
+        LocalDateTime backupCompleted = LocalDateTime.parse(backupDone.get("result").get("completedAt").asText());
+        LocalDateTime restoreStarted = LocalDateTime.parse(restoreDone.get("startedAt").asText());
+        assertThat(restoreStarted).isAfterOrEqualTo(backupCompleted);
+    }
+
+    @Test
+    void importQueuedBehindBackupStartsAfterIt() throws Exception {
+        ByteArrayOutputStream export = new ByteArrayOutputStream();
+        dataTransferService.exportAll("test", export, objectMapper);
+
+        long backup = submit("/backup/trigger?mode=FULL").get("id").asLong();
+        JsonNode accepted = objectMapper.readTree(mockMvc.perform(post("/data-transfer/import")
+                        .contentType("application/json").content(export.toByteArray()))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString());
+        assertThat(accepted.get("status").asText()).isIn("QUEUED", "IN_PROGRESS");
+
+        JsonNode backupDone = await("/backup/jobs/" + backup);
+        JsonNode importDone = await("/backup/restore-jobs/" + accepted.get("jobId").asLong());
+        assertThat(importDone.get("status").asText()).as(importDone.toString()).isEqualTo("SUCCESS");
+        assertThat(importDone.get("imported").isObject()).isTrue();
+        LocalDateTime backupCompleted = LocalDateTime.parse(backupDone.get("result").get("completedAt").asText());
+        assertThat(LocalDateTime.parse(importDone.get("startedAt").asText())).isAfterOrEqualTo(backupCompleted);
+    }
+
+    @Test
+    void unknownBackupIsRejectedBeforeQueueing() throws Exception {
+        mockMvc.perform(post("/backup/history/" + Long.MAX_VALUE + "/restore"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/backup/restore-jobs/" + Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
+    /** POSTs {@code url}, expects 202 and returns the body. */
+    private JsonNode submit(String url) throws Exception {
+        String body = mockMvc.perform(post(url))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    /** Polls a job until it is SUCCESS or FAILED. */
+    private JsonNode await(String url) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (true) {
+            JsonNode job = objectMapper.readTree(mockMvc.perform(get(url)).andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            String state = job.get("status").asText();
+            if (state.equals("SUCCESS") || state.equals("FAILED")) return job;
+            assertThat(System.currentTimeMillis()).as(url + " still " + state).isLessThan(deadline);
+            Thread.sleep(100);
+        }
+    }
+}
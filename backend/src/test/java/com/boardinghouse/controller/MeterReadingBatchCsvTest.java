@@ -0,0 +1,109 @@
+package com.boardinghouse.controller;
+
+import com.boardinghouse.PostgresIntegrationTest;
+import com.boardinghouse.TestData;
+import com.boardinghouse.entity.Room;
+import com.boardinghouse.entity.RoomService;
+import com.boardinghouse.entity.ServiceCategory;
+import com.boardinghouse.entity.ServiceType;
+import com.boardinghouse.repository.RoomServiceRepository;
+import com.boardinghouse.repository.ServiceTypeRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * CSV meter readings are parsed as real CSV: quoted fields may hold the delimiter and line
+ * breaks, and every rejected row is reported with the line it starts on and the reason.
+ */
+@WithMockUser(roles = "ADMIN")
+class MeterReadingBatchCsvTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestData data;
+
+    @Autowired
+    private ServiceTypeRepository serviceTypeRepository;
+
+    @Autowired
+    private RoomServiceRepository roomServiceRepository;
+
+    @Test
+    void quotedFieldsAndRejectedRowSummary() throws Exception {
+        Room room = data.room(data.house());
+        data.contract(room, LocalDate.of(2099, 1, 1), LocalDate.of(2099, 12, 31), "300000");
+        String electricity = TestData.code("Điện, sinh hoạt ");
+        meteredService(room, electricity);
+
+        String csv = "﻿roomCode,serviceType,oldIndex,newIndex,note\n"
+                + room.getCode() + ",\"" + electricity + "\",100,150,\"read by \"\"Lan\"\",\nsecond line\"\n"
+                + room.getCode() + ",\"" + electricity + "\",150,160,\n"
+                + "\n"
+                + "NO-SUCH-ROOM,Water,1,2,\n"
+                + room.getCode() + ",\"" + electricity + "\",abc,2,\n"
+                + ",Water,1,2,\n";
+
+        mockMvc.perform(post("/invoices/readings/batch").param("month", "6").param("year", "2099")
+                        .param("preview", "true").contentType("text/csv").content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows").value(5))
+                .andExpect(jsonPath("$.acceptedRows").value(1))
+                .andExpect(jsonPath("$.rejectedRows").value(4))
+                .andExpect(jsonPath("$.rooms").value(1))
+                .andExpect(jsonPath("$.rejected[0].row").value(4))
+                .andExpect(jsonPath("$.rejected[0].serviceType").value(electricity))
+                .andExpect(jsonPath("$.rejected[0].reason").value("Duplicate reading for this room and service"))
+                .andExpect(jsonPath("$.rejected[1].row").value(6))
+                .andExpect(jsonPath("$.rejected[1].reason").value("Unknown room"))
+                .andExpect(jsonPath("$.rejected[2].row").value(7))
+                .andExpect(jsonPath("$.rejected[2].reason").value("Invalid number: abc"))
+                .andExpect(jsonPath("$.rejected[3].row").value(8))
+                .andExpect(jsonPath("$.rejected[3].reason").value("Room code is required"));
+    }
+
+    @Test
+    void semicolonDelimiterIsDetected() throws Exception {
+        mockMvc.perform(post("/invoices/readings/batch").param("month", "6").param("year", "2099")
+                        .param("preview", "true").contentType("text/csv")
+                        .content("room;service;oldIndex;newIndex\nNO-SUCH-ROOM;\"Nước; lạnh\";1,5;2\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rejected[0].row").value(2))
+                .andExpect(jsonPath("$.rejected[0].serviceType").value("Nước; lạnh"))
+                .andExpect(jsonPath("$.rejected[0].reason").value("Invalid number: 1,5"));
+    }
+
+    @Test
+    void unterminatedQuoteIsClientError() throws Exception {
+        mockMvc.perform(post("/invoices/readings/batch").param("month", "6").param("year", "2099")
+                        .param("preview", "true").contentType("text/csv")
+                        .content("roomCode,serviceType,oldIndex,newIndex\nR1,\"Điện,1,2\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", startsWith("Invalid CSV")));
+    }
+
+    private void meteredService(Room room, String name) {
+        ServiceType type = new ServiceType();
+        type.setName(name);
+        type.setCategory(ServiceCategory.ELECTRICITY);
+        type.setUnit("kWh");
+        type.setPricePerUnit(new BigDecimal("3500"));
+        type.setBoardingHouse(room.getBoardingHouse());
+        type = serviceTypeRepository.save(type);
+        RoomService service = new RoomService();
+        service.setRoom(room);
+        service.setServiceType(type);
+        roomServiceRepository.save(service);
+    }
+}
@@ -0,0 +1,38 @@
+package com.boardinghouse.controller;
+
+import com.boardinghouse.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/** /tenants/search only sorts on whitelisted tenant columns; other sort keys are client errors. */
+@WithMockUser(roles = "ADMIN")
+class TenantSearchSortTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void sortsOnWhitelistedField() throws Exception {
+        mockMvc.perform(get("/tenants/search").param("sort", "phone,desc").param("sort", "fullName"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void rejectsUnknownSortField() throws Exception {
+        mockMvc.perform(get("/tenants/search").param("sort", "nope,asc"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(400));
+    }
+
+    @Test
+    void rejectsSortOnAssociation() throws Exception {
+        mockMvc.perform(get("/tenants/search").param("q", "a").param("sort", "user.password"))
+                .andExpect(status().isBadRequest());
+    }
+}
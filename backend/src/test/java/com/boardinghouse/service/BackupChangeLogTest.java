@@ -0,0 +1,81 @@
+package com.boardinghouse.service;
+
+import com.boardinghouse.PostgresIntegrationTest;
+import com.boardinghouse.TestData;
+import com.boardinghouse.entity.BoardingHouse;
+import com.boardinghouse.entity.Room;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The change log triggers log each row a statement writes once, under its export section,
+ * and nothing in a transaction a bulk import suspended them for.
+ */
+class BackupChangeLogTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private BackupChangeLogService changeLog;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TestData data;
+
+    @Test
+    void statementLogsEachWrittenRowOnce() {
+        String base = changeLog.currentSnapshot();
+        BoardingHouse house = data.house();
+        Room first = data.room(house);
+        Room second = data.room(house);
+
+        long logged = transactionTemplate.execute(status -> {
+            jdbcTemplate.update("UPDATE rooms SET base_rent = base_rent + 1 WHERE boarding_house_id = ?", house.getId());
+            jdbcTemplate.update("UPDATE rooms SET base_rent = base_rent - 1 WHERE boarding_house_id = ?", house.getId());
+            return loggedInTransaction("rooms");
+        });
+
+        assertThat(logged).isEqualTo(4); // two statements, two rows each
+        Map<String, Set<Long>> changes = changeLog.changesSince(base).orElseThrow();
+        assertThat(changes.get("boardingHouses")).contains(house.getId());
+        assertThat(changes.get("rooms")).contains(first.getId(), second.getId());
+    }
+
+    @Test
+    void suspendedTransactionIsNotLogged() {
+        long houseId = data.house().getId();
+
+        long suspended = transactionTemplate.execute(status -> {
+            changeLog.suspendInTransaction();
+            insertExpense(houseId);
+            return loggedInTransaction("monthlyExpenses");
+        });
+        long next = transactionTemplate.execute(status -> {
+            insertExpense(houseId);
+            return loggedInTransaction("monthlyExpenses");
+        });
+
+        assertThat(suspended).isZero();
+        assertThat(next).isEqualTo(1);
+    }
+
+    private void insertExpense(long houseId) {
+        jdbcTemplate.update("INSERT INTO monthly_expenses (boarding_house_id, month, year, category, amount) "
+                + "VALUES (?, 1, 2099, 'OTHER', 1)", houseId);
+    }
+
+    private long loggedInTransaction(String section) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM backup_change_log "
+                + "WHERE txid = txid_current() AND section = ?", Long.class, section);
+    }
+}
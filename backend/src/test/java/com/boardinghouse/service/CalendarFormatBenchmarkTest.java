@@ -0,0 +1,112 @@
+package com.boardinghouse.service;
+
+import com.boardinghouse.PostgresIntegrationTest;
+import com.boardinghouse.TestData;
+import com.boardinghouse.dto.CalendarDayDto;
+import com.boardinghouse.dto.CalendarRangeDto;
+import com.boardinghouse.entity.BoardingHouse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Both /dashboard/calendar formats for a month with 500 guests: the compact ranges expand to
+ * exactly the legacy per-day events, and serialize to a fraction of their size. Sizes and
+ * serialization times are printed, so the numbers quoted for the compact format can be rerun.
+ * The guests are rolled back afterwards, so repeated runs do not grow the test database.
+ */
+class CalendarFormatBenchmarkTest extends PostgresIntegrationTest {
+
+    private static final int GUESTS = 500;
+    private static final int WARMUP = 200;
+    private static final int ROUNDS = 500;
+
+    @Autowired
+    private TestData data;
+
+    @Autowired
+    private CalendarService calendarService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    void forgetRolledBackStays() {
+        data.refreshCaches();
+    }
+
+    @Test
+    @Transactional
+    void compactFormatMatchesLegacyAndIsSmaller() throws Exception {
+        // A month no seeded contract reaches, so the stays are exactly the guests added here
+        LocalDate start = LocalDate.of(2100, 1, 1);
+        LocalDate end = start.plusDays(30);
+        BoardingHouse house = data.house();
+        for (int g = 0; g < GUESTS; g++) {
+            LocalDate in = start.plusDays(g % 3);
+            data.contract(data.room(house), in, in.plusDays(30), "350000");
+        }
+        data.refreshCaches();
+
+        List<CalendarDayDto> legacy = calendarService.getCalendarData(start, end);
+        CalendarRangeDto compact = calendarService.getCalendarRange(start, end);
+
+        assertThat(compact.getStays()).hasSize(GUESTS);
+        assertThat(expand(compact)).containsExactlyInAnyOrderElementsOf(events(legacy));
+
+        Measurement legacyRun = measure(legacy);
+        Measurement compactRun = measure(compact);
+        System.out.printf("calendar %d guests x %d days: legacy %d bytes %.3f ms, compact %d bytes %.3f ms%n",
+                GUESTS, compact.getDayCount(), legacyRun.bytes(), legacyRun.millis(),
+                compactRun.bytes(), compactRun.millis());
+        assertThat(compactRun.bytes() * 10).isLessThan(legacyRun.bytes());
+    }
+
+    /** The legacy events the compact ranges stand for: one per covered day, typed by its check-in and -out. */
+    private static List<String> expand(CalendarRangeDto range) {
+        List<String> events = new ArrayList<>();
+        for (CalendarRangeDto.StayDto stay : range.getStays()) {
+            for (int i = stay.getStartIndex(); i <= stay.getEndIndex(); i++) {
+                LocalDate day = range.getStartDate().plusDays(i);
+                boolean checkIn = day.equals(stay.getCheckInDate());
+                boolean checkOut = day.equals(stay.getCheckOutDate());
+                if (checkIn) events.add(event(day, stay.getContractId(), "CHECKIN"));
+                if (checkOut) events.add(event(day, stay.getContractId(), "CHECKOUT"));
+                if (!checkIn && !checkOut) events.add(event(day, stay.getContractId(), "STAYING"));
+            }
+        }
+        return events;
+    }
+
+    private static List<String> events(List<CalendarDayDto> days) {
+        List<String> events = new ArrayList<>();
+        for (CalendarDayDto day : days) {
+            for (CalendarDayDto.CalendarEventDto e : day.getEvents()) {
+                events.add(event(day.getDate(), e.getContractId(), e.getEventType()));
+            }
+        }
+        return events;
+    }
+
+    private static String event(LocalDate day, Long contractId, String type) {
+        return day + "|" + contractId + "|" + type;
+    }
+
+    private Measurement measure(Object body) throws Exception {
+        byte[] bytes = null;
+        for (int i = 0; i < WARMUP; i++) bytes = objectMapper.writeValueAsBytes(body);
+        long started = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) bytes = objectMapper.writeValueAsBytes(body);
+        return new Measurement(bytes.length, (System.nanoTime() - started) / (double) ROUNDS / 1_000_000);
+    }
+
+    private record Measurement(int bytes, double millis) {}
+}
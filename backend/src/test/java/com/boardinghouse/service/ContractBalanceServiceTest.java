@@ -0,0 +1,67 @@
+package com.boardinghouse.service;
+
+import com.boardinghouse.config.CacheConfig;
+import com.boardinghouse.repository.GuestServiceChargeRepository;
+import com.boardinghouse.repository.InvoiceRepository;
+import com.boardinghouse.repository.PaymentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/** A cache load that an eviction overtakes must not leave its (stale) balance in the cache. */
+class ContractBalanceServiceTest {
+
+    private static final Long CONTRACT = 7L;
+
+    private final AtomicReference<BigDecimal> invoiced = new AtomicReference<>(new BigDecimal("100"));
+    private final List<Runnable> duringLoad = new ArrayList<>();
+    private ContractBalanceService service;
+
+    @BeforeEach
+    void setUp() {
+        InvoiceRepository invoices = mock(InvoiceRepository.class);
+        PaymentRepository payments = mock(PaymentRepository.class);
+        GuestServiceChargeRepository charges = mock(GuestServiceChargeRepository.class);
+        when(invoices.summarizeGroupedByContractIds(anyCollection())).thenAnswer(inv -> {
+            List<Object[]> rows = new ArrayList<>();
+            rows.add(new Object[]{CONTRACT, invoiced.get(), 1L, invoiced.get()});
+            // Runs after the row was read, like a commit landing while the load is in flight
+            duringLoad.forEach(Runnable::run);
+            duringLoad.clear();
+            return rows;
+        });
+        when(payments.summarizePaidGroupedByContractIds(anyCollection())).thenReturn(List.of());
+        when(charges.sumAmountGroupedByContractIds(anyCollection())).thenReturn(List.of());
+        service = new ContractBalanceService(invoices, payments, charges, new CacheConfig().cacheManager());
+    }
+
+    @Test
+    void evictionDuringLoadDropsTheLoadedValue() {
+        duringLoad.add(() -> {
+            invoiced.set(new BigDecimal("250"));
+            service.onBalanceChanged(ContractBalanceService.BalanceChanged.of(CONTRACT));
+        });
+
+        assertThat(service.get(CONTRACT).invoiced()).isEqualByComparingTo("100");
+        assertThat(service.get(CONTRACT).invoiced()).isEqualByComparingTo("250");
+    }
+
+    @Test
+    void loadWithoutEvictionIsCached() {
+        assertThat(service.get(CONTRACT).invoiced()).isEqualByComparingTo("100");
+        invoiced.set(new BigDecimal("250"));
+        assertThat(service.get(CONTRACT).invoiced()).isEqualByComparingTo("100");
+
+        service.onBalanceChanged(ContractBalanceService.BalanceChanged.of(CONTRACT));
+        assertThat(service.get(CONTRACT).invoiced()).isEqualByComparingTo("250");
+    }
+}
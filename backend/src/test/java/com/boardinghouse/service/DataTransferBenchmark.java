@@ -0,0 +1,165 @@
+package com.boardinghouse.service;
+
+import com.boardinghouse.PostgresIntegrationTest;
+import com.boardinghouse.dto.DataExportDto;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Import/export timings on a synthetic, FK-consistent dataset of about {@code benchmark.rows}
+ * rows, at the configured data-transfer.parallelism. Replaces all data in the test database,
+ * so it only runs when asked for, against a throwaway one; run it once per parallelism:
+ *
+ *   mvn test -Dtest=DataTransferBenchmark -Dbenchmark.rows=1000000 -Ddata-transfer.parallelism=1
+ *   mvn test -Dtest=DataTransferBenchmark -Dbenchmark.rows=1000000 -Ddata-transfer.parallelism=4 \
+ *       -Dspring.datasource.hikari.maximum-pool-size=6
+ *
+ * Parallelism is capped at the pool size - 2 (see DataTransferService).
+ */
+@EnabledIfSystemProperty(named = "benchmark.rows", matches = "\\d+")
+class DataTransferBenchmark extends PostgresIntegrationTest {
+
+    @Autowired
+    private DataTransferService dataTransferService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${benchmark.rows}")
+    private int rows;
+
+    @Value("${data-transfer.parallelism:3}")
+    private int parallelism;
+
+    @Test
+    void importThenExport() throws IOException {
+        Path data = Files.createTempFile("boarding-house-benchmark-", ".json");
+        Path exported = Files.createTempFile("boarding-house-benchmark-export-", ".json");
+        try {
+            long generated = generate(data);
+            System.out.printf("benchmark dataset: %d row(s), %d MB%n", generated, Files.size(data) / (1024 * 1024));
+
+            long start = System.currentTimeMillis();
+            DataTransferService.ImportResult result;
+            try (InputStream in = Files.newInputStream(data)) {
+                result = dataTransferService.importAll(in, objectMapper);
+            }
+            long importMs = System.currentTimeMillis() - start;
+            assertThat(result.stats()).doesNotContainKey("errors");
+
+            start = System.currentTimeMillis();
+            try (OutputStream out = Files.newOutputStream(exported)) {
+                dataTransferService.exportAll("benchmark", out, objectMapper);
+            }
+            long exportMs = System.currentTimeMillis() - start;
+
+            System.out.printf("benchmark data-transfer.parallelism %d: import %d ms (%d rows/s), export %d ms (%d rows/s)%n",
+                    parallelism, importMs, generated * 1000 / Math.max(1, importMs), exportMs, generated * 1000 / Math.max(1, exportMs));
+        } finally {
+            Files.deleteIfExists(data);
+            Files.deleteIfExists(exported);
+        }
+    }
+
+    // ─── Synthetic dataset ───────────────────────────────────────────────────
+
+    /** Writes an export file (format 2.0) whose table sizes scale with {@code rows}; returns the row count. */
+    private long generate(Path file) throws IOException {
+        double scale = rows / 1_000_000.0;
+        int houses = count(50, scale);
+        int users = count(20_000, scale);
+        int rooms = count(20_000, scale);
+        int items = count(1_000, scale);
+        int catalog = count(500, scale);
+        int contracts = Math.min(rooms, users);
+        int invoices = count(200_000, scale);
+        LocalDate day = LocalDate.of(2024, 1, 1);
+        LocalDateTime time = day.atStartOfDay();
+        BigDecimal price = new BigDecimal("3500000");
+        BigDecimal one = BigDecimal.ONE;
+
+        long total = 0;
+        try (JsonGenerator gen = objectMapper.createGenerator(file.toFile(), JsonEncoding.UTF8)) {
+            gen.writeStartObject();
+            gen.writeStringField("exportVersion", "2.0");
+            gen.writeFieldName("exportedAt");
+            gen.writeObject(time);
+            gen.writeStringField("exportedBy", "benchmark");
+            total += section(gen, "users", users, i -> new DataExportDto.UserExport(
+                    (long) i, "bench" + i, "{noop}benchmark", "Benchmark User " + i, "09" + i, "bench" + i + "@example.com",
+                    Set.of("TENANT"), Set.of(), true, null));
+            total += section(gen, "boardingHouses", houses, i -> new DataExportDto.BoardingHouseExport(
+                    (long) i, "Nhà Trọ " + i, i + " Benchmark Street", null, 5, null));
+            total += section(gen, "rooms", rooms, i -> new DataExportDto.RoomExport(
+                    (long) i, "R" + i, ref(i, houses), i % 5 + 1, new BigDecimal("25.5"), 3, price, "OCCUPIED"));
+            total += section(gen, "tenants", users, i -> new DataExportDto.TenantExport(
+                    (long) i, (long) i, "Benchmark Tenant " + i, "09" + i, "bench" + i + "@example.com",
+                    "ID" + i, null, day.minusYears(25), "Benchmark City", "ACTIVE"));
+            total += section(gen, "serviceTypes", houses * 2, i -> new DataExportDto.ServiceTypeExport(
+                    (long) i, "Service " + i, i % 2 == 0 ? "WATER" : "ELECTRICITY", "unit", new BigDecimal("3500"), true, ref(i, houses)));
+            total += section(gen, "roomServices", rooms * 2, i -> new DataExportDto.RoomServiceExport(
+                    (long) i, ref(i, rooms), ref(i, houses * 2), new BigDecimal("3500"), null));
+            total += section(gen, "serviceCatalog", catalog, i -> new DataExportDto.ServiceCatalogExport(
+                    (long) i, "Catalog " + i, "FOOD_DRINK", "cái", new BigDecimal("15000"), null, ref(i, items), true, i, ref(i, houses)));
+            total += section(gen, "inventoryItems", items, i -> new DataExportDto.InventoryItemExport(
+                    (long) i, "SKU" + i, "Item " + i, "DRINK", "cái", new BigDecimal("10000"), new BigDecimal("15000"),
+                    new BigDecimal("1000"), BigDecimal.TEN, true, null, day, ref(i, houses), null));
+            total += section(gen, "inventoryTransactions", count(150_000, scale), i -> new DataExportDto.InventoryTransactionExport(
+                    (long) i, ref(i, items), "PURCHASE", one, new BigDecimal("10000"), new BigDecimal("10000"), "B" + i, null, day, null));
+            total += section(gen, "contracts", contracts, i -> new DataExportDto.ContractExport(
+                    (long) i, "C" + i, (long) i, (long) i, day, day.plusYears(1), price, price, null, "ACTIVE", "MONTHLY", null, null, false));
+            total += section(gen, "contractTenants", contracts, i -> new DataExportDto.ContractTenantExport((long) i, (long) i));
+            total += section(gen, "invoices", invoices, i -> new DataExportDto.InvoiceExport(
+                    (long) i, "INV" + i, ref(i, contracts), ref(i, contracts), i % 12 + 1, 2024, price, "PAID", day.plusDays(10), day));
+            total += section(gen, "invoiceItems", count(300_000, scale), i -> new DataExportDto.InvoiceItemExport(
+                    (long) i, ref(i, invoices), "Tiền phòng", "RENT", one, price, price, null, null));
+            total += section(gen, "payments", count(150_000, scale), i -> new DataExportDto.PaymentExport(
+                    (long) i, ref(i, invoices), price, time, "CASH", null, null));
+            total += section(gen, "guestServiceCharges", count(50_000, scale), i -> new DataExportDto.GuestServiceChargeExport(
+                    (long) i, ref(i, contracts), ref(i, contracts), day, ref(i, items), "Item", one,
+                    new BigDecimal("15000"), new BigDecimal("15000"), null, day));
+            total += section(gen, "monthlyExpenses", count(10_000, scale), i -> new DataExportDto.MonthlyExpenseExport(
+                    (long) i, ref(i, houses), i % 12 + 1, 2024, "OTHER", "Expense " + i, new BigDecimal("500000"), null, day));
+            total += section(gen, "housekeepingTasks", count(20_000, scale), i -> new DataExportDto.HousekeepingTaskExport(
+                    (long) i, ref(i, rooms), null, null, "Dọn phòng", null, "DONE", "NORMAL", day, time, time, time, false));
+            total += section(gen, "serviceCatalogRecipes", count(1_000, scale), i -> new DataExportDto.ServiceCatalogRecipeExport(
+                    (long) i, ref(i, catalog), ref(i, items), one));
+            gen.writeEndObject();
+        }
+        return total;
+    }
+
+    private static int section(JsonGenerator gen, String name, int count, IntFunction<Object> row) throws IOException {
+        gen.writeArrayFieldStart(name);
+        for (int i = 1; i <= count; i++) gen.writeObject(row.apply(i));
+        gen.writeEndArray();
+        return count;
+    }
+
+    private static int count(int base, double scale) {
+        return Math.max(1, (int) Math.round(base * scale));
+    }
+
+    /** Id 1..{@code size} for row {@code i}, spreading child rows evenly over their parents. */
+    private static long ref(int i, int size) {
+        return (i - 1) % size + 1;
+    }
+}
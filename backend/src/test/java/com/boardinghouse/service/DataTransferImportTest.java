@@ -0,0 +1,113 @@
+package com.boardinghouse.service;
+
+import com.boardinghouse.PostgresIntegrationTest;
+import com.boardinghouse.TestData;
+import com.boardinghouse.entity.BoardingHouse;
+import com.boardinghouse.entity.Contract;
+import com.boardinghouse.exception.BadRequestException;
+import com.boardinghouse.repository.BoardingHouseRepository;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Import and restore replace the whole database: a file that cannot be imported must be
+ * rejected before anything is deleted, rows dropped on the way are reported, and derived
+ * state follows the data even when the import fails half-way.
+ */
+class DataTransferImportTest extends PostgresIntegrationTest {
+
+    private static final String HOUSE = "{\"id\":1,\"name\":\"Import house\",\"address\":\"Street 1\"}";
+    private static final String ROOM = "{\"id\":1,\"code\":\"IMP-R1\",\"boardingHouseId\":1,\"baseRent\":3000000,\"status\":\"AVAILABLE\"}";
+    private static final String TENANT = "{\"id\":1,\"fullName\":\"Import tenant\",\"status\":\"ACTIVE\"}";
+
+    @Autowired
+    private DataTransferService dataTransferService;
+
+    @Autowired
+    private BoardingHouseRepository boardingHouseRepository;
+
+    @Autowired
+    private OccupancyIndexService occupancyIndex;
+
+    @Autowired
+    private TestData data;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void rowThatDoesNotBindIsRejectedBeforeClearing() {
+        BoardingHouse house = data.house();
+
+        assertThatThrownBy(() -> importJson("{\"boardingHouses\":[" + HOUSE + "],"
+                + "\"rooms\":[" + ROOM + ",{\"id\":2,\"floor\":\"second\"}]}"))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("rooms[1]");
+        assertThatThrownBy(() -> importJson("{\"tenants\":[{\"fullName\":\"No id\"}]}"))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("tenants[0]");
+
+        assertThat(boardingHouseRepository.findById(house.getId())).isPresent();
+    }
+
+    @Test
+    void skippedRowsAreCountedInWarnings() throws Exception {
+        String contract = "{\"id\":%d,\"code\":\"IMP-C%d\",\"roomId\":1,\"mainTenantId\":%d,"
+                + "\"startDate\":\"2030-01-01\",\"endDate\":\"2030-01-10\"}";
+        DataTransferService.ImportResult result = importJson("{\"boardingHouses\":[" + HOUSE + "],"
+                + "\"rooms\":[" + ROOM + "],\"tenants\":[" + TENANT + "],"
+                + "\"contracts\":[" + contract.formatted(1, 1, 1) + "," + contract.formatted(2, 2, 999) + "]}");
+
+        assertThat(result.stats()).containsEntry("contracts", 1).containsEntry("skippedRows", 1);
+        assertThat((List<?>) result.stats().get("warnings"))
+                .anySatisfy(w -> assertThat(w.toString()).startsWith("Contracts: 1 row(s) skipped"));
+    }
+
+    @Test
+    void failedRestoreStillRefreshesDerivedState() {
+        LocalDate day = LocalDate.of(2099, 6, 15);
+        Contract stay = data.contract(data.room(data.house()), day.minusDays(1), day.plusDays(1), "300000");
+        data.refreshCaches();
+        assertThat(occupancyIndex.onDay(null, day)).extracting(OccupancyIndexService.Stay::contractId)
+                .contains(stay.getId());
+
+        DataTransferService.ArchiveSource failing = new DataTransferService.ArchiveSource() {
+            @Override
+            public void readChunks(String section, DataTransferService.ChunkReader reader) throws IOException {
+                if (section.equals("boardingHouses")) {
+                    try (JsonParser p = objectMapper.createParser("[" + HOUSE + "]")) {
+                        p.nextToken();
+                        reader.read(p);
+                    }
+                }
+                if (section.equals("payments")) throw new IOException("archive truncated");
+            }
+
+            @Override
+            public Collection<Long> removedIds(String section) {
+                return List.of();
+            }
+        };
+
+        assertThatThrownBy(() -> dataTransferService.restore(failing, List.of(), objectMapper))
+                .hasMessageContaining("archive truncated");
+        // The wiped contract must not survive in the occupancy index
+        assertThat(occupancyIndex.onDay(null, day)).isEmpty();
+    }
+
+    private DataTransferService.ImportResult importJson(String json) throws IOException {
+        return dataTransferService.importAll(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), objectMapper);
+    }
+}
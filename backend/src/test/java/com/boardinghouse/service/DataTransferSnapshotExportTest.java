@@ -0,0 +1,119 @@
+package com.boardinghouse.service;
+
+import com.boardinghouse.PostgresIntegrationTest;
+import com.boardinghouse.TestData;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * On PostgreSQL the export workers import the export's snapshot (pg_export_snapshot / SET
+ * TRANSACTION SNAPSHOT): a row committed while the tables are being read is in none of them,
+ * and every table matches what a serial export reads.
+ */
+class DataTransferSnapshotExportTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private DataTransferService dataTransferService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestData data;
+
+    @Test
+    void parallelExportReadsOneSnapshot() throws IOException {
+        long houseId = data.house().getId();
+        Long[] committed = new Long[1];
+        Map<String, List<JsonNode>> parallel = new LinkedHashMap<>();
+        try {
+            dataTransferService.exportTables(new CollectingSink(parallel, true) {
+                @Override
+                public void spooledTable(String name, List<DataTransferService.SpooledChunk> chunks,
+                                         Collection<Long> removedIds) throws IOException {
+                    super.spooledTable(name, chunks, removedIds);
+                    // Committed after the first table was read, before monthlyExpenses (near the end) is
+                    if (committed[0] == null) {
+                        committed[0] = jdbcTemplate.queryForObject("INSERT INTO monthly_expenses "
+                                + "(boarding_house_id, month, year, category, amount) VALUES (?, 1, 2099, 'OTHER', 1) "
+                                + "RETURNING id", Long.class, houseId);
+                    }
+                }
+            }, null);
+
+            Map<String, List<JsonNode>> serial = new LinkedHashMap<>();
+            dataTransferService.exportTables(new CollectingSink(serial, false), null);
+
+            assertThat(committed[0]).isNotNull();
+            assertThat(ids(parallel.get("monthlyExpenses"))).doesNotContain(committed[0]);
+            assertThat(ids(serial.get("monthlyExpenses"))).contains(committed[0]);
+            serial.get("monthlyExpenses").removeIf(row -> row.get("id").asLong() == committed[0]);
+            assertThat(parallel).isEqualTo(serial);
+        } finally {
+            if (committed[0] != null) jdbcTemplate.update("DELETE FROM monthly_expenses WHERE id = ?", committed[0]);
+        }
+    }
+
+    private static List<Long> ids(List<JsonNode> rows) {
+        return rows.stream().map(row -> row.get("id").asLong()).toList();
+    }
+
+    /** Collects every table as JSON rows; a parallel sink only accepts spooled tables, a serial one only rows. */
+    private class CollectingSink implements DataTransferService.ExportSink {
+        final Map<String, List<JsonNode>> tables;
+        final boolean parallel;
+        List<JsonNode> current;
+
+        CollectingSink(Map<String, List<JsonNode>> tables, boolean parallel) {
+            this.tables = tables;
+            this.parallel = parallel;
+        }
+
+        @Override
+        public void beginTable(String name) {
+            if (parallel) fail("parallel export fell back to serial for " + name);
+            current = new ArrayList<>();
+            tables.put(name, current);
+        }
+
+        @Override
+        public void row(Object row) throws IOException {
+            current.add(objectMapper.readTree(objectMapper.writeValueAsBytes(row)));
+        }
+
+        @Override
+        public void endTable(String name, Collection<Long> removedIds) {
+        }
+
+        @Override
+        public ObjectMapper spoolMapper() {
+            return parallel ? objectMapper : null;
+        }
+
+        @Override
+        public void spooledTable(String name, List<DataTransferService.SpooledChunk> chunks,
+                                 Collection<Long> removedIds) throws IOException {
+            List<JsonNode> rows = new ArrayList<>();
+            for (DataTransferService.SpooledChunk chunk : chunks) {
+                objectMapper.readTree(chunk.file().toFile()).forEach(rows::add);
+            }
+            tables.put(name, rows);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.boardinghouse.service;
+
+import com.boardinghouse.PostgresIntegrationTest;
+import com.boardinghouse.TestData;
+import com.boardinghouse.dto.InventoryItemDto;
+import com.boardinghouse.dto.InventoryTransactionDto;
+import com.boardinghouse.entity.InventoryTransactionType;
+import com.boardinghouse.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Stock only moves through transactions: concurrent sales never oversell or lose an update,
+ * and editing an item never touches its stock.
+ */
+class InventoryConcurrentSaleTest extends PostgresIntegrationTest {
+
+    private static final int THREADS = 50;
+    private static final BigDecimal INITIAL_STOCK = new BigDecimal("30");
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentSalesNeverOversell() throws Exception {
+        long itemId = inventoryService.create(item(INITIAL_STOCK)).getId();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean selling = new AtomicBoolean(true);
+        AtomicReference<BigDecimal> lowest = new AtomicReference<>(INITIAL_STOCK);
+        Thread sampler = new Thread(() -> {
+            while (selling.get()) {
+                BigDecimal stock = stock(itemId);
+                lowest.accumulateAndGet(stock, BigDecimal::min);
+            }
+        });
+        try {
+            List<Future<BigDecimal>> sales = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                BigDecimal quantity = BigDecimal.valueOf(1 + i % 2); // 75 wanted, 30 on hand
+                sales.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        inventoryService.createTransaction(sale(itemId, quantity));
+                        return quantity;
+                    } catch (BadRequestException e) {
+                        return BigDecimal.ZERO; // insufficient stock
+                    }
+                }));
+            }
+            sampler.start();
+            start.countDown();
+
+            BigDecimal sold = BigDecimal.ZERO;
+            for (Future<BigDecimal> sale : sales) sold = sold.add(sale.get(60, TimeUnit.SECONDS));
+            selling.set(false);
+            sampler.join();
+
+            assertThat(sold).isPositive();
+            assertThat(stock(itemId)).isEqualByComparingTo(INITIAL_STOCK.subtract(sold)).isNotNegative();
+            assertThat(jdbcTemplate.queryForObject("SELECT COALESCE(SUM(quantity), 0) FROM inventory_transactions "
+                    + "WHERE item_id = ? AND type = 'SALE'", BigDecimal.class, itemId)).isEqualByComparingTo(sold);
+            assertThat(lowest.get()).isNotNegative();
+        } finally {
+            selling.set(false);
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void updateLeavesStockAlone() {
+        InventoryItemDto created = inventoryService.create(item(INITIAL_STOCK));
+        inventoryService.createTransaction(sale(created.getId(), BigDecimal.ONE));
+
+        InventoryItemDto edit = item(new BigDecimal("999"));
+        edit.setName("Renamed");
+        inventoryService.update(created.getId(), edit);
+        edit.setQuantityOnHand(null);
+        inventoryService.update(created.getId(), edit);
+
+        assertThat(stock(created.getId())).isEqualByComparingTo("29");
+    }
+
+    private BigDecimal stock(long itemId) {
+        return jdbcTemplate.queryForObject("SELECT quantity_on_hand FROM inventory_items WHERE id = ?", BigDecimal.class, itemId);
+    }
+
+    private static InventoryItemDto item(BigDecimal stock) {
+        InventoryItemDto dto = new InventoryItemDto();
+        dto.setSku(TestData.code("SKU"));
+        dto.setName(TestData.code("Nước suối"));
+        dto.setCategory("DRINK");
+        dto.setUnit("chai");
+        dto.setItemGroup("PACKAGED");
+        dto.setPurchasePrice(new BigDecimal("5000"));
+        dto.setSalePrice(new BigDecimal("10000"));
+        dto.setQuantityOnHand(stock);
+        return dto;
+    }
+
+    private static InventoryTransactionDto sale(long itemId, BigDecimal quantity) {
+        InventoryTransactionDto dto = new InventoryTransactionDto();
+        dto.setItemId(itemId);
+        dto.setType(InventoryTransactionType.SALE);
+        dto.setQuantity(quantity);
+        dto.setUnitPrice(new BigDecimal("10000"));
+        return dto;
+    }
+}
@@ -0,0 +1,50 @@
+package com.boardinghouse.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A stored archive is checked, through the BackupStore interface, against the SHA-256 put()
+ * recorded, and is never overwritten by a later archive with the same name.
+ */
+class LocalBackupStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void storedArchiveMatchesItsChecksumUntilChanged() throws Exception {
+        BackupStore store = new LocalBackupStore(dir.resolve("store").toString());
+        Path archive = Files.writeString(dir.resolve("backup.zip"), "archive bytes");
+        BackupStore.StoredArtifact stored = store.put(archive, "backup.zip");
+
+        assertThat(stored.sha256()).isEqualTo(BackupStore.sha256(dir.resolve("store").resolve(stored.location())));
+        assertThat(matches(store, stored.location(), stored.sha256())).isTrue();
+        assertThat(matches(store, stored.location(), null)).isTrue();
+
+        store.read(stored.location(), file -> Files.writeString(file, "!", StandardOpenOption.APPEND));
+        assertThat(matches(store, stored.location(), stored.sha256())).isFalse();
+    }
+
+    @Test
+    void sameFileNameDoesNotOverwriteEarlierArchive() throws Exception {
+        BackupStore store = new LocalBackupStore(dir.resolve("store").toString());
+        BackupStore.StoredArtifact first = store.put(Files.writeString(dir.resolve("a.zip"), "first"), "backup.zip");
+        BackupStore.StoredArtifact second = store.put(Files.writeString(dir.resolve("b.zip"), "second"), "backup.zip");
+
+        assertThat(second.location()).isNotEqualTo(first.location()).endsWith("backup-2.zip");
+        assertThat(matches(store, first.location(), first.sha256())).isTrue();
+        assertThat(matches(store, second.location(), second.sha256())).isTrue();
+    }
+
+    private static boolean matches(BackupStore store, String location, String sha256) throws IOException {
+        return store.<Boolean, IOException>read(location, file -> store.checksumMatches(file, sha256));
+    }
+}
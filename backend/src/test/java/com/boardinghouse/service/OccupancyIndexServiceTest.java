@@ -0,0 +1,104 @@
+package com.boardinghouse.service;
+
+import com.boardinghouse.repository.ContractRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The index, after any sequence of contract and room changes, answers exactly like a scan of
+ * the stays the database currently holds (simulated here by {@code database}).
+ */
+class OccupancyIndexServiceTest {
+
+    private static final LocalDate BASE = LocalDate.of(2025, 1, 1);
+
+    private final Map<Long, OccupancyIndexService.Stay> database = new HashMap<>();
+    private final Map<Long, Long> roomOf = new HashMap<>();
+    private final Random random = new Random(42);
+    private OccupancyIndexService index;
+
+    @BeforeEach
+    void setUp() {
+        ContractRepository contracts = mock(ContractRepository.class);
+        when(contracts.findAllStays()).thenAnswer(inv -> rows(database.values()));
+        when(contracts.findStayById(anyLong())).thenAnswer(inv -> {
+            OccupancyIndexService.Stay s = database.get(inv.<Long>getArgument(0));
+            return s != null ? rows(List.of(s)) : List.of();
+        });
+        when(contracts.findStaysByRoomId(anyLong())).thenAnswer(inv -> rows(database.values().stream()
+                .filter(s -> roomOf.get(s.contractId()).equals(inv.getArgument(0))).toList()));
+        index = new OccupancyIndexService(contracts);
+    }
+
+    @Test
+    void matchesScanAfterRandomContractChanges() {
+        for (long id = 1; id <= 300; id++) put(id, 1 + random.nextLong(20), 1 + random.nextLong(3));
+        assertMatchesScan();
+
+        for (int i = 0; i < 2000; i++) {
+            long id = 1 + random.nextLong(400);
+            if (random.nextInt(5) == 0) database.remove(id);
+            else put(id, roomOf.getOrDefault(id, 1 + random.nextLong(20)), 1 + random.nextLong(3));
+            index.contractChanged(id);
+            if (i % 100 == 0) assertMatchesScan();
+        }
+        assertMatchesScan();
+    }
+
+    @Test
+    void roomMoveCarriesItsStaysToTheOtherHouse() {
+        for (long id = 1; id <= 50; id++) put(id, 1 + id % 5, 1 + id % 5 % 2);
+        assertMatchesScan();
+
+        // Room 3 (house 2) moves to house 7: every stay of it changes house, nothing else does
+        database.replaceAll((id, s) -> roomOf.get(id) == 3L
+                ? new OccupancyIndexService.Stay(id, 7L, s.startDate(), s.endDate()) : s);
+        index.roomChanged(3L);
+
+        assertMatchesScan();
+        assertThat(index.overlapping(7L, BASE, BASE.plusYears(1))).isNotEmpty()
+                .allSatisfy(s -> assertThat(roomOf.get(s.contractId())).isEqualTo(3L));
+    }
+
+    private void put(long id, long room, long house) {
+        LocalDate start = BASE.plusDays(random.nextInt(120));
+        database.put(id, new OccupancyIndexService.Stay(id, house, start, start.plusDays(random.nextInt(30))));
+        roomOf.put(id, room);
+    }
+
+    private void assertMatchesScan() {
+        for (int q = 0; q < 50; q++) {
+            LocalDate from = BASE.plusDays(random.nextInt(160) - 10);
+            LocalDate to = from.plusDays(random.nextInt(20));
+            Long house = random.nextInt(4) == 0 ? null : Long.valueOf(1 + random.nextInt(7));
+            List<OccupancyIndexService.Stay> expected = database.values().stream()
+                    .filter(s -> house == null || s.boardingHouseId().equals(house))
+                    .filter(s -> !s.endDate().isBefore(from) && !s.startDate().isAfter(to))
+                    .sorted(Comparator.comparing(OccupancyIndexService.Stay::startDate)
+                            .thenComparing(OccupancyIndexService.Stay::contractId))
+                    .toList();
+            assertThat(index.overlapping(house, from, to)).containsExactlyElementsOf(expected);
+        }
+    }
+
+    private static List<Object[]> rows(Iterable<OccupancyIndexService.Stay> stays) {
+        List<Object[]> rows = new ArrayList<>();
+        for (OccupancyIndexService.Stay s : stays) {
+            rows.add(new Object[]{s.contractId(), s.boardingHouseId(), s.startDate(), s.endDate()});
+        }
+        return rows;
+    }
+}
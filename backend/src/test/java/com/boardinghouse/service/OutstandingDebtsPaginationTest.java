@@ -0,0 +1,54 @@
+package com.boardinghouse.service;
+
+import com.boardinghouse.PostgresIntegrationTest;
+import com.boardinghouse.TestData;
+import com.boardinghouse.dto.OutstandingDebtDto;
+import com.boardinghouse.entity.BoardingHouse;
+import com.boardinghouse.entity.Contract;
+import com.boardinghouse.entity.Invoice;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Walking the outstanding-debts report page by page returns the unpaged list: every unpaid
+ * invoice once, oldest due date first, however early or late its due date is.
+ */
+class OutstandingDebtsPaginationTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private TestData data;
+
+    @Autowired
+    private ReportsService reportsService;
+
+    @Test
+    void pagesConcatenateToUnpagedList() {
+        BoardingHouse house = data.house();
+        Contract c = data.contract(data.room(house), LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 5), "100000");
+        LocalDate[] dueDates = {
+                LocalDate.of(1850, 6, 1), LocalDate.of(1900, 1, 1), LocalDate.of(2025, 1, 5),
+                LocalDate.of(2025, 1, 5), LocalDate.of(2025, 1, 5), LocalDate.of(2999, 12, 31)};
+        for (LocalDate due : dueDates) data.invoice(c, due, "1000000");
+        Invoice paid = data.invoice(c, LocalDate.of(2025, 1, 5), "1000000");
+        data.payment(paid, LocalDate.of(2025, 1, 5), "1000000");
+
+        List<OutstandingDebtDto> unpaged = reportsService.getOutstandingDebts(house.getId(), null, null, null);
+        List<OutstandingDebtDto> paged = new ArrayList<>();
+        List<OutstandingDebtDto> page = reportsService.getOutstandingDebts(house.getId(), null, null, 2);
+        while (!page.isEmpty()) {
+            paged.addAll(page);
+            OutstandingDebtDto last = page.get(page.size() - 1);
+            page = reportsService.getOutstandingDebts(house.getId(), last.getDueDate(), last.getInvoiceId(), 2);
+        }
+
+        assertThat(unpaged).extracting(OutstandingDebtDto::getDueDate).containsExactly(dueDates);
+        assertThat(paged).extracting(OutstandingDebtDto::getInvoiceId)
+                .containsExactlyElementsOf(unpaged.stream().map(OutstandingDebtDto::getInvoiceId).toList());
+    }
+}
@@ -0,0 +1,120 @@
+package com.boardinghouse.service;
+
+import com.boardinghouse.PostgresIntegrationTest;
+import com.boardinghouse.TestData;
+import com.boardinghouse.dto.RevenueByBoardingHouseDto;
+import com.boardinghouse.entity.BoardingHouse;
+import com.boardinghouse.entity.Contract;
+import com.boardinghouse.entity.ContractStatus;
+import com.boardinghouse.entity.Invoice;
+import com.boardinghouse.entity.Room;
+import com.boardinghouse.repository.ContractRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Revenue by boarding house from the grouped queries must match the same totals computed live
+ * from the raw tables, and filtering by a boarding house must return exactly that house's row
+ * of the unfiltered report.
+ */
+class RevenueByBoardingHouseParityTest extends PostgresIntegrationTest {
+
+    private static final LocalDate FROM = LocalDate.of(2024, 3, 1);
+    private static final LocalDate TO = LocalDate.of(2024, 4, 30);
+
+    @Autowired
+    private TestData data;
+
+    @Autowired
+    private ReportsService reportsService;
+
+    @Autowired
+    private ContractRepository contractRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void groupedTotalsMatchLiveTotals() {
+        BoardingHouse first = houseWithActivity("180000");
+        BoardingHouse second = houseWithActivity("260000");
+
+        List<RevenueByBoardingHouseDto> all = reportsService.getRevenueByBoardingHouse(FROM, TO, null);
+        for (BoardingHouse house : List.of(first, second)) {
+            RevenueByBoardingHouseDto row = all.stream()
+                    .filter(r -> r.getBoardingHouseId().equals(house.getId())).findFirst().orElseThrow();
+            assertThat(row.getBoardingHouseName()).isEqualTo(house.getName());
+            assertThat(row.getTotalRevenue()).isEqualByComparingTo(liveRevenue(house));
+            assertThat(row.getInvoiceCount()).isEqualTo(liveInvoiceCount(house, false));
+            assertThat(row.getPaidInvoiceCount()).isEqualTo(liveInvoiceCount(house, true));
+        }
+    }
+
+    @Test
+    void filterReturnsOnlyThatHouse() {
+        BoardingHouse first = houseWithActivity("180000");
+        houseWithActivity("260000");
+
+        List<RevenueByBoardingHouseDto> filtered = reportsService.getRevenueByBoardingHouse(FROM, TO, first.getId());
+        RevenueByBoardingHouseDto unfiltered = reportsService.getRevenueByBoardingHouse(FROM, TO, null).stream()
+                .filter(r -> r.getBoardingHouseId().equals(first.getId())).findFirst().orElseThrow();
+
+        assertThat(filtered).singleElement().usingRecursiveComparison().isEqualTo(unfiltered);
+    }
+
+    /**
+     * One stay inside the range, one overlapping its start, one outside it, and a DRAFT stay,
+     * with a guest charge and an invoice each.
+     */
+    private BoardingHouse houseWithActivity(String dailyRate) {
+        BoardingHouse house = data.house();
+        Room room = data.room(house);
+        stay(room, LocalDate.of(2024, 3, 10), LocalDate.of(2024, 3, 14), dailyRate, "3000000");
+        stay(room, LocalDate.of(2024, 2, 25), LocalDate.of(2024, 3, 2), dailyRate, "500000");
+        stay(room, LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 5), dailyRate, "0");
+        Contract draft = stay(room, LocalDate.of(2024, 4, 1), LocalDate.of(2024, 4, 3), dailyRate, "0");
+        draft.setStatus(ContractStatus.DRAFT);
+        contractRepository.save(draft);
+        return house;
+    }
+
+    private Contract stay(Room room, LocalDate start, LocalDate end, String dailyRate, String paid) {
+        Contract c = data.contract(room, start, end, dailyRate);
+        data.charge(c, start, "45000");
+        Invoice invoice = data.invoice(c, end, "1000000");
+        if (new BigDecimal(paid).signum() > 0) data.payment(invoice, end, paid);
+        return c;
+    }
+
+    private BigDecimal liveRevenue(BoardingHouse house) {
+        BigDecimal[] total = {BigDecimal.ZERO};
+        jdbcTemplate.query("SELECT c.start_date, c.end_date, c.daily_rate FROM contracts c JOIN rooms r ON r.id = c.room_id " +
+                "WHERE r.boarding_house_id = ? AND c.status <> 'DRAFT' AND c.start_date <= ? AND c.end_date >= ?", rs -> {
+            LocalDate start = rs.getDate(1).toLocalDate();
+            LocalDate end = rs.getDate(2).toLocalDate();
+            long nights = Math.max(1, ChronoUnit.DAYS.between(start, end));
+            total[0] = total[0].add(rs.getBigDecimal(3).multiply(BigDecimal.valueOf(nights)));
+        }, house.getId(), TO, FROM);
+        BigDecimal charges = jdbcTemplate.queryForObject("SELECT COALESCE(SUM(g.amount), 0) FROM guest_service_charges g " +
+                "JOIN contracts c ON c.id = g.contract_id JOIN rooms r ON r.id = c.room_id " +
+                "WHERE r.boarding_house_id = ? AND c.status <> 'DRAFT' AND g.charge_date BETWEEN ? AND ?",
+                BigDecimal.class, house.getId(), FROM, TO);
+        return total[0].add(charges);
+    }
+
+    private long liveInvoiceCount(BoardingHouse house, boolean paidOnly) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM invoices i JOIN contracts c ON c.id = i.contract_id " +
+                "JOIN rooms r ON r.id = i.room_id WHERE r.boarding_house_id = ? AND c.status <> 'DRAFT' " +
+                "AND make_date(i.period_year, i.period_month, 1) BETWEEN date_trunc('month', ?::date) AND ? " +
+                (paidOnly ? "AND i.total_amount <= (SELECT COALESCE(SUM(p.paid_amount), 0) FROM payments p WHERE p.invoice_id = i.id)" : ""),
+                Long.class, house.getId(), FROM, TO);
+    }
+}
@@ -0,0 +1,177 @@
+package com.boardinghouse.service;
+
+import com.boardinghouse.PostgresIntegrationTest;
+import com.boardinghouse.TestData;
+import com.boardinghouse.dto.PaymentDto;
+import com.boardinghouse.dto.RevenueByMonthDto;
+import com.boardinghouse.entity.BoardingHouse;
+import com.boardinghouse.entity.Contract;
+import com.boardinghouse.entity.ContractStatus;
+import com.boardinghouse.entity.Invoice;
+import com.boardinghouse.entity.PaymentMethod;
+import com.boardinghouse.entity.Room;
+import com.boardinghouse.repository.ContractRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Revenue-by-month read from revenue_monthly_rollup must equal the same figures computed live
+ * from contracts, guest charges, payments and invoices, both after a full rebuild and after
+ * write paths refreshed individual months.
+ */
+class RevenueRollupParityTest extends PostgresIntegrationTest {
+
+    private static final int YEAR = 2025;
+
+    @Autowired
+    private TestData data;
+
+    @Autowired
+    private ReportsService reportsService;
+
+    @Autowired
+    private RevenueRollupService rollupService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private ContractRepository contractRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void rebuiltRollupMatchesLiveTotals() {
+        BoardingHouse house = houseWithYearOfActivity();
+        rollupService.rebuild("TEST");
+
+        assertThat(fromRollup(house)).isEqualTo(live(house)).isNotEmpty();
+    }
+
+    @Test
+    void writePathsKeepRollupInStep() {
+        BoardingHouse house = houseWithYearOfActivity();
+        rollupService.rebuild("TEST");
+        Room room = data.room(house);
+        Contract c = data.contract(room, LocalDate.of(YEAR, 6, 10), LocalDate.of(YEAR, 6, 20), "150000");
+        Invoice invoice = data.invoice(c, LocalDate.of(YEAR, 6, 20), "1500000");
+        // Rows written by TestData bypass the contract service, which reports its own writes
+        rollupService.touchContract(contractRepository.findWithDetailsByIdIn(List.of(c.getId())).get(0));
+
+        PaymentDto dto = new PaymentDto();
+        dto.setInvoiceId(invoice.getId());
+        dto.setPaidAmount(new BigDecimal("1500000"));
+        dto.setPaymentDate(LocalDate.of(YEAR, 7, 2).atTime(9, 0));
+        dto.setMethod(PaymentMethod.BANK_TRANSFER);
+        PaymentDto paid = paymentService.create(dto);
+        assertThat(fromRollup(house)).isEqualTo(live(house));
+
+        paymentService.delete(paid.getId());
+        assertThat(fromRollup(house)).isEqualTo(live(house));
+    }
+
+    /** Stays across month and year boundaries, partly and fully paid invoices, and a DRAFT contract. */
+    private BoardingHouse houseWithYearOfActivity() {
+        BoardingHouse house = data.house();
+        Room a = data.room(house);
+        Room b = data.room(house);
+
+        Contract longStay = data.contract(a, LocalDate.of(YEAR - 1, 12, 20), LocalDate.of(YEAR, 2, 5), "200000");
+        Invoice jan = data.invoice(longStay, LocalDate.of(YEAR, 1, 31), "4000000");
+        data.payment(jan, LocalDate.of(YEAR, 1, 31), "4000000");
+        Invoice feb = data.invoice(longStay, LocalDate.of(YEAR, 2, 5), "3000000");
+        data.payment(feb, LocalDate.of(YEAR, 3, 1), "1000000");
+        data.charge(longStay, LocalDate.of(YEAR, 1, 3), "75000");
+        data.charge(longStay, LocalDate.of(YEAR, 2, 1), "120000");
+
+        Contract shortStay = data.contract(b, LocalDate.of(YEAR, 3, 30), LocalDate.of(YEAR, 4, 2), "350000");
+        Invoice mar = data.invoice(shortStay, LocalDate.of(YEAR, 4, 2), "1050000");
+        data.payment(mar, LocalDate.of(YEAR, 4, 2), "1050000");
+        data.charge(shortStay, LocalDate.of(YEAR, 3, 31), "40000");
+
+        Contract draft = data.contract(b, LocalDate.of(YEAR, 5, 1), LocalDate.of(YEAR, 5, 3), "500000");
+        draft.setStatus(ContractStatus.DRAFT);
+        contractRepository.save(draft);
+        data.charge(draft, LocalDate.of(YEAR, 5, 2), "999000");
+        return house;
+    }
+
+    private Map<Integer, Month> fromRollup(BoardingHouse house) {
+        Map<Integer, Month> months = new TreeMap<>();
+        for (RevenueByMonthDto dto : reportsService.getRevenueByMonth(YEAR, house.getId())) {
+            Month m = new Month(dto.getEarnedRoomRevenue(), dto.getEarnedServiceRevenue(), dto.getTotalRevenue(),
+                    dto.getInvoiceCount(), dto.getPaidInvoiceCount());
+            if (!m.isEmpty()) months.put(dto.getMonth(), m);
+        }
+        return months;
+    }
+
+    /** The report's definitions, evaluated straight on the raw tables. */
+    private Map<Integer, Month> live(BoardingHouse house) {
+        Map<Integer, Month> months = new TreeMap<>();
+        for (int month = 1; month <= 12; month++) months.put(month, Month.EMPTY);
+
+        jdbcTemplate.query("SELECT c.start_date, c.end_date, c.daily_rate FROM contracts c JOIN rooms r ON r.id = c.room_id " +
+                "WHERE r.boarding_house_id = ? AND c.status <> 'DRAFT' AND c.daily_rate > 0", rs -> {
+            LocalDate start = rs.getDate(1).toLocalDate();
+            LocalDate end = rs.getDate(2).toLocalDate();
+            BigDecimal cost = rs.getBigDecimal(3).multiply(BigDecimal.valueOf(Math.max(1, ChronoUnit.DAYS.between(start, end))));
+            for (int month = 1; month <= 12; month++) {
+                YearMonth ym = YearMonth.of(YEAR, month);
+                if (end.isBefore(ym.atDay(1)) || start.isAfter(ym.atEndOfMonth())) continue;
+                months.merge(month, new Month(cost, BigDecimal.ZERO, BigDecimal.ZERO, 0, 0), Month::plus);
+            }
+        }, house.getId());
+        jdbcTemplate.query("SELECT EXTRACT(MONTH FROM g.charge_date), SUM(g.amount) FROM guest_service_charges g " +
+                "JOIN contracts c ON c.id = g.contract_id JOIN rooms r ON r.id = c.room_id " +
+                "WHERE r.boarding_house_id = ? AND c.status <> 'DRAFT' AND EXTRACT(YEAR FROM g.charge_date) = ? GROUP BY 1", rs -> {
+            months.merge(rs.getInt(1), new Month(BigDecimal.ZERO, rs.getBigDecimal(2), BigDecimal.ZERO, 0, 0), Month::plus);
+        }, house.getId(), YEAR);
+        jdbcTemplate.query("SELECT EXTRACT(MONTH FROM p.payment_date), SUM(p.paid_amount) FROM payments p " +
+                "JOIN invoices i ON i.id = p.invoice_id JOIN rooms r ON r.id = i.room_id " +
+                "WHERE r.boarding_house_id = ? AND EXTRACT(YEAR FROM p.payment_date) = ? GROUP BY 1", rs -> {
+            months.merge(rs.getInt(1), new Month(BigDecimal.ZERO, BigDecimal.ZERO, rs.getBigDecimal(2), 0, 0), Month::plus);
+        }, house.getId(), YEAR);
+        jdbcTemplate.query("SELECT i.period_month, COUNT(*), " +
+                "COUNT(*) FILTER (WHERE i.total_amount <= (SELECT COALESCE(SUM(p.paid_amount), 0) FROM payments p WHERE p.invoice_id = i.id)) " +
+                "FROM invoices i JOIN rooms r ON r.id = i.room_id WHERE r.boarding_house_id = ? AND i.period_year = ? GROUP BY 1", rs -> {
+            months.merge(rs.getInt(1), new Month(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, rs.getLong(2), rs.getLong(3)), Month::plus);
+        }, house.getId(), YEAR);
+
+        months.values().removeIf(Month::isEmpty);
+        return months;
+    }
+
+    /** Amounts compared by value, so numeric(38,2) and computed scales match. */
+    private record Month(BigDecimal earnedRoom, BigDecimal earnedService, BigDecimal collected,
+                         long invoices, long paidInvoices) {
+        static final Month EMPTY = new Month(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, 0, 0);
+
+        Month {
+            earnedRoom = earnedRoom.stripTrailingZeros();
+            earnedService = earnedService.stripTrailingZeros();
+            collected = collected.stripTrailingZeros();
+        }
+
+        Month plus(Month o) {
+            return new Month(earnedRoom.add(o.earnedRoom), earnedService.add(o.earnedService), collected.add(o.collected),
+                    invoices + o.invoices, paidInvoices + o.paidInvoices);
+        }
+
+        boolean isEmpty() {
+            return equals(EMPTY);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.boardinghouse.service;
+
+import com.boardinghouse.PostgresIntegrationTest;
+import com.boardinghouse.TestData;
+import com.boardinghouse.dto.RoomDto;
+import com.boardinghouse.entity.BoardingHouse;
+import com.boardinghouse.entity.Contract;
+import com.boardinghouse.entity.Room;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Moving a room to another boarding house moves its stays in the occupancy index. */
+class RoomMoveOccupancyTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private TestData data;
+
+    @Autowired
+    private RoomService roomService;
+
+    @Autowired
+    private OccupancyIndexService occupancyIndex;
+
+    @Test
+    void staysFollowTheRoom() {
+        LocalDate today = LocalDate.now();
+        BoardingHouse from = data.house();
+        BoardingHouse to = data.house();
+        Room room = data.room(from);
+        Contract stay = data.contract(room, today.minusDays(2), today.plusDays(2), "250000");
+        data.refreshCaches();
+        assertThat(occupancyIndex.onDay(from.getId(), today)).extracting(OccupancyIndexService.Stay::contractId)
+                .containsExactly(stay.getId());
+
+        RoomDto dto = new RoomDto();
+        dto.setCode(room.getCode());
+        dto.setBaseRent(room.getBaseRent());
+        dto.setBoardingHouseId(to.getId());
+        roomService.update(room.getId(), dto);
+
+        assertThat(occupancyIndex.onDay(from.getId(), today)).isEmpty();
+        assertThat(occupancyIndex.onDay(to.getId(), today)).extracting(OccupancyIndexService.Stay::boardingHouseId)
+                .containsExactly(to.getId());
+    }
+}
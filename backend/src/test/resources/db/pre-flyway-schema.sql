@@ -0,0 +1,454 @@
+-- A database created by the pre-Flyway application (ddl-auto: update): the DDL Hibernate
+-- generated for the entities of the first commit. FlywayUpgradeTest migrates it up.
+
+create table audit_logs (
+    id bigserial not null,
+    timestamp timestamp(6) not null,
+    user_id bigint,
+    ip_address varchar(45),
+    action varchar(50) not null,
+    module varchar(50) not null,
+    details TEXT,
+    primary key (id)
+);
+
+create table backup_config (
+    enabled boolean not null,
+    id bigserial not null,
+    updated_at timestamp(6),
+    cron_expression varchar(50) not null,
+    schedule_description varchar(100),
+    updated_by varchar(100),
+    email_recipients TEXT,
+    primary key (id)
+);
+
+create table backup_history (
+    email_sent boolean,
+    completed_at timestamp(6),
+    created_at timestamp(6) not null,
+    file_size_bytes bigint,
+    id bigserial not null,
+    status varchar(20) not null,
+    trigger_type varchar(20) not null,
+    triggered_by varchar(100),
+    email_sent_to varchar(255),
+    error_message TEXT,
+    file_name varchar(255),
+    primary key (id)
+);
+
+create table boarding_houses (
+    number_of_floors integer,
+    id bigserial not null,
+    address varchar(255) not null,
+    description varchar(255),
+    name varchar(255) not null,
+    notes varchar(255),
+    primary key (id)
+);
+
+create table contract_tenants (
+    contract_id bigint not null,
+    tenant_id bigint not null
+);
+
+create table contracts (
+    daily_rate numeric(38,2),
+    deposit numeric(38,2),
+    end_date date not null,
+    monthly_rent numeric(38,2),
+    room_released boolean,
+    start_date date not null,
+    termination_date date,
+    id bigserial not null,
+    main_tenant_id bigint not null,
+    room_id bigint not null,
+    billing_cycle varchar(255) not null check (billing_cycle in ('MONTHLY','QUARTERLY','YEARLY')),
+    code varchar(255) not null unique,
+    status varchar(255) not null check (status in ('DRAFT','ACTIVE','TERMINATED','EXPIRED')),
+    termination_reason varchar(255),
+    primary key (id)
+);
+
+create table guest_service_charges (
+    amount numeric(38,2) not null,
+    charge_date date not null,
+    created_date date,
+    quantity numeric(38,2) not null,
+    unit_price numeric(38,2) not null,
+    contract_id bigint not null,
+    id bigserial not null,
+    inventory_item_id bigint,
+    room_id bigint not null,
+    description varchar(255) not null,
+    note varchar(255),
+    primary key (id)
+);
+
+create table housekeeping_tasks (
+    auto_generated boolean not null,
+    scheduled_date date not null,
+    assigned_to bigint,
+    completed_at timestamp(6),
+    contract_id bigint,
+    created_at timestamp(6) not null,
+    id bigserial not null,
+    room_id bigint not null,
+    started_at timestamp(6),
+    notes TEXT,
+    priority varchar(255) not null check (priority in ('LOW','NORMAL','HIGH','URGENT')),
+    status varchar(255) not null check (status in ('PENDING','IN_PROGRESS','DONE','SKIPPED')),
+    title varchar(255) not null,
+    primary key (id)
+);
+
+create table inventory_items (
+    created_date date,
+    is_active boolean,
+    purchase_price numeric(38,2) not null,
+    quantity_on_hand numeric(38,2) not null,
+    reorder_level numeric(38,2) not null,
+    sale_price numeric(38,2) not null,
+    boarding_house_id bigint,
+    id bigserial not null,
+    category varchar(255),
+    item_group varchar(255),
+    name varchar(255) not null,
+    note varchar(255),
+    sku varchar(255) not null unique,
+    unit varchar(255),
+    primary key (id)
+);
+
+create table inventory_transactions (
+    amount numeric(38,2) not null,
+    created_date date,
+    quantity numeric(38,2) not null,
+    unit_price numeric(38,2) not null,
+    id bigserial not null,
+    item_id bigint not null,
+    reversed_by_transaction_id bigint,
+    note varchar(255),
+    reference varchar(255),
+    type varchar(255) not null check (type in ('PURCHASE','SALE','ADJUSTMENT','RETURN')),
+    primary key (id)
+);
+
+create table invoice_items (
+    amount numeric(38,2),
+    new_index numeric(38,2),
+    old_index numeric(38,2),
+    quantity numeric(38,2),
+    unit_price numeric(38,2),
+    id bigserial not null,
+    invoice_id bigint not null,
+    description varchar(255),
+    type varchar(255) not null check (type in ('RENT','SERVICE','OTHER')),
+    primary key (id)
+);
+
+create table invoices (
+    created_date date,
+    due_date date not null,
+    period_month integer not null,
+    period_year integer not null,
+    total_amount numeric(38,2) not null,
+    contract_id bigint not null,
+    id bigserial not null,
+    room_id bigint not null,
+    code varchar(255) not null unique,
+    status varchar(255) not null check (status in ('UNPAID','PARTIALLY_PAID','PAID','OVERDUE')),
+    primary key (id)
+);
+
+create table monthly_expenses (
+    amount numeric(38,2) not null,
+    created_date date,
+    month integer not null,
+    year integer not null,
+    boarding_house_id bigint not null,
+    id bigserial not null,
+    category varchar(255) not null,
+    description varchar(255),
+    note varchar(255),
+    primary key (id)
+);
+
+create table payments (
+    paid_amount numeric(38,2) not null,
+    id bigserial not null,
+    invoice_id bigint not null,
+    payment_date timestamp(6) not null,
+    method varchar(255) not null check (method in ('CASH','BANK_TRANSFER','MOMO','OTHER')),
+    note varchar(255),
+    transaction_code varchar(255),
+    primary key (id)
+);
+
+create table room_photos (
+    is_primary boolean not null,
+    sort_order integer not null,
+    id bigserial not null,
+    room_id bigint not null,
+    uploaded_at timestamp(6) not null,
+    caption varchar(255),
+    file_path varchar(255) not null,
+    original_name varchar(255),
+    primary key (id)
+);
+
+create table room_services (
+    fixed_price numeric(38,2),
+    price_per_unit numeric(38,2),
+    id bigserial not null,
+    room_id bigint not null,
+    service_type_id bigint not null,
+    primary key (id)
+);
+
+create table rooms (
+    area numeric(38,2),
+    base_rent numeric(38,2) not null,
+    floor integer,
+    max_occupants integer,
+    boarding_house_id bigint not null,
+    id bigserial not null,
+    code varchar(255) not null unique,
+    status varchar(255) not null check (status in ('AVAILABLE','OCCUPIED','MAINTENANCE')),
+    primary key (id)
+);
+
+create table service_catalog (
+    default_price numeric(38,2) not null,
+    is_active boolean,
+    sort_order integer,
+    boarding_house_id bigint,
+    id bigserial not null,
+    inventory_item_id bigint,
+    category varchar(255) not null,
+    icon varchar(255),
+    name varchar(255) not null,
+    unit varchar(255),
+    primary key (id)
+);
+
+create table service_catalog_recipes (
+    quantity_per_unit numeric(10,4) not null,
+    catalog_id bigint not null,
+    id bigserial not null,
+    inventory_item_id bigint not null,
+    primary key (id)
+);
+
+create table service_types (
+    is_active boolean,
+    price_per_unit numeric(38,2),
+    boarding_house_id bigint,
+    id bigserial not null,
+    category varchar(255) not null check (category in ('ELECTRICITY','WATER','FIXED')),
+    name varchar(255) not null unique,
+    unit varchar(255),
+    primary key (id)
+);
+
+create table tenants (
+    date_of_birth date,
+    id bigserial not null,
+    user_id bigint unique,
+    email varchar(255),
+    full_name varchar(255) not null,
+    identity_number varchar(255),
+    passport_number varchar(255),
+    permanent_address varchar(255),
+    phone varchar(255),
+    status varchar(255) not null check (status in ('ACTIVE','INACTIVE')),
+    primary key (id)
+);
+
+create table user_permissions (
+    user_id bigint not null,
+    permission varchar(255)
+);
+
+create table user_roles (
+    user_id bigint not null,
+    role varchar(255) check (role in ('ADMIN','STAFF','TENANT'))
+);
+
+create table users (
+    active boolean not null,
+    id bigserial not null,
+    email varchar(255),
+    full_name varchar(255) not null,
+    password varchar(255) not null,
+    phone varchar(255),
+    profile_picture TEXT,
+    username varchar(255) not null unique,
+    primary key (id)
+);
+
+create index idx_audit_user
+   on audit_logs (user_id);
+
+create index idx_audit_timestamp
+   on audit_logs (timestamp);
+
+create index idx_audit_module
+   on audit_logs (module);
+
+create index idx_backup_timestamp
+   on backup_history (created_at);
+
+create index idx_backup_status
+   on backup_history (status);
+
+alter table if exists audit_logs
+   add constraint FKjs4iimve3y0xssbtve5ysyef0
+   foreign key (user_id)
+   references users;
+
+alter table if exists contract_tenants
+   add constraint FK5ueb6lgjgny7c11f7d51os92v
+   foreign key (tenant_id)
+   references tenants;
+
+alter table if exists contract_tenants
+   add constraint FKdy8564lqd2ug89wqcbar2y661
+   foreign key (contract_id)
+   references contracts;
+
+alter table if exists contracts
+   add constraint FK6ybjab3xsifvgyq8a27afv1gy
+   foreign key (main_tenant_id)
+   references tenants;
+
+alter table if exists contracts
+   add constraint FKju1b0xobla9t8oexrb8lpi8jq
+   foreign key (room_id)
+   references rooms;
+
+alter table if exists guest_service_charges
+   add constraint FKc33m2qunyppnwrofx8cbq58w
+   foreign key (contract_id)
+   references contracts;
+
+alter table if exists guest_service_charges
+   add constraint FKk36e5nndch5swqdxp6m692a1m
+   foreign key (inventory_item_id)
+   references inventory_items;
+
+alter table if exists guest_service_charges
+   add constraint FKsa9u2cr2ycaebbxqi6j5g86d8
+   foreign key (room_id)
+   references rooms;
+
+alter table if exists housekeeping_tasks
+   add constraint FKjrcbm8imq7c2i9y9cc4kqk99m
+   foreign key (assigned_to)
+   references users;
+
+alter table if exists housekeeping_tasks
+   add constraint FK530rr3mc2aicjpk6gdgsi54ul
+   foreign key (contract_id)
+   references contracts;
+
+alter table if exists housekeeping_tasks
+   add constraint FKbuj2qtxq2odlqhj9qivxxvawn
+   foreign key (room_id)
+   references rooms;
+
+alter table if exists inventory_items
+   add constraint FKku5ddl6lnifnclqcygujp52fl
+   foreign key (boarding_house_id)
+   references boarding_houses;
+
+alter table if exists inventory_transactions
+   add constraint FKl6jyry359ycfs63gsme5lwh9q
+   foreign key (item_id)
+   references inventory_items;
+
+alter table if exists invoice_items
+   add constraint FK46ae0lhu1oqs7cv91fn6y9n7w
+   foreign key (invoice_id)
+   references invoices;
+
+alter table if exists invoices
+   add constraint FKeads7q9fktwtsgdwmp1x16eqc
+   foreign key (contract_id)
+   references contracts;
+
+alter table if exists invoices
+   add constraint FKdyk9stbe14c67a8x3pcqg6k5f
+   foreign key (room_id)
+   references rooms;
+
+alter table if exists monthly_expenses
+   add constraint FKavmxyt71e37fcoqb7j5ikai2p
+   foreign key (boarding_house_id)
+   references boarding_houses;
+
+alter table if exists payments
+   add constraint FKrbqec6be74wab8iifh8g3i50i
+   foreign key (invoice_id)
+   references invoices;
+
+alter table if exists room_photos
+   add constraint FKisb559l4g3jn4j39jwha0fu1f
+   foreign key (room_id)
+   references rooms;
+
+alter table if exists room_services
+   add constraint FKewq1euu8r5i0c2f1ejfout7ty
+   foreign key (room_id)
+   references rooms;
+
+alter table if exists room_services
+   add constraint FK14ghy1h2uro02lnmy8qe0iiyv
+   foreign key (service_type_id)
+   references service_types;
+
+alter table if exists rooms
+   add constraint FK34len407m25hgktksiju136n
+   foreign key (boarding_house_id)
+   references boarding_houses;
+
+alter table if exists service_catalog
+   add constraint FKbc3ech48woan0y3wbs4b8po04
+   foreign key (boarding_house_id)
+   references boarding_houses;
+
+alter table if exists service_catalog
+   add constraint FKleq0y7r4li4fwokfqg29dyfes
+   foreign key (inventory_item_id)
+   references inventory_items;
+
+alter table if exists service_catalog_recipes
+   add constraint FKj0etmpnj1k3bq9den2ba17kfh
+   foreign key (catalog_id)
+   references service_catalog;
+
+alter table if exists service_catalog_recipes
+   add constraint FKqbi501ws2i02xlvkornptud2u
+   foreign key (inventory_item_id)
+   references inventory_items;
+
+alter table if exists service_types
+   add constraint FK5hl0etb3q1ao70jr1lw9miwvj
+   foreign key (boarding_house_id)
+   references boarding_houses;
+
+alter table if exists tenants
+   add constraint FK1gbulcqli8dtngbforwml4n4l
+   foreign key (user_id)
+   references users;
+
+alter table if exists user_permissions
+   add constraint FKkowxl8b2bngrxd1gafh13005u
+   foreign key (user_id)
+   references users;
+
+alter table if exists user_roles
+   add constraint FKhfh9dx7w3ubf1co1vdev94g3f
+   foreign key (user_id)
+   references users;
@@ -24,6 +24,7 @@ const BackupHistory = () => {
   const [stats, setStats] = useState(null)
   const [loading, setLoading] = useState(true)
   const [triggering, setTriggering] = useState(false)
+  const [jobProgress, setJobProgress] = useState(null)
   const [page, setPage] = useState(0)
   const [totalPages, setTotalPages] = useState(0)
   const [totalElements, setTotalElements] = useState(0)
@@ -130,13 +131,26 @@ const BackupHistory = () => {
     setShowConfirmModal(false)
     setTriggering(true)
     try {
-      await api.post('/backup/trigger')
-      showToast('Backup thành công! Email đã được gửi.')
+      // The backup runs as a background job; poll its progress until it finishes
+      const res = await api.post('/backup/trigger')
+      await fetchHistory()
+      let job
+      do {
+        await new Promise(resolve => setTimeout(resolve, 2000))
+        job = (await api.get(`/backup/jobs/${res.data.id}`, { skipCache: true })).data
+        setJobProgress(job)
+      } while (job.status === 'QUEUED' || job.status === 'IN_PROGRESS')
+      if (job.status === 'SUCCESS') {
+        showToast(job.result?.emailSent ? 'Backup thành công! Email đã được gửi.' : 'Backup thành công!')
+      } else {
+        showToast('Backup thất bại: ' + (job.result?.errorMessage || ''), 'error')
+      }
       await fetchHistory()
     } catch (err) {
       showToast('Backup thất bại: ' + (err.response?.data?.message || err.message), 'error')
     } finally {
       setTriggering(false)
+      setJobProgress(null)
     }
   }
 
@@ -226,14 +240,16 @@ const BackupHistory = () => {
     const styles = {
       SUCCESS: 'bg-emerald-50 text-emerald-700 border-emerald-200',
       FAILED: 'bg-red-50 text-red-700 border-red-200',
-      IN_PROGRESS: 'bg-amber-50 text-amber-700 border-amber-200'
+      IN_PROGRESS: 'bg-amber-50 text-amber-700 border-amber-200',
+      QUEUED: 'bg-blue-50 text-blue-700 border-blue-200'
     }
     const icons = {
       SUCCESS: <CheckCircle2 className="w-3.5 h-3.5" />,
       FAILED: <XCircle className="w-3.5 h-3.5" />,
-      IN_PROGRESS: <Loader2 className="w-3.5 h-3.5 animate-spin" />
+      IN_PROGRESS: <Loader2 className="w-3.5 h-3.5 animate-spin" />,
+      QUEUED: <Loader2 className="w-3.5 h-3.5" />
     }
-    const labels = { SUCCESS: 'Thành công', FAILED: 'Thất bại', IN_PROGRESS: 'Đang chạy' }
+    const labels = { SUCCESS: 'Thành công', FAILED: 'Thất bại', IN_PROGRESS: 'Đang chạy', QUEUED: 'Đang chờ' }
     return (
       <span className={`inline-flex items-center gap-1.5 px-2.5 py-1 rounded-full text-xs font-semibold border ${styles[status] || 'bg-gray-100 text-gray-700'}`}>
         {icons[status]} {labels[status] || status}
@@ -377,7 +393,9 @@ const BackupHistory = () => {
             className="inline-flex items-center gap-2 px-5 py-2.5 bg-gradient-to-r from-blue-600 to-indigo-600 text-white rounded-xl hover:from-blue-700 hover:to-indigo-700 disabled:opacity-50 disabled:cursor-not-allowed transition-all font-medium shadow-md hover:shadow-lg"
           >
             {triggering ? <Loader2 className="w-4 h-4 animate-spin" /> : <Play className="w-4 h-4" />}
-            {triggering ? 'Đang backup...' : 'Backup ngay'}
+            {triggering
+              ? (jobProgress?.percent != null ? `Đang backup... ${jobProgress.percent}%` : 'Đang backup...')
+              : 'Backup ngay'}
           </button>
         </div>
       </div>
@@ -707,6 +725,7 @@ const BackupHistory = () => {
             <option value="SUCCESS">Thành công</option>
             <option value="FAILED">Thất bại</option>
             <option value="IN_PROGRESS">Đang chạy</option>
+            <option value="QUEUED">Đang chờ</option>
           </select>
           <select
             value={filterTrigger}
@@ -125,8 +125,14 @@ const DataTransfer = () => {
     try {
       const text = await selectedFile.text()
       const data = JSON.parse(text)
-      const response = await api.post('/data-transfer/import', data)
-      setImportResult(response.data)
+      // The import runs as a background job on the backup queue; poll it until it finishes
+      let job = (await api.post('/data-transfer/import', data)).data
+      while (job.status === 'QUEUED' || job.status === 'IN_PROGRESS') {
+        await new Promise(resolve => setTimeout(resolve, 2000))
+        job = (await api.get(`/backup/restore-jobs/${job.jobId}`, { skipCache: true })).data
+      }
+      if (job.status !== 'SUCCESS') throw new Error(job.errorMessage || 'Import thất bại')
+      setImportResult(job)
       setSelectedFile(null)
       if (fileInputRef.current) fileInputRef.current.value = ''
     } catch (err) {
@@ -224,7 +224,8 @@ const Inventory = () => {
         sku: itemForm.sku || generateSKU(itemForm.name, itemForm.category),
         purchasePrice: parseFloat(itemForm.purchasePrice||0),
         salePrice: itemForm.itemGroup === 'PACKAGED' ? 0 : parseFloat(itemForm.salePrice||0),
-        quantityOnHand: parseFloat(itemForm.quantityOnHand||0),
+        // Stock of an existing item only changes through transactions
+        quantityOnHand: editingItem ? undefined : parseFloat(itemForm.quantityOnHand||0),
         reorderLevel: parseFloat(itemForm.reorderLevel||0),
         boardingHouseId: itemForm.boardingHouseId ? parseInt(itemForm.boardingHouseId) : null,
         // Include recipes for INGREDIENT type
@@ -810,9 +811,11 @@ const Inventory = () => {
                 <div className="grid grid-cols-2 gap-3">
                   <div>
                     <label className="block text-[10px] font-black text-slate-400 uppercase tracking-widest mb-1.5">Số lượng nhập</label>
-                    <input type="number" min="0" step="0.1" required value={itemForm.quantityOnHand}
+                    <input type="number" min="0" step="0.1" required value={itemForm.quantityOnHand} disabled={!!editingItem}
                       onChange={e => setItemForm({...itemForm, quantityOnHand: e.target.value})} className={inputCls + ' text-lg font-black'} />
-                    <p className="text-[10px] text-slate-400 mt-0.5 ml-1">{itemForm.unit || 'đơn vị'}</p>
+                    <p className="text-[10px] text-slate-400 mt-0.5 ml-1">
+                      {editingItem ? 'Sửa tồn kho bằng giao dịch Điều chỉnh' : (itemForm.unit || 'đơn vị')}
+                    </p>
                   </div>
                   <div>
                     <label className="block text-[10px] font-black text-slate-400 uppercase tracking-widest mb-1.5">Đơn giá nhập</label>
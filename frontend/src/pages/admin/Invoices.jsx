@@ -59,6 +59,10 @@ const Invoices = () => {
   const PAGE_SIZE = 15
   const [formData, setFormData] = useState({ contractId: '', month: new Date().getMonth() + 1, year: new Date().getFullYear() })
   const [readingsData, setReadingsData] = useState({ contractId: '', month: new Date().getMonth() + 1, year: new Date().getFullYear(), readings: [] })
+  const [showBulkModal, setShowBulkModal] = useState(false)
+  const [bulkData, setBulkData] = useState({ month: new Date().getMonth() + 1, year: new Date().getFullYear() })
+  const [bulkResult, setBulkResult] = useState(null)
+  const [bulkRunning, setBulkRunning] = useState(false)
 
   useEffect(() => { fetchData() }, [])
   useEffect(() => { return eventBus.on(EVENTS.PAYMENT_CHANGED, fetchData) }, [])
@@ -104,6 +108,20 @@ const Invoices = () => {
     } catch (err) { showToast(err.response?.data?.message || 'Failed to generate', 'error') }
   }
 
+  // Month-end billing: every active contract of the selected property in one request
+  const handleBulkGenerate = async (e) => {
+    e.preventDefault()
+    setBulkRunning(true)
+    try {
+      const r = await api.post('/invoices/generate-bulk', { boardingHouseId: parseInt(propertyId), month: parseInt(bulkData.month), year: parseInt(bulkData.year) })
+      setBulkResult(r.data)
+      showToast(`${r.data.created} created, ${r.data.skipped} skipped, ${r.data.failed} failed`, r.data.failed ? 'warning' : 'success')
+      fetchData()
+    } catch (err) { showToast(err.response?.data?.message || 'Bulk billing failed', 'error') }
+    finally { setBulkRunning(false) }
+  }
+  const closeBulkModal = () => { setShowBulkModal(false); setBulkResult(null) }
+
   const handlePreview = async () => {
     if (!readingsData.contractId || !readingsData.readings.length) { showToast('Fill in all fields', 'warning'); return }
     for (const r of readingsData.readings) {
@@ -165,6 +183,12 @@ const Invoices = () => {
             className="flex items-center gap-2 px-4 py-2.5 bg-emerald-600 hover:bg-emerald-700 text-white rounded-2xl font-bold text-sm shadow-lg shadow-emerald-500/25 transition-all hover:-translate-y-0.5">
             <Plus className="w-4 h-4" /> Generate with Readings
           </button>
+          {propertyId !== 'ALL' && (
+            <button onClick={() => setShowBulkModal(true)}
+              className="flex items-center gap-2 px-4 py-2.5 bg-slate-800 hover:bg-slate-900 text-white rounded-2xl font-bold text-sm shadow-lg shadow-slate-500/25 transition-all hover:-translate-y-0.5">
+              <FileText className="w-4 h-4" /> Bill Property
+            </button>
+          )}
         </div>
       </div>
 
@@ -394,6 +418,49 @@ const Invoices = () => {
         </div>
       )}
 
+      {/* Bulk Billing Modal */}
+      {showBulkModal && (
+        <div className="fixed inset-0 z-50 modal-fix bg-slate-900/50 backdrop-blur-sm p-4" onClick={closeBulkModal}>
+          <div className="bg-white w-full max-w-lg rounded-[2rem] shadow-2xl overflow-hidden animate-in fade-in zoom-in-95 duration-200" onClick={e => e.stopPropagation()}>
+            <div className="px-8 pt-7 pb-5 border-b border-slate-100 flex items-center justify-between">
+              <div className="flex items-center gap-3">
+                <div className="w-10 h-10 bg-slate-100 rounded-2xl flex items-center justify-center"><FileText className="w-5 h-5 text-slate-700" /></div>
+                <div><h2 className="text-xl font-black text-slate-900">Bill Property</h2><p className="text-xs text-slate-400 mt-0.5">One invoice per active contract; already billed contracts are skipped</p></div>
+              </div>
+              <button onClick={closeBulkModal} className="w-8 h-8 flex items-center justify-center bg-slate-100 hover:bg-slate-200 rounded-xl transition-colors"><X className="w-4 h-4 text-slate-500" /></button>
+            </div>
+            <form onSubmit={handleBulkGenerate}>
+              <div className="px-8 py-6 space-y-4">
+                <div className="grid grid-cols-2 gap-3">
+                  <Field label="Month"><input type="number" min="1" max="12" required value={bulkData.month} onChange={e => setBulkData(f => ({...f, month: e.target.value}))} className={inputCls} /></Field>
+                  <Field label="Year"><input type="number" required value={bulkData.year} onChange={e => setBulkData(f => ({...f, year: e.target.value}))} className={inputCls} /></Field>
+                </div>
+                {bulkResult && (
+                  <div className="space-y-2">
+                    <p className="text-sm font-semibold text-slate-600">
+                      {bulkResult.created} created · {bulkResult.skipped} skipped · {bulkResult.failed} failed · {fmt(bulkResult.totalAmount)} · {bulkResult.millis} ms
+                    </p>
+                    <div className="max-h-56 overflow-y-auto divide-y divide-slate-50 border border-slate-100 rounded-2xl">
+                      {bulkResult.results.map(r => (
+                        <div key={r.contractId} className="px-4 py-2 flex items-center justify-between gap-3 text-xs">
+                          <span className="font-black text-slate-700">{r.roomCode} · {r.contractCode}</span>
+                          <span className={r.status === 'CREATED' ? 'text-emerald-600 font-bold' : r.status === 'FAILED' ? 'text-rose-600 font-bold' : 'text-slate-400 font-bold'}
+                            title={r.message || ''}>{r.status === 'CREATED' ? fmt(r.totalAmount) : r.status}</span>
+                        </div>
+                      ))}
+                    </div>
+                  </div>
+                )}
+                <div className="flex justify-end gap-3 pt-4">
+                  <button type="button" onClick={closeBulkModal} className="px-6 py-2.5 rounded-2xl font-bold text-slate-600 hover:bg-slate-200 transition-colors">Close</button>
+                  <button type="submit" disabled={bulkRunning} className="px-8 py-2.5 rounded-2xl font-bold text-white bg-slate-800 hover:bg-slate-900 disabled:opacity-50 shadow-lg shadow-slate-500/20 transition-all hover:-translate-y-0.5">{bulkRunning ? 'Billing...' : 'Generate'}</button>
+                </div>
+              </div>
+            </form>
+          </div>
+        </div>
+      )}
+
       {/* Generate with Readings Modal */}
       {showReadingsModal && (
         <div className="fixed inset-0 z-50 modal-fix bg-slate-900/50 backdrop-blur-sm p-4" onClick={() => { setShowReadingsModal(false); setReadingsData({ contractId: '', month: new Date().getMonth()+1, year: new Date().getFullYear(), readings: [] }); setRoomServices([]); setShowPreview(false); setPreviewInvoice(null) }}>
@@ -112,8 +112,14 @@ const SyncFromLocal = () => {
       addLog('Gửi dữ liệu lên server để import...', 'info')
       setProgress(25)
 
-      const importRes = await api.post('/data-transfer/import', data, { skipCache: true })
-      const stats = importRes.data.imported || importRes.data
+      // The import runs as a background job on the backup queue; poll it until it finishes
+      let job = (await api.post('/data-transfer/import', data, { skipCache: true })).data
+      while (job.status === 'QUEUED' || job.status === 'IN_PROGRESS') {
+        await new Promise(resolve => setTimeout(resolve, 2000))
+        job = (await api.get(`/backup/restore-jobs/${job.jobId}`, { skipCache: true })).data
+      }
+      if (job.status !== 'SUCCESS') throw new Error(job.errorMessage || 'Import thất bại')
+      const stats = job.imported
 
       setProgress(90)
       addLog('✓ Import hoàn tất!', 'success')